@@ -282,28 +282,34 @@ public class BufferOpImage extends AreaOpImage {
         // Check if the tile is inside the geometry bound-union
         if (!hasROI || union.intersects(destRect) && !skipCalculations) {
 
-            switch (dstAccessor.getDataType()) {
-            case DataBuffer.TYPE_BYTE:
-                byteLoop(source, srcRect, srcAccessor, dstAccessor);
-                break;
-            case DataBuffer.TYPE_INT:
-                intLoop(source, srcRect, srcAccessor, dstAccessor);
-                break;
-            case DataBuffer.TYPE_SHORT:
-                shortLoop(source, srcRect, srcAccessor, dstAccessor);
-                break;
-            case DataBuffer.TYPE_USHORT:
-                ushortLoop(source, srcRect, srcAccessor, dstAccessor);
-                break;
-            case DataBuffer.TYPE_FLOAT:
-                floatLoop(source, srcRect, srcAccessor, dstAccessor);
-                break;
-            case DataBuffer.TYPE_DOUBLE:
-                doubleLoop(source, srcRect, srcAccessor, dstAccessor);
-                break;
-
-            default:
-                throw new IllegalArgumentException("Wrong data type");
+            // The sums are computed with running sums of the kernel columns, if possible, otherwise with the
+            // kernel loops
+            boolean computed = srcAccessor.getDataType() == dstAccessor.getDataType()
+                    && runningSumLoop(srcAccessor, dstAccessor);
+            if (!computed) {
+                switch (dstAccessor.getDataType()) {
+                case DataBuffer.TYPE_BYTE:
+                    byteLoop(source, srcRect, srcAccessor, dstAccessor);
+                    break;
+                case DataBuffer.TYPE_INT:
+                    intLoop(source, srcRect, srcAccessor, dstAccessor);
+                    break;
+                case DataBuffer.TYPE_SHORT:
+                    shortLoop(source, srcRect, srcAccessor, dstAccessor);
+                    break;
+                case DataBuffer.TYPE_USHORT:
+                    ushortLoop(source, srcRect, srcAccessor, dstAccessor);
+                    break;
+                case DataBuffer.TYPE_FLOAT:
+                    floatLoop(source, srcRect, srcAccessor, dstAccessor);
+                    break;
+                case DataBuffer.TYPE_DOUBLE:
+                    doubleLoop(source, srcRect, srcAccessor, dstAccessor);
+                    break;
+
+                default:
+                    throw new IllegalArgumentException("Wrong data type");
+                }
             }
 
             // If the RasterAccessor object set up a temporary buffer for the
@@ -1448,6 +1454,334 @@ public class BufferOpImage extends AreaOpImage {
         }
     }
 
+    /**
+     * Computes the buffer with running sums: for each band the sums of the kernel columns are updated by adding the source row entering the
+     * kernel and subtracting the one leaving it, and each output row is then computed by sliding the kernel over the column sums. The cost
+     * of each pixel does not depend on the kernel size. The number of samples taken into account (the valid samples, or the samples equal
+     * to the value to count) is tracked in the same way, so that the windows without valid data are set to the destination no data.
+     * Floating point sums are not computed in this way, since the small values added to a running sum are lost when a much larger value
+     * is subtracted from it: for float and double data only the counts are computed with running sums.
+     * 
+     * @return <code>false</code> if the running sums cannot be used, in which case the kernel loops must be used
+     */
+    private boolean runningSumLoop(RasterAccessor src, RasterAccessor dst) {
+        int dataType = src.getDataType();
+        if (!counter && (dataType == DataBuffer.TYPE_FLOAT || dataType == DataBuffer.TYPE_DOUBLE)) {
+            return false;
+        }
+
+        int dwidth = dst.getWidth();
+        int dheight = dst.getHeight();
+        int dnumBands = dst.getNumBands();
+
+        int dstX = dst.getX();
+        int dstY = dst.getY();
+
+        int swidth = src.getWidth();
+        if (swidth != dwidth + kWidth - 1 || src.getHeight() != dheight + kHeight - 1) {
+            return false;
+        }
+
+        double[][] columnSums = new double[dnumBands][swidth];
+        int[][] columnCounts = new int[dnumBands][swidth];
+        double[][] sums = new double[dnumBands][dwidth];
+        int[][] counts = new int[dnumBands][dwidth];
+        boolean[] inside = new boolean[dwidth];
+
+        // Columns sums of the first kernel rows
+        for (int k = 0; k < dnumBands; k++) {
+            for (int u = 0; u < kHeight - 1; u++) {
+                accumulateRow(src, k, u, columnSums[k], columnCounts[k], 1);
+            }
+        }
+
+        for (int j = 0; j < dheight; j++) {
+            for (int k = 0; k < dnumBands; k++) {
+                accumulateRow(src, k, j + kHeight - 1, columnSums[k], columnCounts[k], 1);
+                slideKernel(columnSums[k], columnCounts[k], sums[k], counts[k], dwidth);
+                accumulateRow(src, k, j, columnSums[k], columnCounts[k], -1);
+            }
+
+            int y0 = dstY + j;
+            for (int i = 0; i < dwidth; i++) {
+                int x0 = dstX + i;
+                inside[i] = !hasROI || union.contains(x0, y0) && checkInROI(y0, x0);
+            }
+
+            writeRow(dst, j, sums, counts, inside);
+        }
+        return true;
+    }
+
+    /**
+     * Adds (<code>sign</code> equal to 1) or subtracts (<code>sign</code> equal to -1) a source row to the column sums and counts. When
+     * counting, only the counts are updated. Float and double rows are accumulated only when counting.
+     */
+    private void accumulateRow(RasterAccessor src, int band, int row, double[] columnSums,
+            int[] columnCounts, int sign) {
+        int swidth = src.getWidth();
+        int srcPixelStride = src.getPixelStride();
+        int srcPixelOffset = src.getBandOffset(band) + row * src.getScanlineStride();
+
+        switch (src.getDataType()) {
+        case DataBuffer.TYPE_BYTE:
+            byte[] byteData = src.getByteDataArray(band);
+            for (int i = 0; i < swidth; i++, srcPixelOffset += srcPixelStride) {
+                int data = byteData[srcPixelOffset] & 0xFF;
+                if (hasNoData && !booleanLookupTable[data]) {
+                    continue;
+                }
+                if (!counter) {
+                    columnSums[i] += sign * data;
+                    columnCounts[i] += sign;
+                } else if ((byte) data == valueToCountB) {
+                    columnCounts[i] += sign;
+                }
+            }
+            break;
+        case DataBuffer.TYPE_USHORT:
+            short[] ushortData = src.getShortDataArray(band);
+            for (int i = 0; i < swidth; i++, srcPixelOffset += srcPixelStride) {
+                short data = ushortData[srcPixelOffset];
+                if (hasNoData && noData.contains(data)) {
+                    continue;
+                }
+                if (!counter) {
+                    columnSums[i] += sign * (data & 0xFFFF);
+                    columnCounts[i] += sign;
+                } else if (data == valueToCountS) {
+                    columnCounts[i] += sign;
+                }
+            }
+            break;
+        case DataBuffer.TYPE_SHORT:
+            short[] shortData = src.getShortDataArray(band);
+            for (int i = 0; i < swidth; i++, srcPixelOffset += srcPixelStride) {
+                short data = shortData[srcPixelOffset];
+                if (hasNoData && noData.contains(data)) {
+                    continue;
+                }
+                if (!counter) {
+                    columnSums[i] += sign * data;
+                    columnCounts[i] += sign;
+                } else if (data == valueToCountS) {
+                    columnCounts[i] += sign;
+                }
+            }
+            break;
+        case DataBuffer.TYPE_INT:
+            int[] intData = src.getIntDataArray(band);
+            for (int i = 0; i < swidth; i++, srcPixelOffset += srcPixelStride) {
+                int data = intData[srcPixelOffset];
+                if (hasNoData && noData.contains(data)) {
+                    continue;
+                }
+                if (!counter) {
+                    columnSums[i] += sign * (double) data;
+                    columnCounts[i] += sign;
+                } else if (data == valueToCountI) {
+                    columnCounts[i] += sign;
+                }
+            }
+            break;
+        case DataBuffer.TYPE_FLOAT:
+            float[] floatData = src.getFloatDataArray(band);
+            for (int i = 0; i < swidth; i++, srcPixelOffset += srcPixelStride) {
+                float data = floatData[srcPixelOffset];
+                if (hasNoData && noData.contains(data)) {
+                    continue;
+                }
+                // Only the counts, see runningSumLoop()
+                if (data == valueToCountF) {
+                    columnCounts[i] += sign;
+                }
+            }
+            break;
+        case DataBuffer.TYPE_DOUBLE:
+            double[] doubleData = src.getDoubleDataArray(band);
+            for (int i = 0; i < swidth; i++, srcPixelOffset += srcPixelStride) {
+                double data = doubleData[srcPixelOffset];
+                if (hasNoData && noData.contains(data)) {
+                    continue;
+                }
+                // Only the counts, see runningSumLoop()
+                if (data == valueToCountD) {
+                    columnCounts[i] += sign;
+                }
+            }
+            break;
+        default:
+            throw new IllegalArgumentException("Wrong data type");
+        }
+    }
+
+    /**
+     * Slides the kernel over the column sums and counts, storing the sums and counts of each output pixel.
+     */
+    private void slideKernel(double[] columnSums, int[] columnCounts, double[] sums,
+            int[] counts, int dwidth) {
+        double sum = 0;
+        int count = 0;
+        for (int v = 0; v < kWidth - 1; v++) {
+            sum += columnSums[v];
+            count += columnCounts[v];
+        }
+        for (int i = 0; i < dwidth; i++) {
+            sum += columnSums[i + kWidth - 1];
+            count += columnCounts[i + kWidth - 1];
+            sums[i] = sum;
+            counts[i] = count;
+            sum -= columnSums[i];
+            count -= columnCounts[i];
+        }
+    }
+
+    /**
+     * Writes an output row from the kernel sums and counts, with the same conversions and clamping of the kernel loops.
+     */
+    private void writeRow(RasterAccessor dst, int row, double[][] sums, int[][] counts,
+            boolean[] inside) {
+        int dwidth = dst.getWidth();
+        int dnumBands = dst.getNumBands();
+
+        int dstBandOffsets[] = dst.getBandOffsets();
+        int dstPixelStride = dst.getPixelStride();
+        int dstScanlineOffset = row * dst.getScanlineStride();
+
+        switch (dst.getDataType()) {
+        case DataBuffer.TYPE_BYTE:
+            byte dstByteArrays[][] = dst.getByteDataArrays();
+            for (int k = 0; k < dnumBands; k++) {
+                byte dstData[] = dstByteArrays[k];
+                int dstPixelOffset = dstScanlineOffset + dstBandOffsets[k];
+                for (int i = 0; i < dwidth; i++, dstPixelOffset += dstPixelStride) {
+                    if (!inside[i]) {
+                        dstData[dstPixelOffset] = destinationNoDataByte;
+                        continue;
+                    }
+                    int value = (int) ((counter ? counts[k][i] : sums[k][i]) * pixelArea);
+                    if (value < 0) {
+                        value = 0;
+                    } else if (value > 255) {
+                        value = 255;
+                    } else if (hasNoData && counts[k][i] == 0) {
+                        value = destinationNoDataByte;
+                    }
+                    dstData[dstPixelOffset] = (byte) value;
+                }
+            }
+            break;
+        case DataBuffer.TYPE_USHORT:
+            short dstUShortArrays[][] = dst.getShortDataArrays();
+            for (int k = 0; k < dnumBands; k++) {
+                short dstData[] = dstUShortArrays[k];
+                int dstPixelOffset = dstScanlineOffset + dstBandOffsets[k];
+                for (int i = 0; i < dwidth; i++, dstPixelOffset += dstPixelStride) {
+                    if (!inside[i]) {
+                        dstData[dstPixelOffset] = destinationNoDataShort;
+                        continue;
+                    }
+                    int value = (int) ((counter ? counts[k][i] : sums[k][i]) * pixelArea);
+                    if (value < 0) {
+                        value = 0;
+                    } else if (value > USHORT_MAX_VALUE) {
+                        value = USHORT_MAX_VALUE;
+                    } else if (hasNoData && counts[k][i] == 0) {
+                        value = destinationNoDataShort;
+                    }
+                    dstData[dstPixelOffset] = (short) value;
+                }
+            }
+            break;
+        case DataBuffer.TYPE_SHORT:
+            short dstShortArrays[][] = dst.getShortDataArrays();
+            for (int k = 0; k < dnumBands; k++) {
+                short dstData[] = dstShortArrays[k];
+                int dstPixelOffset = dstScanlineOffset + dstBandOffsets[k];
+                for (int i = 0; i < dwidth; i++, dstPixelOffset += dstPixelStride) {
+                    if (!inside[i]) {
+                        dstData[dstPixelOffset] = destinationNoDataShort;
+                        continue;
+                    }
+                    int value = (int) ((counter ? counts[k][i] : sums[k][i]) * pixelArea);
+                    if (value < Short.MIN_VALUE) {
+                        value = Short.MIN_VALUE;
+                    } else if (value > Short.MAX_VALUE) {
+                        value = Short.MAX_VALUE;
+                    } else if (hasNoData && counts[k][i] == 0) {
+                        value = destinationNoDataShort;
+                    }
+                    dstData[dstPixelOffset] = (short) value;
+                }
+            }
+            break;
+        case DataBuffer.TYPE_INT:
+            int dstIntArrays[][] = dst.getIntDataArrays();
+            for (int k = 0; k < dnumBands; k++) {
+                int dstData[] = dstIntArrays[k];
+                int dstPixelOffset = dstScanlineOffset + dstBandOffsets[k];
+                for (int i = 0; i < dwidth; i++, dstPixelOffset += dstPixelStride) {
+                    if (!inside[i]) {
+                        dstData[dstPixelOffset] = destinationNoDataInt;
+                        continue;
+                    }
+                    long value = (long) ((counter ? counts[k][i] : sums[k][i]) * pixelArea);
+                    if (value < Integer.MIN_VALUE) {
+                        value = Integer.MIN_VALUE;
+                    } else if (value > Integer.MAX_VALUE) {
+                        value = Integer.MAX_VALUE;
+                    } else if (hasNoData && counts[k][i] == 0) {
+                        value = destinationNoDataInt;
+                    }
+                    dstData[dstPixelOffset] = (int) value;
+                }
+            }
+            break;
+        case DataBuffer.TYPE_FLOAT:
+            float dstFloatArrays[][] = dst.getFloatDataArrays();
+            for (int k = 0; k < dnumBands; k++) {
+                float dstData[] = dstFloatArrays[k];
+                int dstPixelOffset = dstScanlineOffset + dstBandOffsets[k];
+                for (int i = 0; i < dwidth; i++, dstPixelOffset += dstPixelStride) {
+                    if (!inside[i]) {
+                        dstData[dstPixelOffset] = destinationNoDataFloat;
+                        continue;
+                    }
+                    double value = (counter ? counts[k][i] : sums[k][i]) * pixelArea;
+                    if (value < -Float.MAX_VALUE) {
+                        value = -Float.MAX_VALUE;
+                    } else if (value > Float.MAX_VALUE) {
+                        value = Float.MAX_VALUE;
+                    } else if (hasNoData && counts[k][i] == 0) {
+                        value = destinationNoDataFloat;
+                    }
+                    dstData[dstPixelOffset] = (float) value;
+                }
+            }
+            break;
+        case DataBuffer.TYPE_DOUBLE:
+            double dstDoubleArrays[][] = dst.getDoubleDataArrays();
+            for (int k = 0; k < dnumBands; k++) {
+                double dstData[] = dstDoubleArrays[k];
+                int dstPixelOffset = dstScanlineOffset + dstBandOffsets[k];
+                for (int i = 0; i < dwidth; i++, dstPixelOffset += dstPixelStride) {
+                    if (!inside[i]) {
+                        dstData[dstPixelOffset] = destinationNoDataDouble;
+                        continue;
+                    }
+                    double value = (counter ? counts[k][i] : sums[k][i]) * pixelArea;
+                    if (hasNoData && counts[k][i] == 0) {
+                        value = destinationNoDataDouble;
+                    }
+                    dstData[dstPixelOffset] = value;
+                }
+            }
+            break;
+        default:
+            throw new IllegalArgumentException("Wrong data type");
+        }
+    }
+
     private boolean checkInROI(int y0, int x0) {
         boolean contains;
         // Coordinate object creation for the spatial indexing
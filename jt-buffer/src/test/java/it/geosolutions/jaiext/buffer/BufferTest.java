@@ -30,6 +30,7 @@ import it.geosolutions.rendered.viewer.RenderedImageBrowser;
 import java.awt.Rectangle;
 import java.awt.image.ComponentSampleModel;
 import java.awt.image.DataBuffer;
+import java.awt.image.Raster;
 import java.awt.image.RenderedImage;
 import java.awt.image.SampleModel;
 import java.io.IOException;
@@ -140,6 +141,65 @@ public class BufferTest extends TestBase {
         testImage(images[5], noDataUsed);
     }
 
+    @Test
+    public void testKernelSums() {
+        // The buffer of each pixel is the number of pixels of the input square inside the kernel
+        for (int i = 0; i < DEFAULT_IMG_NUM; i++) {
+            int dataType = images[i].getSampleModel().getDataType();
+            Range noDataRange = null;
+            if (i % 2 == 1) {
+                noDataRange = dataType == DataBuffer.TYPE_FLOAT || dataType == DataBuffer.TYPE_DOUBLE ? RangeFactory
+                        .create(noDataValue, true, noDataValue, true, true) : RangeFactory.create(
+                        (int) noDataValue, true, (int) noDataValue, true);
+            }
+            RenderedOp dest = BufferDescriptor.create(images[i], extender, leftPad, rightPad,
+                    topPad, bottomPad, null, noDataRange, noDataValue, null, type, pixelArea,
+                    null);
+            Raster data = dest.getData();
+            for (int y = 0; y < DEFAULT_HEIGHT; y++) {
+                int overlapY = Math.max(0, Math.min(y + bottomPad + 1, 20) - Math.max(y - topPad, 10));
+                for (int x = 0; x < DEFAULT_WIDTH; x++) {
+                    int overlapX = Math.max(0,
+                            Math.min(x + rightPad + 1, 20) - Math.max(x - leftPad, 10));
+                    Assert.assertEquals(overlapX * overlapY * INPUT, data.getSample(x, y, 0));
+                }
+            }
+            dest.dispose();
+        }
+    }
+
+    @Test
+    public void testMixedMagnitudeSums() {
+        // A large value must not hide the small values of the kernels which do not contain it
+        int[] dataTypes = new int[] { DataBuffer.TYPE_FLOAT, DataBuffer.TYPE_DOUBLE };
+        for (int dataType : dataTypes) {
+            SampleModel sm = new ComponentSampleModel(dataType, DEFAULT_WIDTH, DEFAULT_HEIGHT, 1,
+                    DEFAULT_WIDTH, new int[] { 0 });
+            TiledImage image = new TiledImage(sm, DEFAULT_TILE_WIDTH, DEFAULT_TILE_HEIGHT);
+            for (int x = 0; x < DEFAULT_WIDTH; x++) {
+                for (int y = 0; y < DEFAULT_HEIGHT; y++) {
+                    image.setSample(x, y, 0, INPUT);
+                }
+            }
+            image.setSample(15, 15, 0, 1e20);
+
+            RenderedOp dest = BufferDescriptor.create(image, extender, leftPad, rightPad, topPad,
+                    bottomPad, null, null, noDataValue, null, dataType, pixelArea, null);
+            Raster data = dest.getData();
+            double expected = (leftPad + rightPad + 1) * (topPad + bottomPad + 1) * INPUT;
+            for (int y = topPad; y < DEFAULT_HEIGHT - bottomPad; y++) {
+                for (int x = leftPad; x < DEFAULT_WIDTH - rightPad; x++) {
+                    if (x - leftPad > 15 || x + rightPad < 15 || y - topPad > 15
+                            || y + bottomPad < 15) {
+                        Assert.assertEquals(expected, data.getSampleDouble(x, y, 0), 0);
+                    }
+                }
+            }
+            dest.dispose();
+            image.dispose();
+        }
+    }
+
     @AfterClass
     public static void finalStuff() {
         images[0].dispose();
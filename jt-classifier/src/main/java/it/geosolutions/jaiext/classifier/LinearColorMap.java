@@ -17,6 +17,7 @@
  */
 package it.geosolutions.jaiext.classifier;
 
+import it.geosolutions.jaiext.piecewise.CompiledPiecewiseTransform1D;
 import it.geosolutions.jaiext.piecewise.DefaultLinearPiecewiseTransform1DElement;
 import it.geosolutions.jaiext.piecewise.DefaultPiecewiseTransform1D;
 import it.geosolutions.jaiext.piecewise.PiecewiseTransform1DElement;
@@ -83,7 +84,7 @@ public final class LinearColorMap extends AbstractList<LinearColorMapElement> im
     /**
      * @uml.property name="colorModel"
      */
-    private IndexColorModel colorModel;
+    private volatile IndexColorModel colorModel;
 
     /**
      * @uml.property name="standardElements"
@@ -288,7 +289,14 @@ public final class LinearColorMap extends AbstractList<LinearColorMapElement> im
         return colorModel;
     }
 
-    private synchronized void initColorModel() {
+    private void initColorModel() {
+        // The lock is taken only the first time
+        if (colorModel == null) {
+            createColorModel();
+        }
+    }
+
+    private synchronized void createColorModel() {
         if (colorModel == null) {
             // /////////////////////////////////////////////////////////////////////
             //
@@ -502,6 +510,19 @@ public final class LinearColorMap extends AbstractList<LinearColorMapElement> im
         return retValue;
     }
 
+    /**
+     * Returns the compiled form of this color map, searching the pre-filtering elements first as done by {@link #findDomainElement(double)}.
+     * 
+     * @return the compiled transformation, or null if it cannot be compiled
+     */
+    public CompiledPiecewiseTransform1D compile() {
+        initColorModel();
+        if (this.preFilteringElements != null) {
+            return CompiledPiecewiseTransform1D.create(preFilteringPiecewise, piecewise);
+        }
+        return CompiledPiecewiseTransform1D.create(piecewise);
+    }
+
     public LinearColorMapElement[] getDomainElements() {
         return (LinearColorMapElement[]) this.standardElements.clone();
     }
@@ -17,7 +17,9 @@
  */
 package it.geosolutions.jaiext.classifier;
 
+import it.geosolutions.jaiext.piecewise.CompiledPiecewiseTransform1D;
 import it.geosolutions.jaiext.piecewise.GenericPiecewiseOpImage;
+import it.geosolutions.jaiext.piecewise.PiecewiseTransform1D;
 import it.geosolutions.jaiext.range.Range;
 
 import java.awt.RenderingHints;
@@ -51,6 +53,17 @@ public class RasterClassifierOpImage<T extends ColorMapTransformElement> extends
         this.isByteData = false;
     }
 
+    /**
+     * Compiles the {@link LinearColorMap} together with its pre-filtering elements
+     */
+    @Override
+    protected CompiledPiecewiseTransform1D compile(PiecewiseTransform1D<T> piecewise) {
+        if (piecewise instanceof LinearColorMap) {
+            return ((LinearColorMap) piecewise).compile();
+        }
+        return super.compile(piecewise);
+    }
+
     /**
      * Prepare the {@link RenderingHints} for the final image disabling direct colormap operations
      * 
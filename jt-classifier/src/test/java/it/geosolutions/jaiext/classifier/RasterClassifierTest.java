@@ -21,6 +21,8 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
+import it.geosolutions.jaiext.piecewise.CompiledPiecewiseTransform1D;
+import it.geosolutions.jaiext.piecewise.PiecewiseTransform1D;
 import it.geosolutions.jaiext.piecewise.TransformationException;
 import it.geosolutions.jaiext.range.RangeFactory;
 import it.geosolutions.jaiext.testclasses.TestBase;
@@ -303,6 +305,58 @@ public class RasterClassifierTest extends TestBase {
         }
     }
 
+    /**
+     * Test comparing the compiled color maps with the search of the domain element of each sample, for all the data types.
+     */
+    @Test
+    public void testCompiledColorMap() {
+        // Pre-filtering nodata overlapping the first category and a gap between the last two categories
+        final LinearColorMapElement c0 = LinearColorMapElement.create("c0", Color.green,
+                RangeFactory.create(Double.NEGATIVE_INFINITY, 50.0), 51);
+        final LinearColorMapElement c1 = LinearColorMapElement.create("c1", Color.yellow,
+                RangeFactory.create(50.0, false, 150.0, true), 1);
+        final LinearColorMapElement c2 = LinearColorMapElement.create("c2", Color.red,
+                RangeFactory.create(200.0, false, 400.0, true), 2);
+        final LinearColorMapElement nodata = LinearColorMapElement.create("nodata", Color.red,
+                RangeFactory.create(20.0, 20.0), 4);
+        final LinearColorMap gapMap = new LinearColorMap("testGap", new LinearColorMapElement[] {
+                c0, c1, c2 }, new LinearColorMapElement[] { nodata }, new Color(0, 0, 0, 0));
+
+        final int[] dataTypes = new int[] { DataBuffer.TYPE_BYTE, DataBuffer.TYPE_USHORT,
+                DataBuffer.TYPE_SHORT, DataBuffer.TYPE_INT, DataBuffer.TYPE_FLOAT,
+                DataBuffer.TYPE_DOUBLE };
+        for (int dataType : dataTypes) {
+            final RenderedImage image = getSyntheticImage(dataType);
+            checkCompiledColorMap(image, buildCategories());
+            checkCompiledColorMap(image, gapMap);
+        }
+    }
+
+    /**
+     * Compares the classification done with the compiled color map with the one of an image whose color map is not compiled.
+     */
+    private void checkCompiledColorMap(RenderedImage image, LinearColorMap list) {
+        final RasterClassifierOpImage<LinearColorMapElement> compiled = new RasterClassifierOpImage<LinearColorMapElement>(
+                image, list, null, new Integer(0), null, null, null);
+        final RasterClassifierOpImage<LinearColorMapElement> general = new RasterClassifierOpImage<LinearColorMapElement>(
+                image, list, null, new Integer(0), null, null, null) {
+            @Override
+            protected CompiledPiecewiseTransform1D compile(
+                    PiecewiseTransform1D<LinearColorMapElement> transform) {
+                return null;
+            }
+        };
+        final Raster expected = general.getData();
+        final Raster actual = compiled.getData();
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                assertEquals(expected.getSample(x, y, 0), actual.getSample(x, y, 0));
+            }
+        }
+        compiled.dispose();
+        general.dispose();
+    }
+
     /**
      * Spearfish test-case.
      * 
@@ -563,4 +617,33 @@ public class RasterClassifierTest extends TestBase {
         final BufferedImage image = new BufferedImage(cm, raster, false, null);
         return image;
     }
+
+    /**
+     * Building a synthetic image whose values fall in all the categories used by the tests.
+     * 
+     * @return {@linkplain RenderedImage}
+     */
+    private RenderedImage getSyntheticImage(int dataType) {
+        final SampleModel sm = RasterFactory.createBandedSampleModel(dataType, 64, 64, 1);
+        final TiledImage image = new TiledImage(sm, 32, 32);
+        for (int y = 0; y < 64; y++) {
+            for (int x = 0; x < 64; x++) {
+                int value = (x * 37 + y * 101) % 1100 - 20;
+                if (dataType == DataBuffer.TYPE_BYTE) {
+                    value = Math.abs(value) % 256;
+                } else if (dataType == DataBuffer.TYPE_USHORT) {
+                    value = Math.abs(value);
+                }
+                if (dataType == DataBuffer.TYPE_FLOAT || dataType == DataBuffer.TYPE_DOUBLE) {
+                    image.setSample(x, y, 0, value + ((x + y) % 2) * 0.5);
+                } else {
+                    image.setSample(x, y, 0, value);
+                }
+            }
+        }
+        if (dataType == DataBuffer.TYPE_FLOAT || dataType == DataBuffer.TYPE_DOUBLE) {
+            image.setSample(3, 3, 0, Double.NaN);
+        }
+        return image;
+    }
 }
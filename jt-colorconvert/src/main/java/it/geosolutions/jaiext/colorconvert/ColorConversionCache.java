@@ -0,0 +1,132 @@
+/* JAI-Ext - OpenSource Java Advanced Image Extensions Library
+*    http://www.geo-solutions.it/
+*    Copyright 2014 GeoSolutions
+
+
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+
+* http://www.apache.org/licenses/LICENSE-2.0
+
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package it.geosolutions.jaiext.colorconvert;
+
+import java.awt.color.ColorSpace;
+import java.lang.ref.SoftReference;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Bounded cache of the color conversion objects shared by the {@link ColorConvertOpImage} instances, keyed by the source and destination color
+ * spaces. The lookups never lock, the values are softly referenced and when the maximum size is exceeded arbitrary entries are evicted.
+ * 
+ * @param <T> the cached conversion type
+ */
+final class ColorConversionCache<T> {
+
+    /** Cached conversions */
+    private final ConcurrentMap<Key, SoftReference<T>> conversions;
+
+    /** Maximum number of cached conversions */
+    private final int maxSize;
+
+    ColorConversionCache(int maxSize) {
+        this.maxSize = maxSize;
+        this.conversions = new ConcurrentHashMap<Key, SoftReference<T>>();
+    }
+
+    /** Returns the cached conversion between the two color spaces, or null if it is not present */
+    T get(ColorSpace src, ColorSpace dst) {
+        Key key = new Key(src, dst);
+        SoftReference<T> ref = conversions.get(key);
+        if (ref == null) {
+            return null;
+        }
+        T value = ref.get();
+        if (value == null) {
+            // Cleared by the garbage collector
+            conversions.remove(key, ref);
+        }
+        return value;
+    }
+
+    /**
+     * Adds a conversion between the two color spaces; if another thread has already added a conversion for the same color spaces, that one is
+     * returned and should be used instead of the input one.
+     */
+    T put(ColorSpace src, ColorSpace dst, T value) {
+        Key key = new Key(src, dst);
+        SoftReference<T> ref = new SoftReference<T>(value);
+        while (true) {
+            SoftReference<T> previous = conversions.putIfAbsent(key, ref);
+            if (previous == null) {
+                evict(key);
+                return value;
+            }
+            T cached = previous.get();
+            if (cached != null) {
+                return cached;
+            }
+            if (conversions.replace(key, previous, ref)) {
+                return value;
+            }
+        }
+    }
+
+    /** Removes the conversions exceeding the maximum size, preserving the last added one */
+    private void evict(Key added) {
+        Iterator<Key> keys = conversions.keySet().iterator();
+        while (conversions.size() > maxSize && keys.hasNext()) {
+            if (!added.equals(keys.next())) {
+                keys.remove();
+            }
+        }
+    }
+
+    /** Removes all the cached conversions */
+    void clear() {
+        conversions.clear();
+    }
+
+    /** Number of cached conversions */
+    int size() {
+        return conversions.size();
+    }
+
+    /**
+     * Key composed by the source and destination color spaces
+     */
+    private static final class Key {
+
+        private final ColorSpace src;
+
+        private final ColorSpace dst;
+
+        Key(ColorSpace src, ColorSpace dst) {
+            this.src = src;
+            this.dst = dst;
+        }
+
+        public int hashCode() {
+            return 31 * src.hashCode() + dst.hashCode();
+        }
+
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return src.equals(other.src) && dst.equals(other.dst);
+        }
+    }
+}
@@ -0,0 +1,284 @@
+/* JAI-Ext - OpenSource Java Advanced Image Extensions Library
+*    http://www.geo-solutions.it/
+*    Copyright 2014 GeoSolutions
+
+
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+
+* http://www.apache.org/licenses/LICENSE-2.0
+
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package it.geosolutions.jaiext.colorconvert;
+
+import java.awt.Point;
+import java.awt.image.Raster;
+import java.awt.image.SampleModel;
+import java.awt.image.WritableRaster;
+
+import javax.media.jai.RasterAccessor;
+import javax.media.jai.RasterFactory;
+
+/**
+ * Precomputed 3D lookup table converting 3 bands byte pixels between two color spaces. The table stores the converted values of a regular grid of
+ * {@link #GRID_SIZE}<sup>3</sup> source pixels and the other pixels are converted with a tetrahedral interpolation between the 4 nearest grid
+ * points.
+ * <p>
+ * The grid is converted by the caller with the exact conversion. The interpolation error is then measured on a dense sample of
+ * {@link #SAMPLE_SIZE}<sup>3</sup> source pixels, spread over the whole byte cube: strongly non-linear conversions (e.g. steep gamma curves
+ * near black) are reported as not accurate by {@link #isAccurate()} and should not use the table. Since the sample does not contain all the
+ * byte pixels, a few pixels outside it may differ slightly more than {@link #MAX_ERROR}.
+ */
+final class ColorConvertLUT {
+
+    /** Number of grid points for each band */
+    static final int GRID_SIZE = 33;
+
+    /** Maximum difference allowed between the interpolated and the exact conversion of the sample pixels */
+    static final int MAX_ERROR = 1;
+
+    /** Number of sample values for each band, used for measuring the interpolation error */
+    static final int SAMPLE_SIZE = 64;
+
+    /** Number of bands */
+    private static final int NUM_BANDS = 3;
+
+    /** Table offset between two grid points along the first band */
+    private static final int STRIDE_0 = GRID_SIZE * GRID_SIZE * NUM_BANDS;
+
+    /** Table offset between two grid points along the second band */
+    private static final int STRIDE_1 = GRID_SIZE * NUM_BANDS;
+
+    /** Table offset between two grid points along the third band */
+    private static final int STRIDE_2 = NUM_BANDS;
+
+    /** Sample values of the grid points */
+    private static final int[] NODES = new int[GRID_SIZE];
+
+    /** Index of the grid cell containing each byte value */
+    private static final int[] CELL = new int[256];
+
+    /** Position of each byte value inside its grid cell, from 0 to 256 */
+    private static final int[] WEIGHT = new int[256];
+
+    static {
+        for (int i = 0; i < GRID_SIZE; i++) {
+            NODES[i] = (int) Math.round(i * 255d / (GRID_SIZE - 1));
+        }
+        int cell = 0;
+        for (int v = 0; v < 256; v++) {
+            while (cell < GRID_SIZE - 2 && NODES[cell + 1] <= v) {
+                cell++;
+            }
+            int size = NODES[cell + 1] - NODES[cell];
+            CELL[v] = cell;
+            WEIGHT[v] = (((v - NODES[cell]) << 8) + size / 2) / size;
+        }
+    }
+
+    /** Converted values of the grid points */
+    private final int[] table;
+
+    /** Boolean indicating if the interpolation error is within {@link #MAX_ERROR} */
+    private final boolean accurate;
+
+    /**
+     * Creates a new table.
+     * 
+     * @param grid the raster created by {@link #createGrid(SampleModel)}, converted in the destination color space
+     * @param sample the raster created by {@link #createSample(SampleModel)}
+     * @param convertedSample the sample raster converted in the destination color space
+     */
+    ColorConvertLUT(Raster grid, Raster sample, Raster convertedSample) {
+        table = grid.getPixels(grid.getMinX(), grid.getMinY(), grid.getWidth(), 1, (int[]) null);
+
+        // Check of the interpolation error
+        int width = sample.getWidth();
+        int[] source = sample.getPixels(sample.getMinX(), sample.getMinY(), width, 1,
+                (int[]) null);
+        int[] expected = convertedSample.getPixels(convertedSample.getMinX(),
+                convertedSample.getMinY(), width, 1, (int[]) null);
+        int[] pixel = new int[NUM_BANDS];
+        int maxError = 0;
+        for (int i = 0; i < source.length; i += NUM_BANDS) {
+            lookup(source[i], source[i + 1], source[i + 2], pixel);
+            for (int b = 0; b < NUM_BANDS; b++) {
+                maxError = Math.max(maxError, Math.abs(pixel[b] - expected[i + b]));
+            }
+        }
+        accurate = maxError <= MAX_ERROR;
+    }
+
+    /**
+     * Creates a raster containing the grid points as a single row of pixels.
+     * 
+     * @param sm the sample model of the source image
+     */
+    static WritableRaster createGrid(SampleModel sm) {
+        return createRaster(sm, NODES);
+    }
+
+    /**
+     * Creates a raster containing the pixels used for measuring the interpolation error as a single row of pixels. The sample values of each
+     * band are evenly spaced and fall between the grid points.
+     * 
+     * @param sm the sample model of the source image
+     */
+    static WritableRaster createSample(SampleModel sm) {
+        int step = 256 / SAMPLE_SIZE;
+        int[] values = new int[SAMPLE_SIZE];
+        for (int i = 0; i < SAMPLE_SIZE; i++) {
+            values[i] = i * step + step / 2;
+        }
+        return createRaster(sm, values);
+    }
+
+    /** Creates a raster containing all the combinations of the selected band values as a single row of pixels */
+    private static WritableRaster createRaster(SampleModel sm, int[] values) {
+        int size = values.length;
+        WritableRaster raster = RasterFactory.createWritableRaster(
+                sm.createCompatibleSampleModel(size * size * size, 1), new Point(0, 0));
+        int[] pixel = new int[NUM_BANDS];
+        int x = 0;
+        for (int i = 0; i < size; i++) {
+            pixel[0] = values[i];
+            for (int j = 0; j < size; j++) {
+                pixel[1] = values[j];
+                for (int k = 0; k < size; k++) {
+                    pixel[2] = values[k];
+                    raster.setPixel(x++, 0, pixel);
+                }
+            }
+        }
+        return raster;
+    }
+
+    /** Indicates if the table can replace the exact conversion */
+    boolean isAccurate() {
+        return accurate;
+    }
+
+    /**
+     * Converts the source pixels into the destination ones; source and destination may share the same data, as in the in-place operations.
+     */
+    void filter(RasterAccessor src, RasterAccessor dst) {
+        int width = dst.getWidth();
+        int height = dst.getHeight();
+
+        byte[][] srcData = src.getByteDataArrays();
+        int[] srcOffsets = src.getBandOffsets();
+        int srcPixelStride = src.getPixelStride();
+        int srcLineStride = src.getScanlineStride();
+        byte[] s0 = srcData[0];
+        byte[] s1 = srcData[1];
+        byte[] s2 = srcData[2];
+
+        byte[][] dstData = dst.getByteDataArrays();
+        int[] dstOffsets = dst.getBandOffsets();
+        int dstPixelStride = dst.getPixelStride();
+        int dstLineStride = dst.getScanlineStride();
+        byte[] d0 = dstData[0];
+        byte[] d1 = dstData[1];
+        byte[] d2 = dstData[2];
+
+        int[] pixel = new int[NUM_BANDS];
+
+        int srcLineOffset = 0;
+        int dstLineOffset = 0;
+        for (int y = 0; y < height; y++) {
+            int srcPixelOffset = srcLineOffset;
+            int dstPixelOffset = dstLineOffset;
+            srcLineOffset += srcLineStride;
+            dstLineOffset += dstLineStride;
+            for (int x = 0; x < width; x++) {
+                lookup(s0[srcPixelOffset + srcOffsets[0]] & 0xff,
+                        s1[srcPixelOffset + srcOffsets[1]] & 0xff,
+                        s2[srcPixelOffset + srcOffsets[2]] & 0xff, pixel);
+                d0[dstPixelOffset + dstOffsets[0]] = (byte) pixel[0];
+                d1[dstPixelOffset + dstOffsets[1]] = (byte) pixel[1];
+                d2[dstPixelOffset + dstOffsets[2]] = (byte) pixel[2];
+                srcPixelOffset += srcPixelStride;
+                dstPixelOffset += dstPixelStride;
+            }
+        }
+
+        if (dst.isDataCopy()) {
+            dst.clampDataArrays();
+            dst.copyDataToRaster();
+        }
+    }
+
+    /**
+     * Tetrahedral interpolation of the input pixel. The grid cell is split in 6 tetrahedra sharing its diagonal; the one containing the pixel is
+     * found by sorting the positions inside the cell and the pixel is interpolated along the path of the cell edges going from the first corner
+     * to the last one.
+     */
+    private void lookup(int v0, int v1, int v2, int[] pixel) {
+        int w0 = WEIGHT[v0];
+        int w1 = WEIGHT[v1];
+        int w2 = WEIGHT[v2];
+        int base = CELL[v0] * STRIDE_0 + CELL[v1] * STRIDE_1 + CELL[v2] * STRIDE_2;
+
+        // Weights and strides sorted by decreasing weight
+        int wa, wb, wc, sa, sb;
+        if (w0 >= w1) {
+            if (w1 >= w2) {
+                wa = w0;
+                wb = w1;
+                wc = w2;
+                sa = STRIDE_0;
+                sb = STRIDE_1;
+            } else if (w0 >= w2) {
+                wa = w0;
+                wb = w2;
+                wc = w1;
+                sa = STRIDE_0;
+                sb = STRIDE_2;
+            } else {
+                wa = w2;
+                wb = w0;
+                wc = w1;
+                sa = STRIDE_2;
+                sb = STRIDE_0;
+            }
+        } else {
+            if (w2 >= w1) {
+                wa = w2;
+                wb = w1;
+                wc = w0;
+                sa = STRIDE_2;
+                sb = STRIDE_1;
+            } else if (w2 >= w0) {
+                wa = w1;
+                wb = w2;
+                wc = w0;
+                sa = STRIDE_1;
+                sb = STRIDE_2;
+            } else {
+                wa = w1;
+                wb = w0;
+                wc = w2;
+                sa = STRIDE_1;
+                sb = STRIDE_0;
+            }
+        }
+
+        int p0 = base;
+        int p1 = p0 + sa;
+        int p2 = p1 + sb;
+        int p3 = base + STRIDE_0 + STRIDE_1 + STRIDE_2;
+        for (int b = 0; b < NUM_BANDS; b++) {
+            int c0 = table[p0 + b];
+            int c1 = table[p1 + b];
+            int c2 = table[p2 + b];
+            int c3 = table[p3 + b];
+            pixel[b] = ((c0 << 8) + wa * (c1 - c0) + wb * (c2 - c1) + wc * (c3 - c2) + 128) >> 8;
+        }
+    }
+}
@@ -28,9 +28,6 @@ import java.awt.image.Raster;
 import java.awt.image.RenderedImage;
 import java.awt.image.SampleModel;
 import java.awt.image.WritableRaster;
-import java.lang.ref.SoftReference;
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -42,7 +39,9 @@ import javax.media.jai.PlanarImage;
 import javax.media.jai.PointOpImage;
 import javax.media.jai.ROI;
 import javax.media.jai.ROIShape;
+import javax.media.jai.RasterAccessor;
 import javax.media.jai.RasterFactory;
+import javax.media.jai.RasterFormatTag;
 import javax.media.jai.iterator.RandomIter;
 
 import com.sun.media.jai.util.ImageUtil;
@@ -67,8 +66,22 @@ public class ColorConvertOpImage extends PointOpImage {
     /** Cache a rgb color space */
     private static final ColorSpace rgbColorSpace = ColorSpace.getInstance(ColorSpace.CS_sRGB);
 
-    /** SoftReference used for caching the {@link ColorConvertOp} instances */
-    private static SoftReference softRef = null;
+    /** Maximum number of cached conversions between two color spaces */
+    private static final int MAX_CACHED_CONVERSIONS = 64;
+
+    /** Cache of the {@link ColorConvertOp} instances */
+    private static final ColorConversionCache<ColorConvertOp> OP_CACHE = new ColorConversionCache<ColorConvertOp>(
+            MAX_CACHED_CONVERSIONS);
+
+    /** Cache of the {@link ColorConvertLUT} instances for the byte conversions */
+    private static final ColorConversionCache<ColorConvertLUT> LUT_CACHE = new ColorConversionCache<ColorConvertLUT>(
+            MAX_CACHED_CONVERSIONS);
+
+    /**
+     * System property enabling the {@link ColorConvertLUT} for the 3 bands byte conversions. The table is approximate, so it is used only if
+     * this property is set to true.
+     */
+    static final String LUT_PROPERTY = "JAI.Ext.ColorConvert.LUT";
 
     /** The source image parameters */
     private ImageParameters srcParam = null;
@@ -121,32 +134,25 @@ public class ColorConvertOpImage extends PointOpImage {
     /** Array containing the value to set on the backgroud if the input tile is outside ROI */
     private double[] background;
 
+    /** Lookup table used for the 3 bands byte conversions without ROI and NoData, if accurate enough */
+    private ColorConvertLUT lut;
+
+    /** Format tags of the source and destination images, used with the lookup table */
+    private RasterFormatTag[] lutFormatTags;
+
     /**
-     * Retrive/cache the ColorConvertOp. Because instantiate a ColorConvertOp is a time-consuming step, create a hashtable referred to by a
-     * SoftReference to cache the ColorConvertOp for using repeatedly.
+     * Retrive/cache the ColorConvertOp. Because instantiate a ColorConvertOp is a time-consuming step, the ColorConvertOp instances are stored
+     * inside a concurrent cache for using repeatedly.
      * 
      * @param src the color space of the source image dst the color space of the destination image
      * @return The ColorConvertOp to convert from the source color space to the destination color space.
      */
-    private static synchronized ColorConvertOp getColorConvertOp(ColorSpace src, ColorSpace dst) {
-        HashMap colorConvertOpBuf = null;
-        // Create the cache
-        if (softRef == null || ((colorConvertOpBuf = (HashMap) softRef.get()) == null)) {
-
-            colorConvertOpBuf = new HashMap();
-            softRef = new SoftReference(colorConvertOpBuf);
-        }
-        // Check if the operation is in cache
-        ArrayList hashcode = new ArrayList(2);
-        hashcode.add(0, src);
-        hashcode.add(1, dst);
-        ColorConvertOp op = (ColorConvertOp) colorConvertOpBuf.get(hashcode);
+    private static ColorConvertOp getColorConvertOp(ColorSpace src, ColorSpace dst) {
+        ColorConvertOp op = OP_CACHE.get(src, dst);
         // Add the operation to the cache
         if (op == null) {
-            op = new ColorConvertOp(src, dst, null);
-            colorConvertOpBuf.put(hashcode, op);
+            op = OP_CACHE.put(src, dst, new ColorConvertOp(src, dst, null));
         }
-
         return op;
     }
 
@@ -346,6 +352,21 @@ public class ColorConvertOpImage extends PointOpImage {
             }
         }
 
+        // Lookup table for the byte conversions
+        if (Boolean.getBoolean(LUT_PROPERTY) && caseA && isLUTCompatible()) {
+            ColorSpace src = srcParam.getColorModel().getColorSpace();
+            ColorSpace dst = dstParam.getColorModel().getColorSpace();
+            ColorConvertLUT table = LUT_CACHE.get(src, dst);
+            if (table == null) {
+                table = LUT_CACHE.put(src, dst, createLUT());
+            }
+            if (table.isAccurate()) {
+                lut = table;
+                lutFormatTags = RasterAccessor.findCompatibleTags(new RenderedImage[] { source },
+                        this);
+            }
+        }
+
         // Set flag to permit in-place operation.
         permitInPlaceOperation();
     }
@@ -358,8 +379,6 @@ public class ColorConvertOpImage extends PointOpImage {
      * @param destRect The rectangle within the tile to be computed.
      */
     protected void computeRect(Raster[] sources, WritableRaster dest, Rectangle destRect) {
-        WritableRaster tempRas = null;
-
         // Save a reference to the source Raster.
         Raster source = sources[0];
 
@@ -369,6 +388,16 @@ public class ColorConvertOpImage extends PointOpImage {
                     destRect.x, destRect.y, null);
         }
 
+        // Lookup table conversion
+        if (lut != null) {
+            RasterAccessor src = new RasterAccessor(source, destRect, lutFormatTags[0],
+                    getSourceImage(0).getColorModel());
+            RasterAccessor dst = new RasterAccessor(dest, destRect, lutFormatTags[1],
+                    getColorModel());
+            lut.filter(src, dst);
+            return;
+        }
+
         // ROI check
         ROI roiTile = null;
 
@@ -400,6 +429,13 @@ public class ColorConvertOpImage extends PointOpImage {
             }
         }
 
+        convert(source, dest, destRect, roiDisjointTile, roiContainsTile, roiIter);
+    }
+
+    // Converts the source raster in the destination color space, depending on the case number
+    private void convert(Raster source, WritableRaster dest, Rectangle destRect,
+            boolean roiDisjointTile, boolean roiContainsTile, RandomIter roiIter) {
+        WritableRaster tempRas = null;
         switch (caseNumber) {
         // 1. When source and destination color spaces are all ColorSpaceJAI,
         // convert via RGB color space
@@ -701,6 +737,57 @@ public class ColorConvertOpImage extends PointOpImage {
         }
     }
 
+    // Check if the conversion is between 3 bands byte images with 8 bits components. A destination ColorSpaceJAI
+    // is excluded because the IHS hue is not continuous and cannot be interpolated.
+    private boolean isLUTCompatible() {
+        if (srcParam.getDataType() != DataBuffer.TYPE_BYTE
+                || dstParam.getDataType() != DataBuffer.TYPE_BYTE
+                || srcParam.getSampleModel().getNumBands() != 3
+                || dstParam.getSampleModel().getNumBands() != 3
+                || dstParam.getColorModel().getColorSpace() instanceof ColorSpaceJAI) {
+            return false;
+        }
+        int[] srcSizes = srcParam.getComponentSize();
+        int[] dstSizes = dstParam.getComponentSize();
+        if (srcSizes.length != 3 || dstSizes.length != 3) {
+            return false;
+        }
+        for (int i = 0; i < 3; i++) {
+            if (srcSizes[i] != 8 || dstSizes[i] != 8) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Indicates if the tiles are converted with the lookup table
+    boolean isLUTUsed() {
+        return lut != null;
+    }
+
+    // Create the lookup table by converting its grid and the sample used for
+    // measuring its error with the exact conversion
+    private ColorConvertLUT createLUT() {
+        SampleModel srcSM = srcParam.getSampleModel();
+        WritableRaster grid = ColorConvertLUT.createGrid(srcSM);
+        WritableRaster convertedGrid = createDestRaster(grid);
+        convert(grid, convertedGrid, grid.getBounds(), false, false, null);
+
+        WritableRaster sample = ColorConvertLUT.createSample(srcSM);
+        WritableRaster convertedSample = createDestRaster(sample);
+        convert(sample, convertedSample, sample.getBounds(), false, false, null);
+
+        return new ColorConvertLUT(convertedGrid, sample, convertedSample);
+    }
+
+    // Create a WritableRaster with the destination SampleModel and the same
+    // bounds of the passed Raster parameter.
+    private WritableRaster createDestRaster(Raster src) {
+        Point origin = new Point(src.getMinX(), src.getMinY());
+        return RasterFactory.createWritableRaster(
+                sampleModel.createCompatibleSampleModel(src.getWidth(), src.getHeight()), origin);
+    }
+
     // Back up the destination parameters. Set the destination to the
     // bridge color space RGB.
     private ImageParameters createTempParam() {
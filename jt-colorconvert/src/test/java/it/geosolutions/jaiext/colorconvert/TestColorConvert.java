@@ -18,6 +18,11 @@
 package it.geosolutions.jaiext.colorconvert;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 import java.awt.Color;
 import java.awt.Graphics2D;
@@ -26,14 +31,17 @@ import java.awt.RenderingHints;
 import java.awt.Transparency;
 import java.awt.color.ColorSpace;
 import java.awt.image.BufferedImage;
+import java.awt.image.ColorConvertOp;
 import java.awt.image.ColorModel;
 import java.awt.image.ComponentColorModel;
 import java.awt.image.DataBuffer;
+import java.awt.image.Raster;
 import java.awt.image.RenderedImage;
 import java.awt.image.WritableRaster;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.util.Random;
 
 import javax.media.jai.ColorSpaceJAI;
 import javax.media.jai.IHSColorSpace;
@@ -451,6 +459,86 @@ public class TestColorConvert extends TestBase {
         assertEquals(128, pixel[2]);
     }
 
+    @Test
+    public void testByteLookupTable() {
+        // create a random RGB image
+        BufferedImage bi = new BufferedImage(256, 256, BufferedImage.TYPE_3BYTE_BGR);
+        WritableRaster raster = bi.getRaster();
+        Random random = new Random(0);
+        for (int y = 0; y < bi.getHeight(); y++) {
+            for (int x = 0; x < bi.getWidth(); x++) {
+                for (int b = 0; b < 3; b++) {
+                    raster.setSample(x, y, b, random.nextInt(256));
+                }
+            }
+        }
+
+        // create a PYCC color model
+        ColorSpace pycc = ColorSpace.getInstance(ColorSpace.CS_PYCC);
+        final ColorModel cm = new ComponentColorModel(pycc, false, false, Transparency.OPAQUE,
+                DataBuffer.TYPE_BYTE);
+
+        // set the destination image layout
+        final ImageLayout2 il = new ImageLayout2(bi);
+        il.setColorModel(cm);
+        il.setSampleModel(cm.createCompatibleSampleModel(bi.getWidth(), bi.getHeight()));
+        RenderingHints ri = new RenderingHints(JAI.KEY_IMAGE_LAYOUT, il);
+
+        // perform the conversion
+        ParameterBlockJAI pbj = new ParameterBlockJAI("ColorConvert");
+        pbj.addSource(bi);
+        pbj.setParameter("colorModel", cm);
+
+        // the lookup table is used only if enabled
+        RenderedOp exact = JAI.create("ColorConvert", pbj, ri);
+        assertFalse(((ColorConvertOpImage) exact.getRendering()).isLUTUsed());
+        exact.dispose();
+
+        RenderedOp finalimage;
+        System.setProperty(ColorConvertOpImage.LUT_PROPERTY, "true");
+        try {
+            finalimage = JAI.create("ColorConvert", pbj, ri);
+            assertTrue(((ColorConvertOpImage) finalimage.getRendering()).isLUTUsed());
+        } finally {
+            System.clearProperty(ColorConvertOpImage.LUT_PROPERTY);
+        }
+
+        // the lookup table must be close to the Java2D conversion
+        WritableRaster expected = cm.createCompatibleWritableRaster(bi.getWidth(), bi.getHeight());
+        new ColorConvertOp(bi.getColorModel().getColorSpace(), pycc, null).filter(raster, expected);
+        Raster result = finalimage.getData();
+        for (int y = 0; y < bi.getHeight(); y++) {
+            for (int x = 0; x < bi.getWidth(); x++) {
+                for (int b = 0; b < 3; b++) {
+                    assertEquals(expected.getSample(x, y, b), result.getSample(x, y, b),
+                            ColorConvertLUT.MAX_ERROR);
+                }
+            }
+        }
+        finalimage.dispose();
+    }
+
+    @Test
+    public void testConversionCache() {
+        ColorConversionCache<Object> cache = new ColorConversionCache<Object>(2);
+        ColorSpace srgb = ColorSpace.getInstance(ColorSpace.CS_sRGB);
+        ColorSpace linear = ColorSpace.getInstance(ColorSpace.CS_LINEAR_RGB);
+        ColorSpace pycc = ColorSpace.getInstance(ColorSpace.CS_PYCC);
+
+        Object first = new Object();
+        assertSame(first, cache.put(srgb, linear, first));
+        // the conversion added first is kept
+        assertSame(first, cache.put(srgb, linear, new Object()));
+        assertSame(first, cache.get(srgb, linear));
+        assertNull(cache.get(linear, srgb));
+
+        // the cache is bounded
+        cache.put(linear, srgb, new Object());
+        cache.put(srgb, pycc, new Object());
+        assertEquals(2, cache.size());
+        assertNotNull(cache.get(srgb, pycc));
+    }
+
     /**
      * Reading an image based on Spearfish data.
      * 
@@ -23,11 +23,9 @@ import java.awt.image.DataBuffer;
 import java.awt.image.Raster;
 import java.awt.image.RenderedImage;
 import java.lang.ref.WeakReference;
-import java.math.BigInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import javax.media.jai.CachedTile;
-import javax.media.jai.PlanarImage;
-import javax.media.jai.remote.SerializableRenderedImage;
 
 /**
  * This class is used by ConcurrentTileCache to create an object that includes all the information associated with a tile, and is put into the cache.
@@ -35,9 +33,9 @@ import javax.media.jai.remote.SerializableRenderedImage;
 public final class CachedTileImpl implements CachedTile {
     
     /*
-     * The shallow size of this object, the weak reference, the typical big integer keys
+     * The shallow size of this object, the weak reference, the tile key and the image key
      */
-    private static final long CACHED_TILE_OVERHEAD = 64 + 32 + 96 + 96;
+    private static final long CACHED_TILE_OVERHEAD = 64 + 32 + 32 + 16;
 
     final Raster tile; // the tile
 
@@ -51,14 +49,19 @@ public final class CachedTileImpl implements CachedTile {
 
     private long timeStamp; // the last time this tile is accessed (if diagnosticEnable==false it is set only at the creation time)
 
-    final Object key; // the key used to hash this tile
+    final TileKey key; // the key used to hash this tile
     
-    private final Object imageKey; // Key of the associated image
+    private final Long imageKey; // Key of the associated image
 
     final long tileSize; // the memory of this tile in bytes
 
     private Actions action; // every action done by the tile cache
 
+    // priority entry used by the GreedyDual-Size eviction policy
+    final AtomicReference<GreedyDualSizeEviction.Entry> evictionEntry = new AtomicReference<GreedyDualSizeEviction.Entry>();
+
+    volatile boolean evicted; // true if the tile has been evicted by the cost aware eviction policy
+
     /**
      * Constructor that takes a tile cache metric
      * 
@@ -74,9 +77,9 @@ public final class CachedTileImpl implements CachedTile {
 
         this.tileCacheMetric = tileCacheMetric; // may be null
 
-        key = hashKey(owner, tileX, tileY);
-        
-        imageKey = hashKey(owner);
+        imageKey = TileKey.imageKey(owner);
+
+        key = new TileKey(imageKey.longValue(), tileX, tileY);
 
         DataBuffer db = tile.getDataBuffer();
         tileSize = db.getDataTypeSize(db.getDataType()) / 8L * db.getSize() * db.getNumBanks() + CACHED_TILE_OVERHEAD;
@@ -88,7 +91,7 @@ public final class CachedTileImpl implements CachedTile {
      * Returns the key associated to the tile.
      * @return
      */
-    public Object getKey() {
+    public TileKey getKey() {
         return key;
     }
 
@@ -96,53 +99,26 @@ public final class CachedTileImpl implements CachedTile {
      * Returns the key associate to the tile owner
      * @return
      */
-    public Object getImageKey() {
+    public Long getImageKey() {
         return imageKey;
     }
     
     /**
      * Returns the hash table "key" as a <code>Object</code> for this tile.
+     * 
+     * @see TileKey
      */
     public static Object hashKey(RenderedImage owner, int tileX, int tileY) {
-        long idx = tileY * (long) owner.getNumXTiles() + tileX;
-
-        BigInteger imageID = null;
-        if (owner instanceof PlanarImage)
-            imageID = (BigInteger) ((PlanarImage) owner).getImageID();
-        else if (owner instanceof SerializableRenderedImage)
-            imageID = (BigInteger) ((SerializableRenderedImage) owner).getImageID();
-
-        if (imageID != null) {
-            byte[] buf = imageID.toByteArray();
-            int length = buf.length;
-            byte[] buf1 = new byte[length + 8];
-            System.arraycopy(buf, 0, buf1, 0, length);
-            for (int i = 7, j = 0; i >= 0; i--, j += 8)
-                buf1[length++] = (byte) (idx >> j);
-            return new BigInteger(buf1);
-        }
-
-        idx = idx & 0x00000000ffffffffL;
-        return Long.valueOf((((long) owner.hashCode() << 32) | idx));
+        return TileKey.create(owner, tileX, tileY);
     }
 
     /**
      * Returns the hash table "key" as a <code>Object</code> for this image.
+     * 
+     * @see TileKey
      */
     public static Object hashKey(RenderedImage owner) {
-
-        BigInteger imageID = null;
-        if (owner instanceof PlanarImage)
-            imageID = (BigInteger) ((PlanarImage) owner).getImageID();
-        else if (owner instanceof SerializableRenderedImage)
-            imageID = (BigInteger) ((SerializableRenderedImage) owner).getImageID();
-
-        if (imageID != null) {
-            byte[] buf = imageID.toByteArray();
-            return new BigInteger(buf);
-        }
-
-        return owner.hashCode();
+        return TileKey.imageKey(owner);
     }
 
     /** Returns the value of the cached tile. */
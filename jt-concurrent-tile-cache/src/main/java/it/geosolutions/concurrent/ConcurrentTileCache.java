@@ -49,10 +49,13 @@ public class ConcurrentTileCache extends Observable implements TileCache, CacheD
     /** The default concurrency settings */
     public static final int DEFAULT_CONCURRENCY_LEVEL = 4;
 
+    /** The default eviction policy */
+    public static final EvictionPolicy DEFAULT_EVICTION_POLICY = EvictionPolicy.LRU;
+
     /**
-     * The tile cache. A Guava Cache is used to cache the tiles. The "key" is a <code>Object</code>. The "value" is a CachedTileImpl.
+     * The tile cache. A Guava Cache is used to cache the tiles. The "key" is a <code>TileKey</code>. The "value" is a CachedTileImpl.
      */
-    private Cache<Object, CachedTileImpl> cacheObject;
+    private volatile Cache<TileKey, CachedTileImpl> cacheObject;
 
     /** The memory capacity of the cache. */
     private long memoryCacheCapacity;
@@ -66,28 +69,23 @@ public class ConcurrentTileCache extends Observable implements TileCache, CacheD
     /** diagnosticEnabled enable/disable */
     private volatile boolean diagnosticEnabled = DEFAULT_DIAGNOSTIC;
 
-    /**
-     * The listener is used for receiving notification about the removal of a tile for size constraints
-     */
-    private final RemovalListener<Object, CachedTileImpl> listener = new RemovalListener<Object, CachedTileImpl>() {
-        public void onRemoval(RemovalNotification<Object, CachedTileImpl> n) {
-            // if a tile is manually removed, the diagnosticEnabled already consider
-            // it in
-            // the remove() method
+    /** The eviction policy of the cache. */
+    private final EvictionPolicy evictionPolicy;
 
-            if (diagnosticEnabled) {
-                synchronized (this) {
-                    if (n.wasEvicted() && n.getCause() == RemovalCause.SIZE) {
-                        CachedTileImpl cti = n.getValue();
-                        cti.setAction(Actions.REMOVAL_FROM_EVICTION);
-                        setChanged();
-                        notifyObservers(cti);
-                    }
-                }
+    /** The cost aware eviction, <code>null</code> if the {@link EvictionPolicy#LRU} policy is used. */
+    private volatile GreedyDualSizeEviction costEviction;
 
-            }
-        }
-    };
+    /** The always-on statistics of the cache */
+    private final TileCacheStatistics statistics = new TileCacheStatistics();
+
+    /** The optional off-heap second tier receiving the evicted tiles, <code>null</code> if not used. */
+    private volatile OffHeapTileStore offHeapStore;
+
+    /**
+     * Secondary index containing the keys of the cached tiles for each image. It is used for retrieving or removing all the tiles of an image
+     * without checking every tile index of the image grid.
+     */
+    private volatile ImageTilesIndex imageTiles;
 
     // diagnostic actions
     /** A list of all the possible diagnostic actions */
@@ -108,19 +106,73 @@ public class ConcurrentTileCache extends Observable implements TileCache, CacheD
     };
 
     /** Private cache creation method */
-    private Cache<Object, CachedTileImpl> buildCache() {
+    private Cache<TileKey, CachedTileImpl> buildCache() {
         CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder();
-        builder.maximumWeight((long) (memoryCacheCapacity * memoryCacheThreshold))
-                .concurrencyLevel(concurrencyLevel).weigher(new Weigher<Object, CachedTileImpl>() {
-                    public int weigh(Object o, CachedTileImpl cti) {
-                        return (int) cti.getTileSize();
-                    }
-                });
+        long maximumWeight = (long) (memoryCacheCapacity * memoryCacheThreshold);
+        builder.concurrencyLevel(concurrencyLevel);
+        if (evictionPolicy == EvictionPolicy.GREEDY_DUAL_SIZE) {
+            // The Guava cache is unbounded, the eviction is done by the policy
+            costEviction = new GreedyDualSizeEviction(maximumWeight);
+        } else {
+            costEviction = null;
+            builder.maximumWeight(maximumWeight).weigher(new Weigher<TileKey, CachedTileImpl>() {
+                public int weigh(TileKey o, CachedTileImpl cti) {
+                    return (int) cti.getTileSize();
+                }
+            });
+        }
+        // The index is created together with the cache so that the listener of an old cache
+        // cannot modify the index of the new one
+        ImageTilesIndex index = new ImageTilesIndex(concurrencyLevel);
+        builder.removalListener(createListener(index, costEviction));
 
-        return builder.build();
+        Cache<TileKey, CachedTileImpl> cache = builder.build();
+        index.bind(cache.asMap());
+        imageTiles = index;
+        return cache;
 
     }
 
+    /**
+     * Creation of the listener used for updating the image index and for receiving notification about the removal of a tile for size constraints
+     */
+    private RemovalListener<TileKey, CachedTileImpl> createListener(final ImageTilesIndex index,
+            final GreedyDualSizeEviction eviction) {
+        return new RemovalListener<TileKey, CachedTileImpl>() {
+            public void onRemoval(RemovalNotification<TileKey, CachedTileImpl> n) {
+                CachedTileImpl cti = n.getValue();
+                // the removed value is no more accounted by the cost aware eviction
+                if (eviction != null) {
+                    eviction.removed(cti);
+                }
+                // update of the always-on statistics
+                statistics.removed(cti, n.getCause());
+                // the evicted tiles are moved to the second tier, before removing their key from
+                // the index, so that a concurrent removal of the tile is always detected
+                OffHeapTileStore store = offHeapStore;
+                if (store != null && (n.getCause() == RemovalCause.SIZE || cti.evicted)) {
+                    store.put(cti, index);
+                }
+                // a replaced tile is still present in the cache
+                if (n.getCause() != RemovalCause.REPLACED) {
+                    index.remove(cti);
+                }
+                // if a tile is manually removed, the diagnosticEnabled already consider
+                // it in
+                // the remove() method
+                if (diagnosticEnabled) {
+                    synchronized (ConcurrentTileCache.this) {
+                        if ((n.wasEvicted() && n.getCause() == RemovalCause.SIZE) || cti.evicted) {
+                            cti.setAction(Actions.REMOVAL_FROM_EVICTION);
+                            setChanged();
+                            notifyObservers(cti);
+                        }
+                    }
+                }
+            }
+        };
+    }
+
     public ConcurrentTileCache() {
         this(DEFAULT_MEMORY_CACHE, DEFAULT_DIAGNOSTIC, DEFAULT_MEMORY_THRESHOLD,
                 DEFAULT_CONCURRENCY_LEVEL);
@@ -128,6 +180,12 @@ public class ConcurrentTileCache extends Observable implements TileCache, CacheD
 
     public ConcurrentTileCache(long memoryCacheCapacity, boolean diagnostic, float mem_threshold,
             int concurrencyLevel) {
+        this(memoryCacheCapacity, diagnostic, mem_threshold, concurrencyLevel,
+                DEFAULT_EVICTION_POLICY);
+    }
+
+    public ConcurrentTileCache(long memoryCacheCapacity, boolean diagnostic, float mem_threshold,
+            int concurrencyLevel, EvictionPolicy evictionPolicy) {
         if (memoryCacheCapacity < 0) {
             throw new IllegalArgumentException("Memory capacity too small");
         }
@@ -135,6 +193,7 @@ public class ConcurrentTileCache extends Observable implements TileCache, CacheD
         this.diagnosticEnabled = diagnostic;
         this.memoryCacheCapacity = memoryCacheCapacity;
         this.concurrencyLevel = concurrencyLevel;
+        this.evictionPolicy = evictionPolicy != null ? evictionPolicy : DEFAULT_EVICTION_POLICY;
 
         // cache creation
         cacheObject = buildCache();
@@ -156,15 +215,23 @@ public class ConcurrentTileCache extends Observable implements TileCache, CacheD
         
         // This tile is not in the cache; create a new CachedTileImpl.
         // else just update.
-        Object key = CachedTileImpl.hashKey(owner, tileX, tileY);
+        addTile(new CachedTileImpl(owner, tileX, tileY, data, tileCacheMetric));
+    }
+
+    /** Inserts the new tile inside the cache */
+    private void addTile(CachedTileImpl cti_new) {
+        TileKey key = cti_new.getKey();
         // old tile
         CachedTileImpl cti;
-        // create a new tile
-        CachedTileImpl cti_new = new CachedTileImpl(owner, tileX, tileY, data, tileCacheMetric);
 
         // if the tile is already cached
         if (diagnosticEnabled) {
+            statistics.added(cti_new);
             cti = (CachedTileImpl) cacheObject.asMap().put(key, cti_new);
+            // the index is updated after the insertion, so that a late removal of the old tile
+            // cannot remove the key of the new one
+            imageTiles.add(cti_new);
+            costAwareEviction(cti_new);
             synchronized (this) {
                 if (cti != null) {
                     cti.updateTileTimeStamp();
@@ -180,14 +247,38 @@ public class ConcurrentTileCache extends Observable implements TileCache, CacheD
             }
         } else {
             // new tile insertion
+            statistics.added(cti_new);
             cacheObject.put(key, cti_new);
+            imageTiles.add(cti_new);
+            costAwareEviction(cti_new);
+
+        }
+    }
 
+    /** Accounts the new tile inside the cost aware eviction (if present) and evicts the tiles exceeding the cache memory */
+    private void costAwareEviction(CachedTileImpl cti) {
+        GreedyDualSizeEviction eviction = costEviction;
+        if (eviction != null) {
+            eviction.added(cti);
+            eviction.evict(cacheObject.asMap());
         }
     }
 
     /** Removes the selected tile from the cache */
     public void remove(RenderedImage owner, int tileX, int tileY) {
-        Object key = CachedTileImpl.hashKey(owner, tileX, tileY);
+        TileKey key = TileKey.create(owner, tileX, tileY);
+        removeTileByKey(key);
+        // the key is removed at once, so that the tile cannot be moved to the second tier
+        // if it is being evicted
+        imageTiles.remove(key);
+        OffHeapTileStore store = offHeapStore;
+        if (store != null) {
+            store.remove(key);
+        }
+    }
+
+    /** Removes the tile associated to the key */
+    private void removeTileByKey(TileKey key) {
         // check if the tile is still in cache
         CachedTileImpl cti = (CachedTileImpl) cacheObject.getIfPresent(key);
         // if so the tile is deleted (even if another thread write on it)
@@ -217,14 +308,25 @@ public class ConcurrentTileCache extends Observable implements TileCache, CacheD
 
     /** Retrieves the selected tile from the cache */
     public Raster getTile(RenderedImage owner, int tileX, int tileY) {
+        return getTileFromKey(TileKey.create(owner, tileX, tileY));
+    }
+
+    /** Retrieves the tile associated to the key */
+    private Raster getTileFromKey(TileKey key) {
         // instantiation of the result raster
         Raster tileData = null;
 
-        Object key = CachedTileImpl.hashKey(owner, tileX, tileY);
         // check if the tile is present
         CachedTileImpl cti = (CachedTileImpl) cacheObject.getIfPresent(key);
         if (cti == null) {
-            return null;
+            statistics.miss();
+            return promoteFromSecondTier(key);
+        }
+        statistics.hit();
+        // Update of the tile priority
+        GreedyDualSizeEviction eviction = costEviction;
+        if (eviction != null) {
+            eviction.accessed(cti);
         }
         if (diagnosticEnabled) {
             synchronized (this) {
@@ -241,6 +343,19 @@ public class ConcurrentTileCache extends Observable implements TileCache, CacheD
         return tileData;
     }
 
+    /** Searches the tile inside the off-heap second tier and, if found, moves it back inside the cache */
+    private Raster promoteFromSecondTier(TileKey key) {
+        OffHeapTileStore store = offHeapStore;
+        if (store != null) {
+            CachedTileImpl cti = store.take(key);
+            if (cti != null) {
+                addTile(cti);
+                return cti.getTile();
+            }
+        }
+        return null;
+    }
+
     /**
      * Retrieves an array of all tiles in the cache which are owned by the image. May be <code>null</code> if there were no tiles in the cache. The
      * array contains no null entries.
@@ -248,30 +363,21 @@ public class ConcurrentTileCache extends Observable implements TileCache, CacheD
     public Raster[] getTiles(RenderedImage owner) {
         // instantiation of the result array
         Raster[] tilesData = null;
-        // total number of tiles present in the cache
-        int tileCount = (int) cacheObject.size();
-
-        int size = Math.min(owner.getNumXTiles() * owner.getNumYTiles(), tileCount);
-
-        if (size > 0) {
-            int minTx = owner.getMinTileX();
-            int minTy = owner.getMinTileY();
-            int maxTx = minTx + owner.getNumXTiles();
-            int maxTy = minTy + owner.getNumYTiles();
+        // Selection of the tile keys for the image
+        TileKey[] keys = imageTiles.get(TileKey.imageKey(owner));
 
+        if (keys != null && keys.length > 0) {
             // arbitrarily set a temporary vector size
             Vector<Raster> tempData = new Vector<Raster>(10, 20);
-            // cycle through all the tile in the image and check if they are in the
+            // cycle through all the indexed tiles of the image and check if they are still in the
             // cache...
-            for (int y = minTy; y < maxTy; y++) {
-                for (int x = minTx; x < maxTx; x++) {
+            for (TileKey key : keys) {
 
-                    Raster rasterTile = getTile(owner, x, y);
+                Raster rasterTile = getTileFromKey(key);
 
-                    // ...then add to the vector if present
-                    if (rasterTile != null) {
-                        tempData.add(rasterTile);
-                    }
+                // ...then add to the vector if present
+                if (rasterTile != null) {
+                    tempData.add(rasterTile);
                 }
             }
 
@@ -289,30 +395,20 @@ public class ConcurrentTileCache extends Observable implements TileCache, CacheD
      * Removes all tiles in the cache which are owned by the image.
      */
     public void removeTiles(RenderedImage owner) {
-
-        if (diagnosticEnabled) {
-            int minTx = owner.getMinTileX();
-            int minTy = owner.getMinTileY();
-            int maxTx = minTx + owner.getNumXTiles();
-            int maxTy = minTy + owner.getNumYTiles();
-
-            for (int y = minTy; y < maxTy; y++) {
-                for (int x = minTx; x < maxTx; x++) {
-                    remove(owner, x, y);
-                }
-            }
-        } else {
-            int minTx = owner.getMinTileX();
-            int minTy = owner.getMinTileY();
-            int maxTx = minTx + owner.getNumXTiles();
-            int maxTy = minTy + owner.getNumYTiles();
-
-            for (int y = minTy; y < maxTy; y++) {
-                for (int x = minTx; x < maxTx; x++) {
-                    remove(owner, x, y);
-                }
+        // Selection of the tile keys for the image
+        Long imageKey = TileKey.imageKey(owner);
+        ImageTilesIndex index = imageTiles;
+        TileKey[] keys = index.get(imageKey);
+        if (keys != null) {
+            for (TileKey key : keys) {
+                removeTileByKey(key);
+                index.remove(key);
             }
         }
+        OffHeapTileStore store = offHeapStore;
+        if (store != null) {
+            store.removeTiles(imageKey);
+        }
     }
 
     /**
@@ -363,10 +459,10 @@ public class ConcurrentTileCache extends Observable implements TileCache, CacheD
         // from the old cache.
         if (diagnosticEnabled) {
             // Creation of an iterator for accessing to every tile in the cache
-            Iterator<Object> keys = cacheObject.asMap().keySet().iterator();
+            Iterator<TileKey> keys = cacheObject.asMap().keySet().iterator();
             // cycle across the cache for removing and updating every tile
             while (keys.hasNext()) {
-                Object key = keys.next();
+                TileKey key = keys.next();
                 CachedTileImpl cti = (CachedTileImpl) cacheObject.asMap().remove(key);
 
                 // diagnosticEnabled
@@ -380,6 +476,13 @@ public class ConcurrentTileCache extends Observable implements TileCache, CacheD
             cacheObject.invalidateAll();
         }
         // cache.invalidateAll();
+        // the tiles being evicted from the old cache are not moved to the second tier
+        imageTiles.clear();
+        OffHeapTileStore store = offHeapStore;
+        if (store != null) {
+            store.flush();
+        }
+
         cacheObject = buildCache();
 
     }
@@ -463,6 +566,33 @@ public class ConcurrentTileCache extends Observable implements TileCache, CacheD
         return concurrencyLevel;
     }
 
+    /** Retrieve the cache eviction policy */
+    public EvictionPolicy getEvictionPolicy() {
+        return evictionPolicy;
+    }
+
+    /**
+     * Sets the off-heap second tier receiving the tiles evicted from the cache; the tiles found inside the second tier are moved back inside the
+     * cache when requested. A <code>null</code> value disables the second tier. The tiles already contained in the previous store are flushed.
+     */
+    public synchronized void setOffHeapStore(OffHeapTileStore offHeapStore) {
+        OffHeapTileStore old = this.offHeapStore;
+        this.offHeapStore = offHeapStore;
+        if (old != null && old != offHeapStore) {
+            old.flush();
+        }
+    }
+
+    /** Retrieve the off-heap second tier, <code>null</code> if not used */
+    public OffHeapTileStore getOffHeapStore() {
+        return offHeapStore;
+    }
+
+    /** Retrieve the always-on statistics of the cache */
+    public TileCacheStatistics getStatistics() {
+        return statistics;
+    }
+
     /**
      * Not Supported
      * 
@@ -498,31 +628,17 @@ public class ConcurrentTileCache extends Observable implements TileCache, CacheD
 
     /** Retrieves the hit count from the cache statistics */
     public long getCacheHitCount() {
-        if (diagnosticEnabled) {
-            return cacheObject.stats().hitCount();
-        }
-        return 0;
+        return statistics.getHitCount();
     }
 
     /** Retrieves the current memory size of the cache */
-    public synchronized long getCacheMemoryUsed() {
-        Iterator<Object> keys = cacheObject.asMap().keySet().iterator();
-        long memoryUsed = 0;
-        while (keys.hasNext()) {
-            Object key = keys.next();
-            CachedTileImpl cti = (CachedTileImpl) cacheObject.getIfPresent(key);
-            memoryUsed += cti.getTileSize();
-        }
-        return memoryUsed;
+    public long getCacheMemoryUsed() {
+        return statistics.getMemoryUsed();
     }
 
     /** Retrieves the miss count from the cache statistics */
     public long getCacheMissCount() {
-        if (diagnosticEnabled) {
-            return cacheObject.stats().missCount();
-        }
-        return 0;
-
+        return statistics.getMissCount();
     }
 
     /** Retrieves the number of tiles in the cache */
@@ -530,13 +646,9 @@ public class ConcurrentTileCache extends Observable implements TileCache, CacheD
         return cacheObject.size();
     }
 
-    /**
-     * Not Supported
-     * 
-     * @throws UnsupportedOperationException
-     */
+    /** Resets the hit, miss and eviction counts of the cache statistics */
     public void resetCounts() {
-        throw new UnsupportedOperationException("Operation not supported");
+        statistics.resetCounts();
     }
 
 }
@@ -22,15 +22,11 @@ import it.geosolutions.concurrent.ConcurrentTileCache.Actions;
 import java.awt.Point;
 import java.awt.image.Raster;
 import java.awt.image.RenderedImage;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.Iterator;
-import java.util.Map;
 import java.util.Observable;
-import java.util.Set;
 import java.util.Vector;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentSkipListSet;
-import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -46,7 +42,8 @@ import com.sun.media.jai.util.CacheDiagnostics;
 
 /**
  * This implementation of the TileCache class uses a Guava Cache and a multimap in order to provide a better concurrency handling. The first object
- * contains all the cached tiles while the second one contains the mapping of the tile keys for each image. This class implements
+ * contains all the cached tiles while the second one contains the mapping of the tile keys for each image. Both the objects are accessed without
+ * any global lock; only the notifications to the observers are serialized when the diagnostic is enabled. This class implements
  * {@link CacheDiagnostics} in order to get the statistics associated to the {@link TileCache}. The user can define the cache memory capacity, the
  * concurrency level (which indicates in how many segments the cache must be divided), the threshold of the total memory to use and a boolean
  * indicating if the diagnostic must be enabled.
@@ -68,22 +65,22 @@ public class ConcurrentTileCacheMultiMap extends Observable implements TileCache
     /** The default concurrency settings */
     public static final int DEFAULT_CONCURRENCY_LEVEL = 4;
 
+    /** The default eviction policy */
+    public static final EvictionPolicy DEFAULT_EVICTION_POLICY = EvictionPolicy.LRU;
+
     /**
-     * The tile cache. A Guava Cache is used to cache the tiles. The "key" is a <code>Object</code>. The "value" is a CachedTileImpl.
+     * The tile cache. A Guava Cache is used to cache the tiles. The "key" is a <code>TileKey</code>. The "value" is a CachedTileImpl.
      */
-    private Cache<Object, CachedTileImpl> cacheObject;
+    private volatile Cache<TileKey, CachedTileImpl> cacheObject;
 
     /**
      * A concurrent multimap used for mapping the tile keys for each image
      */
-    private Map<Object, Set<Object>> multimap;
+    private volatile ImageTilesIndex multimap;
 
     /** The memory capacity of the cache. */
     private long memoryCacheCapacity;
 
-    /** The current memory capacity of the cache. */
-    private AtomicLong currentCacheCapacity;
-
     /** The concurrency level of the cache. */
     private int concurrencyLevel;
 
@@ -93,6 +90,18 @@ public class ConcurrentTileCacheMultiMap extends Observable implements TileCache
     /** diagnosticEnabled enable/disable */
     private volatile boolean diagnosticEnabled = DEFAULT_DIAGNOSTIC;
 
+    /** The eviction policy of the cache. */
+    private final EvictionPolicy evictionPolicy;
+
+    /** The cost aware eviction, <code>null</code> if the {@link EvictionPolicy#LRU} policy is used. */
+    private volatile GreedyDualSizeEviction costEviction;
+
+    /** The always-on statistics of the cache */
+    private final TileCacheStatistics statistics = new TileCacheStatistics();
+
+    /** The optional off-heap second tier receiving the evicted tiles, <code>null</code> if not used. */
+    private volatile OffHeapTileStore offHeapStore;
+
     /**
      * Logger to use for reporting the informations about the TileCache operations.
      */
@@ -106,6 +115,12 @@ public class ConcurrentTileCacheMultiMap extends Observable implements TileCache
 
     public ConcurrentTileCacheMultiMap(long memoryCacheCapacity, boolean diagnostic,
             float mem_threshold, int concurrencyLevel) {
+        this(memoryCacheCapacity, diagnostic, mem_threshold, concurrencyLevel,
+                DEFAULT_EVICTION_POLICY);
+    }
+
+    public ConcurrentTileCacheMultiMap(long memoryCacheCapacity, boolean diagnostic,
+            float mem_threshold, int concurrencyLevel, EvictionPolicy evictionPolicy) {
         if (memoryCacheCapacity < 0) {
             throw new IllegalArgumentException("Memory capacity too small");
         }
@@ -113,12 +128,10 @@ public class ConcurrentTileCacheMultiMap extends Observable implements TileCache
         this.diagnosticEnabled = diagnostic;
         this.memoryCacheCapacity = memoryCacheCapacity;
         this.concurrencyLevel = concurrencyLevel;
+        this.evictionPolicy = evictionPolicy != null ? evictionPolicy : DEFAULT_EVICTION_POLICY;
 
-        // cache creation
+        // cache and multimap creation
         cacheObject = buildCache();
-
-        // multimap creation
-        multimap = new ConcurrentHashMap<Object, Set<Object>>();
     }
 
     /** Add a new tile to the cache */
@@ -130,57 +143,83 @@ public class ConcurrentTileCacheMultiMap extends Observable implements TileCache
     public void add(RenderedImage owner, int tileX, int tileY, Raster data, Object tileCacheMetric) {
         // This tile is not in the cache; create a new CachedTileImpl.
         // else just update.
+        addTile(new CachedTileImpl(owner, tileX, tileY, data, tileCacheMetric));
+    }
 
-        // Key associated to the image
-        Object imageKey = CachedTileImpl.hashKey(owner);
-
+    /** Inserts the new tile inside the cache */
+    private void addTile(CachedTileImpl cti_new) {
         // old tile
         CachedTileImpl cti;
-        // create a new tile
-        CachedTileImpl cti_new = new CachedTileImpl(owner, tileX, tileY, data, tileCacheMetric);
 
+        // The tile is accounted before the insertion, so that its eviction is never accounted first
+        statistics.added(cti_new);
+
+        // The tile key is added inside the MultiMap only after the insertion, so that a late removal
+        // of an older tile with the same key cannot remove it
         if (diagnosticEnabled) {
             // if the tile is already cached
             cti = (CachedTileImpl) cacheObject.asMap().putIfAbsent(cti_new.key, cti_new);
-            synchronized (cacheObject) {
+            if (cti == null) {
+                multimap.add(cti_new);
+                costAwareEviction(cti_new);
+            } else {
+                statistics.notAdded(cti_new);
+            }
+            synchronized (this) {
                 if (cti != null) {
                     cti.updateTileTimeStamp();
                     cti.setAction(Actions.SUBSTITUTION_FROM_ADD);
                     setChanged();
                     notifyObservers(cti);
                 }
-                // Update Cache Memory Size
-                currentCacheCapacity.addAndGet(cti_new.getTileSize());
 
                 // Update the tile action in order to notify it to the observers
                 cti_new.setAction(Actions.ADDITION);
                 setChanged();
                 notifyObservers(cti_new);
-                updateMultiMap(cti_new.key, imageKey);
             }
         } else {
             if (LOGGER.isLoggable(Level.FINE)) {
-                LOGGER.fine("Added new Tile Image key " + imageKey);
+                LOGGER.fine("Added new Tile Image key " + cti_new.getImageKey());
             }
             // new tile insertion
-            cacheObject.asMap().putIfAbsent(cti_new.key, cti_new);
-            // Atomically adds a new Map if needed and then adds a new tile inside the MultiMap.
-            updateMultiMap(cti_new.key, imageKey);
+            if (cacheObject.asMap().putIfAbsent(cti_new.key, cti_new) == null) {
+                multimap.add(cti_new);
+                costAwareEviction(cti_new);
+            } else {
+                statistics.notAdded(cti_new);
+            }
+        }
+    }
+
+    /** Accounts the new tile inside the cost aware eviction (if present) and evicts the tiles exceeding the cache memory */
+    private void costAwareEviction(CachedTileImpl cti) {
+        GreedyDualSizeEviction eviction = costEviction;
+        if (eviction != null) {
+            eviction.added(cti);
+            eviction.evict(cacheObject.asMap());
         }
     }
 
     /** Removes the selected tile from the cache */
     public void remove(RenderedImage owner, int tileX, int tileY) {
         // Calculation of the tile key
-        Object key = CachedTileImpl.hashKey(owner, tileX, tileY);
+        TileKey key = TileKey.create(owner, tileX, tileY);
         // remove operation
         removeTileByKey(key);
+        // the key is removed at once, so that the tile cannot be moved to the second tier
+        // if it is being evicted
+        multimap.remove(key);
+        OffHeapTileStore store = offHeapStore;
+        if (store != null) {
+            store.remove(key);
+        }
     }
 
     /** Retrieves the selected tile from the cache */
     public Raster getTile(RenderedImage owner, int tileX, int tileY) {
         // Calculation of the tile key
-        Object key = CachedTileImpl.hashKey(owner, tileX, tileY);
+        TileKey key = TileKey.create(owner, tileX, tileY);
         // Get operation
         return getTileFromKey(key);
     }
@@ -194,43 +233,37 @@ public class ConcurrentTileCacheMultiMap extends Observable implements TileCache
         Raster[] tilesData = null;
 
         // Calculation of the key associated to the image
-        Object imageKey = CachedTileImpl.hashKey(owner);
+        Long imageKey = TileKey.imageKey(owner);
 
         if (LOGGER.isLoggable(Level.FINE)) {
             LOGGER.fine("Getting image Tiles Image key " + imageKey);
         }
         // Selection of the tile keys for the image
-        Set<Object> keys = multimap.get(imageKey);
+        TileKey[] keys = multimap.get(imageKey);
 
         // If no key is found then a null object is returned
-        if (keys == null || keys.isEmpty()) {
+        if (keys == null || keys.length == 0) {
             return tilesData;
         }
 
-        // Else it is created an iterator on the tile keys
-        Iterator<Object> it = keys.iterator();
-        // Another check on the iterator
-        if (it.hasNext()) {
-            // arbitrarily set a temporary vector size
-            Vector<Raster> tempData = new Vector<Raster>(10, 20);
-            // cycle through all the tile keys present in the multimap and check if they are in the
-            // cache...
-            while (it.hasNext()) {
-                Object key = it.next();
-                // get the tile from the key
-                Raster rasterTile = getTileFromKey(key);
-
-                // ...then add to the vector if present
-                if (rasterTile != null) {
-                    tempData.add(rasterTile);
-                }
-            }
-            // Vector size
-            int tmpsize = tempData.size();
-            if (tmpsize > 0) {
-                tilesData = (Raster[]) tempData.toArray(new Raster[tmpsize]);
+        // arbitrarily set a temporary vector size
+        Vector<Raster> tempData = new Vector<Raster>(10, 20);
+        // cycle through all the tile keys present in the multimap and check if they are in the
+        // cache...
+        for (TileKey key : keys) {
+            // get the tile from the key
+            Raster rasterTile = getTileFromKey(key);
+
+            // ...then add to the vector if present
+            if (rasterTile != null) {
+                tempData.add(rasterTile);
             }
         }
+        // Vector size
+        int tmpsize = tempData.size();
+        if (tmpsize > 0) {
+            tilesData = (Raster[]) tempData.toArray(new Raster[tmpsize]);
+        }
         return tilesData;
     }
 
@@ -240,30 +273,36 @@ public class ConcurrentTileCacheMultiMap extends Observable implements TileCache
     public void removeTiles(RenderedImage owner) {
 
         // Calculation of the key associated to the image
-        Object imageKey = CachedTileImpl.hashKey(owner);
+        Long imageKey = TileKey.imageKey(owner);
 
-        if (diagnosticEnabled) {
-            synchronized (cacheObject) {
-                // Selection of the keys associated to the image and removal of each of them
-                Set<Object> keys = multimap.get(imageKey);
-                if (keys != null) {
-                    Iterator<Object> it = keys.iterator();
-                    while (it.hasNext()) {
-                        Object key = it.next();
-                        removeTileByKey(key);
-                    }
+        // Selection of the keys associated to the image
+        ImageTilesIndex index = multimap;
+        TileKey[] keys = index.get(imageKey);
+        if (keys != null) {
+            if (diagnosticEnabled) {
+                // Removal of each key, in order to notify the observers
+                for (TileKey key : keys) {
+                    removeTileByKey(key);
                 }
-            }
-        } else {
-            // Get the keys associated to the image and remove them
-            Set<Object> keys = multimap.get(imageKey);
-            if (keys != null) {
+            } else {
                 if (LOGGER.isLoggable(Level.FINE)) {
                     LOGGER.fine("Removing image Tiles Image key " + imageKey);
                 }
-                cacheObject.invalidateAll(keys);
+                // Removal of all the keys; the listener updates the multimap
+                cacheObject.invalidateAll(Arrays.asList(keys));
+            }
+            // The keys of the tiles being evicted are removed at once, so that the tiles cannot be
+            // moved to the second tier
+            for (TileKey key : keys) {
+                index.remove(key);
             }
         }
+
+        // Removal of the tiles moved to the second tier
+        OffHeapTileStore store = offHeapStore;
+        if (store != null) {
+            store.removeTiles(imageKey);
+        }
     }
 
     /**
@@ -314,38 +353,41 @@ public class ConcurrentTileCacheMultiMap extends Observable implements TileCache
     }
 
     /** Removes all tiles present in the cache without checking for the image owner */
-    public void flush() {
-        synchronized (cacheObject) {
-            // It is necessary to clear all the elements
-            // from the old cache.
-            if (diagnosticEnabled) {
-                // Creation of an iterator for accessing to every tile in the cache
-                Iterator<Object> keys = cacheObject.asMap().keySet().iterator();
-                // cycle across the cache for removing and updating every tile
-                while (keys.hasNext()) {
-                    Object key = keys.next();
-                    CachedTileImpl cti = (CachedTileImpl) cacheObject.asMap().remove(key);
+    public synchronized void flush() {
+        // It is necessary to clear all the elements
+        // from the old cache.
+        if (diagnosticEnabled) {
+            // Creation of an iterator for accessing to every tile in the cache
+            Iterator<TileKey> keys = cacheObject.asMap().keySet().iterator();
+            // cycle across the cache for removing and updating every tile
+            while (keys.hasNext()) {
+                TileKey key = keys.next();
+                CachedTileImpl cti = (CachedTileImpl) cacheObject.asMap().remove(key);
 
-                    // diagnosticEnabled
+                // diagnosticEnabled
 
-                    cti.setAction(Actions.REMOVAL_FROM_FLUSH);
-                    setChanged();
-                    notifyObservers(cti);
-                }
-            } else {
-                // Invalidation of all the keys of the cache
-                cacheObject.invalidateAll();
+                cti.setAction(Actions.REMOVAL_FROM_FLUSH);
+                setChanged();
+                notifyObservers(cti);
             }
+        } else {
+            // Invalidation of all the keys of the cache
+            cacheObject.invalidateAll();
+        }
 
-            if (LOGGER.isLoggable(Level.FINE)) {
-                LOGGER.fine("Flushing cache");
-            }
+        if (LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.fine("Flushing cache");
+        }
 
-            // Cache creation
-            cacheObject = buildCache();
-            // multimap creation
-            multimap = new ConcurrentHashMap<Object, Set<Object>>();
+        // the tiles being evicted from the old cache are not moved to the second tier
+        multimap.clear();
+        // Cache and multimap creation
+        OffHeapTileStore store = offHeapStore;
+        if (store != null) {
+            store.flush();
         }
+
+        cacheObject = buildCache();
     }
 
     /**
@@ -376,15 +418,13 @@ public class ConcurrentTileCacheMultiMap extends Observable implements TileCache
     }
 
     /** Sets the cache memory capacity and then flush and rebuild the cache */
-    public void setMemoryCapacity(long memoryCacheCapacity) {
-        synchronized (cacheObject) {
-            if (memoryCacheCapacity < 0) {
-                throw new IllegalArgumentException("Memory capacity too small");
-            } else {
-                this.memoryCacheCapacity = memoryCacheCapacity;
-                // The flush is done in order to rebuild the cache with the new settings
-                flush();
-            }
+    public synchronized void setMemoryCapacity(long memoryCacheCapacity) {
+        if (memoryCacheCapacity < 0) {
+            throw new IllegalArgumentException("Memory capacity too small");
+        } else {
+            this.memoryCacheCapacity = memoryCacheCapacity;
+            // The flush is done in order to rebuild the cache with the new settings
+            flush();
         }
     }
 
@@ -394,16 +434,14 @@ public class ConcurrentTileCacheMultiMap extends Observable implements TileCache
     }
 
     /** Sets the cache memory threshold and then flush and rebuild the cache */
-    public void setMemoryThreshold(float mt) {
-        synchronized (cacheObject) {
-            if (mt < 0.0F || mt > 1.0F) {
-                throw new IllegalArgumentException("Memory threshold should be between 0 and 1");
-            } else {
-                memoryCacheThreshold = mt;
-                // The flush is done in order to rebuild the cache with the new settings
-                flush();
+    public synchronized void setMemoryThreshold(float mt) {
+        if (mt < 0.0F || mt > 1.0F) {
+            throw new IllegalArgumentException("Memory threshold should be between 0 and 1");
+        } else {
+            memoryCacheThreshold = mt;
+            // The flush is done in order to rebuild the cache with the new settings
+            flush();
 
-            }
         }
     }
 
@@ -413,16 +451,14 @@ public class ConcurrentTileCacheMultiMap extends Observable implements TileCache
     }
 
     /** Sets the cache ConcurrencyLevel and then flush and rebuild the cache */
-    public void setConcurrencyLevel(int concurrency) {
-        synchronized (cacheObject) {
-            if (concurrency < 1) {
-                throw new IllegalArgumentException("ConcurrencyLevel must be at least 1");
-            } else {
-                concurrencyLevel = concurrency;
-                // The flush is done in order to rebuild the cache with the new settings
-                flush();
+    public synchronized void setConcurrencyLevel(int concurrency) {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("ConcurrencyLevel must be at least 1");
+        } else {
+            concurrencyLevel = concurrency;
+            // The flush is done in order to rebuild the cache with the new settings
+            flush();
 
-            }
         }
     }
 
@@ -431,6 +467,33 @@ public class ConcurrentTileCacheMultiMap extends Observable implements TileCache
         return concurrencyLevel;
     }
 
+    /** Retrieve the cache eviction policy */
+    public EvictionPolicy getEvictionPolicy() {
+        return evictionPolicy;
+    }
+
+    /**
+     * Sets the off-heap second tier receiving the tiles evicted from the cache; the tiles found inside the second tier are moved back inside the
+     * cache when requested. A <code>null</code> value disables the second tier. The tiles already contained in the previous store are flushed.
+     */
+    public synchronized void setOffHeapStore(OffHeapTileStore offHeapStore) {
+        OffHeapTileStore old = this.offHeapStore;
+        this.offHeapStore = offHeapStore;
+        if (old != null && old != offHeapStore) {
+            old.flush();
+        }
+    }
+
+    /** Retrieve the off-heap second tier, <code>null</code> if not used */
+    public OffHeapTileStore getOffHeapStore() {
+        return offHeapStore;
+    }
+
+    /** Retrieve the always-on statistics of the cache */
+    public TileCacheStatistics getStatistics() {
+        return statistics;
+    }
+
     /**
      * Not Supported
      * 
@@ -451,42 +514,32 @@ public class ConcurrentTileCacheMultiMap extends Observable implements TileCache
     }
 
     /** Disables diagnosticEnabled for the observers */
-    public void disableDiagnostics() {
-        synchronized (cacheObject) {
-            diagnosticEnabled = false;
-            // The flush is done in order to rebuild the cache with the new settings
-            flush();
-        }
+    public synchronized void disableDiagnostics() {
+        diagnosticEnabled = false;
+        // The flush is done in order to rebuild the cache with the new settings
+        flush();
     }
 
     /** Enables diagnosticEnabled for the observers */
-    public void enableDiagnostics() {
-        synchronized (cacheObject) {
-            diagnosticEnabled = true;
-            // The flush is done in order to rebuild the cache with the new settings
-            flush();
-        }
+    public synchronized void enableDiagnostics() {
+        diagnosticEnabled = true;
+        // The flush is done in order to rebuild the cache with the new settings
+        flush();
     }
 
     /** Retrieves the hit count from the cache statistics */
     public long getCacheHitCount() {
-        if (diagnosticEnabled) {
-            return cacheObject.stats().hitCount();
-        }
-        return 0;
+        return statistics.getHitCount();
     }
 
     /** Retrieves the current memory size of the cache */
     public long getCacheMemoryUsed() {
-        return currentCacheCapacity.get();
+        return statistics.getMemoryUsed();
     }
 
     /** Retrieves the miss count from the cache statistics */
     public long getCacheMissCount() {
-        if (diagnosticEnabled) {
-            return cacheObject.stats().missCount();
-        }
-        return 0;
+        return statistics.getMissCount();
     }
 
     /** Retrieves the number of tiles in the cache */
@@ -494,141 +547,96 @@ public class ConcurrentTileCacheMultiMap extends Observable implements TileCache
         return cacheObject.size();
     }
 
-    /**
-     * Not Supported
-     * 
-     * @throws UnsupportedOperationException
-     */
+    /** Resets the hit, miss and eviction counts of the cache statistics */
     public void resetCounts() {
-        throw new UnsupportedOperationException("Operation not supported");
+        statistics.resetCounts();
     }
 
     /**
      * Creation of a listener to use for handling the removed tiles
      * 
      * @param diagnostic
+     * @param index multimap associated to the cache
      * @return
      */
-    private RemovalListener<Object, CachedTileImpl> createListener(final boolean diagnostic) {
-        return new RemovalListener<Object, CachedTileImpl>() {
-            public void onRemoval(RemovalNotification<Object, CachedTileImpl> n) {
+    private RemovalListener<TileKey, CachedTileImpl> createListener(final boolean diagnostic,
+            final ImageTilesIndex index, final GreedyDualSizeEviction eviction) {
+        return new RemovalListener<TileKey, CachedTileImpl>() {
+            public void onRemoval(RemovalNotification<TileKey, CachedTileImpl> n) {
+                CachedTileImpl cti = n.getValue();
+                // the removed value is no more accounted by the cost aware eviction
+                if (eviction != null) {
+                    eviction.removed(cti);
+                }
+                // update of the always-on statistics
+                statistics.removed(cti, n.getCause());
+                // the evicted tiles are moved to the second tier, before removing their key from
+                // the multimap, so that a concurrent removal of the tile is always detected
+                OffHeapTileStore store = offHeapStore;
+                if (store != null && (n.getCause() == RemovalCause.SIZE || cti.evicted)) {
+                    store.put(cti, index);
+                }
+                // a replaced tile is still present in the cache
+                if (n.getCause() != RemovalCause.REPLACED) {
+                    // Removal from the multimap
+                    if (LOGGER.isLoggable(Level.FINE)) {
+                        LOGGER.fine("Removing tile from MultiMap Image key " + cti.getImageKey());
+                    }
+                    index.remove(cti);
+                }
+
                 // if a tile is manually removed, the diagnosticEnabled already consider
                 // it in
                 // the remove() method
-
                 if (diagnostic) {
-                    synchronized (cacheObject) {
-                        CachedTileImpl cti = n.getValue();
+                    synchronized (ConcurrentTileCacheMultiMap.this) {
                         // Update of the tile action
-                        if (n.wasEvicted()) {
+                        if (n.wasEvicted() || cti.evicted) {
                             cti.setAction(Actions.REMOVAL_FROM_EVICTION);
                         } else {
                             cti.setAction(Actions.MANUAL_REMOVAL);
                         }
-                        // Update Cache Memory Size
-                        currentCacheCapacity.addAndGet(-cti.getTileSize());
-                        // Removal from the multimap
-                        removeTileFromMultiMap(cti);
                         setChanged();
                         notifyObservers(cti);
                     }
-                } else {
-                    CachedTileImpl cti = n.getValue();
-                    if (n.getCause() == RemovalCause.SIZE) {
-                        // Logging if the tile is removed because the size is exceeded
-                        if (LOGGER.isLoggable(Level.FINE)) {
-                            LOGGER.fine("Removing from MultiMap for size");
-                        }
+                } else if (n.getCause() == RemovalCause.SIZE || cti.evicted) {
+                    // Logging if the tile is removed because the size is exceeded
+                    if (LOGGER.isLoggable(Level.FINE)) {
+                        LOGGER.fine("Removing from MultiMap for size");
                     }
-                    removeTileFromMultiMap(cti);
                 }
             }
         };
     }
 
-    /**
-     * Method for removing the tile keys from the multimap. If the KeySet associated to the image is empty, it is removed from the multimap.
-     * 
-     * @param cti
-     */
-    private void removeTileFromMultiMap(CachedTileImpl cti) {
-        // Tile key
-        Object key = cti.getKey();
-        // Image key
-        Object imageKey = cti.getImageKey();
-        // KeySet associated to the image
-        Set<Object> tileKeys = multimap.get(imageKey);
-
-        if (LOGGER.isLoggable(Level.FINE)) {
-            LOGGER.fine("Removing tile from MultiMap Image key " + imageKey);
-        }
-
-        if (tileKeys != null) {
-            // Removal of the keys
-            tileKeys.remove(key);
-            if (LOGGER.isLoggable(Level.FINE)) {
-                LOGGER.fine("Removed Tile Image key " + imageKey);
-            }
-            // If the KeySet is empty then it is removed from the multimap
-            if (tileKeys.isEmpty()) {
-                multimap.remove(imageKey);
-                if (LOGGER.isLoggable(Level.FINE)) {
-                    LOGGER.fine("Removed image SET Image key " + imageKey);
-                }
-            }
-        }
-    }
-
     /** Private cache creation method */
-    private Cache<Object, CachedTileImpl> buildCache() {
+    private Cache<TileKey, CachedTileImpl> buildCache() {
         CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder();
-        builder.maximumWeight((long) (memoryCacheCapacity * memoryCacheThreshold))
-                .concurrencyLevel(concurrencyLevel).weigher(new Weigher<Object, CachedTileImpl>() {
-                    public int weigh(Object o, CachedTileImpl cti) {
-                        return (int) cti.getTileSize();
-                    }
-                });
-        // Setting of the listener
-        builder.removalListener(createListener(diagnosticEnabled));
-        // Enable statistics only when the diagnostic flag is set to true;
-        if(diagnosticEnabled){
-            builder.recordStats();
-        }
-        
-        if (LOGGER.isLoggable(Level.FINE)) {
-            LOGGER.fine("Building Cache");
-        }
-        // Update of the Memory cache size
-        currentCacheCapacity = new AtomicLong(0);
-
-        return builder.build();
-    }
-
-    /**
-     * Update of the multimap when a tile is added.
-     * 
-     * @param key
-     * @param imageKey
-     */
-    private void updateMultiMap(Object key, Object imageKey) {
-        Set<Object> tileKeys = null;
-        synchronized (cacheObject) {
-            // Check if the multimap contains the keys for the image
-            tileKeys = multimap.get(imageKey);
-            if (tileKeys == null) {
-                // If no key is present then a new KeySet is created and then added to the multimap
-                tileKeys = new ConcurrentSkipListSet<Object>();
-                multimap.put(imageKey, tileKeys);
-                if (LOGGER.isLoggable(Level.FINE)) {
-                    LOGGER.fine("Created new Set for the image Image key " + imageKey);
+        long maximumWeight = (long) (memoryCacheCapacity * memoryCacheThreshold);
+        builder.concurrencyLevel(concurrencyLevel);
+        if (evictionPolicy == EvictionPolicy.GREEDY_DUAL_SIZE) {
+            // The Guava cache is unbounded, the eviction is done by the policy
+            costEviction = new GreedyDualSizeEviction(maximumWeight);
+        } else {
+            costEviction = null;
+            builder.maximumWeight(maximumWeight).weigher(new Weigher<TileKey, CachedTileImpl>() {
+                public int weigh(TileKey o, CachedTileImpl cti) {
+                    return (int) cti.getTileSize();
                 }
-            }
+            });
         }
+        // multimap creation. It is created together with the cache so that the listener of an old cache
+        // cannot modify the multimap of the new one
+        ImageTilesIndex index = new ImageTilesIndex(concurrencyLevel);
+        // Setting of the listener
+        builder.removalListener(createListener(diagnosticEnabled, index, costEviction));
         if (LOGGER.isLoggable(Level.FINE)) {
-            LOGGER.fine("Added Tile to the set Image key " + imageKey);
+            LOGGER.fine("Building Cache");
         }
-        // Finally the tile key is added.
-        tileKeys.add(key);
+        Cache<TileKey, CachedTileImpl> cache = builder.build();
+        index.bind(cache.asMap());
+        multimap = index;
+        return cache;
     }
 
     /**
@@ -636,13 +644,13 @@ public class ConcurrentTileCacheMultiMap extends Observable implements TileCache
      * 
      * @param key
      */
-    private void removeTileByKey(Object key) {
+    private void removeTileByKey(TileKey key) {
         // check if the tile is still in cache
         CachedTileImpl cti = (CachedTileImpl) cacheObject.getIfPresent(key);
         // if so the tile is deleted (even if another thread write on it)
         if (cti != null) {
             if (diagnosticEnabled) {
-                synchronized (cacheObject) {
+                synchronized (this) {
                     // Upgrade the tile action
                     cti.setAction(Actions.ABOUT_TO_REMOVAL);
                     setChanged();
@@ -672,19 +680,26 @@ public class ConcurrentTileCacheMultiMap extends Observable implements TileCache
      * @param key
      * @return
      */
-    private Raster getTileFromKey(Object key) {
+    private Raster getTileFromKey(TileKey key) {
         Raster tileData = null;
         // check if the tile is present
         CachedTileImpl cti = (CachedTileImpl) cacheObject.asMap().get(key);
         // If not tile is found, null is returned
         if (cti == null) {
+            statistics.miss();
             if (LOGGER.isLoggable(Level.FINE)) {
                 LOGGER.fine("Null Tile returned");
             }
-            return null;
+            return promoteFromSecondTier(key);
+        }
+        statistics.hit();
+        // Update of the tile priority
+        GreedyDualSizeEviction eviction = costEviction;
+        if (eviction != null) {
+            eviction.accessed(cti);
         }
         if (diagnosticEnabled) {
-            synchronized (cacheObject) {
+            synchronized (this) {
 
                 // Update last-access time for diagnosticEnabled
                 cti.updateTileTimeStamp();
@@ -700,4 +715,17 @@ public class ConcurrentTileCacheMultiMap extends Observable implements TileCache
         tileData = cti.getTile();
         return tileData;
     }
+
+    /** Searches the tile inside the off-heap second tier and, if found, moves it back inside the cache */
+    private Raster promoteFromSecondTier(TileKey key) {
+        OffHeapTileStore store = offHeapStore;
+        if (store != null) {
+            CachedTileImpl cti = store.take(key);
+            if (cti != null) {
+                addTile(cti);
+                return cti.getTile();
+            }
+        }
+        return null;
+    }
 }
@@ -0,0 +1,37 @@
+/* JAI-Ext - OpenSource Java Advanced Image Extensions Library
+*    http://www.geo-solutions.it/
+*    Copyright 2014 GeoSolutions
+
+
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+
+* http://www.apache.org/licenses/LICENSE-2.0
+
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package it.geosolutions.concurrent;
+
+/**
+ * Eviction policies supported by the concurrent tile caches.
+ */
+public enum EvictionPolicy {
+    /**
+     * The tiles are evicted by the Guava cache in least recently used order, without considering their computation cost. This is the default
+     * policy.
+     */
+    LRU,
+    /**
+     * The tiles are evicted following the GreedyDual-Size algorithm: each tile is given a priority equal to the current cache "inflation" value
+     * plus the ratio between its computation cost and its size; the tile with the lowest priority is evicted first and its priority becomes the
+     * new inflation value. The priority is refreshed at each access, so that the policy still behaves like an LRU between tiles with the same
+     * cost/size ratio. The computation cost is taken from the <code>tileCacheMetric</code> passed to the <code>add()</code> methods when it is a
+     * {@link Number} (e.g. the computation time in milliseconds); otherwise all the tiles have unitary cost and the policy favours small tiles.
+     */
+    GREEDY_DUAL_SIZE
+}
@@ -0,0 +1,178 @@
+/* JAI-Ext - OpenSource Java Advanced Image Extensions Library
+*    http://www.geo-solutions.it/
+*    Copyright 2014 GeoSolutions
+
+
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+
+* http://www.apache.org/licenses/LICENSE-2.0
+
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package it.geosolutions.concurrent;
+
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free implementation of the {@link EvictionPolicy#GREEDY_DUAL_SIZE} policy. The Guava cache is built without a maximum weight and this class
+ * keeps track of the memory used and of the priority of each tile inside a concurrent skip list. Each priority update creates a new immutable
+ * {@link Entry} which is atomically published inside the {@link CachedTileImpl}; entries which are no more referenced by their tile are
+ * considered stale and are skipped during eviction.
+ */
+final class GreedyDualSizeEviction {
+
+    /** Priority entry of a tile */
+    static final class Entry implements Comparable<Entry> {
+
+        /** Tile priority */
+        final double priority;
+
+        /** Sequence number used for ordering entries with the same priority in LRU order */
+        final long sequence;
+
+        /** The tile */
+        final CachedTileImpl tile;
+
+        Entry(double priority, long sequence, CachedTileImpl tile) {
+            this.priority = priority;
+            this.sequence = sequence;
+            this.tile = tile;
+        }
+
+        public int compareTo(Entry o) {
+            if (priority != o.priority) {
+                return priority < o.priority ? -1 : 1;
+            }
+            if (sequence != o.sequence) {
+                return sequence < o.sequence ? -1 : 1;
+            }
+            return 0;
+        }
+    }
+
+    /** Entry associated to the tiles removed from the cache */
+    static final Entry REMOVED = new Entry(Double.NaN, -1, null);
+
+    /** Tile entries ordered by priority */
+    private final ConcurrentSkipListSet<Entry> queue = new ConcurrentSkipListSet<Entry>();
+
+    /** Generator of the entry sequence numbers */
+    private final AtomicLong sequence = new AtomicLong(0);
+
+    /** Memory used by the cached tiles */
+    private final AtomicLong weight = new AtomicLong(0);
+
+    /** Inflation value (the priority of the last evicted tile), stored as the bits of a double */
+    private final AtomicLong inflation = new AtomicLong(Double.doubleToLongBits(0d));
+
+    /** Maximum memory which can be used by the tiles */
+    private final long maximumWeight;
+
+    GreedyDualSizeEviction(long maximumWeight) {
+        this.maximumWeight = maximumWeight;
+    }
+
+    /** Returns the computation cost of the tile, taken from the tile cache metric if it is a positive number */
+    static double cost(CachedTileImpl cti) {
+        Object metric = cti.getTileCacheMetric();
+        if (metric instanceof Number) {
+            double cost = ((Number) metric).doubleValue();
+            if (cost > 0) {
+                return cost;
+            }
+        }
+        return 1d;
+    }
+
+    /** Must be called when a new tile has been inserted inside the cache */
+    void added(CachedTileImpl cti) {
+        Entry entry = new Entry(priority(cti), sequence.incrementAndGet(), cti);
+        // If the tile has already been removed, it must not be accounted
+        if (cti.evictionEntry.compareAndSet(null, entry)) {
+            weight.addAndGet(cti.getTileSize());
+            queue.add(entry);
+            discardIfStale(entry);
+        }
+    }
+
+    /** Must be called when a tile is found inside the cache */
+    void accessed(CachedTileImpl cti) {
+        Entry old = cti.evictionEntry.get();
+        // The priority changes only if the inflation value has grown after the last update
+        if (old == null || old == REMOVED || old.priority >= priority(cti)) {
+            return;
+        }
+        Entry entry = new Entry(priority(cti), sequence.incrementAndGet(), cti);
+        // If another thread has updated the tile in the meantime, its update is kept
+        if (cti.evictionEntry.compareAndSet(old, entry)) {
+            queue.remove(old);
+            queue.add(entry);
+            discardIfStale(entry);
+        }
+    }
+
+    /** Must be called when a tile has been removed from the cache, for any reason */
+    void removed(CachedTileImpl cti) {
+        Entry old = cti.evictionEntry.getAndSet(REMOVED);
+        // Nothing to do if the tile has never been accounted or has already been removed
+        if (old != null && old != REMOVED) {
+            weight.addAndGet(-cti.getTileSize());
+            queue.remove(old);
+        }
+    }
+
+    /**
+     * Evicts the tiles with the lowest priority until the memory used is below the maximum weight. The removal is done on the input map and the
+     * tiles are marked as evicted before being removed.
+     */
+    void evict(ConcurrentMap<TileKey, CachedTileImpl> map) {
+        while (weight.get() > maximumWeight) {
+            Entry entry = queue.pollFirst();
+            if (entry == null) {
+                return;
+            }
+            CachedTileImpl cti = entry.tile;
+            // Skip stale entries
+            if (cti.evictionEntry.get() != entry) {
+                continue;
+            }
+            raiseInflation(entry.priority);
+            cti.evicted = true;
+            map.remove(cti.getKey(), cti);
+        }
+    }
+
+    /**
+     * Removes an entry just inserted in the queue if the tile has been removed or updated by another thread between the publication of the entry
+     * and its insertion; in that case the other thread could not find the entry in the queue.
+     */
+    private void discardIfStale(Entry entry) {
+        if (entry.tile.evictionEntry.get() != entry) {
+            queue.remove(entry);
+        }
+    }
+
+    /** Current priority of the tile */
+    private double priority(CachedTileImpl cti) {
+        return Double.longBitsToDouble(inflation.get()) + cost(cti) / cti.getTileSize();
+    }
+
+    /** Monotonically raises the inflation value */
+    private void raiseInflation(double value) {
+        while (true) {
+            long current = inflation.get();
+            if (Double.longBitsToDouble(current) >= value
+                    || inflation.compareAndSet(current, Double.doubleToLongBits(value))) {
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/* JAI-Ext - OpenSource Java Advanced Image Extensions Library
+*    http://www.geo-solutions.it/
+*    Copyright 2014 GeoSolutions
+
+
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+
+* http://www.apache.org/licenses/LICENSE-2.0
+
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package it.geosolutions.concurrent;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.google.common.collect.Sets;
+
+/**
+ * Lock-free index containing the keys of the cached tiles for each image. Each image is associated to a concurrent set of {@link TileKey}s; the
+ * set is removed from the index when it becomes empty. The index may temporarily contain keys of tiles which are no more cached, so the users
+ * must always check the cache for the presence of the tile.
+ * <p>
+ * The keys must be added after the insertion of the tile inside the cache. The removal notifications of the cache may arrive after a new tile with
+ * the same key has been cached, so a key is removed only if the cache does not contain it, and added again if a tile has been cached during the
+ * removal: in this way a cached tile is never missing from the index.
+ * <p>
+ * The key of an evicted tile is removed only after the tile has been moved to the second tier, if any, while the explicit removals remove the key
+ * immediately: the second tier stores an evicted tile only if its key is still indexed, so a tile removed during its eviction is not stored.
+ */
+final class ImageTilesIndex {
+
+    /** Map containing the set of tile keys for each image key */
+    private final ConcurrentMap<Long, Set<TileKey>> index;
+
+    /** The cached tiles, used for checking if a key must be removed */
+    private volatile Map<TileKey, ?> tiles;
+
+    ImageTilesIndex(int concurrencyLevel) {
+        index = new ConcurrentHashMap<Long, Set<TileKey>>(16, 0.75f, concurrencyLevel);
+    }
+
+    /** Sets the map of the cached tiles, which must be set before adding any tile */
+    void bind(Map<TileKey, ?> tiles) {
+        this.tiles = tiles;
+    }
+
+    /** Adds the tile key to the set of keys of its image */
+    void add(CachedTileImpl cti) {
+        add(cti.getImageKey(), cti.getKey());
+    }
+
+    private void add(Long imageKey, TileKey key) {
+        while (true) {
+            Set<TileKey> tileKeys = index.get(imageKey);
+            if (tileKeys == null) {
+                Set<TileKey> newKeys = Sets.newSetFromMap(new ConcurrentHashMap<TileKey, Boolean>());
+                tileKeys = index.putIfAbsent(imageKey, newKeys);
+                if (tileKeys == null) {
+                    tileKeys = newKeys;
+                }
+            }
+            tileKeys.add(key);
+            // If the set has been removed from the index in the meantime because it was empty,
+            // the key must be added again to the new set
+            if (index.get(imageKey) == tileKeys) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Removes the tile key from the set of keys of its image, removing the set if empty. The key is not removed if the cache contains a tile with the
+     * same key, e.g. when the notification of an old tile arrives after the insertion of a new one.
+     */
+    void remove(CachedTileImpl cti) {
+        remove(cti.getImageKey(), cti.getKey());
+    }
+
+    /**
+     * Removes the key of an explicitly removed tile, whose removal notification may still be pending. As for {@link #remove(CachedTileImpl)}, the
+     * key is not removed if the cache contains a tile with the same key.
+     */
+    void remove(TileKey key) {
+        remove(Long.valueOf(key.getImageId()), key);
+    }
+
+    private void remove(Long imageKey, TileKey key) {
+        if (tiles.containsKey(key)) {
+            return;
+        }
+        Set<TileKey> tileKeys = index.get(imageKey);
+        if (tileKeys != null) {
+            tileKeys.remove(key);
+            if (tileKeys.isEmpty()) {
+                index.remove(imageKey, tileKeys);
+            }
+            // A new tile may have been cached before the removal of its key
+            if (tiles.containsKey(key)) {
+                add(imageKey, key);
+            }
+        }
+    }
+
+    /** Returns true if the key is indexed */
+    boolean contains(TileKey key) {
+        Set<TileKey> tileKeys = index.get(Long.valueOf(key.getImageId()));
+        return tileKeys != null && tileKeys.contains(key);
+    }
+
+    /** Removes all the keys, used when the cache is flushed */
+    void clear() {
+        index.clear();
+    }
+
+    /**
+     * Returns a snapshot of the tile keys associated to the image. May be <code>null</code> if no tile of the image is indexed.
+     */
+    TileKey[] get(Long imageKey) {
+        Set<TileKey> tileKeys = index.get(imageKey);
+        if (tileKeys == null) {
+            return null;
+        }
+        return tileKeys.toArray(new TileKey[0]);
+    }
+}
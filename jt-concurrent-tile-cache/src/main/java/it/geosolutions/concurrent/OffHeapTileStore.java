@@ -0,0 +1,692 @@
+/* JAI-Ext - OpenSource Java Advanced Image Extensions Library
+*    http://www.geo-solutions.it/
+*    Copyright 2014 GeoSolutions
+
+
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+
+* http://www.apache.org/licenses/LICENSE-2.0
+
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package it.geosolutions.concurrent;
+
+import java.awt.Point;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferDouble;
+import java.awt.image.DataBufferFloat;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DataBufferShort;
+import java.awt.image.DataBufferUShort;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import java.awt.image.SampleModel;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.sun.media.jai.util.CacheDiagnostics;
+
+/**
+ * Off-heap second tier for the concurrent tile caches. The tiles evicted from the Guava cache are copied inside fixed size blocks of a set of
+ * direct {@link ByteBuffer} slabs (or of a memory-mapped spill file) and are rehydrated into a new {@link Raster} when requested again. The tiles
+ * are evicted from this tier in least recently used order when the capacity is exceeded.
+ * <p>
+ * The tile metadata are kept on the heap and are protected by the store lock, while the pixel copies are done outside the lock; the blocks of a
+ * tile which is being read are released only when the read is completed. Only the rasters whose sample model exactly covers the raster bounds
+ * and whose data buffer is one of the standard <code>java.awt.image</code> implementations are stored; the other tiles are simply discarded.
+ * <p>
+ * This class implements {@link CacheDiagnostics}: the hit and miss counts refer to the lookups done on this tier; the counters are always
+ * enabled.
+ */
+public class OffHeapTileStore implements CacheDiagnostics {
+
+    /** The default block size (64 KB). */
+    public static final int DEFAULT_BLOCK_SIZE = 64 * 1024;
+
+    /** Maximum size of a single slab */
+    private static final long MAX_SLAB_SIZE = 1L << 30;
+
+    /** Logger */
+    private final static Logger LOGGER = Logger.getLogger(OffHeapTileStore.class.toString());
+
+    /** Tile stored inside the off-heap memory */
+    private static final class StoredTile {
+
+        /** Tile key */
+        final TileKey key;
+
+        /** Image key */
+        final Long imageKey;
+
+        /** Owner image */
+        final WeakReference owner;
+
+        /** Tile cache metric */
+        final Object tileCacheMetric;
+
+        /** Sample model of the tile */
+        final SampleModel sampleModel;
+
+        /** Tile origin */
+        final int minX;
+
+        final int minY;
+
+        /** Data buffer type */
+        final int dataType;
+
+        /** Data buffer size */
+        final int size;
+
+        /** Data buffer bank offsets */
+        final int[] offsets;
+
+        /** Length of each data buffer bank */
+        final int[] bankLengths;
+
+        /** Blocks containing the tile data */
+        final int[] blocks;
+
+        /** Number of active readers (guarded by the store lock) */
+        int readers;
+
+        /** Indicates that the blocks have been returned to the free list (guarded by the store lock) */
+        boolean released;
+
+        StoredTile(CachedTileImpl cti, DataBuffer db, int[] bankLengths, int[] blocks) {
+            this.key = cti.getKey();
+            this.imageKey = cti.getImageKey();
+            this.owner = cti.owner;
+            this.tileCacheMetric = cti.getTileCacheMetric();
+            Raster tile = cti.getTile();
+            this.sampleModel = tile.getSampleModel();
+            this.minX = tile.getMinX();
+            this.minY = tile.getMinY();
+            this.dataType = db.getDataType();
+            this.size = db.getSize();
+            this.offsets = db.getOffsets();
+            this.bankLengths = bankLengths;
+            this.blocks = blocks;
+        }
+    }
+
+    /** Off-heap memory slabs */
+    private final ByteBuffer[] slabs;
+
+    /** Number of blocks for each slab */
+    private final int blocksPerSlab;
+
+    /** Size of a block */
+    private final int blockSize;
+
+    /** Stack of the free blocks (guarded by the store lock) */
+    private final int[] freeBlocks;
+
+    /** Number of free blocks (guarded by the store lock) */
+    private int freeCount;
+
+    /** Stored tiles in access order (guarded by the store lock) */
+    private final LinkedHashMap<TileKey, StoredTile> tiles = new LinkedHashMap<TileKey, StoredTile>(
+            16, 0.75f, true);
+
+    /** Keys of the stored tiles for each image (guarded by the store lock) */
+    private final Map<Long, Set<TileKey>> imageTiles = new HashMap<Long, Set<TileKey>>();
+
+    /** Spill file channel, <code>null</code> if direct buffers are used */
+    private final FileChannel channel;
+
+    /** Spill file, <code>null</code> if direct buffers are used */
+    private final File spillFile;
+
+    /** Off-heap memory capacity */
+    private final long capacity;
+
+    /** Hit count */
+    private final AtomicLong hits = new AtomicLong();
+
+    /** Miss count */
+    private final AtomicLong misses = new AtomicLong();
+
+    /** Number of tiles evicted from this tier */
+    private final AtomicLong evictions = new AtomicLong();
+
+    /** Number of tiles discarded because they could not be stored */
+    private final AtomicLong rejections = new AtomicLong();
+
+    /**
+     * Creates a new store using direct buffers with the default block size.
+     *
+     * @param capacity the off-heap memory capacity in bytes
+     */
+    public OffHeapTileStore(long capacity) {
+        this(capacity, DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * Creates a new store using direct buffers.
+     *
+     * @param capacity the off-heap memory capacity in bytes
+     * @param blockSize the size of the allocation blocks; must be a multiple of 8
+     */
+    public OffHeapTileStore(long capacity, int blockSize) {
+        this(capacity, blockSize, null, null);
+    }
+
+    /**
+     * Creates a new store using a memory-mapped spill file created inside the input directory. The file is deleted by the {@link #dispose()}
+     * method or at the JVM exit.
+     *
+     * @param capacity the off-heap memory capacity in bytes
+     * @param blockSize the size of the allocation blocks; must be a multiple of 8
+     * @param spillDirectory the directory where the spill file is created; if <code>null</code>, the system temporary directory is used
+     * @throws IOException if the spill file cannot be created or mapped
+     */
+    public OffHeapTileStore(long capacity, int blockSize, File spillDirectory) throws IOException {
+        this(capacity, blockSize, File.createTempFile("jaiext-tilecache", ".tmp", spillDirectory),
+                Boolean.TRUE);
+    }
+
+    private OffHeapTileStore(long capacity, int blockSize, File spillFile, Boolean mapped) {
+        if (blockSize <= 0 || blockSize % 8 != 0) {
+            throw new IllegalArgumentException("Block size must be a positive multiple of 8");
+        }
+        long numBlocks = capacity / blockSize;
+        if (numBlocks < 1 || numBlocks > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Wrong capacity: " + capacity);
+        }
+        this.blockSize = blockSize;
+        this.capacity = numBlocks * blockSize;
+        this.blocksPerSlab = (int) Math.min(numBlocks, Math.max(1, MAX_SLAB_SIZE / blockSize));
+        int numSlabs = (int) ((numBlocks + blocksPerSlab - 1) / blocksPerSlab);
+        this.slabs = new ByteBuffer[numSlabs];
+        this.spillFile = spillFile;
+
+        FileChannel fileChannel = null;
+        try {
+            if (spillFile != null) {
+                spillFile.deleteOnExit();
+                fileChannel = new RandomAccessFile(spillFile, "rw").getChannel();
+            }
+            long remaining = numBlocks;
+            for (int i = 0; i < numSlabs; i++) {
+                int slabBlocks = (int) Math.min(remaining, blocksPerSlab);
+                int slabSize = slabBlocks * blockSize;
+                if (fileChannel != null) {
+                    slabs[i] = fileChannel.map(FileChannel.MapMode.READ_WRITE, (long) i
+                            * blocksPerSlab * blockSize, slabSize);
+                } else {
+                    slabs[i] = ByteBuffer.allocateDirect(slabSize);
+                }
+                remaining -= slabBlocks;
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Unable to map the spill file " + spillFile, e);
+        }
+        this.channel = fileChannel;
+
+        // All the blocks are free
+        freeBlocks = new int[(int) numBlocks];
+        for (int i = 0; i < freeBlocks.length; i++) {
+            freeBlocks[i] = freeBlocks.length - 1 - i;
+        }
+        freeCount = freeBlocks.length;
+    }
+
+    /**
+     * Stores the tile inside the off-heap memory, evicting the least recently used tiles if needed. The tile is not stored if its key is no more
+     * contained in the index of the cache, which means that the tile has been explicitly removed after its eviction.
+     *
+     * @param cti the evicted tile
+     * @param index the index of the cache which evicted the tile
+     * @return <code>true</code> if the tile has been stored
+     */
+    boolean put(CachedTileImpl cti, ImageTilesIndex index) {
+        Raster tile = cti.getTile();
+        DataBuffer db = tile.getDataBuffer();
+        SampleModel sm = tile.getSampleModel();
+        // Only standard tiles are supported
+        if (!isSupported(db) || tile.getSampleModelTranslateX() != tile.getMinX()
+                || tile.getSampleModelTranslateY() != tile.getMinY()
+                || sm.getWidth() != tile.getWidth() || sm.getHeight() != tile.getHeight()) {
+            rejections.incrementAndGet();
+            return false;
+        }
+        int numBanks = db.getNumBanks();
+        int elementSize = DataBuffer.getDataTypeSize(db.getDataType()) / 8;
+        int[] bankLengths = new int[numBanks];
+        long bytes = 0;
+        for (int b = 0; b < numBanks; b++) {
+            bankLengths[b] = bankLength(db, b);
+            // Each bank starts at the beginning of a block
+            bytes += roundToBlock((long) bankLengths[b] * elementSize);
+        }
+        int numBlocks = (int) (bytes / blockSize);
+
+        // Block allocation
+        int[] blocks = allocate(numBlocks);
+        if (blocks == null) {
+            rejections.incrementAndGet();
+            return false;
+        }
+        StoredTile stored = new StoredTile(cti, db, bankLengths, blocks);
+        // Data copy, outside of the lock since the blocks are not yet visible
+        int block = 0;
+        for (int b = 0; b < numBanks; b++) {
+            copy(db, b, blocks, block, true);
+            block += (int) (roundToBlock((long) bankLengths[b] * elementSize) / blockSize);
+        }
+
+        // Publication of the tile, checking again the index inside the lock taken by the removals
+        synchronized (this) {
+            if (!index.contains(stored.key)) {
+                release(stored);
+                return false;
+            }
+            StoredTile old = tiles.put(stored.key, stored);
+            if (old != null) {
+                removeFromIndex(old);
+                release(old);
+            }
+            Set<TileKey> keys = imageTiles.get(stored.imageKey);
+            if (keys == null) {
+                keys = new HashSet<TileKey>();
+                imageTiles.put(stored.imageKey, keys);
+            }
+            keys.add(stored.key);
+        }
+        return true;
+    }
+
+    /**
+     * Removes the tile from the store and returns it as a new {@link CachedTileImpl}. Returns <code>null</code> if the tile is not present or if
+     * its owner has been garbage collected.
+     */
+    CachedTileImpl take(TileKey key) {
+        StoredTile stored;
+        synchronized (this) {
+            stored = tiles.remove(key);
+            if (stored == null) {
+                misses.incrementAndGet();
+                return null;
+            }
+            removeFromIndex(stored);
+            // The blocks are kept until the data are copied
+            stored.readers++;
+        }
+        try {
+            RenderedImage owner = (RenderedImage) stored.owner.get();
+            if (owner == null) {
+                misses.incrementAndGet();
+                return null;
+            }
+            Raster tile = read(stored);
+            hits.incrementAndGet();
+            return new CachedTileImpl(owner, stored.key.getTileX(), stored.key.getTileY(), tile,
+                    stored.tileCacheMetric);
+        } finally {
+            synchronized (this) {
+                stored.readers--;
+                release(stored);
+            }
+        }
+    }
+
+    /** Removes the tile from the store */
+    synchronized void remove(TileKey key) {
+        StoredTile stored = tiles.remove(key);
+        if (stored != null) {
+            removeFromIndex(stored);
+            release(stored);
+        }
+    }
+
+    /** Removes all the tiles of the image from the store */
+    synchronized void removeTiles(Long imageKey) {
+        Set<TileKey> keys = imageTiles.remove(imageKey);
+        if (keys != null) {
+            for (TileKey key : keys) {
+                StoredTile stored = tiles.remove(key);
+                if (stored != null) {
+                    release(stored);
+                }
+            }
+        }
+    }
+
+    /** Removes all the tiles from the store */
+    public synchronized void flush() {
+        Iterator<StoredTile> it = tiles.values().iterator();
+        while (it.hasNext()) {
+            StoredTile stored = it.next();
+            it.remove();
+            release(stored);
+        }
+        imageTiles.clear();
+    }
+
+    /**
+     * Removes all the tiles and releases the spill file, if any. The store cannot be used anymore after this call.
+     */
+    public synchronized void dispose() {
+        flush();
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                if (LOGGER.isLoggable(Level.FINE)) {
+                    LOGGER.log(Level.FINE, e.getLocalizedMessage(), e);
+                }
+            }
+            spillFile.delete();
+        }
+    }
+
+    /** Retrieve the off-heap memory capacity */
+    public long getCapacity() {
+        return capacity;
+    }
+
+    /** Retrieves the number of tiles evicted from this tier */
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    /** Retrieves the number of tiles which could not be stored */
+    public long getRejectionCount() {
+        return rejections.get();
+    }
+
+    /** Counters are always enabled */
+    public void enableDiagnostics() {
+    }
+
+    /** Counters are always enabled */
+    public void disableDiagnostics() {
+    }
+
+    /** Retrieves the number of tiles in the store */
+    public synchronized long getCacheTileCount() {
+        return tiles.size();
+    }
+
+    /** Retrieves the off-heap memory used */
+    public synchronized long getCacheMemoryUsed() {
+        return (long) (freeBlocks.length - freeCount) * blockSize;
+    }
+
+    /** Retrieves the hit count */
+    public long getCacheHitCount() {
+        return hits.get();
+    }
+
+    /** Retrieves the miss count */
+    public long getCacheMissCount() {
+        return misses.get();
+    }
+
+    /** Resets the hit, miss, eviction and rejection counts */
+    public void resetCounts() {
+        hits.set(0);
+        misses.set(0);
+        evictions.set(0);
+        rejections.set(0);
+    }
+
+    /**
+     * Allocates the requested blocks, evicting the least recently used tiles if needed. Returns <code>null</code> if the blocks cannot be
+     * allocated.
+     */
+    private synchronized int[] allocate(int numBlocks) {
+        if (numBlocks > freeBlocks.length) {
+            return null;
+        }
+        Iterator<StoredTile> it = tiles.values().iterator();
+        while (freeCount < numBlocks && it.hasNext()) {
+            StoredTile eldest = it.next();
+            it.remove();
+            removeFromIndex(eldest);
+            release(eldest);
+            evictions.incrementAndGet();
+        }
+        // Blocks of tiles which are being read may be still in use
+        if (freeCount < numBlocks) {
+            return null;
+        }
+        int[] blocks = new int[numBlocks];
+        for (int i = 0; i < numBlocks; i++) {
+            blocks[i] = freeBlocks[--freeCount];
+        }
+        return blocks;
+    }
+
+    /**
+     * Releases the blocks of a tile already removed from the map, if no reader is active; otherwise the last reader will release them (must be
+     * called with the lock held)
+     */
+    private void release(StoredTile stored) {
+        if (stored.readers == 0 && !stored.released) {
+            int[] blocks = stored.blocks;
+            for (int i = 0; i < blocks.length; i++) {
+                freeBlocks[freeCount++] = blocks[i];
+            }
+            stored.released = true;
+        }
+    }
+
+    /** Removes the tile from the image index (must be called with the lock held) */
+    private void removeFromIndex(StoredTile stored) {
+        Set<TileKey> keys = imageTiles.get(stored.imageKey);
+        if (keys != null) {
+            keys.remove(stored.key);
+            if (keys.isEmpty()) {
+                imageTiles.remove(stored.imageKey);
+            }
+        }
+    }
+
+    /** Rebuilds the raster from the stored data */
+    private Raster read(StoredTile stored) {
+        int numBanks = stored.bankLengths.length;
+        int elementSize = DataBuffer.getDataTypeSize(stored.dataType) / 8;
+        Object[] banks = new Object[numBanks];
+        int block = 0;
+        for (int b = 0; b < numBanks; b++) {
+            banks[b] = newBank(stored.dataType, stored.bankLengths[b]);
+            copy(banks[b], stored.dataType, stored.blocks, block, false);
+            block += (int) (roundToBlock((long) stored.bankLengths[b] * elementSize) / blockSize);
+        }
+        DataBuffer db = newDataBuffer(stored.dataType, banks, stored.size, stored.offsets);
+        return Raster.createWritableRaster(stored.sampleModel, db, new Point(stored.minX,
+                stored.minY));
+    }
+
+    /** Copies a data buffer bank from/to the blocks */
+    private void copy(DataBuffer db, int bank, int[] blocks, int firstBlock, boolean write) {
+        copy(bankData(db, bank), db.getDataType(), blocks, firstBlock, write);
+    }
+
+    /** Copies a primitive array from/to the blocks, starting from the selected block */
+    private void copy(Object array, int dataType, int[] blocks, int firstBlock, boolean write) {
+        int elementSize = DataBuffer.getDataTypeSize(dataType) / 8;
+        int length = java.lang.reflect.Array.getLength(array);
+        int elementsPerBlock = blockSize / elementSize;
+        int done = 0;
+        int block = firstBlock;
+        while (done < length) {
+            int count = Math.min(length - done, elementsPerBlock);
+            ByteBuffer buffer = blockBuffer(blocks[block++]);
+            switch (dataType) {
+            case DataBuffer.TYPE_BYTE:
+                if (write) {
+                    buffer.put((byte[]) array, done, count);
+                } else {
+                    buffer.get((byte[]) array, done, count);
+                }
+                break;
+            case DataBuffer.TYPE_USHORT:
+            case DataBuffer.TYPE_SHORT:
+                if (write) {
+                    buffer.asShortBuffer().put((short[]) array, done, count);
+                } else {
+                    buffer.asShortBuffer().get((short[]) array, done, count);
+                }
+                break;
+            case DataBuffer.TYPE_INT:
+                if (write) {
+                    buffer.asIntBuffer().put((int[]) array, done, count);
+                } else {
+                    buffer.asIntBuffer().get((int[]) array, done, count);
+                }
+                break;
+            case DataBuffer.TYPE_FLOAT:
+                if (write) {
+                    buffer.asFloatBuffer().put((float[]) array, done, count);
+                } else {
+                    buffer.asFloatBuffer().get((float[]) array, done, count);
+                }
+                break;
+            case DataBuffer.TYPE_DOUBLE:
+                if (write) {
+                    buffer.asDoubleBuffer().put((double[]) array, done, count);
+                } else {
+                    buffer.asDoubleBuffer().get((double[]) array, done, count);
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Wrong data type");
+            }
+            done += count;
+        }
+    }
+
+    /** Returns a view of the selected block, with independent position and limit */
+    private ByteBuffer blockBuffer(int block) {
+        ByteBuffer buffer = slabs[block / blocksPerSlab].duplicate();
+        int offset = (block % blocksPerSlab) * blockSize;
+        buffer.limit(offset + blockSize);
+        buffer.position(offset);
+        return buffer.slice().order(ByteOrder.nativeOrder());
+    }
+
+    /** Rounds the size to a multiple of the block size */
+    private long roundToBlock(long bytes) {
+        return ((bytes + blockSize - 1) / blockSize) * blockSize;
+    }
+
+    /** Checks if the data buffer is one of the standard implementations */
+    private static boolean isSupported(DataBuffer db) {
+        return db instanceof DataBufferByte || db instanceof DataBufferUShort
+                || db instanceof DataBufferShort || db instanceof DataBufferInt
+                || db instanceof DataBufferFloat || db instanceof DataBufferDouble;
+    }
+
+    /** Returns the length of the selected bank */
+    private static int bankLength(DataBuffer db, int bank) {
+        return java.lang.reflect.Array.getLength(bankData(db, bank));
+    }
+
+    /** Returns the array of the selected bank */
+    private static Object bankData(DataBuffer db, int bank) {
+        switch (db.getDataType()) {
+        case DataBuffer.TYPE_BYTE:
+            return ((DataBufferByte) db).getData(bank);
+        case DataBuffer.TYPE_USHORT:
+            return ((DataBufferUShort) db).getData(bank);
+        case DataBuffer.TYPE_SHORT:
+            return ((DataBufferShort) db).getData(bank);
+        case DataBuffer.TYPE_INT:
+            return ((DataBufferInt) db).getData(bank);
+        case DataBuffer.TYPE_FLOAT:
+            return ((DataBufferFloat) db).getData(bank);
+        case DataBuffer.TYPE_DOUBLE:
+            return ((DataBufferDouble) db).getData(bank);
+        default:
+            throw new IllegalArgumentException("Wrong data type");
+        }
+    }
+
+    /** Creates a new bank array */
+    private static Object newBank(int dataType, int length) {
+        switch (dataType) {
+        case DataBuffer.TYPE_BYTE:
+            return new byte[length];
+        case DataBuffer.TYPE_USHORT:
+        case DataBuffer.TYPE_SHORT:
+            return new short[length];
+        case DataBuffer.TYPE_INT:
+            return new int[length];
+        case DataBuffer.TYPE_FLOAT:
+            return new float[length];
+        case DataBuffer.TYPE_DOUBLE:
+            return new double[length];
+        default:
+            throw new IllegalArgumentException("Wrong data type");
+        }
+    }
+
+    /** Creates a new data buffer from the bank arrays */
+    private static DataBuffer newDataBuffer(int dataType, Object[] banks, int size, int[] offsets) {
+        int numBanks = banks.length;
+        switch (dataType) {
+        case DataBuffer.TYPE_BYTE:
+            byte[][] bytes = new byte[numBanks][];
+            for (int b = 0; b < numBanks; b++) {
+                bytes[b] = (byte[]) banks[b];
+            }
+            return new DataBufferByte(bytes, size, offsets);
+        case DataBuffer.TYPE_USHORT:
+            short[][] ushorts = new short[numBanks][];
+            for (int b = 0; b < numBanks; b++) {
+                ushorts[b] = (short[]) banks[b];
+            }
+            return new DataBufferUShort(ushorts, size, offsets);
+        case DataBuffer.TYPE_SHORT:
+            short[][] shorts = new short[numBanks][];
+            for (int b = 0; b < numBanks; b++) {
+                shorts[b] = (short[]) banks[b];
+            }
+            return new DataBufferShort(shorts, size, offsets);
+        case DataBuffer.TYPE_INT:
+            int[][] ints = new int[numBanks][];
+            for (int b = 0; b < numBanks; b++) {
+                ints[b] = (int[]) banks[b];
+            }
+            return new DataBufferInt(ints, size, offsets);
+        case DataBuffer.TYPE_FLOAT:
+            float[][] floats = new float[numBanks][];
+            for (int b = 0; b < numBanks; b++) {
+                floats[b] = (float[]) banks[b];
+            }
+            return new DataBufferFloat(floats, size, offsets);
+        case DataBuffer.TYPE_DOUBLE:
+            double[][] doubles = new double[numBanks][];
+            for (int b = 0; b < numBanks; b++) {
+                doubles[b] = (double[]) banks[b];
+            }
+            return new DataBufferDouble(doubles, size, offsets);
+        default:
+            throw new IllegalArgumentException("Wrong data type");
+        }
+    }
+}
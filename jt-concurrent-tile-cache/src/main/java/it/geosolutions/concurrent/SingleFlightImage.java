@@ -0,0 +1,84 @@
+/* JAI-Ext - OpenSource Java Advanced Image Extensions Library
+*    http://www.geo-solutions.it/
+*    Copyright 2014 GeoSolutions
+
+
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+
+* http://www.apache.org/licenses/LICENSE-2.0
+
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package it.geosolutions.concurrent;
+
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import java.util.concurrent.Callable;
+
+import javax.media.jai.ImageLayout;
+import javax.media.jai.PlanarImage;
+
+/**
+ * {@link PlanarImage} wrapping a source image whose <code>getTile()</code> calls are deduplicated through a {@link SingleFlightTileComputation}:
+ * when more threads request the same tile which is not yet cached, only one of them calls the source <code>getTile()</code> method (e.g. the
+ * computation of an <code>OpImage</code>) and the others wait for its result. This image should be used as the image returned to the clients
+ * which request tiles concurrently (e.g. the final image of a tiled map rendering chain).
+ */
+public class SingleFlightImage extends PlanarImage {
+
+    /** The wrapped image */
+    private final RenderedImage source;
+
+    /** The deduplication of the tile computations */
+    private final SingleFlightTileComputation computation;
+
+    /** Creates a wrapper using the shared {@link SingleFlightTileComputation} instance */
+    public SingleFlightImage(RenderedImage source) {
+        this(source, SingleFlightTileComputation.getDefaultInstance());
+    }
+
+    public SingleFlightImage(RenderedImage source, SingleFlightTileComputation computation) {
+        super(createLayout(source, computation), null, null);
+        this.source = source;
+        this.computation = computation;
+    }
+
+    /** Checks the constructor parameters before the source is used, and returns the layout of the source */
+    private static ImageLayout createLayout(RenderedImage source,
+            SingleFlightTileComputation computation) {
+        if (source == null || computation == null) {
+            throw new IllegalArgumentException("Source image and computation must be not null");
+        }
+        return new ImageLayout(source);
+    }
+
+    /** Returns the wrapped image */
+    public RenderedImage getWrappedImage() {
+        return source;
+    }
+
+    /** Returns the selected tile, computing it only once when requested concurrently */
+    public Raster getTile(final int tileX, final int tileY) {
+        return computation.getTile(source, tileX, tileY, new Callable<Raster>() {
+            public Raster call() {
+                return source.getTile(tileX, tileY);
+            }
+        });
+    }
+
+    /** Returns the property of the wrapped image */
+    public Object getProperty(String name) {
+        return source.getProperty(name);
+    }
+
+    /** Returns the property names of the wrapped image */
+    public String[] getPropertyNames() {
+        return source.getPropertyNames();
+    }
+}
@@ -0,0 +1,157 @@
+/* JAI-Ext - OpenSource Java Advanced Image Extensions Library
+*    http://www.geo-solutions.it/
+*    Copyright 2014 GeoSolutions
+
+
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+
+* http://www.apache.org/licenses/LICENSE-2.0
+
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package it.geosolutions.concurrent;
+
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.media.jai.TileCache;
+
+/**
+ * Deduplicates the concurrent computations of the same tile. The computations are keyed by {@link TileKey}, as the tiles inside the concurrent
+ * tile caches: the first thread requesting a tile executes the computation while the other threads requesting the same tile wait for its result.
+ * The computation is forgotten as soon as it is completed, so the computed tiles should be stored inside a {@link TileCache} (which is what
+ * {@link javax.media.jai.OpImage#getTile(int, int)} does) in order to be reused by the later requests.
+ * <p>
+ * If the computation fails, the same exception is thrown to all the waiting threads. See {@link SingleFlightImage} for a wrapper applying this
+ * deduplication to all the <code>getTile()</code> calls of an image.
+ */
+public final class SingleFlightTileComputation {
+
+    /** Shared instance */
+    private static final SingleFlightTileComputation DEFAULT_INSTANCE = new SingleFlightTileComputation();
+
+    /** Computations in progress */
+    private final ConcurrentMap<TileKey, FutureTask<Raster>> inFlight;
+
+    /** Number of executed computations */
+    private final AtomicLong computations = new AtomicLong();
+
+    /** Number of requests which have waited for the computation of another thread */
+    private final AtomicLong deduplications = new AtomicLong();
+
+    public SingleFlightTileComputation() {
+        this(ConcurrentTileCache.DEFAULT_CONCURRENCY_LEVEL);
+    }
+
+    public SingleFlightTileComputation(int concurrencyLevel) {
+        inFlight = new ConcurrentHashMap<TileKey, FutureTask<Raster>>(16, 0.75f, concurrencyLevel);
+    }
+
+    /** Returns an instance shared by the whole JVM */
+    public static SingleFlightTileComputation getDefaultInstance() {
+        return DEFAULT_INSTANCE;
+    }
+
+    /**
+     * Returns the selected tile, executing the input computation only if no other thread is already computing the same tile; otherwise waits for
+     * the result of the other thread.
+     */
+    public Raster getTile(RenderedImage owner, int tileX, int tileY, Callable<Raster> computation) {
+        TileKey key = TileKey.create(owner, tileX, tileY);
+        FutureTask<Raster> task = new FutureTask<Raster>(computation);
+        FutureTask<Raster> running = inFlight.putIfAbsent(key, task);
+        if (running == null) {
+            // This thread executes the computation
+            try {
+                computations.incrementAndGet();
+                task.run();
+            } finally {
+                inFlight.remove(key, task);
+            }
+            running = task;
+        } else {
+            deduplications.incrementAndGet();
+        }
+        return getResult(running);
+    }
+
+    /**
+     * Returns the selected tile from the input cache, if present; otherwise computes it once, as in
+     * {@link #getTile(RenderedImage, int, int, Callable)}, and stores the result inside the cache.
+     */
+    public Raster getTile(final TileCache cache, final RenderedImage owner, final int tileX,
+            final int tileY, final Callable<Raster> computation) {
+        Raster tile = cache.getTile(owner, tileX, tileY);
+        if (tile != null) {
+            return tile;
+        }
+        return getTile(owner, tileX, tileY, new Callable<Raster>() {
+            public Raster call() throws Exception {
+                // Another thread may have completed the computation in the meantime
+                Raster cached = cache.getTile(owner, tileX, tileY);
+                if (cached != null) {
+                    return cached;
+                }
+                Raster computed = computation.call();
+                if (computed != null) {
+                    cache.add(owner, tileX, tileY, computed);
+                }
+                return computed;
+            }
+        });
+    }
+
+    /** Retrieves the number of computations executed */
+    public long getComputationCount() {
+        return computations.get();
+    }
+
+    /** Retrieves the number of requests served by the computation of another thread */
+    public long getDeduplicationCount() {
+        return deduplications.get();
+    }
+
+    /** Resets the counters */
+    public void resetCounts() {
+        computations.set(0);
+        deduplications.set(0);
+    }
+
+    /** Waits for the computation result, without being interrupted; the interrupt status is restored at the end */
+    private static Raster getResult(FutureTask<Raster> task) {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return task.get();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof RuntimeException) {
+                        throw (RuntimeException) cause;
+                    } else if (cause instanceof Error) {
+                        throw (Error) cause;
+                    }
+                    throw new RuntimeException(cause);
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/* JAI-Ext - OpenSource Java Advanced Image Extensions Library
+*    http://www.geo-solutions.it/
+*    Copyright 2014 GeoSolutions
+
+
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+
+* http://www.apache.org/licenses/LICENSE-2.0
+
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package it.geosolutions.concurrent;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counter spreading the updates of different threads on different cells, so that frequently updated counters do not become a contention point.
+ * Each cell is padded in order to avoid false sharing between the cells. The value is obtained by summing all the cells, so it may not include
+ * the updates done concurrently to the read.
+ */
+final class StripedCounter {
+
+    /** Distance between two cells inside the array (a cache line of longs) */
+    private static final int PADDING = 8;
+
+    /** Number of cells, a power of two not smaller than the number of processors */
+    private static final int STRIPES;
+
+    static {
+        int stripes = 1;
+        int processors = Runtime.getRuntime().availableProcessors();
+        while (stripes < processors) {
+            stripes <<= 1;
+        }
+        STRIPES = stripes;
+    }
+
+    /** Counter cells */
+    private final AtomicLongArray cells = new AtomicLongArray(STRIPES * PADDING);
+
+    /** Adds the value to the counter */
+    void add(long value) {
+        cells.addAndGet(index(), value);
+    }
+
+    /** Increments the counter by one */
+    void increment() {
+        cells.incrementAndGet(index());
+    }
+
+    /** Returns the sum of all the cells */
+    long sum() {
+        long sum = 0;
+        for (int i = 0; i < STRIPES; i++) {
+            sum += cells.get(i * PADDING);
+        }
+        return sum;
+    }
+
+    /** Resets the counter to zero */
+    void reset() {
+        for (int i = 0; i < STRIPES; i++) {
+            cells.set(i * PADDING, 0);
+        }
+    }
+
+    /** Cell of the current thread */
+    private static int index() {
+        long id = Thread.currentThread().getId();
+        int hash = (int) (id ^ (id >>> 32));
+        hash ^= (hash >>> 16);
+        return (hash & (STRIPES - 1)) * PADDING;
+    }
+}
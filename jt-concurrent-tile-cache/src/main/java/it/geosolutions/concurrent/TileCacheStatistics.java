@@ -0,0 +1,370 @@
+/* JAI-Ext - OpenSource Java Advanced Image Extensions Library
+*    http://www.geo-solutions.it/
+*    Copyright 2014 GeoSolutions
+
+
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+
+* http://www.apache.org/licenses/LICENSE-2.0
+
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package it.geosolutions.concurrent;
+
+import java.awt.image.RenderedImage;
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import com.google.common.cache.RemovalCause;
+
+/**
+ * Always-on statistics of a concurrent tile cache. The counters are updated on each cache operation without locks (see {@link StripedCounter}),
+ * so they can be kept enabled in production, unlike the diagnostics based on the observer notifications. The statistics can be read through an
+ * immutable {@link Snapshot} or exported as a JMX MBean with {@link #registerMBean(String)}.
+ */
+public class TileCacheStatistics implements TileCacheStatisticsMBean {
+
+    /** Domain of the JMX object names */
+    public static final String JMX_DOMAIN = "it.geosolutions.concurrent";
+
+    /** Immutable copy of the statistics taken at a given time */
+    public static final class Snapshot {
+
+        private final long hitCount;
+
+        private final long missCount;
+
+        private final long sizeEvictionCount;
+
+        private final long costEvictionCount;
+
+        private final long explicitRemovalCount;
+
+        private final long replacementCount;
+
+        private final long bytesAdded;
+
+        private final long bytesEvicted;
+
+        private final long memoryUsed;
+
+        private final long tileCount;
+
+        private final Map<Long, Long> imageMemoryUsed;
+
+        Snapshot(TileCacheStatistics stats) {
+            this.hitCount = stats.hits.sum();
+            this.missCount = stats.misses.sum();
+            this.sizeEvictionCount = stats.sizeEvictions.sum();
+            this.costEvictionCount = stats.costEvictions.sum();
+            this.explicitRemovalCount = stats.explicitRemovals.sum();
+            this.replacementCount = stats.replacements.sum();
+            this.bytesAdded = stats.bytesAdded.sum();
+            this.bytesEvicted = stats.bytesEvicted.sum();
+            this.memoryUsed = stats.memory.sum();
+            this.tileCount = stats.tiles.sum();
+            Map<Long, Long> images = new HashMap<Long, Long>();
+            for (Map.Entry<Long, AtomicLong> entry : stats.images.entrySet()) {
+                long value = entry.getValue().get();
+                if (value > 0) {
+                    images.put(entry.getKey(), value);
+                }
+            }
+            this.imageMemoryUsed = Collections.unmodifiableMap(images);
+        }
+
+        public long getHitCount() {
+            return hitCount;
+        }
+
+        public long getMissCount() {
+            return missCount;
+        }
+
+        /** Ratio between the hits and the total requests, <code>NaN</code> if no request has been done */
+        public double getHitRatio() {
+            return hitRatio(hitCount, missCount);
+        }
+
+        public long getSizeEvictionCount() {
+            return sizeEvictionCount;
+        }
+
+        public long getCostEvictionCount() {
+            return costEvictionCount;
+        }
+
+        /** Total number of evicted tiles */
+        public long getEvictionCount() {
+            return sizeEvictionCount + costEvictionCount;
+        }
+
+        public long getExplicitRemovalCount() {
+            return explicitRemovalCount;
+        }
+
+        public long getReplacementCount() {
+            return replacementCount;
+        }
+
+        public long getBytesAdded() {
+            return bytesAdded;
+        }
+
+        public long getBytesEvicted() {
+            return bytesEvicted;
+        }
+
+        public long getMemoryUsed() {
+            return memoryUsed;
+        }
+
+        public long getTileCount() {
+            return tileCount;
+        }
+
+        /**
+         * Memory used by the tiles of each image. The images are identified by the key returned by {@link TileKey#imageKey(RenderedImage)}.
+         */
+        public Map<Long, Long> getImageMemoryUsed() {
+            return imageMemoryUsed;
+        }
+
+        public String toString() {
+            return "TileCacheStatistics[hits=" + hitCount + ", misses=" + missCount
+                    + ", sizeEvictions=" + sizeEvictionCount + ", costEvictions="
+                    + costEvictionCount + ", explicitRemovals=" + explicitRemovalCount
+                    + ", replacements=" + replacementCount + ", bytesAdded=" + bytesAdded
+                    + ", bytesEvicted=" + bytesEvicted + ", memoryUsed=" + memoryUsed
+                    + ", tiles=" + tileCount + ", images=" + imageMemoryUsed.size() + "]";
+        }
+    }
+
+    /** Value of an image counter removed from the map */
+    private static final long DEAD = Long.MIN_VALUE;
+
+    private final StripedCounter hits = new StripedCounter();
+
+    private final StripedCounter misses = new StripedCounter();
+
+    private final StripedCounter sizeEvictions = new StripedCounter();
+
+    private final StripedCounter costEvictions = new StripedCounter();
+
+    private final StripedCounter explicitRemovals = new StripedCounter();
+
+    private final StripedCounter replacements = new StripedCounter();
+
+    private final StripedCounter bytesAdded = new StripedCounter();
+
+    private final StripedCounter bytesEvicted = new StripedCounter();
+
+    /** Memory currently used, never reset */
+    private final StripedCounter memory = new StripedCounter();
+
+    /** Number of cached tiles, never reset */
+    private final StripedCounter tiles = new StripedCounter();
+
+    /** Memory used by each image; the counters are removed when they reach zero */
+    private final ConcurrentMap<Long, AtomicLong> images = new ConcurrentHashMap<Long, AtomicLong>();
+
+    /** Name of the registered MBean, <code>null</code> if not registered */
+    private ObjectName mbeanName;
+
+    /** Must be called when a tile is found inside the cache */
+    void hit() {
+        hits.increment();
+    }
+
+    /** Must be called when a tile is not found inside the cache */
+    void miss() {
+        misses.increment();
+    }
+
+    /** Must be called before the insertion of a new tile inside the cache */
+    void added(CachedTileImpl cti) {
+        long size = cti.getTileSize();
+        bytesAdded.add(size);
+        occupy(cti, size);
+    }
+
+    /** Must be called when a tile accounted by {@link #added(CachedTileImpl)} has not been inserted inside the cache */
+    void notAdded(CachedTileImpl cti) {
+        long size = cti.getTileSize();
+        bytesAdded.add(-size);
+        release(cti.getImageKey(), size);
+        memory.add(-size);
+        tiles.add(-1);
+    }
+
+    /** Must be called when a tile has been removed from the cache */
+    void removed(CachedTileImpl cti, RemovalCause cause) {
+        long size = cti.getTileSize();
+        if (cti.evicted) {
+            costEvictions.increment();
+            bytesEvicted.add(size);
+        } else if (cause == RemovalCause.SIZE) {
+            sizeEvictions.increment();
+            bytesEvicted.add(size);
+        } else if (cause == RemovalCause.REPLACED) {
+            replacements.increment();
+        } else {
+            explicitRemovals.increment();
+        }
+        release(cti.getImageKey(), size);
+        memory.add(-size);
+        tiles.add(-1);
+    }
+
+    /** Returns an immutable copy of the current statistics */
+    public Snapshot snapshot() {
+        return new Snapshot(this);
+    }
+
+    /** Memory used by the cached tiles of the image */
+    public long getMemoryUsed(RenderedImage owner) {
+        AtomicLong counter = images.get(TileKey.imageKey(owner));
+        if (counter == null) {
+            return 0;
+        }
+        long value = counter.get();
+        return value > 0 ? value : 0;
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public double getHitRatio() {
+        return hitRatio(hits.sum(), misses.sum());
+    }
+
+    public long getSizeEvictionCount() {
+        return sizeEvictions.sum();
+    }
+
+    public long getCostEvictionCount() {
+        return costEvictions.sum();
+    }
+
+    public long getExplicitRemovalCount() {
+        return explicitRemovals.sum();
+    }
+
+    public long getReplacementCount() {
+        return replacements.sum();
+    }
+
+    public long getBytesAdded() {
+        return bytesAdded.sum();
+    }
+
+    public long getBytesEvicted() {
+        return bytesEvicted.sum();
+    }
+
+    public long getMemoryUsed() {
+        return memory.sum();
+    }
+
+    public long getTileCount() {
+        return tiles.sum();
+    }
+
+    public int getImageCount() {
+        return images.size();
+    }
+
+    public void resetCounts() {
+        hits.reset();
+        misses.reset();
+        sizeEvictions.reset();
+        costEvictions.reset();
+        explicitRemovals.reset();
+        replacements.reset();
+        bytesAdded.reset();
+        bytesEvicted.reset();
+    }
+
+    /**
+     * Registers these statistics as an MBean of the platform MBean server, with the object name
+     * <code>it.geosolutions.concurrent:type=TileCacheStatistics,name=&lt;name&gt;</code>. A previous registration is removed.
+     * 
+     * @return the object name of the MBean
+     */
+    public synchronized ObjectName registerMBean(String name) throws JMException {
+        unregisterMBean();
+        ObjectName objectName = new ObjectName(JMX_DOMAIN + ":type=TileCacheStatistics,name="
+                + ObjectName.quote(name));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        mbeanName = objectName;
+        return objectName;
+    }
+
+    /** Removes the MBean registration, if present */
+    public synchronized void unregisterMBean() throws JMException {
+        if (mbeanName != null) {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(mbeanName)) {
+                server.unregisterMBean(mbeanName);
+            }
+            mbeanName = null;
+        }
+    }
+
+    /** Adds the tile to the memory used by its image */
+    private void occupy(CachedTileImpl cti, long size) {
+        memory.add(size);
+        tiles.increment();
+        Long imageKey = cti.getImageKey();
+        while (true) {
+            AtomicLong counter = images.get(imageKey);
+            if (counter == null) {
+                AtomicLong newCounter = new AtomicLong(size);
+                counter = images.putIfAbsent(imageKey, newCounter);
+                if (counter == null) {
+                    return;
+                }
+            }
+            long value = counter.get();
+            // A dead counter is going to be removed from the map, a new one must be created
+            if (value == DEAD) {
+                images.remove(imageKey, counter);
+            } else if (counter.compareAndSet(value, value + size)) {
+                return;
+            }
+        }
+    }
+
+    /** Removes the tile from the memory used by its image, removing the image counter when it reaches zero */
+    private void release(Long imageKey, long size) {
+        AtomicLong counter = images.get(imageKey);
+        if (counter != null && counter.addAndGet(-size) == 0 && counter.compareAndSet(0, DEAD)) {
+            images.remove(imageKey, counter);
+        }
+    }
+
+    private static double hitRatio(long hits, long misses) {
+        long requests = hits + misses;
+        return requests == 0 ? Double.NaN : (double) hits / requests;
+    }
+}
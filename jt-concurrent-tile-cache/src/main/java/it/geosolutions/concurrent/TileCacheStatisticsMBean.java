@@ -0,0 +1,63 @@
+/* JAI-Ext - OpenSource Java Advanced Image Extensions Library
+*    http://www.geo-solutions.it/
+*    Copyright 2014 GeoSolutions
+
+
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+
+* http://www.apache.org/licenses/LICENSE-2.0
+
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package it.geosolutions.concurrent;
+
+/**
+ * JMX management interface of the {@link TileCacheStatistics}.
+ */
+public interface TileCacheStatisticsMBean {
+
+    /** Number of requests which have found the tile inside the cache */
+    long getHitCount();
+
+    /** Number of requests which have not found the tile inside the cache */
+    long getMissCount();
+
+    /** Ratio between the hits and the total requests, <code>NaN</code> if no request has been done */
+    double getHitRatio();
+
+    /** Number of tiles evicted because the cache memory was exceeded (LRU eviction) */
+    long getSizeEvictionCount();
+
+    /** Number of tiles evicted by the {@link EvictionPolicy#GREEDY_DUAL_SIZE} policy */
+    long getCostEvictionCount();
+
+    /** Number of tiles removed by the user, also by flushing the cache */
+    long getExplicitRemovalCount();
+
+    /** Number of tiles replaced by a new tile with the same key */
+    long getReplacementCount();
+
+    /** Total memory of the tiles added to the cache */
+    long getBytesAdded();
+
+    /** Total memory of the evicted tiles */
+    long getBytesEvicted();
+
+    /** Memory currently used by the cached tiles */
+    long getMemoryUsed();
+
+    /** Number of cached tiles */
+    long getTileCount();
+
+    /** Number of images with at least a cached tile */
+    int getImageCount();
+
+    /** Resets the hit, miss, eviction, removal and byte counters; the memory and tile occupancy are not changed */
+    void resetCounts();
+}
@@ -0,0 +1,146 @@
+/* JAI-Ext - OpenSource Java Advanced Image Extensions Library
+*    http://www.geo-solutions.it/
+*    Copyright 2014 GeoSolutions
+
+
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+
+* http://www.apache.org/licenses/LICENSE-2.0
+
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package it.geosolutions.concurrent;
+
+import java.awt.image.RenderedImage;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.collect.MapMaker;
+
+/**
+ * Compact key used by the concurrent tile caches for identifying a single tile. The key is made of two primitive longs: the first one is a numeric
+ * identifier assigned to the owner image the first time it is seen by the cache, the second one packs the tile X and Y indexes. The hash code is
+ * computed only once at creation time, so that lookups inside the cache maps do not need to build any intermediate object (as it happened with
+ * the old <code>BigInteger</code> keys).
+ */
+public final class TileKey implements Comparable<TileKey> {
+
+    /**
+     * Map containing the numeric identifier associated to each image. Images are weakly referenced and compared by identity, so that the entry is
+     * discarded as soon as the image is garbage collected.
+     */
+    private static final ConcurrentMap<RenderedImage, Long> IMAGE_IDS = new MapMaker()
+            .weakKeys().makeMap();
+
+    /** Generator of the image identifiers */
+    private static final AtomicLong ID_GENERATOR = new AtomicLong(0);
+
+    /** Identifier of the owner image */
+    private final long imageId;
+
+    /** Tile X and Y indexes packed inside a single long */
+    private final long tileIndex;
+
+    /** Cached hash code */
+    private final int hash;
+
+    TileKey(long imageId, int tileX, int tileY) {
+        this.imageId = imageId;
+        this.tileIndex = ((long) tileY << 32) | (tileX & 0xFFFFFFFFL);
+        this.hash = hash(imageId, tileIndex);
+    }
+
+    /**
+     * Returns the key associated to the tile of the input image at the selected position.
+     */
+    public static TileKey create(RenderedImage owner, int tileX, int tileY) {
+        return new TileKey(imageId(owner), tileX, tileY);
+    }
+
+    /**
+     * Returns the key associated to the input image. The same {@link Long} instance is returned for all the calls related to the same image.
+     */
+    public static Long imageKey(RenderedImage owner) {
+        Long id = IMAGE_IDS.get(owner);
+        if (id == null) {
+            Long newId = Long.valueOf(ID_GENERATOR.incrementAndGet());
+            id = IMAGE_IDS.putIfAbsent(owner, newId);
+            if (id == null) {
+                id = newId;
+            }
+        }
+        return id;
+    }
+
+    /**
+     * Returns the numeric identifier associated to the input image.
+     */
+    public static long imageId(RenderedImage owner) {
+        return imageKey(owner).longValue();
+    }
+
+    /** Returns the identifier of the owner image */
+    public long getImageId() {
+        return imageId;
+    }
+
+    /** Returns the tile X index */
+    public int getTileX() {
+        return (int) tileIndex;
+    }
+
+    /** Returns the tile Y index */
+    public int getTileY() {
+        return (int) (tileIndex >>> 32);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof TileKey)) {
+            return false;
+        }
+        TileKey other = (TileKey) obj;
+        return hash == other.hash && imageId == other.imageId && tileIndex == other.tileIndex;
+    }
+
+    public int compareTo(TileKey o) {
+        if (imageId != o.imageId) {
+            return imageId < o.imageId ? -1 : 1;
+        }
+        if (tileIndex != o.tileIndex) {
+            return tileIndex < o.tileIndex ? -1 : 1;
+        }
+        return 0;
+    }
+
+    @Override
+    public String toString() {
+        return "TileKey[image=" + imageId + ", tileX=" + getTileX() + ", tileY=" + getTileY()
+                + "]";
+    }
+
+    /**
+     * Mixes the two longs in order to obtain a well distributed hash code (the Guava cache segments are selected using the hash bits).
+     */
+    private static int hash(long imageId, long tileIndex) {
+        long h = imageId * 0x9E3779B97F4A7C15L + tileIndex;
+        h ^= (h >>> 33);
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= (h >>> 33);
+        return (int) h;
+    }
+}
@@ -0,0 +1,105 @@
+/* JAI-Ext - OpenSource Java Advanced Image Extensions Library
+*    http://www.geo-solutions.it/
+*    Copyright 2014 GeoSolutions
+
+
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+
+* http://www.apache.org/licenses/LICENSE-2.0
+
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package it.geosolutions.concurrencytest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import it.geosolutions.concurrent.ConcurrentTileCache;
+import it.geosolutions.concurrent.ConcurrentTileCacheMultiMap;
+import it.geosolutions.concurrent.EvictionPolicy;
+import it.geosolutions.jaiext.testclasses.TestBase;
+
+import java.awt.image.DataBuffer;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+
+import javax.media.jai.TileCache;
+
+import org.junit.Test;
+
+import com.sun.media.jai.util.CacheDiagnostics;
+
+/**
+ * This test class checks that the {@link EvictionPolicy#GREEDY_DUAL_SIZE} policy keeps the expensive tiles inside the cache while the cheap ones
+ * are evicted.
+ */
+public class EvictionPolicyTest extends TestBase {
+
+    /** Number of tiles which can be stored inside the cache */
+    private static final int CACHED_TILES = 4;
+
+    @Test
+    public void testConcurrentTileCache() {
+        RenderedImage image = createTestImage(DataBuffer.TYPE_BYTE, DEFAULT_WIDTH,
+                DEFAULT_HEIGHT, (byte) 0, false, 1);
+        ConcurrentTileCache cache = new ConcurrentTileCache(getCapacity(image), false, 1f, 4,
+                EvictionPolicy.GREEDY_DUAL_SIZE);
+        assertEquals(EvictionPolicy.GREEDY_DUAL_SIZE, cache.getEvictionPolicy());
+        checkEviction(cache, image);
+    }
+
+    @Test
+    public void testConcurrentTileCacheMultiMap() {
+        RenderedImage image = createTestImage(DataBuffer.TYPE_BYTE, DEFAULT_WIDTH,
+                DEFAULT_HEIGHT, (byte) 0, false, 1);
+        ConcurrentTileCacheMultiMap cache = new ConcurrentTileCacheMultiMap(getCapacity(image),
+                false, 1f, 4, EvictionPolicy.GREEDY_DUAL_SIZE);
+        assertEquals(EvictionPolicy.GREEDY_DUAL_SIZE, cache.getEvictionPolicy());
+        checkEviction(cache, image);
+    }
+
+    @Test
+    public void testDefaultPolicy() {
+        assertEquals(EvictionPolicy.LRU, new ConcurrentTileCache().getEvictionPolicy());
+        assertEquals(EvictionPolicy.LRU, new ConcurrentTileCacheMultiMap().getEvictionPolicy());
+    }
+
+    /** Capacity of the cache, slightly bigger than the memory needed for CACHED_TILES tiles */
+    private long getCapacity(RenderedImage image) {
+        Raster tile = image.getTile(image.getMinTileX(), image.getMinTileY());
+        // tile data plus the cache overhead
+        long tileSize = tile.getWidth() * tile.getHeight() + 256;
+        return tileSize * CACHED_TILES;
+    }
+
+    private void checkEviction(TileCache cache, RenderedImage image) {
+        int minX = image.getMinTileX();
+        int minY = image.getMinTileY();
+        int numX = image.getNumXTiles();
+        // An expensive tile is added first, so that an LRU policy would evict it first
+        cache.add(image, minX, minY, image.getTile(minX, minY), Integer.valueOf(40));
+        // Many cheap tiles are added
+        for (int y = minY; y < minY + image.getNumYTiles(); y++) {
+            for (int x = minX; x < minX + numX; x++) {
+                if (x != minX || y != minY) {
+                    cache.add(image, x, y, image.getTile(x, y), Integer.valueOf(1));
+                }
+            }
+        }
+        // The expensive tile is still present
+        assertNotNull(cache.getTile(image, minX, minY));
+        // The cache memory is respected
+        long count = ((CacheDiagnostics) cache).getCacheTileCount();
+        assertTrue(count > 0 && count <= CACHED_TILES);
+        // The removal of the image tiles removes also the expensive one
+        cache.removeTiles(image);
+        assertNull(cache.getTile(image, minX, minY));
+    }
+}
@@ -0,0 +1,152 @@
+/* JAI-Ext - OpenSource Java Advanced Image Extensions Library
+*    http://www.geo-solutions.it/
+*    Copyright 2014 GeoSolutions
+
+
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+
+* http://www.apache.org/licenses/LICENSE-2.0
+
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package it.geosolutions.concurrencytest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import it.geosolutions.concurrent.ConcurrentTileCacheMultiMap;
+import it.geosolutions.jaiext.testclasses.TestBase;
+
+import java.awt.image.DataBuffer;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+
+/**
+ * This test class checks the {@link ConcurrentTileCacheMultiMap} when accessed by an increasing number of threads. Each thread executes a mix of
+ * getTile/add/getTiles calls on random tiles of a small set of images, with a cache capacity which forces continuous evictions. By default only a
+ * short run with 1 and 2 threads is executed, for checking the cache consistency. The throughput is measured and printed only if the
+ * JAI.Ext.ContentionOperations parameter (number of operations per thread, by default 100000) or the JAI.Ext.ContentionThreads parameter (maximum
+ * number of threads, by default twice the available processors) is set.
+ */
+public class MultiMapContentionTest extends TestBase {
+
+    /** Boolean indicating if the throughput must be measured */
+    private final static boolean BENCHMARK = System.getProperty("JAI.Ext.ContentionOperations") != null
+            || System.getProperty("JAI.Ext.ContentionThreads") != null;
+
+    /** Number of operations executed by each thread */
+    private final static int OPERATIONS = Integer.getInteger("JAI.Ext.ContentionOperations",
+            BENCHMARK ? 100000 : 5000);
+
+    /** Maximum number of threads */
+    private final static int MAX_THREADS = Integer.getInteger("JAI.Ext.ContentionThreads",
+            BENCHMARK ? Runtime.getRuntime().availableProcessors() * 2 : 2);
+
+    /** Number of images used */
+    private final static int NUM_IMAGES = 4;
+
+    @Test
+    public void testContention() throws InterruptedException {
+        final RenderedImage[] images = new RenderedImage[NUM_IMAGES];
+        for (int i = 0; i < NUM_IMAGES; i++) {
+            images[i] = createTestImage(DataBuffer.TYPE_BYTE, DEFAULT_WIDTH, DEFAULT_HEIGHT,
+                    (byte) 0, false, 1);
+        }
+        final RenderedImage first = images[0];
+        final int numX = first.getNumXTiles();
+        final int numY = first.getNumYTiles();
+        Raster sample = first.getTile(first.getMinTileX(), first.getMinTileY());
+        // The cache can contain only half of the tiles
+        long tileSize = sample.getWidth() * sample.getHeight();
+        long capacity = tileSize * numX * numY * NUM_IMAGES / 2;
+
+        for (int threads = 1; threads <= MAX_THREADS; threads *= 2) {
+            final ConcurrentTileCacheMultiMap cache = new ConcurrentTileCacheMultiMap(capacity,
+                    false, 1f, 16);
+            final AtomicBoolean passed = new AtomicBoolean(true);
+            final CountDownLatch start = new CountDownLatch(1);
+            final CountDownLatch end = new CountDownLatch(threads);
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            for (int t = 0; t < threads; t++) {
+                final long seed = t;
+                executor.execute(new Runnable() {
+
+                    public void run() {
+                        Random random = new Random(seed);
+                        try {
+                            start.await();
+                            for (int i = 0; i < OPERATIONS; i++) {
+                                RenderedImage image = images[random.nextInt(NUM_IMAGES)];
+                                int x = image.getMinTileX() + random.nextInt(numX);
+                                int y = image.getMinTileY() + random.nextInt(numY);
+                                Raster tile = cache.getTile(image, x, y);
+                                if (tile == null) {
+                                    cache.add(image, x, y, image.getTile(x, y));
+                                } else if (tile != image.getTile(x, y)) {
+                                    passed.set(false);
+                                }
+                                // Seldom requests of all the image tiles
+                                if (i % 1000 == 0) {
+                                    cache.getTiles(image);
+                                }
+                            }
+                        } catch (Throwable e) {
+                            passed.set(false);
+                        } finally {
+                            end.countDown();
+                        }
+                    }
+                });
+            }
+            long startTime = System.nanoTime();
+            start.countDown();
+            end.await();
+            long time = System.nanoTime() - startTime;
+            executor.shutdown();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+
+            assertTrue(passed.get());
+            if (BENCHMARK) {
+                double throughput = (double) OPERATIONS * threads / (time * 1E-6);
+                System.out.println("Threads: " + threads + " Throughput: " + throughput
+                        + " operations/msec.");
+            }
+
+            // All the cached tiles must be found by getTiles(), even if they have been added again
+            // while the removal notification of an older tile was in flight
+            for (int i = 0; i < NUM_IMAGES; i++) {
+                RenderedImage image = images[i];
+                int cached = 0;
+                for (int x = image.getMinTileX(); x < image.getMinTileX() + numX; x++) {
+                    for (int y = image.getMinTileY(); y < image.getMinTileY() + numY; y++) {
+                        if (cache.getTile(image, x, y) != null) {
+                            cached++;
+                        }
+                    }
+                }
+                Raster[] tiles = cache.getTiles(image);
+                assertEquals(cached, tiles == null ? 0 : tiles.length);
+            }
+
+            // Final check on the image removal
+            for (int i = 0; i < NUM_IMAGES; i++) {
+                cache.removeTiles(images[i]);
+                assertNull(cache.getTiles(images[i]));
+            }
+        }
+    }
+}
@@ -0,0 +1,211 @@
+/* JAI-Ext - OpenSource Java Advanced Image Extensions Library
+*    http://www.geo-solutions.it/
+*    Copyright 2014 GeoSolutions
+
+
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+
+* http://www.apache.org/licenses/LICENSE-2.0
+
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package it.geosolutions.concurrencytest;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import it.geosolutions.concurrent.ConcurrentTileCache;
+import it.geosolutions.concurrent.ConcurrentTileCacheMultiMap;
+import it.geosolutions.concurrent.OffHeapTileStore;
+import it.geosolutions.jaiext.testclasses.TestBase;
+
+import java.awt.Point;
+import java.awt.image.DataBuffer;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import java.awt.image.WritableRaster;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.media.jai.TileCache;
+
+import org.junit.Test;
+
+/**
+ * This test class checks that the tiles evicted from the concurrent tile caches are moved to the {@link OffHeapTileStore} and are correctly
+ * restored when requested again.
+ */
+public class OffHeapTileStoreTest extends TestBase {
+
+    /** Number of tiles which can be stored inside the heap cache */
+    private static final int CACHED_TILES = 4;
+
+
+    @Test
+    public void testConcurrentTileCache() {
+        for (int dataType = DataBuffer.TYPE_BYTE; dataType <= DataBuffer.TYPE_DOUBLE; dataType++) {
+            RenderedImage image = createTestImage(dataType, DEFAULT_WIDTH, DEFAULT_HEIGHT,
+                    getNoData(dataType), false, 3);
+            ConcurrentTileCache cache = new ConcurrentTileCache(getCapacity(image), false, 1f, 4);
+            OffHeapTileStore store = new OffHeapTileStore(getImageSize(image) * 2, 4096);
+            cache.setOffHeapStore(store);
+            checkSecondTier(cache, store, image);
+        }
+    }
+
+    @Test
+    public void testConcurrentTileCacheMultiMap() throws IOException {
+        RenderedImage image = createTestImage(DataBuffer.TYPE_USHORT, DEFAULT_WIDTH,
+                DEFAULT_HEIGHT, (short) 0, false, 1);
+        ConcurrentTileCacheMultiMap cache = new ConcurrentTileCacheMultiMap(getCapacity(image),
+                false, 1f, 4);
+        // Memory-mapped spill file
+        OffHeapTileStore store = new OffHeapTileStore(getImageSize(image) * 2, 4096, null);
+        cache.setOffHeapStore(store);
+        checkSecondTier(cache, store, image);
+        store.dispose();
+    }
+
+    @Test
+    public void testStoreEviction() {
+        RenderedImage image = createTestImage(DataBuffer.TYPE_BYTE, DEFAULT_WIDTH,
+                DEFAULT_HEIGHT, (byte) 0, false, 1);
+        ConcurrentTileCache cache = new ConcurrentTileCache(getCapacity(image), false, 1f, 4);
+        // The second tier can contain only a few tiles
+        OffHeapTileStore store = new OffHeapTileStore(getTileSize(image) * CACHED_TILES, 4096);
+        cache.setOffHeapStore(store);
+        addAllTiles(cache, image);
+        assertTrue(store.getEvictionCount() > 0);
+        assertTrue(store.getCacheMemoryUsed() <= store.getCapacity());
+        assertTrue(store.getCacheTileCount() <= CACHED_TILES);
+    }
+
+    @Test
+    public void testRemovalDuringEviction() {
+        RenderedImage image = createTestImage(DataBuffer.TYPE_BYTE, DEFAULT_WIDTH,
+                DEFAULT_HEIGHT, (byte) 0, false, 1);
+        ConcurrentTileCache cache = new ConcurrentTileCache(getCapacity(image), false, 1f, 4);
+        // Each tile uses a single block, so the store can contain all the evicted tiles
+        int blockSize = (int) getTileSize(image);
+        OffHeapTileStore store = new OffHeapTileStore(getImageSize(image), blockSize);
+        cache.setOffHeapStore(store);
+        checkRemovalDuringEviction(cache, store, image);
+
+        ConcurrentTileCacheMultiMap multiMap = new ConcurrentTileCacheMultiMap(
+                getCapacity(image), false, 1f, 4);
+        store = new OffHeapTileStore(getImageSize(image), blockSize);
+        multiMap.setOffHeapStore(store);
+        checkRemovalDuringEviction(multiMap, store, image);
+    }
+
+    /**
+     * Removes the first tile while it is being moved to the second tier, after its eviction from the heap cache; the removed tile must not be
+     * stored.
+     */
+    private void checkRemovalDuringEviction(final TileCache cache, OffHeapTileStore store,
+            final RenderedImage image) {
+        final int minX = image.getMinTileX();
+        final int minY = image.getMinTileY();
+        Raster tile = image.getTile(minX, minY);
+        final AtomicBoolean evicting = new AtomicBoolean(false);
+        // The data buffer is read by the second tier after the eviction and before storing the tile
+        Raster removedTile = new WritableRaster(tile.getSampleModel(), tile.getDataBuffer(),
+                new Point(tile.getMinX(), tile.getMinY())) {
+            @Override
+            public DataBuffer getDataBuffer() {
+                if (evicting.getAndSet(false)) {
+                    cache.remove(image, minX, minY);
+                }
+                return super.getDataBuffer();
+            }
+        };
+        cache.add(image, minX, minY, removedTile);
+        evicting.set(true);
+        // The other tiles evict the first one
+        for (int y = minY; y < minY + image.getNumYTiles(); y++) {
+            for (int x = minX; x < minX + image.getNumXTiles(); x++) {
+                if (x != minX || y != minY) {
+                    cache.add(image, x, y, image.getTile(x, y));
+                }
+            }
+        }
+        assertFalse(evicting.get());
+        assertTrue(store.getCacheTileCount() > 0);
+        assertNull(cache.getTile(image, minX, minY));
+    }
+
+    private void checkSecondTier(TileCache cache, OffHeapTileStore store, RenderedImage image) {
+        int minX = image.getMinTileX();
+        int minY = image.getMinTileY();
+        addAllTiles(cache, image);
+        // The first tile has been evicted from the heap cache
+        assertTrue(store.getCacheTileCount() > 0);
+        Raster restored = cache.getTile(image, minX, minY);
+        assertNotNull(restored);
+        assertEquals(1, store.getCacheHitCount());
+        // The restored tile is equal to the original one
+        Raster tile = image.getTile(minX, minY);
+        assertEquals(tile.getBounds(), restored.getBounds());
+        assertEquals(tile.getSampleModel(), restored.getSampleModel());
+        for (int b = 0; b < tile.getNumBands(); b++) {
+            assertArrayEquals(tile.getSamples(tile.getMinX(), tile.getMinY(), tile.getWidth(),
+                    tile.getHeight(), b, (double[]) null), restored.getSamples(tile.getMinX(),
+                    tile.getMinY(), tile.getWidth(), tile.getHeight(), b, (double[]) null), 0d);
+        }
+        // The removal of the image tiles removes also the stored ones
+        cache.removeTiles(image);
+        assertEquals(0, store.getCacheTileCount());
+        assertEquals(0, store.getCacheMemoryUsed());
+        assertNull(cache.getTile(image, minX + 1, minY));
+    }
+
+    private void addAllTiles(TileCache cache, RenderedImage image) {
+        for (int y = image.getMinTileY(); y < image.getMinTileY() + image.getNumYTiles(); y++) {
+            for (int x = image.getMinTileX(); x < image.getMinTileX() + image.getNumXTiles(); x++) {
+                cache.add(image, x, y, image.getTile(x, y));
+            }
+        }
+    }
+
+    private Number getNoData(int dataType) {
+        switch (dataType) {
+        case DataBuffer.TYPE_BYTE:
+            return (byte) 0;
+        case DataBuffer.TYPE_USHORT:
+        case DataBuffer.TYPE_SHORT:
+            return (short) 0;
+        case DataBuffer.TYPE_INT:
+            return 0;
+        case DataBuffer.TYPE_FLOAT:
+            return 0f;
+        default:
+            return 0d;
+        }
+    }
+
+    /** Memory used by a tile */
+    private long getTileSize(RenderedImage image) {
+        Raster tile = image.getTile(image.getMinTileX(), image.getMinTileY());
+        return (long) tile.getWidth() * tile.getHeight() * tile.getNumBands()
+                * DataBuffer.getDataTypeSize(tile.getSampleModel().getDataType()) / 8;
+    }
+
+    /** Memory used by all the image tiles */
+    private long getImageSize(RenderedImage image) {
+        return getTileSize(image) * image.getNumXTiles() * image.getNumYTiles();
+    }
+
+    /** Capacity of the heap cache, slightly bigger than the memory needed for CACHED_TILES tiles */
+    private long getCapacity(RenderedImage image) {
+        return (getTileSize(image) + 256) * CACHED_TILES;
+    }
+}
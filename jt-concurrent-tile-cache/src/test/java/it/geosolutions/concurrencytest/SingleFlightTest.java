@@ -0,0 +1,133 @@
+/* JAI-Ext - OpenSource Java Advanced Image Extensions Library
+*    http://www.geo-solutions.it/
+*    Copyright 2014 GeoSolutions
+
+
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+
+* http://www.apache.org/licenses/LICENSE-2.0
+
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package it.geosolutions.concurrencytest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import it.geosolutions.concurrent.ConcurrentTileCacheMultiMap;
+import it.geosolutions.concurrent.SingleFlightImage;
+import it.geosolutions.concurrent.SingleFlightTileComputation;
+import it.geosolutions.jaiext.testclasses.TestBase;
+
+import java.awt.image.DataBuffer;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * This test class checks that the {@link SingleFlightTileComputation} executes only once the computation of a tile requested concurrently by
+ * many threads.
+ */
+public class SingleFlightTest extends TestBase {
+
+    /** Number of threads requesting the same tile */
+    private static final int THREADS = 8;
+
+    @Test
+    public void testConcurrentRequests() throws Exception {
+        final RenderedImage image = createTestImage(DataBuffer.TYPE_BYTE, DEFAULT_WIDTH,
+                DEFAULT_HEIGHT, (byte) 0, false, 1);
+        final int x = image.getMinTileX();
+        final int y = image.getMinTileY();
+        final Raster tile = image.getTile(x, y);
+        final SingleFlightTileComputation computation = new SingleFlightTileComputation();
+        final AtomicInteger computed = new AtomicInteger();
+        final CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<Raster>> results = new ArrayList<Future<Raster>>();
+        for (int i = 0; i < THREADS; i++) {
+            results.add(executor.submit(new Callable<Raster>() {
+                public Raster call() throws Exception {
+                    start.await();
+                    return computation.getTile(image, x, y, new Callable<Raster>() {
+                        public Raster call() throws Exception {
+                            computed.incrementAndGet();
+                            // Slow computation, so that all the threads find it in progress
+                            Thread.sleep(500);
+                            return tile;
+                        }
+                    });
+                }
+            }));
+        }
+        start.countDown();
+        for (Future<Raster> result : results) {
+            assertSame(tile, result.get());
+        }
+        executor.shutdown();
+
+        assertEquals(1, computed.get());
+        assertEquals(1, computation.getComputationCount());
+        assertEquals(THREADS - 1, computation.getDeduplicationCount());
+    }
+
+    @Test
+    public void testFailedComputation() {
+        RenderedImage image = createTestImage(DataBuffer.TYPE_BYTE, DEFAULT_WIDTH,
+                DEFAULT_HEIGHT, (byte) 0, false, 1);
+        SingleFlightTileComputation computation = new SingleFlightTileComputation();
+        try {
+            computation.getTile(image, 0, 0, new Callable<Raster>() {
+                public Raster call() {
+                    throw new IllegalStateException("Computation failed");
+                }
+            });
+            fail("The computation exception should be thrown");
+        } catch (IllegalStateException e) {
+            assertEquals("Computation failed", e.getMessage());
+        }
+        // The failed computation is not kept
+        Raster tile = image.getTile(0, 0);
+        assertSame(tile, new SingleFlightImage(image, computation).getTile(0, 0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullSource() {
+        new SingleFlightImage(null, new SingleFlightTileComputation());
+    }
+
+    @Test
+    public void testCachedComputation() {
+        final RenderedImage image = createTestImage(DataBuffer.TYPE_BYTE, DEFAULT_WIDTH,
+                DEFAULT_HEIGHT, (byte) 0, false, 1);
+        SingleFlightTileComputation computation = new SingleFlightTileComputation();
+        ConcurrentTileCacheMultiMap cache = new ConcurrentTileCacheMultiMap();
+        final AtomicInteger computed = new AtomicInteger();
+        Callable<Raster> tileComputation = new Callable<Raster>() {
+            public Raster call() {
+                computed.incrementAndGet();
+                return image.getTile(0, 0);
+            }
+        };
+        Raster first = computation.getTile(cache, image, 0, 0, tileComputation);
+        // The second request is served by the cache
+        assertSame(first, computation.getTile(cache, image, 0, 0, tileComputation));
+        assertEquals(1, computed.get());
+    }
+}
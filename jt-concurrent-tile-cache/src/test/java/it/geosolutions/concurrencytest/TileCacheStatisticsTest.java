@@ -0,0 +1,128 @@
+/* JAI-Ext - OpenSource Java Advanced Image Extensions Library
+*    http://www.geo-solutions.it/
+*    Copyright 2014 GeoSolutions
+
+
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+
+* http://www.apache.org/licenses/LICENSE-2.0
+
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package it.geosolutions.concurrencytest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import it.geosolutions.concurrent.ConcurrentTileCache;
+import it.geosolutions.concurrent.ConcurrentTileCacheMultiMap;
+import it.geosolutions.concurrent.TileCacheStatistics;
+import it.geosolutions.concurrent.TileKey;
+import it.geosolutions.jaiext.testclasses.TestBase;
+
+import java.awt.image.DataBuffer;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import java.lang.management.ManagementFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.media.jai.TileCache;
+
+import org.junit.Test;
+
+import com.sun.media.jai.util.CacheDiagnostics;
+
+/**
+ * This test class checks the always-on {@link TileCacheStatistics} of the concurrent tile caches.
+ */
+public class TileCacheStatisticsTest extends TestBase {
+
+    /** Number of tiles which can be stored inside the cache */
+    private static final int CACHED_TILES = 4;
+
+    @Test
+    public void testConcurrentTileCache() {
+        RenderedImage image = createTestImage(DataBuffer.TYPE_BYTE, DEFAULT_WIDTH,
+                DEFAULT_HEIGHT, (byte) 0, false, 1);
+        ConcurrentTileCache cache = new ConcurrentTileCache(getCapacity(image), false, 1f, 4);
+        checkStatistics(cache, cache.getStatistics(), image);
+    }
+
+    @Test
+    public void testConcurrentTileCacheMultiMap() {
+        RenderedImage image = createTestImage(DataBuffer.TYPE_BYTE, DEFAULT_WIDTH,
+                DEFAULT_HEIGHT, (byte) 0, false, 1);
+        ConcurrentTileCacheMultiMap cache = new ConcurrentTileCacheMultiMap(getCapacity(image),
+                false, 1f, 4);
+        checkStatistics(cache, cache.getStatistics(), image);
+    }
+
+    @Test
+    public void testMBean() throws Exception {
+        ConcurrentTileCacheMultiMap cache = new ConcurrentTileCacheMultiMap();
+        TileCacheStatistics statistics = cache.getStatistics();
+        ObjectName name = statistics.registerMBean("statistics-test");
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        assertTrue(server.isRegistered(name));
+        assertEquals(0L, server.getAttribute(name, "MemoryUsed"));
+        statistics.unregisterMBean();
+        assertFalse(server.isRegistered(name));
+    }
+
+    private void checkStatistics(TileCache cache, TileCacheStatistics statistics,
+            RenderedImage image) {
+        int minX = image.getMinTileX();
+        int minY = image.getMinTileY();
+        int numTiles = image.getNumXTiles() * image.getNumYTiles();
+        for (int y = minY; y < minY + image.getNumYTiles(); y++) {
+            for (int x = minX; x < minX + image.getNumXTiles(); x++) {
+                cache.add(image, x, y, image.getTile(x, y));
+            }
+        }
+        // The first tile has been evicted while the last one is still present
+        cache.getTile(image, minX, minY);
+        cache.getTile(image, minX + image.getNumXTiles() - 1, minY + image.getNumYTiles() - 1);
+
+        TileCacheStatistics.Snapshot snapshot = statistics.snapshot();
+        assertEquals(1, snapshot.getHitCount());
+        assertEquals(1, snapshot.getMissCount());
+        assertEquals(0.5, snapshot.getHitRatio(), 0d);
+        long cached = ((CacheDiagnostics) cache).getCacheTileCount();
+        assertEquals(cached, snapshot.getTileCount());
+        assertEquals(numTiles - cached, snapshot.getSizeEvictionCount());
+        assertEquals(snapshot.getBytesAdded() - snapshot.getBytesEvicted(),
+                snapshot.getMemoryUsed());
+        assertEquals(snapshot.getMemoryUsed(), ((CacheDiagnostics) cache).getCacheMemoryUsed());
+        assertEquals(snapshot.getMemoryUsed(), statistics.getMemoryUsed(image));
+        assertEquals(Long.valueOf(snapshot.getMemoryUsed()),
+                snapshot.getImageMemoryUsed().get(TileKey.imageKey(image)));
+
+        // Removal of the image tiles
+        cache.removeTiles(image);
+        snapshot = statistics.snapshot();
+        assertEquals(cached, snapshot.getExplicitRemovalCount());
+        assertEquals(0, snapshot.getMemoryUsed());
+        assertEquals(0, snapshot.getTileCount());
+        assertTrue(snapshot.getImageMemoryUsed().isEmpty());
+
+        // Reset of the counters
+        statistics.resetCounts();
+        assertEquals(0, statistics.getHitCount());
+        assertEquals(0, statistics.getSizeEvictionCount());
+    }
+
+    /** Capacity of the cache, slightly bigger than the memory needed for CACHED_TILES tiles */
+    private long getCapacity(RenderedImage image) {
+        Raster tile = image.getTile(image.getMinTileX(), image.getMinTileY());
+        // tile data plus the cache overhead
+        long tileSize = tile.getWidth() * tile.getHeight() + 256;
+        return tileSize * CACHED_TILES;
+    }
+}
@@ -0,0 +1,160 @@
+/* JAI-Ext - OpenSource Java Advanced Image Extensions Library
+*    http://www.geo-solutions.it/
+*    Copyright 2014 GeoSolutions
+
+
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+
+* http://www.apache.org/licenses/LICENSE-2.0
+
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package it.geosolutions.concurrencytest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import it.geosolutions.concurrent.TileKey;
+import it.geosolutions.jaiext.testclasses.TestBase;
+
+import java.awt.image.DataBuffer;
+import java.awt.image.RenderedImage;
+import java.math.BigInteger;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.media.jai.PlanarImage;
+
+import org.junit.Test;
+
+/**
+ * This test class checks the {@link TileKey} behaviour and compares the time needed for creating and looking up the new keys against the old
+ * <code>BigInteger</code> based keys. If the user wants to change the number of the benchmark cycles or of the not benchmark cycles, should only
+ * pass the new values to the JAI.Ext.BenchmarkCycles or JAI.Ext.NotBenchmarkCycles parameters.
+ */
+public class TileKeyComparisonTest extends TestBase {
+
+    /** Number of benchmark iterations (Default 1) */
+    private final static Integer BENCHMARK_ITERATION = Integer.getInteger(
+            "JAI.Ext.BenchmarkCycles", 1);
+
+    /** Number of not benchmark iterations (Default 0) */
+    private final static int NOT_BENCHMARK_ITERATION = Integer.getInteger(
+            "JAI.Ext.NotBenchmarkCycles", 0);
+
+    /** Number of lookups executed for each cycle */
+    private final static int LOOKUPS = 1000000;
+
+    @Test
+    public void testKeys() {
+        RenderedImage image1 = createTestImage(DataBuffer.TYPE_BYTE, DEFAULT_WIDTH,
+                DEFAULT_HEIGHT, (byte) 0, false, 1);
+        RenderedImage image2 = createTestImage(DataBuffer.TYPE_BYTE, DEFAULT_WIDTH,
+                DEFAULT_HEIGHT, (byte) 0, false, 1);
+
+        // Same image and position
+        TileKey key = TileKey.create(image1, 1, 2);
+        TileKey same = TileKey.create(image1, 1, 2);
+        assertEquals(key, same);
+        assertEquals(key.hashCode(), same.hashCode());
+        assertEquals(0, key.compareTo(same));
+        assertEquals(1, key.getTileX());
+        assertEquals(2, key.getTileY());
+
+        // Same position, different image
+        TileKey other = TileKey.create(image2, 1, 2);
+        assertFalse(key.equals(other));
+        assertTrue(key.compareTo(other) != 0);
+
+        // Swapped indexes and negative indexes
+        assertFalse(key.equals(TileKey.create(image1, 2, 1)));
+        TileKey negative = TileKey.create(image1, -1, -3);
+        assertEquals(-1, negative.getTileX());
+        assertEquals(-3, negative.getTileY());
+
+        // Image keys are stable
+        assertTrue(TileKey.imageKey(image1) == TileKey.imageKey(image1));
+        assertFalse(TileKey.imageKey(image1).equals(TileKey.imageKey(image2)));
+    }
+
+    @Test
+    public void testKeyLookup() {
+        RenderedImage image = createTestImage(DataBuffer.TYPE_BYTE, DEFAULT_WIDTH,
+                DEFAULT_HEIGHT, (byte) 0, false, 1);
+        int numX = image.getNumXTiles();
+        int numY = image.getNumYTiles();
+        int minX = image.getMinTileX();
+        int minY = image.getMinTileY();
+
+        // Maps filled with the keys of every tile
+        ConcurrentHashMap<Object, Object> oldMap = new ConcurrentHashMap<Object, Object>();
+        ConcurrentHashMap<Object, Object> newMap = new ConcurrentHashMap<Object, Object>();
+        for (int y = minY; y < minY + numY; y++) {
+            for (int x = minX; x < minX + numX; x++) {
+                oldMap.put(oldHashKey(image, x, y), image);
+                newMap.put(TileKey.create(image, x, y), image);
+            }
+        }
+
+        int totalCycles = BENCHMARK_ITERATION + NOT_BENCHMARK_ITERATION;
+        long oldTime = 0;
+        long newTime = 0;
+        for (int i = 0; i < totalCycles; i++) {
+            long start = System.nanoTime();
+            for (int j = 0; j < LOOKUPS; j++) {
+                int x = minX + j % numX;
+                int y = minY + (j / numX) % numY;
+                assertNotNull(oldMap.get(oldHashKey(image, x, y)));
+            }
+            long oldEnd = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int j = 0; j < LOOKUPS; j++) {
+                int x = minX + j % numX;
+                int y = minY + (j / numX) % numY;
+                assertNotNull(newMap.get(TileKey.create(image, x, y)));
+            }
+            long newEnd = System.nanoTime() - start;
+
+            if (i > NOT_BENCHMARK_ITERATION - 1) {
+                oldTime += oldEnd;
+                newTime += newEnd;
+            }
+        }
+
+        System.out.println("\nMean value for BigInteger keys : " + (oldTime / BENCHMARK_ITERATION)
+                * 1E-6 + " msec.");
+        System.out.println("Mean value for TileKey keys : " + (newTime / BENCHMARK_ITERATION)
+                * 1E-6 + " msec.");
+    }
+
+    /**
+     * Key creation used by the tile caches before the introduction of {@link TileKey}
+     */
+    private static Object oldHashKey(RenderedImage owner, int tileX, int tileY) {
+        long idx = tileY * (long) owner.getNumXTiles() + tileX;
+
+        BigInteger imageID = null;
+        if (owner instanceof PlanarImage)
+            imageID = (BigInteger) ((PlanarImage) owner).getImageID();
+
+        if (imageID != null) {
+            byte[] buf = imageID.toByteArray();
+            int length = buf.length;
+            byte[] buf1 = new byte[length + 8];
+            System.arraycopy(buf, 0, buf1, 0, length);
+            for (int i = 7, j = 0; i >= 0; i--, j += 8)
+                buf1[length++] = (byte) (idx >> j);
+            return new BigInteger(buf1);
+        }
+
+        idx = idx & 0x00000000ffffffffL;
+        return Long.valueOf((((long) owner.hashCode() << 32) | idx));
+    }
+}
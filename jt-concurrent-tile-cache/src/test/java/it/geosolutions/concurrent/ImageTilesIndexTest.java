@@ -0,0 +1,64 @@
+/* JAI-Ext - OpenSource Java Advanced Image Extensions Library
+*    http://www.geo-solutions.it/
+*    Copyright 2014 GeoSolutions
+
+
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+
+* http://www.apache.org/licenses/LICENSE-2.0
+
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package it.geosolutions.concurrent;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNull;
+
+import java.awt.image.BufferedImage;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.Test;
+
+/**
+ * This test class checks that the late removal notifications of the cache do not remove from the {@link ImageTilesIndex} the keys of the tiles
+ * cached again in the meantime.
+ */
+public class ImageTilesIndexTest {
+
+    @Test
+    public void testLateRemoval() {
+        BufferedImage image = new BufferedImage(16, 16, BufferedImage.TYPE_BYTE_GRAY);
+        CachedTileImpl oldTile = new CachedTileImpl(image, 0, 0, image.getRaster(), null);
+        CachedTileImpl newTile = new CachedTileImpl(image, 0, 0, image.getRaster(), null);
+        TileKey key = oldTile.getKey();
+
+        // The map simulates the content of the cache
+        Map<TileKey, CachedTileImpl> cache = new ConcurrentHashMap<TileKey, CachedTileImpl>();
+        ImageTilesIndex index = new ImageTilesIndex(1);
+        index.bind(cache);
+
+        cache.put(key, oldTile);
+        index.add(oldTile);
+
+        // The old tile is evicted, but its notification is still in flight
+        cache.remove(key);
+        // A new tile with the same key is cached
+        cache.put(key, newTile);
+        index.add(newTile);
+        // The late notification of the old tile must not remove the key of the new one
+        index.remove(oldTile);
+        assertArrayEquals(new TileKey[] { key }, index.get(oldTile.getImageKey()));
+
+        // The removal of the new tile removes the key
+        cache.remove(key);
+        index.remove(newTile);
+        assertNull(index.get(oldTile.getImageKey()));
+    }
+}
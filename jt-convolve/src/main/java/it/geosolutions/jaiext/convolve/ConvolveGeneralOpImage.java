@@ -255,8 +255,6 @@ public class ConvolveGeneralOpImage extends ConvolveOpImage {
                                         // other computations are skipped
                                         valid = false;
                                     }
-                                    f += ((int) srcData[imageOffset] & 0xff)
-                                            * kdata[kernelVerticalOffset + v];
                                     inRoi = true;
                                 }
 
@@ -431,7 +429,7 @@ public class ConvolveGeneralOpImage extends ConvolveOpImage {
 
                                 // Check on the nodata
                                 short value = srcData[imageOffset];
-                                if (valid && noData.contains(value)) {
+                                if (valid && !noData.contains(value)) {
                                     f += (value & 0xffff) * kdata[kernelVerticalOffset + v];
                                 } else if (skipNoData) {
                                     // if skipNoData is set to true
@@ -491,15 +489,13 @@ public class ConvolveGeneralOpImage extends ConvolveOpImage {
                                 // ROI
                                 if ((roiBounds.contains(xI, yI) && roiIter.getSample(xI, yI, 0) > 0)) {
                                     short value = srcData[imageOffset];
-                                    if (valid && noData.contains(value)) {
+                                    if (valid && !noData.contains(value)) {
                                         f += (value & 0xFFFF) * kdata[kernelVerticalOffset + v];
                                     } else if (skipNoData) {
                                         // if skipNoData is set to true
                                         // other computations are skipped
                                         valid = false;
                                     }
-                                    f += ((int) srcData[imageOffset] & 0xff)
-                                            * kdata[kernelVerticalOffset + v];
                                     inRoi = true;
                                 }
 
@@ -673,7 +669,7 @@ public class ConvolveGeneralOpImage extends ConvolveOpImage {
 
                                 // Check on the nodata
                                 short value = srcData[imageOffset];
-                                if (valid && noData.contains(value)) {
+                                if (valid && !noData.contains(value)) {
                                     f += (value) * kdata[kernelVerticalOffset + v];
                                 } else if (skipNoData) {
                                     // if skipNoData is set to true
@@ -733,15 +729,13 @@ public class ConvolveGeneralOpImage extends ConvolveOpImage {
                                 // ROI
                                 if ((roiBounds.contains(xI, yI) && roiIter.getSample(xI, yI, 0) > 0)) {
                                     short value = srcData[imageOffset];
-                                    if (valid && noData.contains(value)) {
+                                    if (valid && !noData.contains(value)) {
                                         f += (value) * kdata[kernelVerticalOffset + v];
                                     } else if (skipNoData) {
                                         // if skipNoData is set to true
                                         // other computations are skipped
                                         valid = false;
                                     }
-                                    f += ((int) srcData[imageOffset] & 0xff)
-                                            * kdata[kernelVerticalOffset + v];
                                     inRoi = true;
                                 }
 
@@ -914,7 +908,7 @@ public class ConvolveGeneralOpImage extends ConvolveOpImage {
 
                                 // Check on the nodata
                                 int value = srcData[imageOffset];
-                                if (valid && noData.contains(value)) {
+                                if (valid && !noData.contains(value)) {
                                     f += (value) * kdata[kernelVerticalOffset + v];
                                 } else if (skipNoData) {
                                     // if skipNoData is set to true
@@ -974,15 +968,13 @@ public class ConvolveGeneralOpImage extends ConvolveOpImage {
                                 // ROI
                                 if ((roiBounds.contains(xI, yI) && roiIter.getSample(xI, yI, 0) > 0)) {
                                     int value = srcData[imageOffset];
-                                    if (valid && noData.contains(value)) {
+                                    if (valid && !noData.contains(value)) {
                                         f += (value) * kdata[kernelVerticalOffset + v];
                                     } else if (skipNoData) {
                                         // if skipNoData is set to true
                                         // other computations are skipped
                                         valid = false;
                                     }
-                                    f += ((int) srcData[imageOffset] & 0xff)
-                                            * kdata[kernelVerticalOffset + v];
                                     inRoi = true;
                                 }
 
@@ -1154,7 +1146,7 @@ public class ConvolveGeneralOpImage extends ConvolveOpImage {
 
                                 // Check on the nodata
                                 float value = srcData[imageOffset];
-                                if (valid && noData.contains(value)) {
+                                if (valid && !noData.contains(value)) {
                                     f += (value) * kdata[kernelVerticalOffset + v];
                                 } else if (skipNoData) {
                                     // if skipNoData is set to true
@@ -1213,15 +1205,13 @@ public class ConvolveGeneralOpImage extends ConvolveOpImage {
                                 // ROI
                                 if ((roiBounds.contains(xI, yI) && roiIter.getSample(xI, yI, 0) > 0)) {
                                     float value = srcData[imageOffset];
-                                    if (valid && noData.contains(value)) {
+                                    if (valid && !noData.contains(value)) {
                                         f += (value) * kdata[kernelVerticalOffset + v];
                                     } else if (skipNoData) {
                                         // if skipNoData is set to true
                                         // other computations are skipped
                                         valid = false;
                                     }
-                                    f += ((int) srcData[imageOffset] & 0xff)
-                                            * kdata[kernelVerticalOffset + v];
                                     inRoi = true;
                                 }
 
@@ -1392,7 +1382,7 @@ public class ConvolveGeneralOpImage extends ConvolveOpImage {
 
                                 // Check on the nodata
                                 double value = srcData[imageOffset];
-                                if (valid && noData.contains(value)) {
+                                if (valid && !noData.contains(value)) {
                                     f += (value) * kdata[kernelVerticalOffset + v];
                                 } else if (skipNoData) {
                                     // if skipNoData is set to true
@@ -1451,15 +1441,13 @@ public class ConvolveGeneralOpImage extends ConvolveOpImage {
                                 // ROI
                                 if ((roiBounds.contains(xI, yI) && roiIter.getSample(xI, yI, 0) > 0)) {
                                     double value = srcData[imageOffset];
-                                    if (valid && noData.contains(value)) {
+                                    if (valid && !noData.contains(value)) {
                                         f += (value) * kdata[kernelVerticalOffset + v];
                                     } else if (skipNoData) {
                                         // if skipNoData is set to true
                                         // other computations are skipped
                                         valid = false;
                                     }
-                                    f += ((int) srcData[imageOffset] & 0xff)
-                                            * kdata[kernelVerticalOffset + v];
                                     inRoi = true;
                                 }
 
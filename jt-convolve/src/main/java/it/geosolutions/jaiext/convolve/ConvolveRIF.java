@@ -62,29 +62,12 @@ public class ConvolveRIF implements RenderedImageFactory {
                     destinationNoData, skipNoData);
         }
 
+        if (kernel.isSeparable()) {
+            return new SeparableConvolveOpImage(img, extender, hints, l, kernel, roi, nodata,
+                    destinationNoData, skipNoData);
+        }
+
         return new ConvolveGeneralOpImage(img, extender, hints, l, kernel, roi, nodata,
                 destinationNoData, skipNoData);
-        // if (kernel.getWidth() == 3 && kernel.getHeight() == 3 &&
-        // kernel.getXOrigin() == 1 && kernel.getYOrigin() == 1 &&
-        // dataTypeOk) {
-        // return new Convolve3x3OpImage(img,
-        // extender,
-        // hints,
-        // l,
-        // kernel);
-        // } else if (kernel.isSeparable()) {
-        // return new SeparableConvolveOpImage(img,
-        // extender,
-        // hints,
-        // l,
-        // kernel);
-        //
-        // } else {
-        // return new ConvolveOpImage(img,
-        // extender,
-        // hints,
-        // l,
-        // kernel);
-        // }
     }
 }
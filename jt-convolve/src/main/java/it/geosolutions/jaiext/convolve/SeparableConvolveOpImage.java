@@ -32,437 +32,353 @@ import javax.media.jai.iterator.RandomIter;
 
 import com.sun.media.jai.util.ImageUtil;
 
+/**
+ * Convolution of an image with a separable kernel. The rows of the source are first convolved with the horizontal kernel, and the results are
+ * then convolved with the vertical kernel, so that each sample costs <code>kw + kh</code> multiplications instead of <code>kw * kh</code>.
+ * <p>
+ * The No Data and ROI handling is the same of {@link ConvolveGeneralOpImage}: the source samples which are No Data or outside the ROI do not
+ * contribute to the convolution; the destination pixel is set to the destination No Data if none of the kernel samples is inside the ROI, or if
+ * one of them is No Data and <code>skipNoData</code> is set.
+ */
 public class SeparableConvolveOpImage extends ConvolveOpImage {
-    
+
     private float hValues[];
+
     private float vValues[];
-    private float hTables[][]; 
 
     public SeparableConvolveOpImage(RenderedImage source, BorderExtender extender,
             RenderingHints hints, ImageLayout l, KernelJAI kernel, ROI roi, Range noData,
             double destinationNoData, boolean skipNoData) {
-        
-        super(source, extender, hints, l, kernel, roi, noData, destinationNoData, skipNoData); // TODO Auto-generated constructor stub
-        
-        this.kernel = kernel;
-        kw = kernel.getWidth();
-        kh = kernel.getHeight();
-        kx = kernel.getXOrigin();
-        ky = kernel.getYOrigin();
+        super(source, extender, hints, l, kernel, roi, noData, destinationNoData, skipNoData);
         hValues = kernel.getHorizontalKernelData();
         vValues = kernel.getVerticalKernelData();
-
-        if (sampleModel.getDataType() == DataBuffer.TYPE_BYTE) {
-            hTables = new float[hValues.length][256];
-            for (int i = 0; i < hValues.length; i++) {
-                float k = hValues[i];
-                for (int j = 0; j < 256; j++) {
-                    byte b = (byte)j;
-                    float f = (float)j;
-                    hTables[i][b+128] = hasNoData && noData.contains(b) ? 0 : k*f;
-                }
-            }
-        }
     }
 
     @Override
     protected void byteLoop(RasterAccessor src, RasterAccessor dst, RandomIter roiIter,
             boolean roiContainsTile) {
+        separableLoop(src, dst, roiIter, roiContainsTile);
+    }
+
+    @Override
+    protected void ushortLoop(RasterAccessor src, RasterAccessor dst, RandomIter roiIter,
+            boolean roiContainsTile) {
+        separableLoop(src, dst, roiIter, roiContainsTile);
+    }
+
+    @Override
+    protected void shortLoop(RasterAccessor src, RasterAccessor dst, RandomIter roiIter,
+            boolean roiContainsTile) {
+        separableLoop(src, dst, roiIter, roiContainsTile);
+    }
+
+    @Override
+    protected void intLoop(RasterAccessor src, RasterAccessor dst, RandomIter roiIter,
+            boolean roiContainsTile) {
+        separableLoop(src, dst, roiIter, roiContainsTile);
+    }
+
+    @Override
+    protected void floatLoop(RasterAccessor src, RasterAccessor dst, RandomIter roiIter,
+            boolean roiContainsTile) {
+        separableLoop(src, dst, roiIter, roiContainsTile);
+    }
+
+    @Override
+    protected void doubleLoop(RasterAccessor src, RasterAccessor dst, RandomIter roiIter,
+            boolean roiContainsTile) {
+        separableLoop(src, dst, roiIter, roiContainsTile);
+    }
+
+    /**
+     * Convolves the source one row at a time. The horizontal convolutions of the last <code>kh</code> source rows are kept inside a circular
+     * buffer for each band, together with the number of kernel samples inside the ROI and of the No Data samples, so that each destination row
+     * is computed from the buffer with the vertical kernel.
+     */
+    private void separableLoop(RasterAccessor src, RasterAccessor dst, RandomIter roiIter,
+            boolean roiContainsTile) {
         int dwidth = dst.getWidth();
         int dheight = dst.getHeight();
         int dnumBands = dst.getNumBands();
- 
-        byte dstDataArrays[][] = dst.getByteDataArrays();
-        int dstBandOffsets[] = dst.getBandOffsets();
-        int dstPixelStride = dst.getPixelStride();
-        int dstScanlineStride = dst.getScanlineStride();
- 
-        byte srcDataArrays[][] = src.getByteDataArrays();
-        int srcBandOffsets[] = src.getBandOffsets();
-        int srcPixelStride = src.getPixelStride();
-        int srcScanlineStride = src.getScanlineStride();
- 
-        float tmpBuffer[] = new float[kh*dwidth];
-        int   tmpBufferSize = kh*dwidth;
-        
-        // X,Y positions
-        int x0 = 0;
-        int y0 = 0;
+
+        int swidth = dwidth + kw - 1;
+        int sheight = dheight + kh - 1;
         int srcX = src.getX();
         int srcY = src.getY();
-        
-        
-        if(caseA || (hasROI && hasNoData && roiContainsTile)){
-            for (int k = 0; k < dnumBands; k++)  {
-                byte dstData[] = dstDataArrays[k];
-                byte srcData[] = srcDataArrays[k];
-                int srcScanlineOffset = srcBandOffsets[k];
-                int dstScanlineOffset = dstBandOffsets[k];
-
-                int revolver = 0;
-                int kvRevolver = 0;                 // to match kernel vValues
-                for (int j = 0; j < kh-1; j++) {
-                    int srcPixelOffset = srcScanlineOffset;
 
-                    for (int i = 0; i < dwidth; i++) {
-                         int imageOffset = srcPixelOffset;
-                         float f = 0.0f;
-                         for (int v = 0; v < kw; v++)  {
-                              f += hTables[v][srcData[imageOffset]+128];
-                              imageOffset += srcPixelStride;
-                         }
-                         tmpBuffer[revolver+i] = f;
-                         srcPixelOffset += srcPixelStride;
-                    }
-                    revolver += dwidth;
-                    srcScanlineOffset += srcScanlineStride;
-                }
+        boolean roiCheck = hasROI && !roiContainsTile;
+        boolean noDataCheck = hasNoData && skipNoData;
 
-                // srcScanlineStride already bumped by 
-                // kh-1*scanlineStride
-                for (int j = 0; j < dheight; j++)  {
-                    int srcPixelOffset = srcScanlineOffset;
-                    int dstPixelOffset = dstScanlineOffset;
-     
-                    for (int i = 0; i < dwidth; i++)  {
-                        int imageOffset = srcPixelOffset;
-                        float f = 0.0f;
-                        for (int v = 0; v < kw; v++)  {
-                             f += hTables[v][srcData[imageOffset]+128];
-                             imageOffset += srcPixelStride;
-                        }
-                        tmpBuffer[revolver + i] = f;
+        int bufferSize = kh * dwidth;
+        double[][] hBuffers = new double[dnumBands][bufferSize];
+        int[][] noDataBuffers = noDataCheck ? new int[dnumBands][bufferSize] : null;
+        int[] roiBuffer = roiCheck ? new int[bufferSize] : null;
 
-                        f = 0.5f;
-                        // int a = 0;  
-                        // The vertical kernel must revolve as well
-                        int b = kvRevolver + i;
-                        for (int a=0; a < kh; a++){
-                            f += tmpBuffer[b] * vValues[a];
-                            b += dwidth;
-                            if (b >= tmpBufferSize) b -= tmpBufferSize;
-                        }
+        double[] values = new double[swidth];
+        boolean[] noDataRow = hasNoData ? new boolean[swidth] : null;
+        boolean[] roiRow = roiCheck ? new boolean[swidth] : null;
+        int[] roiCounts = roiCheck ? new int[dwidth] : null;
 
-                        dstData[dstPixelOffset] = ImageUtil.clampRoundByte(f);
-                        srcPixelOffset += srcPixelStride;
-                        dstPixelOffset += dstPixelStride;
-                    }
+        double[] results = new double[dwidth];
+        boolean[] valid = new boolean[dwidth];
 
-                    revolver += dwidth;
-                    if (revolver == tmpBufferSize) {
-                        revolver = 0;
-                    } 
-                    kvRevolver += dwidth;
-                    if (kvRevolver == tmpBufferSize) {
-                        kvRevolver = 0;
-                    } 
-                    srcScanlineOffset += srcScanlineStride;
-                    dstScanlineOffset += dstScanlineStride;
-                }
+        int revolver = 0;
+        for (int j = 0; j < sheight; j++) {
+            // Position of the first row of the kernel inside the buffers
+            int kvRevolver = revolver + dwidth;
+            if (kvRevolver == bufferSize) {
+                kvRevolver = 0;
             }
-        }else if(caseB){
-            for (int k = 0; k < dnumBands; k++)  {
-                byte dstData[] = dstDataArrays[k];
-                byte srcData[] = srcDataArrays[k];
-                int srcScanlineOffset = srcBandOffsets[k];
-                int dstScanlineOffset = dstBandOffsets[k];
-
-                int revolver = 0;
-                int kvRevolver = 0;                 // to match kernel vValues
-                for (int j = 0; j < kh-1; j++) {
-                    int srcPixelOffset = srcScanlineOffset;
+            boolean completed = j >= kh - 1;
 
-                    for (int i = 0; i < dwidth; i++) {
-                         int imageOffset = srcPixelOffset;
-                         float f = 0.0f;
-                         for (int v = 0; v < kw; v++)  {
-                              f += hTables[v][srcData[imageOffset]+128];
-                              imageOffset += srcPixelStride;
-                         }
-                         tmpBuffer[revolver+i] = f;
-                         srcPixelOffset += srcPixelStride;
-                    }
-                    revolver += dwidth;
-                    srcScanlineOffset += srcScanlineStride;
+            if (roiCheck) {
+                int y0 = srcY + j;
+                for (int i = 0; i < swidth; i++) {
+                    int x0 = srcX + i;
+                    roiRow[i] = roiBounds.contains(x0, y0) && roiIter.getSample(x0, y0, 0) > 0;
+                }
+                countRow(roiRow, true, roiBuffer, revolver, dwidth);
+                if (completed) {
+                    sumCounts(roiBuffer, kvRevolver, roiCounts, dwidth);
                 }
+            }
 
-                // srcScanlineStride already bumped by 
-                // kh-1*scanlineStride
-                for (int j = 0; j < dheight; j++)  {
-                    int srcPixelOffset = srcScanlineOffset;
-                    int dstPixelOffset = dstScanlineOffset;
-     
-                    y0 = srcY + j;
-                    
-                    for (int i = 0; i < dwidth; i++)  {
-                        
-                        x0 = srcX + i;
-                        
-                        int imageOffset = srcPixelOffset;
-                        float f = 0.0f;
-                        for (int v = 0; v < kw; v++)  {
-                             f += hTables[v][srcData[imageOffset]+128];
-                             imageOffset += srcPixelStride;
+            for (int k = 0; k < dnumBands; k++) {
+                loadRow(src, k, j, values, noDataRow);
+                // Samples not contributing to the convolution
+                if (hasNoData || roiCheck) {
+                    for (int i = 0; i < swidth; i++) {
+                        boolean inRoi = !roiCheck || roiRow[i];
+                        if (!inRoi || hasNoData && noDataRow[i]) {
+                            values[i] = 0;
                         }
-                        tmpBuffer[revolver + i] = f;
-                        
-                        if(roiBounds.contains(x0, y0) && roiIter.getSample(x0, y0, 0) > 0){            
-                            f = 0.5f;
-                            // int a = 0;  
-                            // The vertical kernel must revolve as well
-                            int b = kvRevolver + i;
-                            for (int a=0; a < kh; a++){
-                                f += tmpBuffer[b] * vValues[a];
-                                b += dwidth;
-                                if (b >= tmpBufferSize) b -= tmpBufferSize;
-                            }
-                            
-                            dstData[dstPixelOffset] = ImageUtil.clampRoundByte(f);
-                        } else {
-                            dstData[dstPixelOffset] = destNoDataByte;
+                        if (noDataCheck) {
+                            noDataRow[i] = noDataRow[i] && inRoi;
                         }
-
-                        srcPixelOffset += srcPixelStride;
-                        dstPixelOffset += dstPixelStride;
                     }
-
-                    revolver += dwidth;
-                    if (revolver == tmpBufferSize) {
-                        revolver = 0;
-                    } 
-                    kvRevolver += dwidth;
-                    if (kvRevolver == tmpBufferSize) {
-                        kvRevolver = 0;
-                    } 
-                    srcScanlineOffset += srcScanlineStride;
-                    dstScanlineOffset += dstScanlineStride;
                 }
-            }
-        }else if(caseC || (hasROI && hasNoData && roiContainsTile)){
-            for (int k = 0; k < dnumBands; k++)  {
-                byte dstData[] = dstDataArrays[k];
-                byte srcData[] = srcDataArrays[k];
-                int srcScanlineOffset = srcBandOffsets[k];
-                int dstScanlineOffset = dstBandOffsets[k];
-
-                int revolver = 0;
-                int kvRevolver = 0;                 // to match kernel vValues
-                for (int j = 0; j < kh-1; j++) {
-                    int srcPixelOffset = srcScanlineOffset;
 
-                    for (int i = 0; i < dwidth; i++) {
-                         int imageOffset = srcPixelOffset;
-                         float f = 0.0f;
-                         for (int v = 0; v < kw; v++)  {
-                              f += hTables[v][srcData[imageOffset]+128];
-                              imageOffset += srcPixelStride;
-                         }
-                         tmpBuffer[revolver+i] = f;
-                         srcPixelOffset += srcPixelStride;
+                // Horizontal convolution
+                double[] hBuffer = hBuffers[k];
+                for (int i = 0; i < dwidth; i++) {
+                    double f = 0;
+                    for (int v = 0; v < kw; v++) {
+                        f += values[i + v] * hValues[v];
                     }
-                    revolver += dwidth;
-                    srcScanlineOffset += srcScanlineStride;
+                    hBuffer[revolver + i] = f;
+                }
+                if (noDataCheck) {
+                    countRow(noDataRow, true, noDataBuffers[k], revolver, dwidth);
                 }
 
-                // srcScanlineStride already bumped by 
-                // kh-1*scanlineStride
-                for (int j = 0; j < dheight; j++)  {
-                    int srcPixelOffset = srcScanlineOffset;
-                    int dstPixelOffset = dstScanlineOffset;
-     
-                    for (int i = 0; i < dwidth; i++)  {
-                        int imageOffset = srcPixelOffset;
-                        float f = 0.0f;
-                        for (int v = 0; v < kw; v++)  {
-                             f += hTables[v][srcData[imageOffset]+128];
-                             imageOffset += srcPixelStride;
-                        }
-                        tmpBuffer[revolver + i] = f;
-
-                        boolean isValid = true;
-                        if(skipNoData){
-                            int bandOff = srcBandOffsets[k];
-                            for(int kj = 0; kj < kh && isValid; kj++){
-                                int lineOff = (j + kj)*srcScanlineStride + bandOff;
-                                for(int ki = 0; ki < kw  && isValid; ki++){
-                                    int pixelOff = (i + ki) * srcPixelStride + lineOff;
-                                    byte value = srcData[pixelOff];
-                                    if(!lut[value + 128]){
-                                        isValid = false;
-                                    }
-                                }
-                            }
-                        }
+                if (!completed) {
+                    continue;
+                }
 
-                        if(isValid){
-                            f = 0.5f;
-                            // int a = 0;  
-                            // The vertical kernel must revolve as well
-                            int b = kvRevolver + i;
-                            for (int a=0; a < kh; a++){
-                                f += tmpBuffer[b] * vValues[a];
-                                b += dwidth;
-                                if (b >= tmpBufferSize) b -= tmpBufferSize;
-                            }
-                            dstData[dstPixelOffset] = ImageUtil.clampRoundByte(f);
-                        } else {
-                            dstData[dstPixelOffset] = destNoDataByte;
+                // Vertical convolution
+                for (int i = 0; i < dwidth; i++) {
+                    double f = 0.5;
+                    int b = kvRevolver + i;
+                    for (int a = 0; a < kh; a++) {
+                        f += hBuffer[b] * vValues[a];
+                        b += dwidth;
+                        if (b >= bufferSize) {
+                            b -= bufferSize;
                         }
-                       
-                        srcPixelOffset += srcPixelStride;
-                        dstPixelOffset += dstPixelStride;
-                    }
-
-                    revolver += dwidth;
-                    if (revolver == tmpBufferSize) {
-                        revolver = 0;
-                    } 
-                    kvRevolver += dwidth;
-                    if (kvRevolver == tmpBufferSize) {
-                        kvRevolver = 0;
-                    } 
-                    srcScanlineOffset += srcScanlineStride;
-                    dstScanlineOffset += dstScanlineStride;
-                }
-            }
-        }else{
-            for (int k = 0; k < dnumBands; k++)  {
-                byte dstData[] = dstDataArrays[k];
-                byte srcData[] = srcDataArrays[k];
-                int srcScanlineOffset = srcBandOffsets[k];
-                int dstScanlineOffset = dstBandOffsets[k];
-
-                int revolver = 0;
-                int kvRevolver = 0;                 // to match kernel vValues
-                for (int j = 0; j < kh-1; j++) {
-                    int srcPixelOffset = srcScanlineOffset;
-
-                    y0 = srcY + j;
-                    
-                    for (int i = 0; i < dwidth; i++)  {
-                        
-                        x0 = srcX + i;
-                        
-                         int imageOffset = srcPixelOffset;
-                         float f = 0.0f;
-                         for (int v = 0; v < kw; v++)  {
-                              f += hTables[v][srcData[imageOffset]+128];
-                              imageOffset += srcPixelStride;
-                         }
-                         tmpBuffer[revolver+i] = f;
-                         srcPixelOffset += srcPixelStride;
                     }
-                    revolver += dwidth;
-                    srcScanlineOffset += srcScanlineStride;
+                    results[i] = f;
+                    valid[i] = !roiCheck || roiCounts[i] > 0;
                 }
-
-                // srcScanlineStride already bumped by 
-                // kh-1*scanlineStride
-                for (int j = 0; j < dheight; j++)  {
-                    int srcPixelOffset = srcScanlineOffset;
-                    int dstPixelOffset = dstScanlineOffset;
-     
-                    for (int i = 0; i < dwidth; i++)  {
-                        int imageOffset = srcPixelOffset;
-                        float f = 0.0f;
-                        for (int v = 0; v < kw; v++)  {
-                             f += hTables[v][srcData[imageOffset]+128];
-                             imageOffset += srcPixelStride;
-                        }
-                        tmpBuffer[revolver + i] = f;
-
-                        if(roiBounds.contains(x0, y0) && roiIter.getSample(x0, y0, 0) > 0){
-                            
-                        }
-                        
-                        
-                        boolean isValid = true;
-                        if(skipNoData){
-                            int bandOff = srcBandOffsets[k];
-                            for(int kj = 0; kj < kh && isValid; kj++){
-                                int lineOff = (j + kj)*srcScanlineStride + bandOff;
-                                for(int ki = 0; ki < kw  && isValid; ki++){
-                                    int pixelOff = (i + ki) * srcPixelStride + lineOff;
-                                    byte value = srcData[pixelOff];
-                                    if(!lut[value + 128]){
-                                        isValid = false;
-                                    }
-                                }
-                            }
-                        }
-
-                        if(isValid){
-                            f = 0.5f;
-                            // int a = 0;  
-                            // The vertical kernel must revolve as well
-                            int b = kvRevolver + i;
-                            for (int a=0; a < kh; a++){
-                                f += tmpBuffer[b] * vValues[a];
-                                b += dwidth;
-                                if (b >= tmpBufferSize) b -= tmpBufferSize;
+                if (noDataCheck) {
+                    int[] noDataBuffer = noDataBuffers[k];
+                    for (int i = 0; i < dwidth; i++) {
+                        int b = kvRevolver + i;
+                        for (int a = 0; a < kh && valid[i]; a++) {
+                            valid[i] = noDataBuffer[b] == 0;
+                            b += dwidth;
+                            if (b >= bufferSize) {
+                                b -= bufferSize;
                             }
-                            dstData[dstPixelOffset] = ImageUtil.clampRoundByte(f);
-                        } else {
-                            dstData[dstPixelOffset] = destNoDataByte;
                         }
-                       
-                        srcPixelOffset += srcPixelStride;
-                        dstPixelOffset += dstPixelStride;
                     }
-
-                    revolver += dwidth;
-                    if (revolver == tmpBufferSize) {
-                        revolver = 0;
-                    } 
-                    kvRevolver += dwidth;
-                    if (kvRevolver == tmpBufferSize) {
-                        kvRevolver = 0;
-                    } 
-                    srcScanlineOffset += srcScanlineStride;
-                    dstScanlineOffset += dstScanlineStride;
                 }
+                storeRow(dst, k, j - kh + 1, results, valid);
             }
-        }
-    }
-
-    @Override
-    protected void ushortLoop(RasterAccessor src, RasterAccessor dst, RandomIter roiIter,
-            boolean roiContainsTile) {
-
-        // TODO Auto-generated method stub
 
+            revolver += dwidth;
+            if (revolver == bufferSize) {
+                revolver = 0;
+            }
+        }
     }
 
-    @Override
-    protected void shortLoop(RasterAccessor src, RasterAccessor dst, RandomIter roiIter,
-            boolean roiContainsTile) {
-
-        // TODO Auto-generated method stub
-
+    /**
+     * Stores inside the buffer the number of the row flags equal to the selected value for each horizontal kernel position
+     */
+    private void countRow(boolean[] flags, boolean value, int[] buffer, int offset, int dwidth) {
+        int count = 0;
+        for (int v = 0; v < kw - 1; v++) {
+            if (flags[v] == value) {
+                count++;
+            }
+        }
+        for (int i = 0; i < dwidth; i++) {
+            if (flags[i + kw - 1] == value) {
+                count++;
+            }
+            buffer[offset + i] = count;
+            if (flags[i] == value) {
+                count--;
+            }
+        }
     }
 
-    @Override
-    protected void intLoop(RasterAccessor src, RasterAccessor dst, RandomIter roiIter,
-            boolean roiContainsTile) {
-
-        // TODO Auto-generated method stub
-
+    /**
+     * Sums the counts of the buffer rows starting from the selected position
+     */
+    private void sumCounts(int[] buffer, int offset, int[] counts, int dwidth) {
+        int bufferSize = buffer.length;
+        for (int i = 0; i < dwidth; i++) {
+            int count = 0;
+            int b = offset + i;
+            for (int a = 0; a < kh; a++) {
+                count += buffer[b];
+                b += dwidth;
+                if (b >= bufferSize) {
+                    b -= bufferSize;
+                }
+            }
+            counts[i] = count;
+        }
     }
 
-    @Override
-    protected void floatLoop(RasterAccessor src, RasterAccessor dst, RandomIter roiIter,
-            boolean roiContainsTile) {
-
-        // TODO Auto-generated method stub
-
+    /**
+     * Reads a source row of a band, flagging the No Data samples
+     */
+    private void loadRow(RasterAccessor src, int band, int row, double[] values,
+            boolean[] noDataRow) {
+        int swidth = values.length;
+        int srcPixelStride = src.getPixelStride();
+        int srcPixelOffset = src.getBandOffset(band) + row * src.getScanlineStride();
+
+        switch (src.getDataType()) {
+        case DataBuffer.TYPE_BYTE:
+            byte[] byteData = src.getByteDataArray(band);
+            for (int i = 0; i < swidth; i++, srcPixelOffset += srcPixelStride) {
+                int value = byteData[srcPixelOffset] & 0xff;
+                values[i] = value;
+                if (hasNoData) {
+                    noDataRow[i] = !lut[value];
+                }
+            }
+            break;
+        case DataBuffer.TYPE_USHORT:
+            short[] ushortData = src.getShortDataArray(band);
+            for (int i = 0; i < swidth; i++, srcPixelOffset += srcPixelStride) {
+                short value = ushortData[srcPixelOffset];
+                values[i] = value & 0xffff;
+                if (hasNoData) {
+                    noDataRow[i] = noData.contains(value);
+                }
+            }
+            break;
+        case DataBuffer.TYPE_SHORT:
+            short[] shortData = src.getShortDataArray(band);
+            for (int i = 0; i < swidth; i++, srcPixelOffset += srcPixelStride) {
+                short value = shortData[srcPixelOffset];
+                values[i] = value;
+                if (hasNoData) {
+                    noDataRow[i] = noData.contains(value);
+                }
+            }
+            break;
+        case DataBuffer.TYPE_INT:
+            int[] intData = src.getIntDataArray(band);
+            for (int i = 0; i < swidth; i++, srcPixelOffset += srcPixelStride) {
+                int value = intData[srcPixelOffset];
+                values[i] = value;
+                if (hasNoData) {
+                    noDataRow[i] = noData.contains(value);
+                }
+            }
+            break;
+        case DataBuffer.TYPE_FLOAT:
+            float[] floatData = src.getFloatDataArray(band);
+            for (int i = 0; i < swidth; i++, srcPixelOffset += srcPixelStride) {
+                float value = floatData[srcPixelOffset];
+                values[i] = value;
+                if (hasNoData) {
+                    noDataRow[i] = noData.contains(value);
+                }
+            }
+            break;
+        case DataBuffer.TYPE_DOUBLE:
+            double[] doubleData = src.getDoubleDataArray(band);
+            for (int i = 0; i < swidth; i++, srcPixelOffset += srcPixelStride) {
+                double value = doubleData[srcPixelOffset];
+                values[i] = value;
+                if (hasNoData) {
+                    noDataRow[i] = noData.contains(value);
+                }
+            }
+            break;
+        default:
+            throw new IllegalArgumentException("Wrong Data Type defined");
+        }
     }
 
-    @Override
-    protected void doubleLoop(RasterAccessor src, RasterAccessor dst, RandomIter roiIter,
-            boolean roiContainsTile) {
-
-        // TODO Auto-generated method stub
-
+    /**
+     * Writes a destination row of a band, using the destination No Data for the invalid pixels
+     */
+    private void storeRow(RasterAccessor dst, int band, int row, double[] results,
+            boolean[] valid) {
+        int dwidth = results.length;
+        int dstPixelStride = dst.getPixelStride();
+        int dstPixelOffset = dst.getBandOffset(band) + row * dst.getScanlineStride();
+
+        switch (dst.getDataType()) {
+        case DataBuffer.TYPE_BYTE:
+            byte[] byteData = dst.getByteDataArray(band);
+            for (int i = 0; i < dwidth; i++, dstPixelOffset += dstPixelStride) {
+                byteData[dstPixelOffset] = valid[i] ? ImageUtil.clampRoundByte(results[i])
+                        : destNoDataByte;
+            }
+            break;
+        case DataBuffer.TYPE_USHORT:
+            short[] ushortData = dst.getShortDataArray(band);
+            for (int i = 0; i < dwidth; i++, dstPixelOffset += dstPixelStride) {
+                ushortData[dstPixelOffset] = valid[i] ? ImageUtil.clampRoundUShort(results[i])
+                        : destNoDataShort;
+            }
+            break;
+        case DataBuffer.TYPE_SHORT:
+            short[] shortData = dst.getShortDataArray(band);
+            for (int i = 0; i < dwidth; i++, dstPixelOffset += dstPixelStride) {
+                shortData[dstPixelOffset] = valid[i] ? ImageUtil.clampRoundShort(results[i])
+                        : destNoDataShort;
+            }
+            break;
+        case DataBuffer.TYPE_INT:
+            int[] intData = dst.getIntDataArray(band);
+            for (int i = 0; i < dwidth; i++, dstPixelOffset += dstPixelStride) {
+                intData[dstPixelOffset] = valid[i] ? ImageUtil.clampRoundInt(results[i])
+                        : destNoDataInt;
+            }
+            break;
+        case DataBuffer.TYPE_FLOAT:
+            float[] floatData = dst.getFloatDataArray(band);
+            for (int i = 0; i < dwidth; i++, dstPixelOffset += dstPixelStride) {
+                floatData[dstPixelOffset] = valid[i] ? (float) results[i] : destNoDataFloat;
+            }
+            break;
+        case DataBuffer.TYPE_DOUBLE:
+            double[] doubleData = dst.getDoubleDataArray(band);
+            for (int i = 0; i < dwidth; i++, dstPixelOffset += dstPixelStride) {
+                doubleData[dstPixelOffset] = valid[i] ? results[i] : destNoDataDouble;
+            }
+            break;
+        default:
+            throw new IllegalArgumentException("Wrong Data Type defined");
+        }
     }
-
 }
@@ -0,0 +1,151 @@
+/* JAI-Ext - OpenSource Java Advanced Image Extensions Library
+*    http://www.geo-solutions.it/
+*    Copyright 2014 GeoSolutions
+
+
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+
+* http://www.apache.org/licenses/LICENSE-2.0
+
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package it.geosolutions.jaiext.convolve;
+
+import it.geosolutions.jaiext.testclasses.TestBase;
+
+import java.awt.image.RenderedImage;
+import java.awt.image.renderable.ParameterBlock;
+
+import javax.media.jai.BorderExtender;
+import javax.media.jai.JAI;
+import javax.media.jai.KernelJAI;
+import javax.media.jai.PlanarImage;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * This test class is used for compare the timing between the separable and the general convolution with a large separable kernel. If the user
+ * wants to change the number of the benchmark cycles or of the not benchmark cycles, should only pass the new values to the
+ * JAI.Ext.BenchmarkCycles or JAI.Ext.NotBenchmarkCycles parameters.
+ */
+public class ComparisonTest extends TestBase {
+
+    /** Number of benchmark iterations (Default 1) */
+    private final static Integer BENCHMARK_ITERATION = Integer.getInteger(
+            "JAI.Ext.BenchmarkCycles", 1);
+
+    /** Number of not benchmark iterations (Default 0) */
+    private final static int NOT_BENCHMARK_ITERATION = Integer.getInteger(
+            "JAI.Ext.NotBenchmarkCycles", 0);
+
+    /** Kernel size */
+    private final static int KERNEL_SIZE = 31;
+
+    /** Image to elaborate */
+    private static RenderedImage image;
+
+    /** Gaussian kernel */
+    private static KernelJAI kernel;
+
+    @BeforeClass
+    public static void initialSetup() {
+        ParameterBlock pb = new ParameterBlock();
+        pb.add(512f);
+        pb.add(512f);
+        pb.add(new Byte[] { (byte) 100 });
+        image = JAI.create("constant", pb);
+
+        float[] data = new float[KERNEL_SIZE];
+        float sum = 0;
+        for (int i = 0; i < KERNEL_SIZE; i++) {
+            int d = i - KERNEL_SIZE / 2;
+            data[i] = (float) Math.exp(-d * d / 50.0);
+            sum += data[i];
+        }
+        for (int i = 0; i < KERNEL_SIZE; i++) {
+            data[i] /= sum;
+        }
+        kernel = new KernelJAI(KERNEL_SIZE, KERNEL_SIZE, KERNEL_SIZE / 2, KERNEL_SIZE / 2,
+                data, data);
+    }
+
+    @Test
+    public void testSeparableConvolution() {
+        testConvolution(true);
+    }
+
+    @Test
+    public void testGeneralConvolution() {
+        testConvolution(false);
+    }
+
+    public void testConvolution(boolean separable) {
+
+        String description = separable ? "Separable Convolve" : "General Convolve";
+
+        BorderExtender extender = BorderExtender.createInstance(BorderExtender.BORDER_COPY);
+
+        // Total cycles number
+        int totalCycles = BENCHMARK_ITERATION + NOT_BENCHMARK_ITERATION;
+        // Image
+        PlanarImage imageConvolve = null;
+
+        long mean = 0;
+        long max = Long.MIN_VALUE;
+        long min = Long.MAX_VALUE;
+
+        // Cycle for calculating the mean, maximum and minimum calculation time
+        for (int i = 0; i < totalCycles; i++) {
+
+            if (separable) {
+                imageConvolve = new SeparableConvolveOpImage(image, extender, null, null, kernel,
+                        null, null, 0d, false);
+            } else {
+                imageConvolve = new ConvolveGeneralOpImage(image, extender, null, null, kernel,
+                        null, null, 0d, false);
+            }
+
+            // Total calculation time
+            long start = System.nanoTime();
+            imageConvolve.getTiles();
+            long end = System.nanoTime() - start;
+
+            // If the the first NOT_BENCHMARK_ITERATION cycles has been done, then the mean, maximum and minimum values are stored
+            if (i > NOT_BENCHMARK_ITERATION - 1) {
+                if (i == NOT_BENCHMARK_ITERATION) {
+                    mean = end;
+                } else {
+                    mean = mean + end;
+                }
+
+                if (end > max) {
+                    max = end;
+                }
+
+                if (end < min) {
+                    min = end;
+                }
+            }
+            // For every cycle the cache is flushed such that all the tiles must be recalculates
+            JAI.getDefaultInstance().getTileCache().flush();
+            imageConvolve.dispose();
+        }
+        // Mean values
+        double meanValue = mean / BENCHMARK_ITERATION * 1E-6;
+
+        // Max and Min values stored as double
+        double maxD = max * 1E-6;
+        double minD = min * 1E-6;
+        System.out.println("\nMean value for " + description + "Descriptor : " + meanValue
+                + " msec.");
+        System.out.println("Maximum value for " + description + "Descriptor : " + maxD + " msec.");
+        System.out.println("Minimum value for " + description + "Descriptor : " + minD + " msec.");
+    }
+}
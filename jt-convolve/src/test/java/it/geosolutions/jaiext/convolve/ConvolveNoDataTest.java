@@ -0,0 +1,132 @@
+/* JAI-Ext - OpenSource Java Advanced Image Extensions Library
+*    http://www.geo-solutions.it/
+*    Copyright 2014 GeoSolutions
+
+
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+
+* http://www.apache.org/licenses/LICENSE-2.0
+
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package it.geosolutions.jaiext.convolve;
+
+import it.geosolutions.jaiext.range.Range;
+import it.geosolutions.jaiext.range.RangeFactory;
+import it.geosolutions.jaiext.testclasses.TestBase;
+
+import java.awt.Rectangle;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.RenderedImage;
+import java.awt.image.SampleModel;
+
+import javax.media.jai.BorderExtender;
+import javax.media.jai.KernelJAI;
+import javax.media.jai.PlanarImage;
+import javax.media.jai.ROI;
+import javax.media.jai.ROIShape;
+import javax.media.jai.TiledImage;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test class checking the NoData and ROI handling of the {@link ConvolveGeneralOpImage}
+ */
+public class ConvolveNoDataTest extends TestBase {
+
+    private static final int SIZE = 64;
+
+    private static final double VALUE = 10d;
+
+    private static final double NO_DATA = 0d;
+
+    private static final double DEST_NO_DATA = 255d;
+
+    /** Position of the only NoData pixel */
+    private static final int NO_DATA_POSITION = 50;
+
+    private static final int[] DATA_TYPES = new int[] { DataBuffer.TYPE_BYTE,
+            DataBuffer.TYPE_USHORT, DataBuffer.TYPE_SHORT, DataBuffer.TYPE_INT,
+            DataBuffer.TYPE_FLOAT, DataBuffer.TYPE_DOUBLE };
+
+    private static final KernelJAI KERNEL = new KernelJAI(3, 3, new float[] { 0.1f, 0.1f, 0.1f,
+            0.1f, 0.2f, 0.1f, 0.1f, 0.1f, 0.1f });
+
+    private static final BorderExtender EXTENDER = BorderExtender
+            .createInstance(BorderExtender.BORDER_COPY);
+
+    @Test
+    public void testValidSamples() {
+        for (int dataType : DATA_TYPES) {
+            RenderedImage source = createImage(dataType);
+            Range noData = createNoData(dataType);
+
+            double expected = convolve(source, null, null, 20, 20);
+            // The samples which are not NoData must be convolved
+            Assert.assertEquals(expected, convolve(source, null, noData, 20, 20), 0d);
+            // The kernel window containing NoData must be skipped
+            Assert.assertEquals(DEST_NO_DATA,
+                    convolve(source, null, noData, NO_DATA_POSITION + 1, NO_DATA_POSITION), 0d);
+        }
+    }
+
+    @Test
+    public void testROIAndNoDataSum() {
+        ROI roi = new ROIShape(new Rectangle(10, 10, 30, 30));
+        for (int dataType : DATA_TYPES) {
+            RenderedImage source = createImage(dataType);
+            Range noData = createNoData(dataType);
+
+            // Each sample must be added once, as without NoData
+            double expected = convolve(source, roi, null, 20, 20);
+            Assert.assertEquals(expected, convolve(source, roi, noData, 20, 20), 0d);
+        }
+    }
+
+    private static double convolve(RenderedImage source, ROI roi, Range noData, int x, int y) {
+        PlanarImage image = new ConvolveGeneralOpImage(source, EXTENDER, null, null, KERNEL, roi,
+                noData, DEST_NO_DATA, true);
+        double result = image.getData().getSampleDouble(x, y, 0);
+        image.dispose();
+        return result;
+    }
+
+    private static Range createNoData(int dataType) {
+        switch (dataType) {
+        case DataBuffer.TYPE_BYTE:
+            return RangeFactory.create((byte) NO_DATA, true, (byte) NO_DATA, true);
+        case DataBuffer.TYPE_USHORT:
+            return RangeFactory.createU((short) NO_DATA, true, (short) NO_DATA, true);
+        case DataBuffer.TYPE_SHORT:
+            return RangeFactory.create((short) NO_DATA, true, (short) NO_DATA, true);
+        case DataBuffer.TYPE_INT:
+            return RangeFactory.create((int) NO_DATA, true, (int) NO_DATA, true);
+        case DataBuffer.TYPE_FLOAT:
+            return RangeFactory.create((float) NO_DATA, true, (float) NO_DATA, true, true);
+        case DataBuffer.TYPE_DOUBLE:
+            return RangeFactory.create(NO_DATA, true, NO_DATA, true, true);
+        default:
+            throw new IllegalArgumentException("Wrong data type");
+        }
+    }
+
+    private static RenderedImage createImage(int dataType) {
+        SampleModel sm = new ComponentSampleModel(dataType, SIZE, SIZE, 1, SIZE, new int[] { 0 });
+        TiledImage image = new TiledImage(sm, SIZE, SIZE);
+        for (int y = 0; y < SIZE; y++) {
+            for (int x = 0; x < SIZE; x++) {
+                image.setSample(x, y, 0, VALUE);
+            }
+        }
+        image.setSample(NO_DATA_POSITION, NO_DATA_POSITION, 0, NO_DATA);
+        return image;
+    }
+}
@@ -0,0 +1,176 @@
+/* JAI-Ext - OpenSource Java Advanced Image Extensions Library
+*    http://www.geo-solutions.it/
+*    Copyright 2014 GeoSolutions
+
+
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+
+* http://www.apache.org/licenses/LICENSE-2.0
+
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package it.geosolutions.jaiext.convolve;
+
+import it.geosolutions.jaiext.range.Range;
+import it.geosolutions.jaiext.range.RangeFactory;
+import it.geosolutions.jaiext.testclasses.TestBase;
+
+import java.awt.Rectangle;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import java.awt.image.SampleModel;
+import java.awt.image.renderable.ParameterBlock;
+
+import javax.media.jai.BorderExtender;
+import javax.media.jai.KernelJAI;
+import javax.media.jai.PlanarImage;
+import javax.media.jai.ROI;
+import javax.media.jai.ROIShape;
+import javax.media.jai.TiledImage;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Test class comparing the results of the separable convolution with the ones of the general convolution
+ */
+public class SeparableConvolveTest extends TestBase {
+
+    private static final double NO_DATA = 0d;
+
+    private static final double DEST_NO_DATA = 255d;
+
+    private static final double TOLERANCE = 0.001d;
+
+    private static KernelJAI kernel;
+
+    private static ROI roi;
+
+    private static BorderExtender extender;
+
+    @BeforeClass
+    public static void initialSetup() {
+        // Gaussian kernel
+        int size = 7;
+        float[] data = new float[size];
+        float sum = 0;
+        for (int i = 0; i < size; i++) {
+            int d = i - size / 2;
+            data[i] = (float) Math.exp(-d * d / 4.0);
+            sum += data[i];
+        }
+        for (int i = 0; i < size; i++) {
+            data[i] /= sum;
+        }
+        kernel = new KernelJAI(size, size, size / 2, size / 2, data, data);
+
+        roi = new ROIShape(new Rectangle(10, 10, DEFAULT_WIDTH / 2, DEFAULT_HEIGHT / 2));
+
+        extender = BorderExtender.createInstance(BorderExtender.BORDER_COPY);
+    }
+
+    @Test
+    public void testKernelSelection() {
+        RenderedImage source = createImage(DataBuffer.TYPE_BYTE);
+
+        ParameterBlock pb = new ParameterBlock();
+        pb.addSource(source);
+        pb.add(kernel);
+        pb.add(null);
+        pb.add(null);
+        pb.add(DEST_NO_DATA);
+        pb.add(Boolean.FALSE);
+        Assert.assertTrue(new ConvolveRIF().create(pb, null) instanceof SeparableConvolveOpImage);
+
+        pb.set(new KernelJAI(5, 5, new float[25]), 0);
+        Assert.assertTrue(new ConvolveRIF().create(pb, null) instanceof ConvolveGeneralOpImage);
+    }
+
+    @Test
+    public void testSeparableConvolution() {
+        int[] dataTypes = new int[] { DataBuffer.TYPE_BYTE, DataBuffer.TYPE_USHORT,
+                DataBuffer.TYPE_SHORT, DataBuffer.TYPE_INT, DataBuffer.TYPE_FLOAT,
+                DataBuffer.TYPE_DOUBLE };
+        for (int dataType : dataTypes) {
+            RenderedImage source = createImage(dataType);
+            Range noData = createNoData(dataType);
+
+            testConvolution(source, null, null, false);
+            testConvolution(source, roi, null, false);
+            testConvolution(source, null, noData, false);
+            testConvolution(source, null, noData, true);
+            testConvolution(source, roi, noData, false);
+            testConvolution(source, roi, noData, true);
+        }
+    }
+
+    private void testConvolution(RenderedImage source, ROI roi, Range noData, boolean skipNoData) {
+        PlanarImage separable = new SeparableConvolveOpImage(source, extender, null, null,
+                kernel, roi, noData, DEST_NO_DATA, skipNoData);
+        PlanarImage general = new ConvolveGeneralOpImage(source, extender, null, null, kernel,
+                roi, noData, DEST_NO_DATA, skipNoData);
+
+        Raster separableData = separable.getData();
+        Raster generalData = general.getData();
+
+        boolean floatingPoint = source.getSampleModel().getDataType() == DataBuffer.TYPE_FLOAT
+                || source.getSampleModel().getDataType() == DataBuffer.TYPE_DOUBLE;
+        // The integral results may differ in the rounding
+        double tolerance = floatingPoint ? TOLERANCE : 1;
+
+        for (int y = source.getMinY(); y < source.getMinY() + source.getHeight(); y++) {
+            for (int x = source.getMinX(); x < source.getMinX() + source.getWidth(); x++) {
+                Assert.assertEquals(generalData.getSampleDouble(x, y, 0),
+                        separableData.getSampleDouble(x, y, 0), tolerance);
+            }
+        }
+
+        separable.dispose();
+        general.dispose();
+    }
+
+    private static RenderedImage createImage(int dataType) {
+        SampleModel sm = new ComponentSampleModel(dataType, DEFAULT_WIDTH, DEFAULT_HEIGHT, 1,
+                DEFAULT_WIDTH, new int[] { 0 });
+        TiledImage image = new TiledImage(sm, DEFAULT_WIDTH / 8, DEFAULT_HEIGHT / 8);
+        for (int y = 0; y < DEFAULT_HEIGHT; y++) {
+            for (int x = 0; x < DEFAULT_WIDTH; x++) {
+                // NoData cross on the image
+                if (x == y || x == DEFAULT_WIDTH - y - 1) {
+                    image.setSample(x, y, 0, NO_DATA);
+                } else {
+                    image.setSample(x, y, 0, 1 + (x * 7 + y * 13) % 50);
+                }
+            }
+        }
+        return image;
+    }
+
+    private static Range createNoData(int dataType) {
+        switch (dataType) {
+        case DataBuffer.TYPE_BYTE:
+            return RangeFactory.create((byte) NO_DATA, true, (byte) NO_DATA, true);
+        case DataBuffer.TYPE_USHORT:
+            return RangeFactory.createU((short) NO_DATA, true, (short) NO_DATA, true);
+        case DataBuffer.TYPE_SHORT:
+            return RangeFactory.create((short) NO_DATA, true, (short) NO_DATA, true);
+        case DataBuffer.TYPE_INT:
+            return RangeFactory.create((int) NO_DATA, true, (int) NO_DATA, true);
+        case DataBuffer.TYPE_FLOAT:
+            return RangeFactory.create((float) NO_DATA, true, (float) NO_DATA, true, true);
+        case DataBuffer.TYPE_DOUBLE:
+            return RangeFactory.create(NO_DATA, true, NO_DATA, true, true);
+        default:
+            throw new IllegalArgumentException("Wrong data type");
+        }
+    }
+}
@@ -0,0 +1,448 @@
+/* JAI-Ext - OpenSource Java Advanced Image Extensions Library
+*    http://www.geo-solutions.it/
+*    Copyright 2014 GeoSolutions
+
+
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+
+* http://www.apache.org/licenses/LICENSE-2.0
+
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package it.geosolutions.jaiext.iterators;
+
+import java.awt.image.BandedSampleModel;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DataBufferShort;
+import java.awt.image.DataBufferUShort;
+import java.awt.image.PixelInterleavedSampleModel;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import java.awt.image.SampleModel;
+
+import javax.media.jai.ComponentSampleModelJAI;
+
+/**
+ * {@link RandomIterDirect} for the images with a {@link ComponentSampleModel}, {@link PixelInterleavedSampleModel} or {@link BandedSampleModel}.
+ * The position of each sample inside the data arrays is calculated directly from the strides and the band offsets of the current tile. A final
+ * subclass is defined for each data type.
+ */
+public abstract class RandomIterComponent extends RandomIterDirect {
+
+    protected int pixelStride;
+
+    protected int scanlineStride;
+
+    /** Position of the pixel (0, 0) of each band inside the data arrays of the current tile */
+    protected int[] bandBase;
+
+    public RandomIterComponent(RenderedImage im) {
+        super(im);
+    }
+
+    /**
+     * Checks if a SampleModel is supported by this iterator.
+     * 
+     * @param sm the SampleModel to check.
+     * @return <code>true</code> if the SampleModel is supported.
+     */
+    public static boolean isSupported(SampleModel sm) {
+        Class<?> smClass = sm.getClass();
+        return smClass == ComponentSampleModel.class
+                || smClass == PixelInterleavedSampleModel.class
+                || smClass == BandedSampleModel.class || smClass == ComponentSampleModelJAI.class;
+    }
+
+    /**
+     * Creates a new iterator for the input image, which must have a supported SampleModel.
+     * 
+     * @param im the image to iterate.
+     * @return a new iterator for the data type of the image.
+     */
+    public static RandomIterComponent create(RenderedImage im) {
+        switch (im.getSampleModel().getDataType()) {
+        case DataBuffer.TYPE_BYTE:
+            return new ByteData(im);
+        case DataBuffer.TYPE_USHORT:
+            return new UShortData(im);
+        case DataBuffer.TYPE_SHORT:
+            return new ShortData(im);
+        case DataBuffer.TYPE_INT:
+            return new IntData(im);
+        case DataBuffer.TYPE_FLOAT:
+            return new FloatData(im);
+        case DataBuffer.TYPE_DOUBLE:
+            return new DoubleData(im);
+        default:
+            throw new IllegalArgumentException("Wrong data type");
+        }
+    }
+
+    protected boolean setData(Raster tile) {
+        if (!isSupported(sampleModel)) {
+            return false;
+        }
+        ComponentSampleModel csm = (ComponentSampleModel) sampleModel;
+        if (!setBanks(dataBuffer, csm.getBankIndices())) {
+            return false;
+        }
+        pixelStride = csm.getPixelStride();
+        scanlineStride = csm.getScanlineStride();
+        int[] bandOffsets = csm.getBandOffsets();
+        int[] bankIndices = csm.getBankIndices();
+        int[] offsets = dataBuffer.getOffsets();
+        int numBands = bandOffsets.length;
+        if (bandBase == null || bandBase.length != numBands) {
+            bandBase = new int[numBands];
+        }
+        for (int b = 0; b < numBands; b++) {
+            bandBase[b] = offsets[bankIndices[b]] + bandOffsets[b] - sampleModelTranslateY
+                    * scanlineStride - sampleModelTranslateX * pixelStride;
+        }
+        return true;
+    }
+
+    /**
+     * Stores the data arrays of the bands of the current tile.
+     * 
+     * @param db the DataBuffer of the current tile.
+     * @param bankIndices the bank of each band.
+     * @return <code>false</code> if the DataBuffer is not supported.
+     */
+    protected abstract boolean setBanks(DataBuffer db, int[] bankIndices);
+
+    /**
+     * {@link RandomIterComponent} reading byte data.
+     */
+    public static final class ByteData extends RandomIterComponent {
+
+        private byte[][] data;
+
+        public ByteData(RenderedImage im) {
+            super(im);
+        }
+
+        protected boolean setBanks(DataBuffer db, int[] bankIndices) {
+            if (!(db instanceof DataBufferByte)) {
+                return false;
+            }
+            byte[][] bankData = ((DataBufferByte) db).getBankData();
+            if (data == null || data.length != bankIndices.length) {
+                data = new byte[bankIndices.length][];
+            }
+            for (int b = 0; b < bankIndices.length; b++) {
+                data[b] = bankData[bankIndices[b]];
+            }
+            return true;
+        }
+
+        public int getSample(int x, int y, int b) {
+            makeCurrent(x, y);
+            if (!direct) {
+                return sampleModel.getSample(x - sampleModelTranslateX,
+                        y - sampleModelTranslateY, b, dataBuffer);
+            }
+            return data[b][bandBase[b] + y * scanlineStride + x * pixelStride] & 0xFF;
+        }
+
+        public float getSampleFloat(int x, int y, int b) {
+            makeCurrent(x, y);
+            if (!direct) {
+                return sampleModel.getSampleFloat(x - sampleModelTranslateX,
+                        y - sampleModelTranslateY, b, dataBuffer);
+            }
+            return data[b][bandBase[b] + y * scanlineStride + x * pixelStride] & 0xFF;
+        }
+
+        public double getSampleDouble(int x, int y, int b) {
+            makeCurrent(x, y);
+            if (!direct) {
+                return sampleModel.getSampleDouble(x - sampleModelTranslateX,
+                        y - sampleModelTranslateY, b, dataBuffer);
+            }
+            return data[b][bandBase[b] + y * scanlineStride + x * pixelStride] & 0xFF;
+        }
+    }
+
+    /**
+     * {@link RandomIterComponent} reading unsigned short data.
+     */
+    public static final class UShortData extends RandomIterComponent {
+
+        private short[][] data;
+
+        public UShortData(RenderedImage im) {
+            super(im);
+        }
+
+        protected boolean setBanks(DataBuffer db, int[] bankIndices) {
+            if (!(db instanceof DataBufferUShort)) {
+                return false;
+            }
+            short[][] bankData = ((DataBufferUShort) db).getBankData();
+            if (data == null || data.length != bankIndices.length) {
+                data = new short[bankIndices.length][];
+            }
+            for (int b = 0; b < bankIndices.length; b++) {
+                data[b] = bankData[bankIndices[b]];
+            }
+            return true;
+        }
+
+        public int getSample(int x, int y, int b) {
+            makeCurrent(x, y);
+            if (!direct) {
+                return sampleModel.getSample(x - sampleModelTranslateX,
+                        y - sampleModelTranslateY, b, dataBuffer);
+            }
+            return data[b][bandBase[b] + y * scanlineStride + x * pixelStride] & 0xFFFF;
+        }
+
+        public float getSampleFloat(int x, int y, int b) {
+            makeCurrent(x, y);
+            if (!direct) {
+                return sampleModel.getSampleFloat(x - sampleModelTranslateX,
+                        y - sampleModelTranslateY, b, dataBuffer);
+            }
+            return data[b][bandBase[b] + y * scanlineStride + x * pixelStride] & 0xFFFF;
+        }
+
+        public double getSampleDouble(int x, int y, int b) {
+            makeCurrent(x, y);
+            if (!direct) {
+                return sampleModel.getSampleDouble(x - sampleModelTranslateX,
+                        y - sampleModelTranslateY, b, dataBuffer);
+            }
+            return data[b][bandBase[b] + y * scanlineStride + x * pixelStride] & 0xFFFF;
+        }
+    }
+
+    /**
+     * {@link RandomIterComponent} reading short data.
+     */
+    public static final class ShortData extends RandomIterComponent {
+
+        private short[][] data;
+
+        public ShortData(RenderedImage im) {
+            super(im);
+        }
+
+        protected boolean setBanks(DataBuffer db, int[] bankIndices) {
+            if (!(db instanceof DataBufferShort)) {
+                return false;
+            }
+            short[][] bankData = ((DataBufferShort) db).getBankData();
+            if (data == null || data.length != bankIndices.length) {
+                data = new short[bankIndices.length][];
+            }
+            for (int b = 0; b < bankIndices.length; b++) {
+                data[b] = bankData[bankIndices[b]];
+            }
+            return true;
+        }
+
+        public int getSample(int x, int y, int b) {
+            makeCurrent(x, y);
+            if (!direct) {
+                return sampleModel.getSample(x - sampleModelTranslateX,
+                        y - sampleModelTranslateY, b, dataBuffer);
+            }
+            return data[b][bandBase[b] + y * scanlineStride + x * pixelStride];
+        }
+
+        public float getSampleFloat(int x, int y, int b) {
+            makeCurrent(x, y);
+            if (!direct) {
+                return sampleModel.getSampleFloat(x - sampleModelTranslateX,
+                        y - sampleModelTranslateY, b, dataBuffer);
+            }
+            return data[b][bandBase[b] + y * scanlineStride + x * pixelStride];
+        }
+
+        public double getSampleDouble(int x, int y, int b) {
+            makeCurrent(x, y);
+            if (!direct) {
+                return sampleModel.getSampleDouble(x - sampleModelTranslateX,
+                        y - sampleModelTranslateY, b, dataBuffer);
+            }
+            return data[b][bandBase[b] + y * scanlineStride + x * pixelStride];
+        }
+    }
+
+    /**
+     * {@link RandomIterComponent} reading int data.
+     */
+    public static final class IntData extends RandomIterComponent {
+
+        private int[][] data;
+
+        public IntData(RenderedImage im) {
+            super(im);
+        }
+
+        protected boolean setBanks(DataBuffer db, int[] bankIndices) {
+            if (!(db instanceof DataBufferInt)) {
+                return false;
+            }
+            int[][] bankData = ((DataBufferInt) db).getBankData();
+            if (data == null || data.length != bankIndices.length) {
+                data = new int[bankIndices.length][];
+            }
+            for (int b = 0; b < bankIndices.length; b++) {
+                data[b] = bankData[bankIndices[b]];
+            }
+            return true;
+        }
+
+        public int getSample(int x, int y, int b) {
+            makeCurrent(x, y);
+            if (!direct) {
+                return sampleModel.getSample(x - sampleModelTranslateX,
+                        y - sampleModelTranslateY, b, dataBuffer);
+            }
+            return data[b][bandBase[b] + y * scanlineStride + x * pixelStride];
+        }
+
+        public float getSampleFloat(int x, int y, int b) {
+            makeCurrent(x, y);
+            if (!direct) {
+                return sampleModel.getSampleFloat(x - sampleModelTranslateX,
+                        y - sampleModelTranslateY, b, dataBuffer);
+            }
+            return data[b][bandBase[b] + y * scanlineStride + x * pixelStride];
+        }
+
+        public double getSampleDouble(int x, int y, int b) {
+            makeCurrent(x, y);
+            if (!direct) {
+                return sampleModel.getSampleDouble(x - sampleModelTranslateX,
+                        y - sampleModelTranslateY, b, dataBuffer);
+            }
+            return data[b][bandBase[b] + y * scanlineStride + x * pixelStride];
+        }
+    }
+
+    /**
+     * {@link RandomIterComponent} reading float data.
+     */
+    public static final class FloatData extends RandomIterComponent {
+
+        private float[][] data;
+
+        public FloatData(RenderedImage im) {
+            super(im);
+        }
+
+        protected boolean setBanks(DataBuffer db, int[] bankIndices) {
+            float[][] bankData;
+            if (db instanceof java.awt.image.DataBufferFloat) {
+                bankData = ((java.awt.image.DataBufferFloat) db).getBankData();
+            } else if (db instanceof javax.media.jai.DataBufferFloat) {
+                bankData = ((javax.media.jai.DataBufferFloat) db).getBankData();
+            } else {
+                return false;
+            }
+            if (data == null || data.length != bankIndices.length) {
+                data = new float[bankIndices.length][];
+            }
+            for (int b = 0; b < bankIndices.length; b++) {
+                data[b] = bankData[bankIndices[b]];
+            }
+            return true;
+        }
+
+        public int getSample(int x, int y, int b) {
+            makeCurrent(x, y);
+            if (!direct) {
+                return sampleModel.getSample(x - sampleModelTranslateX,
+                        y - sampleModelTranslateY, b, dataBuffer);
+            }
+            return (int) data[b][bandBase[b] + y * scanlineStride + x * pixelStride];
+        }
+
+        public float getSampleFloat(int x, int y, int b) {
+            makeCurrent(x, y);
+            if (!direct) {
+                return sampleModel.getSampleFloat(x - sampleModelTranslateX,
+                        y - sampleModelTranslateY, b, dataBuffer);
+            }
+            return data[b][bandBase[b] + y * scanlineStride + x * pixelStride];
+        }
+
+        public double getSampleDouble(int x, int y, int b) {
+            makeCurrent(x, y);
+            if (!direct) {
+                return sampleModel.getSampleDouble(x - sampleModelTranslateX,
+                        y - sampleModelTranslateY, b, dataBuffer);
+            }
+            return data[b][bandBase[b] + y * scanlineStride + x * pixelStride];
+        }
+    }
+
+    /**
+     * {@link RandomIterComponent} reading double data.
+     */
+    public static final class DoubleData extends RandomIterComponent {
+
+        private double[][] data;
+
+        public DoubleData(RenderedImage im) {
+            super(im);
+        }
+
+        protected boolean setBanks(DataBuffer db, int[] bankIndices) {
+            double[][] bankData;
+            if (db instanceof java.awt.image.DataBufferDouble) {
+                bankData = ((java.awt.image.DataBufferDouble) db).getBankData();
+            } else if (db instanceof javax.media.jai.DataBufferDouble) {
+                bankData = ((javax.media.jai.DataBufferDouble) db).getBankData();
+            } else {
+                return false;
+            }
+            if (data == null || data.length != bankIndices.length) {
+                data = new double[bankIndices.length][];
+            }
+            for (int b = 0; b < bankIndices.length; b++) {
+                data[b] = bankData[bankIndices[b]];
+            }
+            return true;
+        }
+
+        public int getSample(int x, int y, int b) {
+            makeCurrent(x, y);
+            if (!direct) {
+                return sampleModel.getSample(x - sampleModelTranslateX,
+                        y - sampleModelTranslateY, b, dataBuffer);
+            }
+            return (int) data[b][bandBase[b] + y * scanlineStride + x * pixelStride];
+        }
+
+        public float getSampleFloat(int x, int y, int b) {
+            makeCurrent(x, y);
+            if (!direct) {
+                return sampleModel.getSampleFloat(x - sampleModelTranslateX,
+                        y - sampleModelTranslateY, b, dataBuffer);
+            }
+            return (float) data[b][bandBase[b] + y * scanlineStride + x * pixelStride];
+        }
+
+        public double getSampleDouble(int x, int y, int b) {
+            makeCurrent(x, y);
+            if (!direct) {
+                return sampleModel.getSampleDouble(x - sampleModelTranslateX,
+                        y - sampleModelTranslateY, b, dataBuffer);
+            }
+            return data[b][bandBase[b] + y * scanlineStride + x * pixelStride];
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/* JAI-Ext - OpenSource Java Advanced Image Extensions Library
+*    http://www.geo-solutions.it/
+*    Copyright 2014 GeoSolutions
+
+
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+
+* http://www.apache.org/licenses/LICENSE-2.0
+
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package it.geosolutions.jaiext.iterators;
+
+import java.awt.image.DataBuffer;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import java.awt.image.SampleModel;
+
+import javax.media.jai.PlanarImage;
+import javax.media.jai.iterator.RandomIter;
+
+/**
+ * Base class for the {@link RandomIter} implementations which read the samples directly from the primitive arrays of the current tile, without
+ * passing through the generic {@link SampleModel} methods. The current tile is cached and replaced only when a pixel outside of its bounds is
+ * requested; the subclasses extract the data arrays of each new tile and implement the sample access for a specific SampleModel and data type.
+ * If the data of a tile cannot be accessed directly, the samples of that tile are read through its SampleModel.
+ */
+public abstract class RandomIterDirect implements RandomIter {
+
+    protected RenderedImage im;
+
+    protected final int tileWidth;
+
+    protected final int tileHeight;
+
+    protected final int tileGridXOffset;
+
+    protected final int tileGridYOffset;
+
+    /** Bounds of the current tile; the maximum coordinates are excluded */
+    protected int tileMinX;
+
+    protected int tileMinY;
+
+    protected int tileMaxX = Integer.MIN_VALUE;
+
+    protected int tileMaxY = Integer.MIN_VALUE;
+
+    /** SampleModel of the current tile */
+    protected SampleModel sampleModel;
+
+    protected DataBuffer dataBuffer;
+
+    protected int sampleModelTranslateX;
+
+    protected int sampleModelTranslateY;
+
+    /** Indicates if the data of the current tile are read directly from its arrays */
+    protected boolean direct;
+
+    public RandomIterDirect(RenderedImage im) {
+        this.im = im;
+        this.tileWidth = im.getTileWidth();
+        this.tileHeight = im.getTileHeight();
+        this.tileGridXOffset = im.getTileGridXOffset();
+        this.tileGridYOffset = im.getTileGridYOffset();
+    }
+
+    /**
+     * Loads the tile containing the pixel (x, y), if it is not the current one.
+     * 
+     * @param x the X coordinate of the pixel.
+     * @param y the Y coordinate of the pixel.
+     */
+    protected final void makeCurrent(int x, int y) {
+        if (x < tileMinX || x >= tileMaxX || y < tileMinY || y >= tileMaxY) {
+            int tileX = PlanarImage.XToTileX(x, tileGridXOffset, tileWidth);
+            int tileY = PlanarImage.YToTileY(y, tileGridYOffset, tileHeight);
+            Raster tile = im.getTile(tileX, tileY);
+
+            this.tileMinX = PlanarImage.tileXToX(tileX, tileGridXOffset, tileWidth);
+            this.tileMinY = PlanarImage.tileYToY(tileY, tileGridYOffset, tileHeight);
+            this.tileMaxX = tileMinX + tileWidth;
+            this.tileMaxY = tileMinY + tileHeight;
+            this.sampleModel = tile.getSampleModel();
+            this.dataBuffer = tile.getDataBuffer();
+            this.sampleModelTranslateX = tile.getSampleModelTranslateX();
+            this.sampleModelTranslateY = tile.getSampleModelTranslateY();
+            this.direct = setData(tile);
+        }
+    }
+
+    /**
+     * Prepares the direct access to the data of a new tile.
+     * 
+     * @param tile the new current tile.
+     * @return <code>true</code> if the samples of the tile can be read directly from its arrays.
+     */
+    protected abstract boolean setData(Raster tile);
+
+    public int[] getPixel(int x, int y, int[] iArray) {
+        makeCurrent(x, y);
+
+        return sampleModel.getPixel(x - sampleModelTranslateX, y - sampleModelTranslateY, iArray,
+                dataBuffer);
+    }
+
+    public float[] getPixel(int x, int y, float[] fArray) {
+        makeCurrent(x, y);
+
+        return sampleModel.getPixel(x - sampleModelTranslateX, y - sampleModelTranslateY, fArray,
+                dataBuffer);
+    }
+
+    public double[] getPixel(int x, int y, double[] dArray) {
+        makeCurrent(x, y);
+
+        return sampleModel.getPixel(x - sampleModelTranslateX, y - sampleModelTranslateY, dArray,
+                dataBuffer);
+    }
+
+    public void done() {
+        tileMaxX = tileMaxY = Integer.MIN_VALUE;
+        sampleModel = null;
+        dataBuffer = null;
+    }
+}
@@ -20,6 +20,7 @@ package it.geosolutions.jaiext.iterators;
 import java.awt.Rectangle;
 import java.awt.image.Raster;
 import java.awt.image.RenderedImage;
+import java.awt.image.SampleModel;
 import java.awt.image.WritableRaster;
 import java.awt.image.WritableRenderedImage;
 
@@ -43,6 +44,10 @@ public class RandomIterFactory {
      * Constructs and returns an instance of RandomIter suitable for iterating over the given bounding rectangle within the given RenderedImage
      * source. If the bounds parameter is null, the entire image will be used. If cachedTiles is set to true, the current tile used by the iterator
      * is cached. If arrayCalculation is set to true an initial array containing the tile position for every pixel is calculated.
+     * <p>
+     * When both the flags are set and the image has a {@link java.awt.image.ComponentSampleModel} or a
+     * {@link java.awt.image.SinglePixelPackedSampleModel}, the returned iterator reads the samples directly from the data arrays of the cached
+     * tile, without pre-calculating the tile positions; see {@link RandomIterDirect}.
      * 
      * @param im a read-only RenderedImage source.
      * @param bounds the bounding Rectangle for the iterator, or null.
@@ -55,6 +60,14 @@ public class RandomIterFactory {
         if (bounds == null) {
             bounds = new Rectangle(im.getMinX(), im.getMinY(), im.getWidth(), im.getHeight());
         }
+        if (arrayCalculation && cachedTiles) {
+            SampleModel sm = im.getSampleModel();
+            if (RandomIterComponent.isSupported(sm)) {
+                return RandomIterComponent.create(im);
+            } else if (RandomIterSinglePixelPacked.isSupported(sm)) {
+                return RandomIterSinglePixelPacked.create(im);
+            }
+        }
         if (arrayCalculation) {
             if (im.getMinTileX() >= Byte.MIN_VALUE
                     && (im.getMinTileX() + im.getNumXTiles() - 1) <= Byte.MAX_VALUE
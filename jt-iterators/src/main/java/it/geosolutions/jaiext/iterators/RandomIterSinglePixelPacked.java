@@ -0,0 +1,238 @@
+/* JAI-Ext - OpenSource Java Advanced Image Extensions Library
+*    http://www.geo-solutions.it/
+*    Copyright 2014 GeoSolutions
+
+
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+
+* http://www.apache.org/licenses/LICENSE-2.0
+
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package it.geosolutions.jaiext.iterators;
+
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DataBufferUShort;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import java.awt.image.SampleModel;
+import java.awt.image.SinglePixelPackedSampleModel;
+
+/**
+ * {@link RandomIterDirect} for the images with a {@link SinglePixelPackedSampleModel}. Each sample is extracted from the packed pixel with the
+ * bit masks and offsets of the SampleModel. A final subclass is defined for each data type.
+ */
+public abstract class RandomIterSinglePixelPacked extends RandomIterDirect {
+
+    protected int scanlineStride;
+
+    /** Position of the pixel (0, 0) inside the data array of the current tile */
+    protected int base;
+
+    protected int[] bitMasks;
+
+    protected int[] bitOffsets;
+
+    public RandomIterSinglePixelPacked(RenderedImage im) {
+        super(im);
+    }
+
+    /**
+     * Checks if a SampleModel is supported by this iterator.
+     * 
+     * @param sm the SampleModel to check.
+     * @return <code>true</code> if the SampleModel is supported.
+     */
+    public static boolean isSupported(SampleModel sm) {
+        return sm.getClass() == SinglePixelPackedSampleModel.class;
+    }
+
+    /**
+     * Creates a new iterator for the input image, which must have a supported SampleModel.
+     * 
+     * @param im the image to iterate.
+     * @return a new iterator for the data type of the image.
+     */
+    public static RandomIterSinglePixelPacked create(RenderedImage im) {
+        switch (im.getSampleModel().getDataType()) {
+        case DataBuffer.TYPE_BYTE:
+            return new ByteData(im);
+        case DataBuffer.TYPE_USHORT:
+            return new UShortData(im);
+        case DataBuffer.TYPE_INT:
+            return new IntData(im);
+        default:
+            throw new IllegalArgumentException("Wrong data type");
+        }
+    }
+
+    protected boolean setData(Raster tile) {
+        if (!isSupported(sampleModel) || !setBank(dataBuffer)) {
+            return false;
+        }
+        SinglePixelPackedSampleModel sppsm = (SinglePixelPackedSampleModel) sampleModel;
+        scanlineStride = sppsm.getScanlineStride();
+        bitMasks = sppsm.getBitMasks();
+        bitOffsets = sppsm.getBitOffsets();
+        base = dataBuffer.getOffset() - sampleModelTranslateY * scanlineStride
+                - sampleModelTranslateX;
+        return true;
+    }
+
+    /**
+     * Stores the data array of the current tile.
+     * 
+     * @param db the DataBuffer of the current tile.
+     * @return <code>false</code> if the DataBuffer is not supported.
+     */
+    protected abstract boolean setBank(DataBuffer db);
+
+    /**
+     * {@link RandomIterSinglePixelPacked} reading byte data.
+     */
+    public static final class ByteData extends RandomIterSinglePixelPacked {
+
+        private byte[] data;
+
+        public ByteData(RenderedImage im) {
+            super(im);
+        }
+
+        protected boolean setBank(DataBuffer db) {
+            if (!(db instanceof DataBufferByte)) {
+                return false;
+            }
+            data = ((DataBufferByte) db).getData();
+            return true;
+        }
+
+        public int getSample(int x, int y, int b) {
+            makeCurrent(x, y);
+            if (!direct) {
+                return sampleModel.getSample(x - sampleModelTranslateX,
+                        y - sampleModelTranslateY, b, dataBuffer);
+            }
+            return ((data[base + y * scanlineStride + x] & 0xFF) & bitMasks[b]) >>> bitOffsets[b];
+        }
+
+        public float getSampleFloat(int x, int y, int b) {
+            makeCurrent(x, y);
+            if (!direct) {
+                return sampleModel.getSampleFloat(x - sampleModelTranslateX,
+                        y - sampleModelTranslateY, b, dataBuffer);
+            }
+            return ((data[base + y * scanlineStride + x] & 0xFF) & bitMasks[b]) >>> bitOffsets[b];
+        }
+
+        public double getSampleDouble(int x, int y, int b) {
+            makeCurrent(x, y);
+            if (!direct) {
+                return sampleModel.getSampleDouble(x - sampleModelTranslateX,
+                        y - sampleModelTranslateY, b, dataBuffer);
+            }
+            return ((data[base + y * scanlineStride + x] & 0xFF) & bitMasks[b]) >>> bitOffsets[b];
+        }
+    }
+
+    /**
+     * {@link RandomIterSinglePixelPacked} reading unsigned short data.
+     */
+    public static final class UShortData extends RandomIterSinglePixelPacked {
+
+        private short[] data;
+
+        public UShortData(RenderedImage im) {
+            super(im);
+        }
+
+        protected boolean setBank(DataBuffer db) {
+            if (!(db instanceof DataBufferUShort)) {
+                return false;
+            }
+            data = ((DataBufferUShort) db).getData();
+            return true;
+        }
+
+        public int getSample(int x, int y, int b) {
+            makeCurrent(x, y);
+            if (!direct) {
+                return sampleModel.getSample(x - sampleModelTranslateX,
+                        y - sampleModelTranslateY, b, dataBuffer);
+            }
+            return ((data[base + y * scanlineStride + x] & 0xFFFF) & bitMasks[b]) >>> bitOffsets[b];
+        }
+
+        public float getSampleFloat(int x, int y, int b) {
+            makeCurrent(x, y);
+            if (!direct) {
+                return sampleModel.getSampleFloat(x - sampleModelTranslateX,
+                        y - sampleModelTranslateY, b, dataBuffer);
+            }
+            return ((data[base + y * scanlineStride + x] & 0xFFFF) & bitMasks[b]) >>> bitOffsets[b];
+        }
+
+        public double getSampleDouble(int x, int y, int b) {
+            makeCurrent(x, y);
+            if (!direct) {
+                return sampleModel.getSampleDouble(x - sampleModelTranslateX,
+                        y - sampleModelTranslateY, b, dataBuffer);
+            }
+            return ((data[base + y * scanlineStride + x] & 0xFFFF) & bitMasks[b]) >>> bitOffsets[b];
+        }
+    }
+
+    /**
+     * {@link RandomIterSinglePixelPacked} reading int data.
+     */
+    public static final class IntData extends RandomIterSinglePixelPacked {
+
+        private int[] data;
+
+        public IntData(RenderedImage im) {
+            super(im);
+        }
+
+        protected boolean setBank(DataBuffer db) {
+            if (!(db instanceof DataBufferInt)) {
+                return false;
+            }
+            data = ((DataBufferInt) db).getData();
+            return true;
+        }
+
+        public int getSample(int x, int y, int b) {
+            makeCurrent(x, y);
+            if (!direct) {
+                return sampleModel.getSample(x - sampleModelTranslateX,
+                        y - sampleModelTranslateY, b, dataBuffer);
+            }
+            return (data[base + y * scanlineStride + x] & bitMasks[b]) >>> bitOffsets[b];
+        }
+
+        public float getSampleFloat(int x, int y, int b) {
+            makeCurrent(x, y);
+            if (!direct) {
+                return sampleModel.getSampleFloat(x - sampleModelTranslateX,
+                        y - sampleModelTranslateY, b, dataBuffer);
+            }
+            return (data[base + y * scanlineStride + x] & bitMasks[b]) >>> bitOffsets[b];
+        }
+
+        public double getSampleDouble(int x, int y, int b) {
+            makeCurrent(x, y);
+            if (!direct) {
+                return sampleModel.getSampleDouble(x - sampleModelTranslateX,
+                        y - sampleModelTranslateY, b, dataBuffer);
+            }
+            return (data[base + y * scanlineStride + x] & bitMasks[b]) >>> bitOffsets[b];
+        }
+    }
+}
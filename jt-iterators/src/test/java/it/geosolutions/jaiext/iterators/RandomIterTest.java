@@ -18,11 +18,15 @@
 package it.geosolutions.jaiext.iterators;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
+import java.awt.image.BandedSampleModel;
 import java.awt.image.ComponentSampleModel;
 import java.awt.image.DataBuffer;
+import java.awt.image.PixelInterleavedSampleModel;
 import java.awt.image.RenderedImage;
 import java.awt.image.SampleModel;
+import java.awt.image.SinglePixelPackedSampleModel;
 
 import javax.media.jai.TiledImage;
 import javax.media.jai.iterator.RandomIter;
@@ -383,6 +387,49 @@ public class RandomIterTest {
         return used;
     }
 
+    // This test checks the iterators reading the samples directly from the data arrays against the JAI iterator.
+    @Test
+    public void testRandomIterDirect() {
+        SampleModel[] sampleModels = {
+                new PixelInterleavedSampleModel(DataBuffer.TYPE_BYTE, 32, 32, 3, 96, new int[] {
+                        2, 1, 0 }),
+                new PixelInterleavedSampleModel(DataBuffer.TYPE_USHORT, 32, 32, 2, 64, new int[] {
+                        0, 1 }),
+                new BandedSampleModel(DataBuffer.TYPE_SHORT, 32, 32, 2),
+                new BandedSampleModel(DataBuffer.TYPE_INT, 32, 32, 3),
+                new PixelInterleavedSampleModel(DataBuffer.TYPE_FLOAT, 32, 32, 1, 32,
+                        new int[] { 0 }),
+                new BandedSampleModel(DataBuffer.TYPE_DOUBLE, 32, 32, 2),
+                new SinglePixelPackedSampleModel(DataBuffer.TYPE_INT, 32, 32, new int[] {
+                        0xFF0000, 0xFF00, 0xFF }) };
+        for (SampleModel sm : sampleModels) {
+            TiledImage img = new TiledImage(-10, 5, 100, 80, 0, 0, sm, null);
+            for (int y = img.getMinY(); y < img.getMaxY(); y++) {
+                for (int x = img.getMinX(); x < img.getMaxX(); x++) {
+                    for (int b = 0; b < sm.getNumBands(); b++) {
+                        img.setSample(x, y, b, (x * 7 + y * 13 + b * 31) % 251);
+                    }
+                }
+            }
+            RandomIter expected = javax.media.jai.iterator.RandomIterFactory.create(img, null);
+            RandomIter iter = RandomIterFactory.create(img, null, true, true);
+            assertTrue(iter instanceof RandomIterDirect);
+            // Read the pixels by column, in order to move across the tiles
+            for (int x = img.getMinX(); x < img.getMaxX(); x++) {
+                for (int y = img.getMinY(); y < img.getMaxY(); y++) {
+                    for (int b = 0; b < sm.getNumBands(); b++) {
+                        assertEquals(expected.getSample(x, y, b), iter.getSample(x, y, b));
+                        assertEquals(expected.getSampleFloat(x, y, b),
+                                iter.getSampleFloat(x, y, b), DELTA);
+                        assertEquals(expected.getSampleDouble(x, y, b),
+                                iter.getSampleDouble(x, y, b), DELTA);
+                    }
+                }
+            }
+            iter.done();
+        }
+    }
+
     /** Method for testing the selected input RandomIter on an Integral image */
     public void testRandomIterInt(RenderedImage img, int[] valueArray, boolean cachedTiles,
             boolean arrayCalculation) {
@@ -154,6 +154,9 @@ public class MosaicOpImage extends OpImage {
     /** The format tag for the destination image */
     private RasterFormatTag rasterFormatTag;
 
+    /** Spatial index of the source bounds */
+    private final SourceIndex sourceIndex;
+
     /** Enumerator for the type of mosaic weigher */
     public enum WeightType {
         WEIGHT_TYPE_ALPHA, WEIGHT_TYPE_ROI, WEIGHT_TYPE_NODATA;
@@ -786,6 +789,15 @@ public class MosaicOpImage extends OpImage {
                 }
             }
         }
+
+        // Spatial index of the source bounds, used for visiting only the sources intersecting
+        // each tile
+        Rectangle[] sourceBounds = new Rectangle[numSources];
+        for (int i = 0; i < numSources; i++) {
+            sourceBounds[i] = getSourceImage(i).getBounds();
+        }
+        sourceIndex = new SourceIndex(sourceBounds, getMinTileX(), getMinTileY(), getNumXTiles(),
+                getNumYTiles(), tileWidth, tileHeight, tileGridXOffset, tileGridYOffset);
     }
 
     private LookupTable buildNoDataLookupTable(int dataType, Range noDataRange) {
@@ -865,8 +877,10 @@ public class MosaicOpImage extends OpImage {
 
         // This method calculates the tile active area.
         Rectangle destRectangle = getTileRect(tileX, tileY);
-        // Stores the source image number
-        int numSources = getNumSources();
+        // Indexes of the sources intersecting the tile
+        int[] sourceIndexes = sourceIndex.getSources(tileX, tileY, destRectangle);
+        // Stores the number of the sources intersecting the tile
+        int numSources = sourceIndexes.length;
         // Initialization of a new RasterBean for passing all the raster information
         // to the compute rect method
         Raster[] sourceRasters = new Raster[numSources];
@@ -875,50 +889,62 @@ public class MosaicOpImage extends OpImage {
         Raster[] alphaRasters = new Raster[numSources];
         Raster[] roiRasters = new Raster[numSources];
         Range[] noDataRanges = new Range[numSources];
+        // Flags indicating which source rasters are tiles of the source and not copies
+        boolean[] sourceTiles = new boolean[numSources];
+        // With the OVERLAY type, the sources below a source fully covering the tile are not read
+        boolean overlay = mosaicTypeSelected == MosaicDescriptor.MOSAIC_TYPE_OVERLAY;
+        boolean tileCovered = false;
         // The previous array is filled with the source raster data
         for (int i = 0; i < numSources; i++) {
-            PlanarImage source = getSourceImage(i);
-            Rectangle srcRect = mapDestRect(destRectangle, i);
+            int index = sourceIndexes[i];
+            PlanarImage source = getSourceImage(index);
+            Rectangle srcRect = mapDestRect(destRectangle, index);
             Raster data = null;
-            // First, check if the source mapped rectangle is not empty
-            if (!(srcRect != null && srcRect.isEmpty())) {
+            // First, check if the source mapped rectangle is not empty and if the source can
+            // contribute to the tile
+            if (!tileCovered && !(srcRect != null && srcRect.isEmpty())
+                    && isContributing(index, srcRect)) {
                 // Get the source data from the source or the padded image.
-                if (source.getBounds().contains(destRectangle)) {
-                    data = source.getData(destRectangle);
+                RenderedImage image = source.getBounds().contains(destRectangle) ? source
+                        : imageBeans[index].getImage();
+                data = getTileContaining(image, destRectangle);
+                if (data != null) {
+                    sourceTiles[i] = true;
                 } else {
-                    data = imageBeans[i].getImage().getData(destRectangle);
+                    data = image.getData(destRectangle);
                 }
+                tileCovered = overlay && isCovering(index, source, destRectangle);
             }
             // Raster bean initialization
             sourceRasters[i] = data;
-            sourceTags[i] = imageBeans[i].getRasterFormatTag();
-            sourceColorModels[i] = imageBeans[i].getColorModel();
-            noDataRanges[i] = imageBeans[i].getSourceNoData();
+            sourceTags[i] = imageBeans[index].getRasterFormatTag();
+            sourceColorModels[i] = imageBeans[index].getColorModel();
+            noDataRanges[i] = imageBeans[index].getSourceNoData();
             // If the data are present then we can check if Alpha and ROI are present
             if (data != null) {
                 // Get the Alpha data from the padded alpha image if present
-                PlanarImage alpha = imageBeans[i].getAlphaChannel();
+                PlanarImage alpha = imageBeans[index].getAlphaChannel();
                 if (alphaPresent && alpha != null) {
-                    alphaRasters[i] = alpha.getData(destRectangle);
+                    alphaRasters[i] = getData(alpha, destRectangle);
                 }
 
                 // Get the ROI data from the padded ROI image if present
-                RenderedImage roi = imageBeans[i].getRoiImage();
+                RenderedImage roi = imageBeans[index].getRoiImage();
                 if (roiPresent && roi != null) {
-                    roiRasters[i] = roi.getData(destRectangle);
+                    roiRasters[i] = getData(roi, destRectangle);
                 }
             }
 
         }
         // For the given source destination rasters, the mosaic is calculated
-        computeRect(sourceRasters, sourceTags, sourceColorModels, destRaster, destRectangle,
-                alphaRasters, roiRasters, noDataRanges);
+        computeRect(sourceIndexes, sourceRasters, sourceTags, sourceColorModels, destRaster,
+                destRectangle, alphaRasters, roiRasters, noDataRanges);
 
-        // Tile recycling if the Recycle is present
+        // Tile recycling if the Recycle is present; the source tiles are not recycled
         for (int i = 0; i < numSources; i++) {
             Raster sourceData = sourceRasters[i];
-            if (sourceData != null) {
-                PlanarImage source = getSourceImage(i);
+            if (sourceData != null && !sourceTiles[i]) {
+                PlanarImage source = getSourceImage(sourceIndexes[i]);
 
                 if (source.overlapsMultipleTiles(sourceData.getBounds())) {
                     recycleTile(sourceData);
@@ -930,9 +956,74 @@ public class MosaicOpImage extends OpImage {
 
     }
 
-    private void computeRect(Raster[] sourceRasters, RasterFormatTag[] rasterFormatTags,
-            ColorModel[] sourceColorModels, WritableRaster destRaster, Rectangle destRectangle,
-            Raster[] alphaRasters, Raster[] roiRasters, Range[] noDataRanges) {
+    /**
+     * Returns the tile of the input image containing the whole rectangle, if any, or null if the
+     * rectangle spans more tiles or exceeds the image bounds. The tile can be used through a
+     * {@link RasterAccessor} on the rectangle without copying its pixels.
+     */
+    private static Raster getTileContaining(RenderedImage image, Rectangle rect) {
+        if (!new Rectangle(image.getMinX(), image.getMinY(), image.getWidth(), image.getHeight())
+                .contains(rect)) {
+            return null;
+        }
+        int tileX = PlanarImage.XToTileX(rect.x, image.getTileGridXOffset(),
+                image.getTileWidth());
+        int tileY = PlanarImage.YToTileY(rect.y, image.getTileGridYOffset(),
+                image.getTileHeight());
+        if (tileX != PlanarImage.XToTileX(rect.x + rect.width - 1, image.getTileGridXOffset(),
+                image.getTileWidth())
+                || tileY != PlanarImage.YToTileY(rect.y + rect.height - 1,
+                        image.getTileGridYOffset(), image.getTileHeight())) {
+            return null;
+        }
+        return image.getTile(tileX, tileY);
+    }
+
+    /**
+     * Returns the data of the input image inside the rectangle, using the tile containing it if
+     * present, otherwise a copy of the data.
+     */
+    private static Raster getData(RenderedImage image, Rectangle rect) {
+        Raster tile = getTileContaining(image, rect);
+        return tile != null ? tile : image.getData(rect);
+    }
+
+    /**
+     * Checks if the selected source can contribute to the input area: a source whose ROI does not
+     * intersect the area has no valid pixel inside it. The ROI is not used if the source has an
+     * alpha channel.
+     */
+    private boolean isContributing(int index, Rectangle srcRect) {
+        if (roiPresent && !(alphaPresent && imageBeans[index].getAlphaChannel() != null)) {
+            ROI roi = imageBeans[index].getRoi();
+            return roi == null || roi.intersects(srcRect);
+        }
+        return true;
+    }
+
+    /**
+     * Checks if all the pixels of the selected source inside the input area are known to be valid,
+     * without reading them: the source must contain the area, must not have No Data or alpha
+     * channel and its ROI, if present, must contain the area.
+     */
+    private boolean isCovering(int index, PlanarImage source, Rectangle destRectangle) {
+        if (hasNoData[index] || !source.getBounds().contains(destRectangle)) {
+            return false;
+        }
+        if (alphaPresent && imageBeans[index].getAlphaChannel() != null) {
+            return false;
+        }
+        if (roiPresent) {
+            ROI roi = imageBeans[index].getRoi();
+            return roi == null || roi.contains(destRectangle);
+        }
+        return true;
+    }
+
+    private void computeRect(int[] sourceIndexes, Raster[] sourceRasters,
+            RasterFormatTag[] rasterFormatTags, ColorModel[] sourceColorModels,
+            WritableRaster destRaster, Rectangle destRectangle, Raster[] alphaRasters,
+            Raster[] roiRasters, Range[] noDataRanges) {
 
         int sourcesNumber = sourceRasters.length;
 
@@ -954,6 +1045,7 @@ public class MosaicOpImage extends OpImage {
         for (int i = 0; i < sourcesNumber; i++) {
             // RasterAccessorBean temporary file
             RasterBeanAccessor helpAccessor = new RasterBeanAccessor();
+            helpAccessor.setSourceIndex(sourceIndexes[i]);
             if (sourceRasters[i] != null) {
                 helpAccessor.setDataRasterAccessor(new RasterAccessorExt(sourceRasters[i],
                         destRectangle, rasterFormatTags[i], sourceColorModels[i], getNumBands(),
@@ -967,7 +1059,8 @@ public class MosaicOpImage extends OpImage {
                 RasterFormatTag alphaFormatTag = new RasterFormatTag(alphaSampleModel,
                         alphaFormatTagID);
                 helpAccessor.setAlphaRasterAccessor(new RasterAccessor(alphaRaster, destRectangle,
-                        alphaFormatTag, imageBeans[i].getAlphaChannel().getColorModel()));
+                        alphaFormatTag, imageBeans[sourceIndexes[i]].getAlphaChannel()
+                                .getColorModel()));
             }
 
             helpAccessor.setRoiRaster(roiRasters[i]);
@@ -1076,10 +1169,18 @@ public class MosaicOpImage extends OpImage {
         // channel are present or not
         final WeightType[] weightTypesUsed = new WeightType[sourcesNumber];
 
+        // No Data flags of the sources
+        final boolean[] sourceHasNoData = new boolean[sourcesNumber];
+        // No Data lookup tables of the sources
+        final byte[][][] sourceLookupTable = new byte[sourcesNumber][][];
+
         // The above arrays are filled with the data from the Java Raster
         // AcessorBean.
         for (int i = 0; i < sourcesNumber; i++) {
             weightTypesUsed[i] = WeightType.WEIGHT_TYPE_NODATA;
+            final int index = srcBean[i].getSourceIndex();
+            sourceHasNoData[i] = hasNoData[index];
+            sourceLookupTable[i] = byteLookupTable[index];
             final RasterAccessor dataRA = srcBean[i].getDataRasterAccessor();
             if (dataRA != null) {
                 srcLineStride[i] = dataRA.getScanlineStride();
@@ -1097,7 +1198,7 @@ public class MosaicOpImage extends OpImage {
                 if (alphaRA != null) {
                     // If alpha channel is present alpha weight type is used
                     weightTypesUsed[i] = WeightType.WEIGHT_TYPE_ALPHA;
-                } else if (roiPresent && imageBeans[i].getRoi() != null) {
+                } else if (roiPresent && imageBeans[index].getRoi() != null) {
                     // Else if ROI is present, then roi weight type is used
                     weightTypesUsed[i] = WeightType.WEIGHT_TYPE_ROI;
                 }
@@ -1116,6 +1217,10 @@ public class MosaicOpImage extends OpImage {
         final int dstPixelStride = dst.getPixelStride();
         final int[] dstBandOffsets = dst.getBandOffsets();
 
+        // Pixels of the current row already set and ROI values of the current row
+        final boolean[] pixelSet = new boolean[dstWidth];
+        final int[] roiRow = roiPresent ? new int[dstWidth] : null;
+
         // COMPUTATION LEVEL
 
         for (int b = 0; b < dstBands; b++) { // For all the Bands
@@ -1144,102 +1249,72 @@ public class MosaicOpImage extends OpImage {
             int dLineOffset = dstBandOffsets[b];
 
             if (mosaicTypeSelected == MosaicDescriptor.MOSAIC_TYPE_OVERLAY) {
-                for (int dstY = dstMinY; dstY < dstMaxY; dstY++) { // For all the Y
-                                                                   // values
-                    // Source line Offset and pixel Offset,
-                    // Alpha line Offset and pixel Offset are initialized
-                    for (int s = 0; s < sourcesNumber; s++) {
-                        if (srcBean[s].getDataRasterAccessor() != null) {
-                            sPixelOffsets[s] = sLineOffsets[s];
-                            sLineOffsets[s] += srcLineStride[s];
+                // The rows are computed one source at a time: each source sets the pixels not
+                // already set by the upper sources, until all the row pixels are set
+                for (int dstY = dstMinY, row = 0; dstY < dstMaxY; dstY++, row++) {
+                    Arrays.fill(pixelSet, false);
+                    int pixelsToSet = dstWidth;
+
+                    for (int s = 0; s < sourcesNumber && pixelsToSet > 0; s++) {
+                        if (srcBean[s].getDataRasterAccessor() == null) {
+                            continue;
                         }
-                        if (srcBean[s].getAlphaRasterAccessor() != null) {
-                            aPixelOffsets[s] = aLineOffsets[s];
-                            aLineOffsets[s] += alfaLineStride[s];
+                        final byte[] sData = sBandDataByte[s];
+                        final int sStride = srcPixelStride[s];
+                        int sPixelOffset = sLineOffsets[s] + row * srcLineStride[s];
+                        final boolean checkNoData = sourceHasNoData[s];
+                        // Alpha channel or ROI of the row
+                        final WeightType weightType = weightTypesUsed[s];
+                        final byte[] aData;
+                        final int aStride;
+                        int aPixelOffset;
+                        if (weightType == WeightType.WEIGHT_TYPE_ALPHA) {
+                            aData = aBandDataByte[s];
+                            aStride = alfaPixelStride[s];
+                            aPixelOffset = aLineOffsets[s] + row * alfaLineStride[s];
+                        } else {
+                            aData = null;
+                            aStride = 0;
+                            aPixelOffset = 0;
+                            if (weightType == WeightType.WEIGHT_TYPE_ROI) {
+                                srcBean[s].getRoiRaster().getSamples(dstMinX, dstY, dstWidth, 1,
+                                        0, roiRow);
+                            }
                         }
-                    }
 
-                    // The same operation is performed for the destination offsets
-                    int dPixelOffset = dLineOffset;
-                    dLineOffset += dstLineStride;
-
-                    for (int dstX = dstMinX; dstX < dstMaxX; dstX++) { // For all
-                                                                       // the X
-                                                                       // values
-
-                        // The destination flag is initialized to false and changes
-                        // to true only
-                        // if one pixel alpha channel is not 0 or falls into an
-                        // image ROI or is not a NoData
-                        boolean setDestinationFlag = false;
-
-                        for (int s = 0; s < sourcesNumber; s++) {
-                            final RasterAccessor dataRA = srcBean[s].getDataRasterAccessor();
-                            if (dataRA == null) {
+                        int dPixelOffset = dLineOffset + row * dstLineStride;
+                        for (int x = 0; x < dstWidth; x++, sPixelOffset += sStride,
+                                aPixelOffset += aStride, dPixelOffset += dstPixelStride) {
+                            if (pixelSet[x]) {
                                 continue;
                             }
-                            // The source valuse are initialized only for the switch
-                            // method
-                            int sourceValueByte = sBandDataByte[s][sPixelOffsets[s]];
-                            // Offset update
-                            sPixelOffsets[s] += srcPixelStride[s];
-
-                            // the flag checks if the pixel is a noData
-                            boolean isData = true;
-                            if (hasNoData[s]) {
-                                isData = !(byteLookupTable[s][b][sourceValueByte
-                                        & 0xFF] == destinationNoDataByte[b]);
-                            }
-
-                            if (!isData) {
-                                setDestinationFlag = false;
-                                if (weightTypesUsed[s] == WeightType.WEIGHT_TYPE_ALPHA) {
-                                    aPixelOffsets[s] += alfaPixelStride[s];
-                                }
-                            } else {
-
-                                switch (weightTypesUsed[s]) {
-                                case WEIGHT_TYPE_ALPHA:
-                                    setDestinationFlag = aBandDataByte[s][aPixelOffsets[s]] != 0;
-
-                                    aPixelOffsets[s] += alfaPixelStride[s];
-                                    break;
-                                case WEIGHT_TYPE_ROI:
-                                    setDestinationFlag = srcBean[s].getRoiRaster().getSample(dstX,
-                                            dstY, 0) > 0;
-                                    break;
-                                default:
-                                    setDestinationFlag = true;
-
-                                }
+                            int sourceValue = sData[sPixelOffset];
+                            if (checkNoData && sourceLookupTable[s][b][sourceValue
+                                    & 0xFF] == destinationNoDataByte[b]) {
+                                continue;
                             }
-                            // If the flag is True, the related source pixel is
-                            // saved in the
-                            // destination one and exit from the cycle after
-                            // incrementing the offset
-                            if (setDestinationFlag) {
-                                dBandDataByte[dPixelOffset] = (byte) (sourceValueByte & 0xff);
-
-                                for (int k = s + 1; k < sourcesNumber; k++) {
-                                    if (dataRA != null) {
-                                        sPixelOffsets[k] += srcPixelStride[k];
-                                    }
-                                    if (srcBean[k].getAlphaRasterAccessor() != null) {
-                                        aPixelOffsets[k] += alfaPixelStride[k];
-                                    }
+                            if (weightType == WeightType.WEIGHT_TYPE_ALPHA) {
+                                if (aData[aPixelOffset] == 0) {
+                                    continue;
                                 }
-                                break;
+                            } else if (weightType == WeightType.WEIGHT_TYPE_ROI
+                                    && roiRow[x] <= 0) {
+                                continue;
                             }
+                            dBandDataByte[dPixelOffset] = (byte) (sourceValue & 0xff);
+                            pixelSet[x] = true;
+                            pixelsToSet--;
                         }
-                        // If the flag is false for every source, the destinationb
-                        // no data value is
-                        // set to the related destination pixel and then updates the
-                        // offset
-                        if (!setDestinationFlag) {
-                            dBandDataByte[dPixelOffset] = destinationNoDataByte[b];
-                        }
+                    }
 
-                        dPixelOffset += dstPixelStride;
+                    // The pixels not set by any source take the destination No Data value
+                    if (pixelsToSet > 0) {
+                        int dPixelOffset = dLineOffset + row * dstLineStride;
+                        for (int x = 0; x < dstWidth; x++, dPixelOffset += dstPixelStride) {
+                            if (!pixelSet[x]) {
+                                dBandDataByte[dPixelOffset] = destinationNoDataByte[b];
+                            }
+                        }
                     }
                 }
             } else { // the mosaicType is MOSAIC_TYPE_BLEND
@@ -1288,8 +1363,8 @@ public class MosaicOpImage extends OpImage {
                             // If no alpha channel or Roi is present, the weight
                             // is set to 1 or 0 if the pixel has
                             // or not a No Data value
-                            if (hasNoData[s]) {
-                                isData = !(byteLookupTable[s][b][sourceValueByte
+                            if (sourceHasNoData[s]) {
+                                isData = !(sourceLookupTable[s][b][sourceValueByte
                                         & 0xFF] == destinationNoDataByte[b]);
                             }
                             if (!isData) {
@@ -1409,10 +1484,15 @@ public class MosaicOpImage extends OpImage {
         // channel are present or not
         final WeightType[] weightTypesUsed = new WeightType[sourcesNumber];
 
+        // No Data flags of the sources
+        final boolean[] sourceHasNoData = new boolean[sourcesNumber];
+
         // The above arrays are filled with the data from the Java Raster
         // AcessorBean.
         for (int i = 0; i < sourcesNumber; i++) {
             weightTypesUsed[i] = WeightType.WEIGHT_TYPE_NODATA;
+            final int index = srcBean[i].getSourceIndex();
+            sourceHasNoData[i] = hasNoData[index];
             final RasterAccessor dataRA = srcBean[i].getDataRasterAccessor();
             if (dataRA != null) {
                 srcLineStride[i] = dataRA.getScanlineStride();
@@ -1430,7 +1510,7 @@ public class MosaicOpImage extends OpImage {
                 if (alphaRA != null) {
                     // If alpha channel is present alpha weight type is used
                     weightTypesUsed[i] = WeightType.WEIGHT_TYPE_ALPHA;
-                } else if (roiPresent && imageBeans[i].getRoi() != null) {
+                } else if (roiPresent && imageBeans[index].getRoi() != null) {
                     // Else if ROI is present, then roi weight type is used
                     weightTypesUsed[i] = WeightType.WEIGHT_TYPE_ROI;
                 }
@@ -1449,6 +1529,10 @@ public class MosaicOpImage extends OpImage {
         final int dstPixelStride = dst.getPixelStride();
         final int[] dstBandOffsets = dst.getBandOffsets();
 
+        // Pixels of the current row already set and ROI values of the current row
+        final boolean[] pixelSet = new boolean[dstWidth];
+        final int[] roiRow = roiPresent ? new int[dstWidth] : null;
+
         // COMPUTATION LEVEL
 
         for (int b = 0; b < dstBands; b++) { // For all the Bands
@@ -1478,105 +1562,73 @@ public class MosaicOpImage extends OpImage {
             int dLineOffset = dstBandOffsets[b];
 
             if (mosaicTypeSelected == MosaicDescriptor.MOSAIC_TYPE_OVERLAY) {
-                for (int dstY = dstMinY; dstY < dstMaxY; dstY++) { // For all the Y
-                                                                   // values
-                    // Source line Offset and pixel Offset,
-                    // Alpha line Offset and pixel Offset are initialized
-                    for (int s = 0; s < sourcesNumber; s++) {
-                        if (srcBean[s].getDataRasterAccessor() != null) {
-                            sPixelOffsets[s] = sLineOffsets[s];
-                            sLineOffsets[s] += srcLineStride[s];
+                // The rows are computed one source at a time: each source sets the pixels not
+                // already set by the upper sources, until all the row pixels are set
+                for (int dstY = dstMinY, row = 0; dstY < dstMaxY; dstY++, row++) {
+                    Arrays.fill(pixelSet, false);
+                    int pixelsToSet = dstWidth;
+
+                    for (int s = 0; s < sourcesNumber && pixelsToSet > 0; s++) {
+                        if (srcBean[s].getDataRasterAccessor() == null) {
+                            continue;
                         }
-                        if (srcBean[s].getAlphaRasterAccessor() != null) {
-                            aPixelOffsets[s] = aLineOffsets[s];
-                            aLineOffsets[s] += alfaLineStride[s];
+                        final short[] sData = sBandDataUshort[s];
+                        final int sStride = srcPixelStride[s];
+                        int sPixelOffset = sLineOffsets[s] + row * srcLineStride[s];
+                        final boolean checkNoData = sourceHasNoData[s];
+                        final Range noDataRange = srcBean[s]
+                                .getSourceNoDataRangeRasterAccessor();
+                        // Alpha channel or ROI of the row
+                        final WeightType weightType = weightTypesUsed[s];
+                        final short[] aData;
+                        final int aStride;
+                        int aPixelOffset;
+                        if (weightType == WeightType.WEIGHT_TYPE_ALPHA) {
+                            aData = aBandDataUshort[s];
+                            aStride = alfaPixelStride[s];
+                            aPixelOffset = aLineOffsets[s] + row * alfaLineStride[s];
+                        } else {
+                            aData = null;
+                            aStride = 0;
+                            aPixelOffset = 0;
+                            if (weightType == WeightType.WEIGHT_TYPE_ROI) {
+                                srcBean[s].getRoiRaster().getSamples(dstMinX, dstY, dstWidth, 1,
+                                        0, roiRow);
+                            }
                         }
-                    }
-
-                    // The same operation is performed for the destination offsets
-                    int dPixelOffset = dLineOffset;
-                    dLineOffset += dstLineStride;
-
-                    for (int dstX = dstMinX; dstX < dstMaxX; dstX++) { // For all
-                                                                       // the X
-                                                                       // values
 
-                        // The destination flag is initialized to false and changes
-                        // to true only
-                        // if one pixel alpha channel is not 0 or falls into an
-                        // image ROI or is not a NoData
-                        boolean setDestinationFlag = false;
-
-                        for (int s = 0; s < sourcesNumber; s++) {
-                            final RasterAccessor dataRA = srcBean[s].getDataRasterAccessor();
-                            if (dataRA == null) {
+                        int dPixelOffset = dLineOffset + row * dstLineStride;
+                        for (int x = 0; x < dstWidth; x++, sPixelOffset += sStride,
+                                aPixelOffset += aStride, dPixelOffset += dstPixelStride) {
+                            if (pixelSet[x]) {
                                 continue;
                             }
-                            // The source valuse are initialized only for the switch
-                            // method
-                            short value = sBandDataUshort[s][sPixelOffsets[s]];
-                            int sourceValueUshort = (value & 0xffff);
-                            // Offset update
-                            sPixelOffsets[s] += srcPixelStride[s];
-
-                            // the flag checks if the pixel is a noData
-                            boolean isData = true;
-                            if (hasNoData[s]) {
-                                Range noDataRangeUShort = (srcBean[s]
-                                        .getSourceNoDataRangeRasterAccessor());
-                                ;
-                                isData = !noDataRangeUShort.contains(sourceValueUshort);
-                            }
-
-                            if (!isData) {
-                                setDestinationFlag = false;
-                                if (weightTypesUsed[s] == WeightType.WEIGHT_TYPE_ALPHA) {
-                                    aPixelOffsets[s] += alfaPixelStride[s];
-                                }
-                            } else {
-
-                                switch (weightTypesUsed[s]) {
-                                case WEIGHT_TYPE_ALPHA:
-                                    setDestinationFlag = aBandDataUshort[s][aPixelOffsets[s]] != 0;
-
-                                    aPixelOffsets[s] += alfaPixelStride[s];
-                                    break;
-                                case WEIGHT_TYPE_ROI:
-                                    setDestinationFlag = srcBean[s].getRoiRaster().getSample(dstX,
-                                            dstY, 0) > 0;
-                                    break;
-                                default:
-                                    setDestinationFlag = true;
-
-                                }
+                            short sourceValue = sData[sPixelOffset];
+                            if (checkNoData && noDataRange.contains(sourceValue & 0xffff)) {
+                                continue;
                             }
-                            // If the flag is True, the related source pixel is
-                            // saved in the
-                            // destination one and exit from the cycle after
-                            // incrementing the offset
-                            if (setDestinationFlag) {
-                                dBandDataUshort[dPixelOffset] = value;
-
-                                for (int k = s + 1; k < sourcesNumber; k++) {
-                                    if (dataRA != null) {
-                                        sPixelOffsets[k] += srcPixelStride[k];
-                                    }
-                                    if (srcBean[k].getAlphaRasterAccessor() != null) {
-                                        aPixelOffsets[k] += alfaPixelStride[k];
-                                    }
+                            if (weightType == WeightType.WEIGHT_TYPE_ALPHA) {
+                                if (aData[aPixelOffset] == 0) {
+                                    continue;
                                 }
-                                break;
+                            } else if (weightType == WeightType.WEIGHT_TYPE_ROI
+                                    && roiRow[x] <= 0) {
+                                continue;
                             }
+                            dBandDataUshort[dPixelOffset] = sourceValue;
+                            pixelSet[x] = true;
+                            pixelsToSet--;
                         }
-                        // If the flag is false for every source, the destinationb
-                        // no data value is
-                        // set to the related destination pixel and then updates the
-                        // offset
-                        if (!setDestinationFlag) {
-                            dBandDataUshort[dPixelOffset] = destinationNoDataUShort[b];
-                        }
+                    }
 
-                        dPixelOffset += dstPixelStride;
+                    // The pixels not set by any source take the destination No Data value
+                    if (pixelsToSet > 0) {
+                        int dPixelOffset = dLineOffset + row * dstLineStride;
+                        for (int x = 0; x < dstWidth; x++, dPixelOffset += dstPixelStride) {
+                            if (!pixelSet[x]) {
+                                dBandDataUshort[dPixelOffset] = destinationNoDataUShort[b];
+                            }
+                        }
                     }
                 }
             } else { // the mosaicType is MOSAIC_TYPE_BLEND
@@ -1626,7 +1678,7 @@ public class MosaicOpImage extends OpImage {
                             // If no alpha channel or Roi is present, the weight
                             // is set to 1 or 0 if the pixel has
                             // or not a No Data value
-                            if (hasNoData[s]) {
+                            if (sourceHasNoData[s]) {
                                 Range noDataRangeUShort = (srcBean[s]
                                         .getSourceNoDataRangeRasterAccessor());
                                 isData = !noDataRangeUShort.contains(sourceValueUshort);
@@ -1748,10 +1800,15 @@ public class MosaicOpImage extends OpImage {
         // channel are present or not
         final WeightType[] weightTypesUsed = new WeightType[sourcesNumber];
 
+        // No Data flags of the sources
+        final boolean[] sourceHasNoData = new boolean[sourcesNumber];
+
         // The above arrays are filled with the data from the Java Raster
         // AcessorBean.
         for (int i = 0; i < sourcesNumber; i++) {
             weightTypesUsed[i] = WeightType.WEIGHT_TYPE_NODATA;
+            final int index = srcBean[i].getSourceIndex();
+            sourceHasNoData[i] = hasNoData[index];
             final RasterAccessor dataRA = srcBean[i].getDataRasterAccessor();
             if (dataRA != null) {
                 srcLineStride[i] = dataRA.getScanlineStride();
@@ -1769,7 +1826,7 @@ public class MosaicOpImage extends OpImage {
                 if (alphaRA != null) {
                     // If alpha channel is present alpha weight type is used
                     weightTypesUsed[i] = WeightType.WEIGHT_TYPE_ALPHA;
-                } else if (roiPresent && imageBeans[i].getRoi() != null) {
+                } else if (roiPresent && imageBeans[index].getRoi() != null) {
                     // Else if ROI is present, then roi weight type is used
                     weightTypesUsed[i] = WeightType.WEIGHT_TYPE_ROI;
                 }
@@ -1788,6 +1845,10 @@ public class MosaicOpImage extends OpImage {
         final int dstPixelStride = dst.getPixelStride();
         final int[] dstBandOffsets = dst.getBandOffsets();
 
+        // Pixels of the current row already set and ROI values of the current row
+        final boolean[] pixelSet = new boolean[dstWidth];
+        final int[] roiRow = roiPresent ? new int[dstWidth] : null;
+
         // COMPUTATION LEVEL
 
         for (int b = 0; b < dstBands; b++) { // For all the Bands
@@ -1816,103 +1877,73 @@ public class MosaicOpImage extends OpImage {
             int dLineOffset = dstBandOffsets[b];
 
             if (mosaicTypeSelected == MosaicDescriptor.MOSAIC_TYPE_OVERLAY) {
-                for (int dstY = dstMinY; dstY < dstMaxY; dstY++) { // For all the Y
-                                                                   // values
-                    // Source line Offset and pixel Offset,
-                    // Alpha line Offset and pixel Offset are initialized
-                    for (int s = 0; s < sourcesNumber; s++) {
-                        if (srcBean[s].getDataRasterAccessor() != null) {
-                            sPixelOffsets[s] = sLineOffsets[s];
-                            sLineOffsets[s] += srcLineStride[s];
+                // The rows are computed one source at a time: each source sets the pixels not
+                // already set by the upper sources, until all the row pixels are set
+                for (int dstY = dstMinY, row = 0; dstY < dstMaxY; dstY++, row++) {
+                    Arrays.fill(pixelSet, false);
+                    int pixelsToSet = dstWidth;
+
+                    for (int s = 0; s < sourcesNumber && pixelsToSet > 0; s++) {
+                        if (srcBean[s].getDataRasterAccessor() == null) {
+                            continue;
                         }
-                        if (srcBean[s].getAlphaRasterAccessor() != null) {
-                            aPixelOffsets[s] = aLineOffsets[s];
-                            aLineOffsets[s] += alfaLineStride[s];
+                        final short[] sData = sBandDataShort[s];
+                        final int sStride = srcPixelStride[s];
+                        int sPixelOffset = sLineOffsets[s] + row * srcLineStride[s];
+                        final boolean checkNoData = sourceHasNoData[s];
+                        final Range noDataRange = srcBean[s]
+                                .getSourceNoDataRangeRasterAccessor();
+                        // Alpha channel or ROI of the row
+                        final WeightType weightType = weightTypesUsed[s];
+                        final short[] aData;
+                        final int aStride;
+                        int aPixelOffset;
+                        if (weightType == WeightType.WEIGHT_TYPE_ALPHA) {
+                            aData = aBandDataShort[s];
+                            aStride = alfaPixelStride[s];
+                            aPixelOffset = aLineOffsets[s] + row * alfaLineStride[s];
+                        } else {
+                            aData = null;
+                            aStride = 0;
+                            aPixelOffset = 0;
+                            if (weightType == WeightType.WEIGHT_TYPE_ROI) {
+                                srcBean[s].getRoiRaster().getSamples(dstMinX, dstY, dstWidth, 1,
+                                        0, roiRow);
+                            }
                         }
-                    }
 
-                    // The same operation is performed for the destination offsets
-                    int dPixelOffset = dLineOffset;
-                    dLineOffset += dstLineStride;
-
-                    for (int dstX = dstMinX; dstX < dstMaxX; dstX++) { // For all
-                                                                       // the X
-                                                                       // values
-
-                        // The destination flag is initialized to false and changes
-                        // to true only
-                        // if one pixel alpha channel is not 0 or falls into an
-                        // image ROI or is not a NoData
-                        boolean setDestinationFlag = false;
-
-                        for (int s = 0; s < sourcesNumber; s++) {
-                            final RasterAccessor dataRA = srcBean[s].getDataRasterAccessor();
-                            if (dataRA == null) {
+                        int dPixelOffset = dLineOffset + row * dstLineStride;
+                        for (int x = 0; x < dstWidth; x++, sPixelOffset += sStride,
+                                aPixelOffset += aStride, dPixelOffset += dstPixelStride) {
+                            if (pixelSet[x]) {
                                 continue;
                             }
-                            // The source valuse are initialized only for the switch
-                            // method
-                            short sourceValueShort = sBandDataShort[s][sPixelOffsets[s]];
-                            // Offset update
-                            sPixelOffsets[s] += srcPixelStride[s];
-
-                            // the flag checks if the pixel is a noData
-                            boolean isData = true;
-                            if (hasNoData[s]) {
-                                Range noDataRangeShort = (srcBean[s]
-                                        .getSourceNoDataRangeRasterAccessor());
-                                isData = !noDataRangeShort.contains(sourceValueShort);
+                            short sourceValue = sData[sPixelOffset];
+                            if (checkNoData && noDataRange.contains(sourceValue)) {
+                                continue;
                             }
-
-                            if (!isData) {
-                                setDestinationFlag = false;
-                                if (weightTypesUsed[s] == WeightType.WEIGHT_TYPE_ALPHA) {
-                                    aPixelOffsets[s] += alfaPixelStride[s];
+                            if (weightType == WeightType.WEIGHT_TYPE_ALPHA) {
+                                if (aData[aPixelOffset] == 0) {
+                                    continue;
                                 }
-                            } else {
-
-                                switch (weightTypesUsed[s]) {
-                                case WEIGHT_TYPE_ALPHA:
-                                    setDestinationFlag = aBandDataShort[s][aPixelOffsets[s]] != 0;
-
-                                    aPixelOffsets[s] += alfaPixelStride[s];
-                                    break;
-                                case WEIGHT_TYPE_ROI:
-                                    setDestinationFlag = srcBean[s].getRoiRaster().getSample(dstX,
-                                            dstY, 0) > 0;
-                                    break;
-                                default:
-                                    setDestinationFlag = true;
-
-                                }
-                            }
-                            // If the flag is True, the related source pixel is
-                            // saved in the
-                            // destination one and exit from the cycle after
-                            // incrementing the offset
-                            if (setDestinationFlag) {
-                                dBandDataShort[dPixelOffset] = sourceValueShort;
-
-                                for (int k = s + 1; k < sourcesNumber; k++) {
-                                    if (dataRA != null) {
-                                        sPixelOffsets[k] += srcPixelStride[k];
-                                    }
-                                    if (srcBean[k].getAlphaRasterAccessor() != null) {
-                                        aPixelOffsets[k] += alfaPixelStride[k];
-                                    }
-                                }
-                                break;
+                            } else if (weightType == WeightType.WEIGHT_TYPE_ROI
+                                    && roiRow[x] <= 0) {
+                                continue;
                             }
+                            dBandDataShort[dPixelOffset] = sourceValue;
+                            pixelSet[x] = true;
+                            pixelsToSet--;
                         }
-                        // If the flag is false for every source, the destinationb
-                        // no data value is
-                        // set to the related destination pixel and then updates the
-                        // offset
-                        if (!setDestinationFlag) {
-                            dBandDataShort[dPixelOffset] = destinationNoDataShort[b];
-                        }
+                    }
 
-                        dPixelOffset += dstPixelStride;
+                    // The pixels not set by any source take the destination No Data value
+                    if (pixelsToSet > 0) {
+                        int dPixelOffset = dLineOffset + row * dstLineStride;
+                        for (int x = 0; x < dstWidth; x++, dPixelOffset += dstPixelStride) {
+                            if (!pixelSet[x]) {
+                                dBandDataShort[dPixelOffset] = destinationNoDataShort[b];
+                            }
+                        }
                     }
                 }
             } else { // the mosaicType is MOSAIC_TYPE_BLEND
@@ -1961,7 +1992,7 @@ public class MosaicOpImage extends OpImage {
                             // If no alpha channel or Roi is present, the weight
                             // is set to 1 or 0 if the pixel has
                             // or not a No Data value
-                            if (hasNoData[s]) {
+                            if (sourceHasNoData[s]) {
                                 Range noDataRangeShort = (srcBean[s]
                                         .getSourceNoDataRangeRasterAccessor());
                                 isData = !noDataRangeShort.contains(sourceValueShort);
@@ -2083,10 +2114,15 @@ public class MosaicOpImage extends OpImage {
         // channel are present or not
         final WeightType[] weightTypesUsed = new WeightType[sourcesNumber];
 
+        // No Data flags of the sources
+        final boolean[] sourceHasNoData = new boolean[sourcesNumber];
+
         // The above arrays are filled with the data from the Java Raster
         // AcessorBean.
         for (int i = 0; i < sourcesNumber; i++) {
             weightTypesUsed[i] = WeightType.WEIGHT_TYPE_NODATA;
+            final int index = srcBean[i].getSourceIndex();
+            sourceHasNoData[i] = hasNoData[index];
             final RasterAccessor dataRA = srcBean[i].getDataRasterAccessor();
             if (dataRA != null) {
                 srcLineStride[i] = dataRA.getScanlineStride();
@@ -2104,7 +2140,7 @@ public class MosaicOpImage extends OpImage {
                 if (alphaRA != null) {
                     // If alpha channel is present alpha weight type is used
                     weightTypesUsed[i] = WeightType.WEIGHT_TYPE_ALPHA;
-                } else if (roiPresent && imageBeans[i].getRoi() != null) {
+                } else if (roiPresent && imageBeans[index].getRoi() != null) {
                     // Else if ROI is present, then roi weight type is used
                     weightTypesUsed[i] = WeightType.WEIGHT_TYPE_ROI;
                 }
@@ -2123,6 +2159,10 @@ public class MosaicOpImage extends OpImage {
         final int dstPixelStride = dst.getPixelStride();
         final int[] dstBandOffsets = dst.getBandOffsets();
 
+        // Pixels of the current row already set and ROI values of the current row
+        final boolean[] pixelSet = new boolean[dstWidth];
+        final int[] roiRow = roiPresent ? new int[dstWidth] : null;
+
         // COMPUTATION LEVEL
 
         for (int b = 0; b < dstBands; b++) { // For all the Bands
@@ -2151,103 +2191,73 @@ public class MosaicOpImage extends OpImage {
             int dLineOffset = dstBandOffsets[b];
 
             if (mosaicTypeSelected == MosaicDescriptor.MOSAIC_TYPE_OVERLAY) {
-                for (int dstY = dstMinY; dstY < dstMaxY; dstY++) { // For all the Y
-                                                                   // values
-                    // Source line Offset and pixel Offset,
-                    // Alpha line Offset and pixel Offset are initialized
-                    for (int s = 0; s < sourcesNumber; s++) {
-                        if (srcBean[s].getDataRasterAccessor() != null) {
-                            sPixelOffsets[s] = sLineOffsets[s];
-                            sLineOffsets[s] += srcLineStride[s];
+                // The rows are computed one source at a time: each source sets the pixels not
+                // already set by the upper sources, until all the row pixels are set
+                for (int dstY = dstMinY, row = 0; dstY < dstMaxY; dstY++, row++) {
+                    Arrays.fill(pixelSet, false);
+                    int pixelsToSet = dstWidth;
+
+                    for (int s = 0; s < sourcesNumber && pixelsToSet > 0; s++) {
+                        if (srcBean[s].getDataRasterAccessor() == null) {
+                            continue;
                         }
-                        if (srcBean[s].getAlphaRasterAccessor() != null) {
-                            aPixelOffsets[s] = aLineOffsets[s];
-                            aLineOffsets[s] += alfaLineStride[s];
+                        final int[] sData = sBandDataInt[s];
+                        final int sStride = srcPixelStride[s];
+                        int sPixelOffset = sLineOffsets[s] + row * srcLineStride[s];
+                        final boolean checkNoData = sourceHasNoData[s];
+                        final Range noDataRange = srcBean[s]
+                                .getSourceNoDataRangeRasterAccessor();
+                        // Alpha channel or ROI of the row
+                        final WeightType weightType = weightTypesUsed[s];
+                        final int[] aData;
+                        final int aStride;
+                        int aPixelOffset;
+                        if (weightType == WeightType.WEIGHT_TYPE_ALPHA) {
+                            aData = aBandDataInt[s];
+                            aStride = alfaPixelStride[s];
+                            aPixelOffset = aLineOffsets[s] + row * alfaLineStride[s];
+                        } else {
+                            aData = null;
+                            aStride = 0;
+                            aPixelOffset = 0;
+                            if (weightType == WeightType.WEIGHT_TYPE_ROI) {
+                                srcBean[s].getRoiRaster().getSamples(dstMinX, dstY, dstWidth, 1,
+                                        0, roiRow);
+                            }
                         }
-                    }
-
-                    // The same operation is performed for the destination offsets
-                    int dPixelOffset = dLineOffset;
-                    dLineOffset += dstLineStride;
-
-                    for (int dstX = dstMinX; dstX < dstMaxX; dstX++) { // For all
-                                                                       // the X
-                                                                       // values
 
-                        // The destination flag is initialized to false and changes
-                        // to true only
-                        // if one pixel alpha channel is not 0 or falls into an
-                        // image ROI or is not a NoData
-                        boolean setDestinationFlag = false;
-
-                        for (int s = 0; s < sourcesNumber; s++) {
-                            final RasterAccessor dataRA = srcBean[s].getDataRasterAccessor();
-                            if (dataRA == null) {
+                        int dPixelOffset = dLineOffset + row * dstLineStride;
+                        for (int x = 0; x < dstWidth; x++, sPixelOffset += sStride,
+                                aPixelOffset += aStride, dPixelOffset += dstPixelStride) {
+                            if (pixelSet[x]) {
                                 continue;
                             }
-                            // The source valuse are initialized only for the switch
-                            // method
-                            int sourceValueInt = sBandDataInt[s][sPixelOffsets[s]];
-                            // Offset update
-                            sPixelOffsets[s] += srcPixelStride[s];
-
-                            // the flag checks if the pixel is a noData
-                            boolean isData = true;
-                            if (hasNoData[s]) {
-                                Range noDataRangeInt = (srcBean[s]
-                                        .getSourceNoDataRangeRasterAccessor());
-                                isData = !noDataRangeInt.contains(sourceValueInt);
-                            }
-
-                            if (!isData) {
-                                setDestinationFlag = false;
-                                if (weightTypesUsed[s] == WeightType.WEIGHT_TYPE_ALPHA) {
-                                    aPixelOffsets[s] += alfaPixelStride[s];
-                                }
-                            } else {
-
-                                switch (weightTypesUsed[s]) {
-                                case WEIGHT_TYPE_ALPHA:
-                                    setDestinationFlag = aBandDataInt[s][aPixelOffsets[s]] != 0;
-
-                                    aPixelOffsets[s] += alfaPixelStride[s];
-                                    break;
-                                case WEIGHT_TYPE_ROI:
-                                    setDestinationFlag = srcBean[s].getRoiRaster().getSample(dstX,
-                                            dstY, 0) > 0;
-                                    break;
-                                default:
-                                    setDestinationFlag = true;
-
-                                }
+                            int sourceValue = sData[sPixelOffset];
+                            if (checkNoData && noDataRange.contains(sourceValue)) {
+                                continue;
                             }
-                            // If the flag is True, the related source pixel is
-                            // saved in the
-                            // destination one and exit from the cycle after
-                            // incrementing the offset
-                            if (setDestinationFlag) {
-                                dBandDataInt[dPixelOffset] = sourceValueInt;
-
-                                for (int k = s + 1; k < sourcesNumber; k++) {
-                                    if (dataRA != null) {
-                                        sPixelOffsets[k] += srcPixelStride[k];
-                                    }
-                                    if (srcBean[k].getAlphaRasterAccessor() != null) {
-                                        aPixelOffsets[k] += alfaPixelStride[k];
-                                    }
+                            if (weightType == WeightType.WEIGHT_TYPE_ALPHA) {
+                                if (aData[aPixelOffset] == 0) {
+                                    continue;
                                 }
-                                break;
+                            } else if (weightType == WeightType.WEIGHT_TYPE_ROI
+                                    && roiRow[x] <= 0) {
+                                continue;
                             }
+                            dBandDataInt[dPixelOffset] = sourceValue;
+                            pixelSet[x] = true;
+                            pixelsToSet--;
                         }
-                        // If the flag is false for every source, the destinationb
-                        // no data value is
-                        // set to the related destination pixel and then updates the
-                        // offset
-                        if (!setDestinationFlag) {
-                            dBandDataInt[dPixelOffset] = destinationNoDataInt[b];
-                        }
+                    }
 
-                        dPixelOffset += dstPixelStride;
+                    // The pixels not set by any source take the destination No Data value
+                    if (pixelsToSet > 0) {
+                        int dPixelOffset = dLineOffset + row * dstLineStride;
+                        for (int x = 0; x < dstWidth; x++, dPixelOffset += dstPixelStride) {
+                            if (!pixelSet[x]) {
+                                dBandDataInt[dPixelOffset] = destinationNoDataInt[b];
+                            }
+                        }
                     }
                 }
             } else { // the mosaicType is MOSAIC_TYPE_BLEND
@@ -2296,7 +2306,7 @@ public class MosaicOpImage extends OpImage {
                             // If no alpha channel or Roi is present, the weight
                             // is set to 1 or 0 if the pixel has
                             // or not a No Data value
-                            if (hasNoData[s]) {
+                            if (sourceHasNoData[s]) {
                                 Range noDataRangeInt = (srcBean[s]
                                         .getSourceNoDataRangeRasterAccessor());
                                 isData = !noDataRangeInt.contains(sourceValueInt);
@@ -2418,10 +2428,15 @@ public class MosaicOpImage extends OpImage {
         // channel are present or not
         final WeightType[] weightTypesUsed = new WeightType[sourcesNumber];
 
+        // No Data flags of the sources
+        final boolean[] sourceHasNoData = new boolean[sourcesNumber];
+
         // The above arrays are filled with the data from the Java Raster
         // AcessorBean.
         for (int i = 0; i < sourcesNumber; i++) {
             weightTypesUsed[i] = WeightType.WEIGHT_TYPE_NODATA;
+            final int index = srcBean[i].getSourceIndex();
+            sourceHasNoData[i] = hasNoData[index];
             final RasterAccessor dataRA = srcBean[i].getDataRasterAccessor();
             if (dataRA != null) {
                 srcLineStride[i] = dataRA.getScanlineStride();
@@ -2439,7 +2454,7 @@ public class MosaicOpImage extends OpImage {
                 if (alphaRA != null) {
                     // If alpha channel is present alpha weight type is used
                     weightTypesUsed[i] = WeightType.WEIGHT_TYPE_ALPHA;
-                } else if (roiPresent && imageBeans[i].getRoi() != null) {
+                } else if (roiPresent && imageBeans[index].getRoi() != null) {
                     // Else if ROI is present, then roi weight type is used
                     weightTypesUsed[i] = WeightType.WEIGHT_TYPE_ROI;
                 }
@@ -2458,6 +2473,10 @@ public class MosaicOpImage extends OpImage {
         final int dstPixelStride = dst.getPixelStride();
         final int[] dstBandOffsets = dst.getBandOffsets();
 
+        // Pixels of the current row already set and ROI values of the current row
+        final boolean[] pixelSet = new boolean[dstWidth];
+        final int[] roiRow = roiPresent ? new int[dstWidth] : null;
+
         // COMPUTATION LEVEL
 
         for (int b = 0; b < dstBands; b++) { // For all the Bands
@@ -2487,105 +2506,73 @@ public class MosaicOpImage extends OpImage {
             int dLineOffset = dstBandOffsets[b];
 
             if (mosaicTypeSelected == MosaicDescriptor.MOSAIC_TYPE_OVERLAY) {
-                for (int dstY = dstMinY; dstY < dstMaxY; dstY++) { // For all the Y
-                                                                   // values
-                    // Source line Offset and pixel Offset,
-                    // Alpha line Offset and pixel Offset are initialized
-                    for (int s = 0; s < sourcesNumber; s++) {
-                        if (srcBean[s].getDataRasterAccessor() != null) {
-                            sPixelOffsets[s] = sLineOffsets[s];
-                            sLineOffsets[s] += srcLineStride[s];
+                // The rows are computed one source at a time: each source sets the pixels not
+                // already set by the upper sources, until all the row pixels are set
+                for (int dstY = dstMinY, row = 0; dstY < dstMaxY; dstY++, row++) {
+                    Arrays.fill(pixelSet, false);
+                    int pixelsToSet = dstWidth;
+
+                    for (int s = 0; s < sourcesNumber && pixelsToSet > 0; s++) {
+                        if (srcBean[s].getDataRasterAccessor() == null) {
+                            continue;
                         }
-                        if (srcBean[s].getAlphaRasterAccessor() != null) {
-                            aPixelOffsets[s] = aLineOffsets[s];
-                            aLineOffsets[s] += alfaLineStride[s];
+                        final float[] sData = sBandDataFloat[s];
+                        final int sStride = srcPixelStride[s];
+                        int sPixelOffset = sLineOffsets[s] + row * srcLineStride[s];
+                        final Range noDataRange = srcBean[s]
+                                .getSourceNoDataRangeRasterAccessor();
+                        final boolean checkNoData = sourceHasNoData[s] && noDataRange != null;
+                        // Alpha channel or ROI of the row
+                        final WeightType weightType = weightTypesUsed[s];
+                        final float[] aData;
+                        final int aStride;
+                        int aPixelOffset;
+                        if (weightType == WeightType.WEIGHT_TYPE_ALPHA) {
+                            aData = aBandDataFloat[s];
+                            aStride = alfaPixelStride[s];
+                            aPixelOffset = aLineOffsets[s] + row * alfaLineStride[s];
+                        } else {
+                            aData = null;
+                            aStride = 0;
+                            aPixelOffset = 0;
+                            if (weightType == WeightType.WEIGHT_TYPE_ROI) {
+                                srcBean[s].getRoiRaster().getSamples(dstMinX, dstY, dstWidth, 1,
+                                        0, roiRow);
+                            }
                         }
-                    }
-
-                    // The same operation is performed for the destination offsets
-                    int dPixelOffset = dLineOffset;
-                    dLineOffset += dstLineStride;
 
-                    for (int dstX = dstMinX; dstX < dstMaxX; dstX++) { // For all
-                                                                       // the X
-                                                                       // values
-
-                        // The destination flag is initialized to false and changes
-                        // to true only
-                        // if one pixel alpha channel is not 0 or falls into an
-                        // image ROI or is not a NoData
-                        boolean setDestinationFlag = false;
-
-                        for (int s = 0; s < sourcesNumber; s++) {
-                            final RasterAccessor dataRA = srcBean[s].getDataRasterAccessor();
-                            if (dataRA == null) {
+                        int dPixelOffset = dLineOffset + row * dstLineStride;
+                        for (int x = 0; x < dstWidth; x++, sPixelOffset += sStride,
+                                aPixelOffset += aStride, dPixelOffset += dstPixelStride) {
+                            if (pixelSet[x]) {
                                 continue;
                             }
-                            // The source valuse are initialized only for the switch
-                            // method
-                            float sourceValueFloat = sBandDataFloat[s][sPixelOffsets[s]];
-                            // Offset update
-                            sPixelOffsets[s] += srcPixelStride[s];
-
-                            // the flag checks if the pixel is a noData
-                            boolean isData = true;
-                            if (hasNoData[s]) {
-                                Range noDataRangeFloat = (srcBean[s]
-                                        .getSourceNoDataRangeRasterAccessor());
-                                if (noDataRangeFloat != null) {
-                                    isData = !(noDataRangeFloat.contains(sourceValueFloat));
-                                }
-                            }
-
-                            if (!isData) {
-                                setDestinationFlag = false;
-                                if (weightTypesUsed[s] == WeightType.WEIGHT_TYPE_ALPHA) {
-                                    aPixelOffsets[s] += alfaPixelStride[s];
-                                }
-                            } else {
-
-                                switch (weightTypesUsed[s]) {
-                                case WEIGHT_TYPE_ALPHA:
-                                    setDestinationFlag = aBandDataFloat[s][aPixelOffsets[s]] != 0;
-
-                                    aPixelOffsets[s] += alfaPixelStride[s];
-                                    break;
-                                case WEIGHT_TYPE_ROI:
-                                    setDestinationFlag = srcBean[s].getRoiRaster().getSample(dstX,
-                                            dstY, 0) > 0;
-                                    break;
-                                default:
-                                    setDestinationFlag = true;
-
-                                }
+                            float sourceValue = sData[sPixelOffset];
+                            if (checkNoData && noDataRange.contains(sourceValue)) {
+                                continue;
                             }
-                            // If the flag is True, the related source pixel is
-                            // saved in the
-                            // destination one and exit from the cycle after
-                            // incrementing the offset
-                            if (setDestinationFlag) {
-                                dBandDataFloat[dPixelOffset] = sourceValueFloat;
-
-                                for (int k = s + 1; k < sourcesNumber; k++) {
-                                    if (dataRA != null) {
-                                        sPixelOffsets[k] += srcPixelStride[k];
-                                    }
-                                    if (srcBean[k].getAlphaRasterAccessor() != null) {
-                                        aPixelOffsets[k] += alfaPixelStride[k];
-                                    }
+                            if (weightType == WeightType.WEIGHT_TYPE_ALPHA) {
+                                if (aData[aPixelOffset] == 0) {
+                                    continue;
                                 }
-                                break;
+                            } else if (weightType == WeightType.WEIGHT_TYPE_ROI
+                                    && roiRow[x] <= 0) {
+                                continue;
                             }
+                            dBandDataFloat[dPixelOffset] = sourceValue;
+                            pixelSet[x] = true;
+                            pixelsToSet--;
                         }
-                        // If the flag is false for every source, the destinationb
-                        // no data value is
-                        // set to the related destination pixel and then updates the
-                        // offset
-                        if (!setDestinationFlag) {
-                            dBandDataFloat[dPixelOffset] = destinationNoDataFloat[b];
-                        }
+                    }
 
-                        dPixelOffset += dstPixelStride;
+                    // The pixels not set by any source take the destination No Data value
+                    if (pixelsToSet > 0) {
+                        int dPixelOffset = dLineOffset + row * dstLineStride;
+                        for (int x = 0; x < dstWidth; x++, dPixelOffset += dstPixelStride) {
+                            if (!pixelSet[x]) {
+                                dBandDataFloat[dPixelOffset] = destinationNoDataFloat[b];
+                            }
+                        }
                     }
                 }
             } else { // the mosaicType is MOSAIC_TYPE_BLEND
@@ -2634,7 +2621,7 @@ public class MosaicOpImage extends OpImage {
                             // If no alpha channel or Roi is present, the weight
                             // is set to 1 or 0 if the pixel has
                             // or not a No Data value
-                            if (hasNoData[s]) {
+                            if (sourceHasNoData[s]) {
                                 Range noDataRangeFloat = (srcBean[s]
                                         .getSourceNoDataRangeRasterAccessor());
                                 if (noDataRangeFloat != null) {
@@ -2760,10 +2747,15 @@ public class MosaicOpImage extends OpImage {
         // channel are present or not
         final WeightType[] weightTypesUsed = new WeightType[sourcesNumber];
 
+        // No Data flags of the sources
+        final boolean[] sourceHasNoData = new boolean[sourcesNumber];
+
         // The above arrays are filled with the data from the Java Raster
         // AcessorBean.
         for (int i = 0; i < sourcesNumber; i++) {
             weightTypesUsed[i] = WeightType.WEIGHT_TYPE_NODATA;
+            final int index = srcBean[i].getSourceIndex();
+            sourceHasNoData[i] = hasNoData[index];
             final RasterAccessor dataRA = srcBean[i].getDataRasterAccessor();
             if (dataRA != null) {
                 srcLineStride[i] = dataRA.getScanlineStride();
@@ -2781,7 +2773,7 @@ public class MosaicOpImage extends OpImage {
                 if (alphaRA != null) {
                     // If alpha channel is present alpha weight type is used
                     weightTypesUsed[i] = WeightType.WEIGHT_TYPE_ALPHA;
-                } else if (roiPresent && imageBeans[i].getRoi() != null) {
+                } else if (roiPresent && imageBeans[index].getRoi() != null) {
                     // Else if ROI is present, then roi weight type is used
                     weightTypesUsed[i] = WeightType.WEIGHT_TYPE_ROI;
                 }
@@ -2800,6 +2792,10 @@ public class MosaicOpImage extends OpImage {
         final int dstPixelStride = dst.getPixelStride();
         final int[] dstBandOffsets = dst.getBandOffsets();
 
+        // Pixels of the current row already set and ROI values of the current row
+        final boolean[] pixelSet = new boolean[dstWidth];
+        final int[] roiRow = roiPresent ? new int[dstWidth] : null;
+
         // COMPUTATION LEVEL
 
         for (int b = 0; b < dstBands; b++) { // For all the Bands
@@ -2828,105 +2824,73 @@ public class MosaicOpImage extends OpImage {
             int dLineOffset = dstBandOffsets[b];
 
             if (mosaicTypeSelected == MosaicDescriptor.MOSAIC_TYPE_OVERLAY) {
-                for (int dstY = dstMinY; dstY < dstMaxY; dstY++) { // For all the Y
-                                                                   // values
-                    // Source line Offset and pixel Offset,
-                    // Alpha line Offset and pixel Offset are initialized
-                    for (int s = 0; s < sourcesNumber; s++) {
-                        if (srcBean[s].getDataRasterAccessor() != null) {
-                            sPixelOffsets[s] = sLineOffsets[s];
-                            sLineOffsets[s] += srcLineStride[s];
+                // The rows are computed one source at a time: each source sets the pixels not
+                // already set by the upper sources, until all the row pixels are set
+                for (int dstY = dstMinY, row = 0; dstY < dstMaxY; dstY++, row++) {
+                    Arrays.fill(pixelSet, false);
+                    int pixelsToSet = dstWidth;
+
+                    for (int s = 0; s < sourcesNumber && pixelsToSet > 0; s++) {
+                        if (srcBean[s].getDataRasterAccessor() == null) {
+                            continue;
                         }
-                        if (srcBean[s].getAlphaRasterAccessor() != null) {
-                            aPixelOffsets[s] = aLineOffsets[s];
-                            aLineOffsets[s] += alfaLineStride[s];
+                        final double[] sData = sBandDataDouble[s];
+                        final int sStride = srcPixelStride[s];
+                        int sPixelOffset = sLineOffsets[s] + row * srcLineStride[s];
+                        final Range noDataRange = srcBean[s]
+                                .getSourceNoDataRangeRasterAccessor();
+                        final boolean checkNoData = sourceHasNoData[s] && noDataRange != null;
+                        // Alpha channel or ROI of the row
+                        final WeightType weightType = weightTypesUsed[s];
+                        final double[] aData;
+                        final int aStride;
+                        int aPixelOffset;
+                        if (weightType == WeightType.WEIGHT_TYPE_ALPHA) {
+                            aData = aBandDataDouble[s];
+                            aStride = alfaPixelStride[s];
+                            aPixelOffset = aLineOffsets[s] + row * alfaLineStride[s];
+                        } else {
+                            aData = null;
+                            aStride = 0;
+                            aPixelOffset = 0;
+                            if (weightType == WeightType.WEIGHT_TYPE_ROI) {
+                                srcBean[s].getRoiRaster().getSamples(dstMinX, dstY, dstWidth, 1,
+                                        0, roiRow);
+                            }
                         }
-                    }
-
-                    // The same operation is performed for the destination offsets
-                    int dPixelOffset = dLineOffset;
-                    dLineOffset += dstLineStride;
-
-                    for (int dstX = dstMinX; dstX < dstMaxX; dstX++) { // For all
-                                                                       // the X
-                                                                       // values
-
-                        // The destination flag is initialized to false and changes
-                        // to true only
-                        // if one pixel alpha channel is not 0 or falls into an
-                        // image ROI or is not a NoData
-                        boolean setDestinationFlag = false;
 
-                        for (int s = 0; s < sourcesNumber; s++) {
-                            final RasterAccessor dataRA = srcBean[s].getDataRasterAccessor();
-                            if (dataRA == null) {
+                        int dPixelOffset = dLineOffset + row * dstLineStride;
+                        for (int x = 0; x < dstWidth; x++, sPixelOffset += sStride,
+                                aPixelOffset += aStride, dPixelOffset += dstPixelStride) {
+                            if (pixelSet[x]) {
                                 continue;
                             }
-                            // The source valuse are initialized only for the switch
-                            // method
-                            double sourceValueDouble = sBandDataDouble[s][sPixelOffsets[s]];
-                            // Offset update
-                            sPixelOffsets[s] += srcPixelStride[s];
-
-                            // the flag checks if the pixel is a noData
-                            boolean isData = true;
-                            if (hasNoData[s]) {
-                                Range noDataRangeDouble = (srcBean[s]
-                                        .getSourceNoDataRangeRasterAccessor());
-                                if (noDataRangeDouble != null) {
-                                    isData = !(noDataRangeDouble.contains(sourceValueDouble));
-                                }
-                            }
-
-                            if (!isData) {
-                                setDestinationFlag = false;
-                                if (weightTypesUsed[s] == WeightType.WEIGHT_TYPE_ALPHA) {
-                                    aPixelOffsets[s] += alfaPixelStride[s];
-                                }
-                            } else {
-
-                                switch (weightTypesUsed[s]) {
-                                case WEIGHT_TYPE_ALPHA:
-                                    setDestinationFlag = aBandDataDouble[s][aPixelOffsets[s]] != 0;
-
-                                    aPixelOffsets[s] += alfaPixelStride[s];
-                                    break;
-                                case WEIGHT_TYPE_ROI:
-                                    setDestinationFlag = srcBean[s].getRoiRaster().getSample(dstX,
-                                            dstY, 0) > 0;
-                                    break;
-                                default:
-                                    setDestinationFlag = true;
-
-                                }
+                            double sourceValue = sData[sPixelOffset];
+                            if (checkNoData && noDataRange.contains(sourceValue)) {
+                                continue;
                             }
-                            // If the flag is True, the related source pixel is
-                            // saved in the
-                            // destination one and exit from the cycle after
-                            // incrementing the offset
-                            if (setDestinationFlag) {
-                                dBandDataDouble[dPixelOffset] = sourceValueDouble;
-
-                                for (int k = s + 1; k < sourcesNumber; k++) {
-                                    if (dataRA != null) {
-                                        sPixelOffsets[k] += srcPixelStride[k];
-                                    }
-                                    if (srcBean[k].getAlphaRasterAccessor() != null) {
-                                        aPixelOffsets[k] += alfaPixelStride[k];
-                                    }
+                            if (weightType == WeightType.WEIGHT_TYPE_ALPHA) {
+                                if (aData[aPixelOffset] == 0) {
+                                    continue;
                                 }
-                                break;
+                            } else if (weightType == WeightType.WEIGHT_TYPE_ROI
+                                    && roiRow[x] <= 0) {
+                                continue;
                             }
+                            dBandDataDouble[dPixelOffset] = sourceValue;
+                            pixelSet[x] = true;
+                            pixelsToSet--;
                         }
-                        // If the flag is false for every source, the destinationb
-                        // no data value is
-                        // set to the related destination pixel and then updates the
-                        // offset
-                        if (!setDestinationFlag) {
-                            dBandDataDouble[dPixelOffset] = destinationNoDataDouble[b];
-                        }
+                    }
 
-                        dPixelOffset += dstPixelStride;
+                    // The pixels not set by any source take the destination No Data value
+                    if (pixelsToSet > 0) {
+                        int dPixelOffset = dLineOffset + row * dstLineStride;
+                        for (int x = 0; x < dstWidth; x++, dPixelOffset += dstPixelStride) {
+                            if (!pixelSet[x]) {
+                                dBandDataDouble[dPixelOffset] = destinationNoDataDouble[b];
+                            }
+                        }
                     }
                 }
             } else { // the mosaicType is MOSAIC_TYPE_BLEND
@@ -2975,7 +2939,7 @@ public class MosaicOpImage extends OpImage {
                             // If no alpha channel or Roi is present, the weight
                             // is set to 1 or 0 if the pixel has
                             // or not a No Data value
-                            if (hasNoData[s]) {
+                            if (sourceHasNoData[s]) {
                                 Range noDataRangeDouble = (srcBean[s]
                                         .getSourceNoDataRangeRasterAccessor());
                                 if (noDataRangeDouble != null) {
@@ -3088,6 +3052,9 @@ public class MosaicOpImage extends OpImage {
 
     /** Java bean for saving all the rasterAccessor informations */
     private static class RasterBeanAccessor {
+        // Index of the source image
+        private int sourceIndex;
+
         // RasterAccessor of image data
         private RasterAccessor dataRasterAccessor;
 
@@ -3106,6 +3073,14 @@ public class MosaicOpImage extends OpImage {
 
         // The methods below are setter and getter for every field as requested for the
         // java beans
+        public int getSourceIndex() {
+            return sourceIndex;
+        }
+
+        public void setSourceIndex(int sourceIndex) {
+            this.sourceIndex = sourceIndex;
+        }
+
         public RasterAccessor getDataRasterAccessor() {
             return dataRasterAccessor;
         }
@@ -0,0 +1,174 @@
+/* JAI-Ext - OpenSource Java Advanced Image Extensions Library
+*    http://www.geo-solutions.it/
+*    Copyright 2014 GeoSolutions
+
+
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+
+* http://www.apache.org/licenses/LICENSE-2.0
+
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package it.geosolutions.jaiext.mosaic;
+
+import java.awt.Rectangle;
+
+import javax.media.jai.PlanarImage;
+
+/**
+ * Spatial index of the bounds of the mosaic sources, built on the tile grid of the mosaic. Each cell of the index contains the indexes of the
+ * sources intersecting it, in ascending order, so that the sources intersecting a tile can be retrieved without checking all of them. A cell
+ * covers a single tile, unless the sources cover too many tiles: in that case the cells are enlarged for keeping the index size bounded.
+ */
+final class SourceIndex {
+
+    /** Maximum number of source indexes stored inside the cells */
+    private static final long MAX_ENTRIES = 1 << 22;
+
+    /** Empty result */
+    private static final int[] NO_SOURCES = new int[0];
+
+    /** Bounds of the sources */
+    private final Rectangle[] bounds;
+
+    /** First tile of the grid */
+    private final int minTileX;
+
+    private final int minTileY;
+
+    /** Number of cells of the grid */
+    private final int numCellsX;
+
+    private final int numCellsY;
+
+    /** Logarithm of the number of tiles covered by a cell along each axis */
+    private final int shift;
+
+    /** Source indexes of each cell in row-major order */
+    private final int[][] cells;
+
+    /**
+     * Creates an index of the input source bounds over the selected tile grid.
+     * 
+     * @param bounds Bounds of the sources
+     * @param minTileX First tile column
+     * @param minTileY First tile row
+     * @param numXTiles Number of tile columns
+     * @param numYTiles Number of tile rows
+     * @param tileWidth Tile width
+     * @param tileHeight Tile height
+     * @param tileGridXOffset Tile grid X offset
+     * @param tileGridYOffset Tile grid Y offset
+     */
+    SourceIndex(Rectangle[] bounds, int minTileX, int minTileY, int numXTiles, int numYTiles,
+            int tileWidth, int tileHeight, int tileGridXOffset, int tileGridYOffset) {
+        this.bounds = bounds;
+        this.minTileX = minTileX;
+        this.minTileY = minTileY;
+        int numSources = bounds.length;
+        // Tile range covered by each source, relative to the first tile
+        int[] ranges = new int[numSources * 4];
+        long entries = 0;
+        for (int i = 0; i < numSources; i++) {
+            Rectangle rect = bounds[i];
+            int offset = i * 4;
+            int x0 = Math.max(PlanarImage.XToTileX(rect.x, tileGridXOffset, tileWidth) - minTileX,
+                    0);
+            int y0 = Math.max(PlanarImage.YToTileY(rect.y, tileGridYOffset, tileHeight)
+                    - minTileY, 0);
+            int x1 = Math.min(PlanarImage.XToTileX(rect.x + rect.width - 1, tileGridXOffset,
+                    tileWidth) - minTileX, numXTiles - 1);
+            int y1 = Math.min(PlanarImage.YToTileY(rect.y + rect.height - 1, tileGridYOffset,
+                    tileHeight) - minTileY, numYTiles - 1);
+            if (rect.isEmpty() || x0 > x1 || y0 > y1) {
+                // The source is outside the grid: an empty range is stored
+                x0 = y0 = 0;
+                x1 = y1 = -1;
+            } else {
+                entries += (long) (x1 - x0 + 1) * (y1 - y0 + 1);
+            }
+            ranges[offset] = x0;
+            ranges[offset + 1] = y0;
+            ranges[offset + 2] = x1;
+            ranges[offset + 3] = y1;
+        }
+        // Enlargement of the cells until the index size is acceptable
+        int s = 0;
+        while (entries > MAX_ENTRIES && ((numXTiles - 1) >> s > 0 || (numYTiles - 1) >> s > 0)) {
+            s++;
+            entries = 0;
+            for (int i = 0; i < numSources; i++) {
+                int offset = i * 4;
+                if (ranges[offset + 2] >= 0) {
+                    entries += (long) (((ranges[offset + 2] >> s) - (ranges[offset] >> s) + 1))
+                            * ((ranges[offset + 3] >> s) - (ranges[offset + 1] >> s) + 1);
+                }
+            }
+        }
+        this.shift = s;
+        this.numCellsX = ((numXTiles - 1) >> s) + 1;
+        this.numCellsY = ((numYTiles - 1) >> s) + 1;
+
+        // Count of the sources of each cell
+        int[] counts = new int[numCellsX * numCellsY];
+        for (int i = 0; i < numSources; i++) {
+            int offset = i * 4;
+            for (int y = ranges[offset + 1] >> s; y <= ranges[offset + 3] >> s; y++) {
+                for (int x = ranges[offset] >> s; x <= ranges[offset + 2] >> s; x++) {
+                    counts[y * numCellsX + x]++;
+                }
+            }
+        }
+        // Filling of the cells; the sources are visited in order, so each cell is sorted
+        cells = new int[counts.length][];
+        for (int c = 0; c < counts.length; c++) {
+            cells[c] = counts[c] == 0 ? NO_SOURCES : new int[counts[c]];
+            counts[c] = 0;
+        }
+        for (int i = 0; i < numSources; i++) {
+            int offset = i * 4;
+            for (int y = ranges[offset + 1] >> s; y <= ranges[offset + 3] >> s; y++) {
+                for (int x = ranges[offset] >> s; x <= ranges[offset + 2] >> s; x++) {
+                    int c = y * numCellsX + x;
+                    cells[c][counts[c]++] = i;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the indexes of the sources intersecting the selected tile rectangle, in ascending order.
+     * 
+     * @param tileX Tile column
+     * @param tileY Tile row
+     * @param tileRect Tile rectangle
+     */
+    int[] getSources(int tileX, int tileY, Rectangle tileRect) {
+        int x = (tileX - minTileX) >> shift;
+        int y = (tileY - minTileY) >> shift;
+        if (tileX < minTileX || tileY < minTileY || x >= numCellsX || y >= numCellsY) {
+            return NO_SOURCES;
+        }
+        int[] candidates = cells[y * numCellsX + x];
+        int[] result = new int[candidates.length];
+        int count = 0;
+        for (int i = 0; i < candidates.length; i++) {
+            int index = candidates[i];
+            if (bounds[index].intersects(tileRect)) {
+                result[count++] = index;
+            }
+        }
+        if (count < result.length) {
+            int[] trimmed = new int[count];
+            System.arraycopy(result, 0, trimmed, 0, count);
+            return trimmed;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,163 @@
+/* JAI-Ext - OpenSource Java Advanced Image Extensions Library
+*    http://www.geo-solutions.it/
+*    Copyright 2014 GeoSolutions
+
+
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+
+* http://www.apache.org/licenses/LICENSE-2.0
+
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package it.geosolutions.jaiext.mosaic;
+
+import it.geosolutions.jaiext.testclasses.TestBase;
+
+import java.awt.RenderingHints;
+import java.awt.image.RenderedImage;
+import java.awt.image.renderable.ParameterBlock;
+
+import javax.media.jai.ImageLayout;
+import javax.media.jai.JAI;
+import javax.media.jai.RenderedOp;
+import javax.media.jai.operator.MosaicType;
+import javax.media.jai.operator.TranslateDescriptor;
+
+import org.junit.Test;
+
+/**
+ * This test class is used for checking the time needed for computing a mosaic tile when the number of the sources grows. The sources are small
+ * images placed on a regular grid with a small overlap, so that each tile intersects only a few of them independently of the source number: the
+ * time per tile should therefore remain almost constant. If the user wants to change the number of the benchmark cycles or of the not benchmark
+ * cycles, should only pass the new values to the JAI.Ext.BenchmarkCycles or JAI.Ext.NotBenchmarkCycles parameters. The MosaicType can be chosen
+ * by setting the JAI.Ext.MosaicBlend boolean JVM parameter: false for OVERLAY, true for BLEND. By default only a few sources are mosaicked and no
+ * time is printed; the benchmark with many sources (e.g. 10000) is executed by setting their maximum number with the JAI.Ext.NumImages parameter.
+ */
+public class ManySourcesComparisonTest extends TestBase {
+
+    /** Number of benchmark iterations (Default 1) */
+    private final static Integer BENCHMARK_ITERATION = Integer.getInteger(
+            "JAI.Ext.BenchmarkCycles", 1);
+
+    /** Number of not benchmark iterations (Default 0) */
+    private final static int NOT_BENCHMARK_ITERATION = Integer.getInteger(
+            "JAI.Ext.NotBenchmarkCycles", 0);
+
+    /** Boolean for selecting one of the 2 MosaicType(Default Overlay) */
+    private final static boolean MOSAIC_TYPE = Boolean.getBoolean("JAI.Ext.MosaicBlend");
+
+    /** Maximum number of sources for the benchmark (Default null, no benchmark) */
+    private final static Integer NUM_IMAGES = Integer.getInteger("JAI.Ext.NumImages");
+
+    /** Maximum number of sources when the benchmark is not executed */
+    private final static int DEFAULT_NUM_IMAGES = 16;
+
+    /** Size of each source */
+    private final static int SOURCE_SIZE = 64;
+
+    /** Distance between the sources, smaller than their size for having some overlap */
+    private final static int SOURCE_STEP = 56;
+
+    /** Size of the mosaic tiles */
+    private final static int TILE_SIZE = 256;
+
+    @Test
+    public void testManySources() {
+        MosaicType mosaicType = MOSAIC_TYPE
+                ? javax.media.jai.operator.MosaicDescriptor.MOSAIC_TYPE_BLEND
+                : javax.media.jai.operator.MosaicDescriptor.MOSAIC_TYPE_OVERLAY;
+        RenderedImage source = getSyntheticImage((byte) 50);
+        int maxSources = NUM_IMAGES != null ? NUM_IMAGES : DEFAULT_NUM_IMAGES;
+        // The number of sources is doubled up to the maximum
+        for (int sourceNumber = Math.max(1, maxSources / 8); sourceNumber <= maxSources;
+                sourceNumber *= 2) {
+            testMosaic(source, sourceNumber, mosaicType);
+        }
+    }
+
+    public void testMosaic(RenderedImage source, int sourceNumber, MosaicType mosaicType) {
+        // Sources placed on a square grid
+        int columns = (int) Math.ceil(Math.sqrt(sourceNumber));
+        RenderedImage[] sources = new RenderedImage[sourceNumber];
+        for (int i = 0; i < sourceNumber; i++) {
+            float x = (i % columns) * SOURCE_STEP;
+            float y = (i / columns) * SOURCE_STEP;
+            sources[i] = TranslateDescriptor.create(source, x, y, null, null);
+        }
+        ImageLayout layout = new ImageLayout();
+        layout.setTileWidth(TILE_SIZE);
+        layout.setTileHeight(TILE_SIZE);
+        RenderingHints hints = new RenderingHints(JAI.KEY_IMAGE_LAYOUT, layout);
+
+        // Total cycles number
+        int totalCycles = BENCHMARK_ITERATION + NOT_BENCHMARK_ITERATION;
+
+        RenderedOp imageMosaic = MosaicDescriptor.create(sources, mosaicType, null, null, null,
+                new double[] { 0 }, null, hints);
+        int numTiles = imageMosaic.getNumXTiles() * imageMosaic.getNumYTiles();
+
+        long mean = 0;
+        long max = Long.MIN_VALUE;
+        long min = Long.MAX_VALUE;
+
+        // Cycle for calculating the mean, maximum and minimum calculation time
+        for (int i = 0; i < totalCycles; i++) {
+            // Total calculation time
+            long start = System.nanoTime();
+            imageMosaic.getTiles();
+            long end = System.nanoTime() - start;
+
+            // If the the first NOT_BENCHMARK_ITERATION cycles has been done, then the mean, maximum and minimum values are stored
+            if (i > NOT_BENCHMARK_ITERATION - 1) {
+                if (i == NOT_BENCHMARK_ITERATION) {
+                    mean = end;
+                } else {
+                    mean = mean + end;
+                }
+
+                if (end > max) {
+                    max = end;
+                }
+
+                if (end < min) {
+                    min = end;
+                }
+            }
+            // For every cycle the cache is flushed such that all the tiles must be recalculates
+            JAI.getDefaultInstance().getTileCache().flush();
+        }
+        // Mean values per tile
+        double meanValue = mean / BENCHMARK_ITERATION * 1E-6 / numTiles;
+
+        // Max and Min values per tile stored as double
+        double maxD = max * 1E-6 / numTiles;
+        double minD = min * 1E-6 / numTiles;
+        // Output print of the times per tile, only for the benchmark
+        if (NUM_IMAGES != null) {
+            System.out.println("\nMosaic of " + sourceNumber + " sources, " + numTiles + " tiles");
+            System.out.println("Mean value per tile : " + meanValue + " msec.");
+            System.out.println("Maximum value per tile : " + maxD + " msec.");
+            System.out.println("Minimum value per tile : " + minD + " msec.");
+        }
+
+        // Final Image disposal
+        imageMosaic.dispose();
+    }
+
+    public static RenderedImage getSyntheticImage(byte value) {
+        final float size = SOURCE_SIZE;
+        ParameterBlock pb = new ParameterBlock();
+        Byte[] array = new Byte[] { value };
+        pb.add(size);
+        pb.add(size);
+        pb.add(array);
+        // Create the constant operation.
+        return JAI.create("constant", pb);
+    }
+}
@@ -22,9 +22,11 @@ import static org.junit.Assert.assertTrue;
 
 import java.awt.Rectangle;
 import java.awt.RenderingHints;
+import java.awt.image.ComponentSampleModel;
 import java.awt.image.DataBuffer;
 import java.awt.image.Raster;
 import java.awt.image.RenderedImage;
+import java.awt.image.SampleModel;
 import java.awt.image.renderable.ParameterBlock;
 import java.io.Serializable;
 import java.util.List;
@@ -38,6 +40,7 @@ import javax.media.jai.PlanarImage;
 import javax.media.jai.ROI;
 import javax.media.jai.ROIShape;
 import javax.media.jai.RenderedOp;
+import javax.media.jai.TiledImage;
 import javax.media.jai.operator.MosaicType;
 import javax.media.jai.operator.TranslateDescriptor;
 import javax.media.jai.util.ImagingException;
@@ -920,6 +923,186 @@ public class MosaicTest extends TestBase {
 		exceptionMapRectBody(testRect, index, true);
 	}
 
+	@Test
+	public void testOverlayCoveredTileSkipsLowerSources() {
+		// The upper source covers all the tiles with valid data, so the lower
+		// source is never read
+		CountingImage lower = new CountingImage(createConstantByteImage(20));
+		RenderedImage[] sources = new RenderedImage[] {
+				createConstantByteImage(10), lower };
+		RenderedOp mosaic = MosaicDescriptor.create(sources,
+				DEFAULT_MOSAIC_TYPE, null, null, null,
+				new double[] { 0 }, null, null);
+		Raster tile = mosaic.getTile(0, 0);
+		assertEquals(10, tile.getSample(tile.getMinX(), tile.getMinY(), 0));
+		assertEquals(0, lower.tileRequests + lower.dataRequests);
+		mosaic.dispose();
+
+		// The ROI of the upper source covers only half of the image, so the lower
+		// source is read and used outside the ROI
+		lower = new CountingImage(createConstantByteImage(20));
+		sources = new RenderedImage[] { createConstantByteImage(10), lower };
+		ROI[] rois = new ROI[] {
+				new ROIShape(new Rectangle(0, 0, 128, 256)), null };
+		mosaic = MosaicDescriptor.create(sources,
+				DEFAULT_MOSAIC_TYPE, null, rois, null,
+				new double[] { 0 }, null, null);
+		Raster data = mosaic.getData();
+		assertEquals(10, data.getSample(10, 10, 0));
+		assertEquals(20, data.getSample(200, 10, 0));
+		assertTrue(lower.tileRequests > 0);
+		mosaic.dispose();
+	}
+
+	@Test
+	public void testAlignedSourceTilesNotCopied() {
+		// The destination tiles are inside a single source tile, so the source
+		// tiles are used directly instead of copying their data
+		CountingImage upper = new CountingImage(createConstantByteImage(10));
+		CountingImage lower = new CountingImage(createConstantByteImage(20));
+		RenderedImage[] sources = new RenderedImage[] { upper, lower };
+		RenderedOp mosaic = MosaicDescriptor.create(sources,
+				javax.media.jai.operator.MosaicDescriptor.MOSAIC_TYPE_BLEND,
+				null, null, null, new double[] { 0 }, null, null);
+		Raster data = mosaic.getData();
+		assertEquals(15, data.getSample(10, 10, 0));
+		assertTrue(upper.tileRequests > 0);
+		assertEquals(0, upper.dataRequests);
+		assertEquals(0, lower.dataRequests);
+		mosaic.dispose();
+	}
+
+	@Test
+	public void testOverlayReference() {
+		// The OVERLAY mosaic of a nodata source, a ROI source and an alpha
+		// source is compared pixel by pixel with a per-pixel reference
+		int[] dataTypes = new int[] { DataBuffer.TYPE_BYTE,
+				DataBuffer.TYPE_USHORT, DataBuffer.TYPE_SHORT,
+				DataBuffer.TYPE_INT, DataBuffer.TYPE_FLOAT,
+				DataBuffer.TYPE_DOUBLE };
+		double background = 100;
+		for (int dataType : dataTypes) {
+			TiledImage[] sources = new TiledImage[] {
+					createPatternImage(dataType, 0, 0, 1),
+					createPatternImage(dataType, 96, 16, 2),
+					createPatternImage(dataType, 48, 96, 3) };
+			Rectangle roiBounds = new Rectangle(120, 40, 100, 90);
+			ROI[] rois = new ROI[] { null, new ROIShape(roiBounds), null };
+			// Alpha channel of the third source, transparent on a pattern
+			TiledImage alpha = createPatternImage(dataType, 48, 96, 4);
+			for (int y = alpha.getMinY(); y < alpha.getMaxY(); y++) {
+				for (int x = alpha.getMinX(); x < alpha.getMaxX(); x++) {
+					alpha.setSample(x, y, 0, (x + 2 * y) % 3 == 0 ? 0 : 1);
+				}
+			}
+			PlanarImage[] alphas = new PlanarImage[] { null, null, alpha };
+			// All the sources contain nodata
+			Range[] nodata = new Range[3];
+			for (int s = 0; s < nodata.length; s++) {
+				nodata[s] = createNoDataRange(dataType);
+			}
+
+			RenderedOp mosaic = MosaicDescriptor.create(sources,
+					DEFAULT_MOSAIC_TYPE, alphas, rois, null,
+					new double[] { background }, nodata, null);
+			Raster data = mosaic.getData();
+			for (int y = mosaic.getMinY(); y < mosaic.getMaxY(); y++) {
+				for (int x = mosaic.getMinX(); x < mosaic.getMaxX(); x++) {
+					double expected = background;
+					for (int s = 0; s < sources.length; s++) {
+						if (!sources[s].getBounds().contains(x, y)) {
+							continue;
+						}
+						double value = sources[s].getSampleDouble(x, y, 0);
+						if (value == 0 || s == 1 && !roiBounds.contains(x, y)
+								|| s == 2 && alpha.getSample(x, y, 0) == 0) {
+							continue;
+						}
+						expected = value;
+						break;
+					}
+					assertEquals(expected, data.getSampleDouble(x, y, 0), 0);
+				}
+			}
+			mosaic.dispose();
+		}
+	}
+
+	/**
+	 * Creates a 160x160 image with a pattern of values between 1 and 90 and
+	 * nodata (0) pixels
+	 */
+	private static TiledImage createPatternImage(int dataType, int minX,
+			int minY, int seed) {
+		SampleModel sm = new ComponentSampleModel(dataType, 160, 160, 1, 160,
+				new int[] { 0 });
+		TiledImage image = new TiledImage(minX, minY, 160, 160, 0, 0, sm,
+				PlanarImage.createColorModel(sm));
+		for (int y = minY; y < minY + 160; y++) {
+			for (int x = minX; x < minX + 160; x++) {
+				int value = (x * 3 + y + seed) % 11 == 0 ? 0
+						: 1 + (x * 7 + y * 13 + seed * 5) % 90;
+				image.setSample(x, y, 0, value);
+			}
+		}
+		return image;
+	}
+
+	/** Creates a nodata range containing only 0 */
+	private static Range createNoDataRange(int dataType) {
+		switch (dataType) {
+		case DataBuffer.TYPE_BYTE:
+			return RangeFactory.create((byte) 0, true, (byte) 0, true);
+		case DataBuffer.TYPE_USHORT:
+			return RangeFactory.createU((short) 0, true, (short) 0, true);
+		case DataBuffer.TYPE_SHORT:
+			return RangeFactory.create((short) 0, true, (short) 0, true);
+		case DataBuffer.TYPE_INT:
+			return RangeFactory.create(0, true, 0, true);
+		case DataBuffer.TYPE_FLOAT:
+			return RangeFactory.create(0f, true, 0f, true, true);
+		case DataBuffer.TYPE_DOUBLE:
+			return RangeFactory.create(0d, true, 0d, true, true);
+		default:
+			throw new IllegalArgumentException("Wrong data type");
+		}
+	}
+
+	private static RenderedImage createConstantByteImage(int value) {
+		ParameterBlock pb = new ParameterBlock();
+		pb.add(256f);
+		pb.add(256f);
+		pb.add(new Byte[] { (byte) value });
+		return JAI.create("constant", pb);
+	}
+
+	/**
+	 * Image counting the data requested to the wrapped image.
+	 */
+	private static class CountingImage extends PlanarImage {
+
+		private final RenderedImage source;
+
+		private int tileRequests;
+
+		private int dataRequests;
+
+		CountingImage(RenderedImage source) {
+			super(new ImageLayout(source), null, null);
+			this.source = source;
+		}
+
+		public Raster getTile(int tileX, int tileY) {
+			tileRequests++;
+			return source.getTile(tileX, tileY);
+		}
+
+		public Raster getData(Rectangle region) {
+			dataRequests++;
+			return source.getData(region);
+		}
+	}
+
 	private void exceptionMapRectBody(Rectangle testRect, int index,
 			boolean sourceRect) {
 		TestBean testBean = createBean3Images(0, true, true);
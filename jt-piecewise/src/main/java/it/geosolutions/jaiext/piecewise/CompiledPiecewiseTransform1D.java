@@ -0,0 +1,250 @@
+/* JAI-Ext - OpenSource Java Advanced Image Extensions Library
+*    http://www.geo-solutions.it/
+*    Copyright 2014 GeoSolutions
+
+
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+
+* http://www.apache.org/licenses/LICENSE-2.0
+
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package it.geosolutions.jaiext.piecewise;
+
+import java.lang.reflect.Method;
+
+/**
+ * Compiled form of one or more {@link DefaultDomain1D} piecewise transformations, used for transforming many samples without the search of
+ * {@link DefaultDomain1D#findDomainElement(double)} and the synchronized {@link DefaultPiecewiseTransform1DElement#transform(double)} of each
+ * element.
+ * <p>
+ * The minimum and maximum values of the elements are stored inside sorted primitive arrays which are searched without branches, while the linear
+ * transformations are stored as scale and offset arrays; elements with other transformations are still called directly. When more domains are
+ * compiled together, the elements of the first domain are searched first, as done by the pre-filtering elements of a color map.
+ */
+public final class CompiledPiecewiseTransform1D {
+
+    /** Elements transformed with their own method */
+    private final PiecewiseTransform1DElement[] elements;
+
+    /** Minimum value of each element, excluding the NaN elements */
+    private final double[] minimums;
+
+    /** Maximum value of each element, excluding the NaN elements */
+    private final double[] maximums;
+
+    /** Scale of each linear element */
+    private final double[] scales;
+
+    /** Offset of each linear element */
+    private final double[] offsets;
+
+    /** Boolean indicating, for each element, if it must be transformed with its own method */
+    private final boolean[] generic;
+
+    /** Raw bits of the NaN elements, stored after the other elements */
+    private final long[] nanBits;
+
+    /** Compiled transformation searched when no element of this domain contains the value */
+    private final CompiledPiecewiseTransform1D next;
+
+    /** Number of elements of this domain */
+    private final int size;
+
+    private CompiledPiecewiseTransform1D(DefaultDomain1D<?> domain, CompiledPiecewiseTransform1D next) {
+        this.next = next;
+        size = domain.size();
+        elements = new PiecewiseTransform1DElement[size];
+        scales = new double[size];
+        offsets = new double[size];
+        generic = new boolean[size];
+        int numNaN = 0;
+        for (int i = 0; i < size; i++) {
+            if (Double.isNaN(domain.get(i).getInputMinimum())) {
+                numNaN++;
+            }
+        }
+        minimums = new double[size - numNaN];
+        maximums = new double[size - numNaN];
+        nanBits = new long[numNaN];
+        // The NaN elements are sorted after the others
+        for (int i = 0, n = 0; i < size; i++) {
+            DefaultDomainElement1D element = domain.get(i);
+            double min = element.getInputMinimum();
+            if (Double.isNaN(min)) {
+                nanBits[n++] = Double.doubleToRawLongBits(min);
+            } else {
+                minimums[i] = min;
+                maximums[i] = element.getInputMaximum();
+            }
+            elements[i] = (PiecewiseTransform1DElement) element;
+            generic[i] = !setLinear(element, i);
+        }
+    }
+
+    /**
+     * Creates the compiled form of the input transformations, searched in the same order.
+     * 
+     * @param piecewise the transformations to compile
+     * @return the compiled transformation, or null if the transformations are not {@link DefaultDomain1D} instances of sorted
+     *         {@link PiecewiseTransform1DElement}s
+     */
+    public static CompiledPiecewiseTransform1D create(PiecewiseTransform1D<?>... piecewise) {
+        CompiledPiecewiseTransform1D compiled = null;
+        for (int i = piecewise.length - 1; i >= 0; i--) {
+            if (!isSupported(piecewise[i])) {
+                return null;
+            }
+            compiled = new CompiledPiecewiseTransform1D((DefaultDomain1D<?>) piecewise[i], compiled);
+        }
+        return compiled;
+    }
+
+    private static boolean isSupported(PiecewiseTransform1D<?> piecewise) {
+        if (!(piecewise instanceof DefaultDomain1D)) {
+            return false;
+        }
+        DefaultDomain1D<?> domain = (DefaultDomain1D<?>) piecewise;
+        double previous = Double.NEGATIVE_INFINITY;
+        boolean nan = false;
+        for (int i = 0; i < domain.size(); i++) {
+            DefaultDomainElement1D element = domain.get(i);
+            if (!(element instanceof PiecewiseTransform1DElement)) {
+                return false;
+            }
+            double min = element.getInputMinimum();
+            if (Double.isNaN(min)) {
+                nan = true;
+            } else if (nan || min < previous) {
+                return false;
+            } else {
+                previous = min;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Stores the scale and offset of a linear element.
+     * 
+     * @return <code>false</code> if the element transformation is not linear, or if the element changes the transformation method
+     */
+    private boolean setLinear(DefaultDomainElement1D element, int index) {
+        if (!(element instanceof DefaultPiecewiseTransform1DElement)) {
+            return false;
+        }
+        Class<?> declaring;
+        try {
+            Method method = element.getClass().getMethod("transform", double.class);
+            declaring = method.getDeclaringClass();
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+        if (declaring == DefaultPassthroughPiecewiseTransform1DElement.class) {
+            scales[index] = 1;
+            offsets[index] = 0;
+            return true;
+        }
+        if (declaring != DefaultPiecewiseTransform1DElement.class) {
+            return false;
+        }
+        MathTransformation transform = ((DefaultPiecewiseTransform1DElement) element)
+                .getTransform();
+        if (transform == null) {
+            return false;
+        }
+        SingleDimensionTransformation linear;
+        if (transform.getClass() == SingleDimensionTransformation.ConstantTransform.class) {
+            linear = (SingleDimensionTransformation) transform;
+            scales[index] = 0;
+            offsets[index] = linear.getOffset();
+            return true;
+        } else if (transform.getClass() == SingleDimensionTransformation.class) {
+            linear = (SingleDimensionTransformation) transform;
+            // A zero scale would not return the offset for infinite values
+            if (linear.getScale() == 0) {
+                return false;
+            }
+            scales[index] = linear.getScale();
+            offsets[index] = linear.getOffset();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the index of the element containing the input value, to be used with {@link #transform(int, double)}, or -1 if no element contains
+     * it.
+     */
+    public int indexOf(double value) {
+        int index = value == value ? search(value) : searchNaN(value);
+        if (index >= 0) {
+            return index;
+        }
+        if (next != null) {
+            index = next.indexOf(value);
+            if (index >= 0) {
+                return size + index;
+            }
+        }
+        return -1;
+    }
+
+    private int search(double value) {
+        int numElements = minimums.length;
+        if (numElements == 0) {
+            return -1;
+        }
+        // Search of the last element whose minimum is not greater than the value
+        int base = 0;
+        for (int n = numElements; n > 1;) {
+            int half = n >>> 1;
+            base = minimums[base + half] <= value ? base + half : base;
+            n -= half;
+        }
+        return value >= minimums[base] && value <= maximums[base] ? base : -1;
+    }
+
+    private int searchNaN(double value) {
+        long bits = Double.doubleToRawLongBits(value);
+        for (int i = 0; i < nanBits.length; i++) {
+            if (nanBits[i] == bits) {
+                return minimums.length + i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Transforms the input value with the element at the selected index.
+     * 
+     * @param index the element index returned by {@link #indexOf(double)}
+     * @param value the value to transform
+     * @return the transformed value
+     * @throws TransformationException if the element cannot transform the value
+     */
+    public double transform(int index, double value) throws TransformationException {
+        if (index >= size) {
+            return next.transform(index - size, value);
+        }
+        if (generic[index]) {
+            return elements[index].transform(value);
+        }
+        double scale = scales[index];
+        return scale == 0 ? offsets[index] : offsets[index] + scale * value;
+    }
+
+    /** Returns the element at the selected index */
+    public PiecewiseTransform1DElement getElement(int index) {
+        if (index >= size) {
+            return next.getElement(index - size);
+        }
+        return elements[index];
+    }
+}
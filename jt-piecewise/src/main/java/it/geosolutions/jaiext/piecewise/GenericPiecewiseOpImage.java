@@ -35,6 +35,8 @@ import javax.media.jai.ImageLayout;
 import javax.media.jai.PlanarImage;
 import javax.media.jai.ROI;
 import javax.media.jai.ROIShape;
+import javax.media.jai.RasterAccessor;
+import javax.media.jai.RasterFormatTag;
 import javax.media.jai.iterator.RandomIter;
 import javax.media.jai.iterator.RectIter;
 import javax.media.jai.iterator.RectIterFactory;
@@ -114,6 +116,18 @@ public class GenericPiecewiseOpImage<T extends PiecewiseTransform1DElement> exte
     /** Optional value used for indicating that the calculations are made only on one band */
     private Integer bandIndex;
 
+    /** Compiled form of the piecewise transformation, created at the first computation; null if it cannot be compiled */
+    private CompiledPiecewiseTransform1D compiledPiecewise;
+
+    /** Table containing the result of each value of byte, unsigned short and short sources; null if not available */
+    private double[] table;
+
+    /** Data type of the source values stored inside the table */
+    private int tableDataType;
+
+    /** Boolean indicating if the piecewise transformation has already been compiled */
+    private volatile boolean piecewiseCompiled;
+
     /**
      * Constructs a new {@code RasterClassifier}.
      * 
@@ -255,7 +269,17 @@ public class GenericPiecewiseOpImage<T extends PiecewiseTransform1DElement> exte
             if (isByteData) {
                 computeRectByte(sources[0], dest, destRect, roiIter, roiContainsTile);
             } else {
-                computeRectGeneral(sources[0], dest, destRect, roiIter, roiContainsTile);
+                // The compiled transformation is used only if the rasters can be accessed without copies
+                int srcTagID = RasterAccessor.findCompatibleTag(null, sources[0].getSampleModel());
+                int dstTagID = RasterAccessor.findCompatibleTag(null, dest.getSampleModel());
+                if (getCompiledPiecewise() != null
+                        && (srcTagID & RasterAccessor.COPY_MASK) == RasterAccessor.UNCOPIED
+                        && (dstTagID & RasterAccessor.COPY_MASK) == RasterAccessor.UNCOPIED) {
+                    computeRectCompiled(sources[0], dest, destRect, srcTagID, dstTagID, roiIter,
+                            roiContainsTile);
+                } else {
+                    computeRectGeneral(sources[0], dest, destRect, roiIter, roiContainsTile);
+                }
             }
         } else {
             // //
@@ -628,6 +652,262 @@ public class GenericPiecewiseOpImage<T extends PiecewiseTransform1DElement> exte
         }
     }
 
+    /**
+     * Computes the selected band with the compiled piecewise transformation, reading and writing the samples of a row at a time from the raster
+     * arrays.
+     */
+    private void computeRectCompiled(final Raster source, final WritableRaster dest,
+            final Rectangle destRect, int srcTagID, int dstTagID, RandomIter roiIter,
+            boolean roiContainsTile) {
+        RasterAccessor srcAcc = new RasterAccessor(source, destRect, new RasterFormatTag(
+                source.getSampleModel(), srcTagID), null);
+        RasterAccessor dstAcc = new RasterAccessor(dest, destRect, new RasterFormatTag(
+                dest.getSampleModel(), dstTagID), null);
+
+        // Same band computed by the iterators
+        final int band = bandIndex != -1 ? bandIndex : 0;
+        final int width = dstAcc.getWidth();
+        final int height = dstAcc.getHeight();
+        final int srcPixelStride = srcAcc.getPixelStride();
+        final int srcScanlineStride = srcAcc.getScanlineStride();
+        final int dstPixelStride = dstAcc.getPixelStride();
+        final int dstScanlineStride = dstAcc.getScanlineStride();
+        int srcLineOffset = srcAcc.getBandOffset(band);
+        int dstLineOffset = dstAcc.getBandOffset(band);
+
+        final CompiledPiecewiseTransform1D compiled = compiledPiecewise;
+        final double[] lut = tableDataType == srcAcc.getDataType() ? table : null;
+        final boolean roiCheck = hasROI && !roiContainsTile;
+
+        final int[] indices = lut != null ? new int[width] : null;
+        final double[] values = lut == null ? new double[width] : null;
+        final double[] results = new double[width];
+
+        try {
+            for (int j = 0, y0 = destRect.y; j < height; j++, y0++) {
+                if (lut != null) {
+                    readIndices(srcAcc, band, srcLineOffset, srcPixelStride, indices, width);
+                } else {
+                    readValues(srcAcc, band, srcLineOffset, srcPixelStride, values, width);
+                }
+                for (int i = 0, x0 = destRect.x; i < width; i++, x0++) {
+                    if (roiCheck
+                            && !(roiBounds.contains(x0, y0) && roiIter.getSample(x0, y0, 0) > 0)) {
+                        results[i] = gapsValue;
+                    } else if (lut != null) {
+                        results[i] = lut[indices[i]];
+                    } else {
+                        final double value = values[i];
+                        if (hasNoData && nodata.contains(value)) {
+                            results[i] = gapsValue;
+                            continue;
+                        }
+                        final int index = compiled.indexOf(value);
+                        if (index >= 0) {
+                            results[i] = compiled.transform(index, value);
+                        } else if (hasGapsValue) {
+                            results[i] = gapsValue;
+                        } else {
+                            throw new IllegalArgumentException("Unable to set input Gap value");
+                        }
+                    }
+                }
+                writeValues(dstAcc, band, dstLineOffset, dstPixelStride, results, width);
+                srcLineOffset += srcScanlineStride;
+                dstLineOffset += dstScanlineStride;
+            }
+        } catch (final Exception cause) {
+            final RasterFormatException exception = new RasterFormatException(
+                    cause.getLocalizedMessage());
+            exception.initCause(cause);
+            throw exception;
+        }
+
+        if (dstAcc.isDataCopy()) {
+            dstAcc.copyDataToRaster();
+        }
+    }
+
+    /** Reads a row of byte, unsigned short or short samples as unsigned table indices */
+    private static void readIndices(RasterAccessor acc, int band, int offset, int pixelStride,
+            int[] indices, int width) {
+        if (acc.getDataType() == DataBuffer.TYPE_BYTE) {
+            final byte[] data = acc.getByteDataArray(band);
+            for (int i = 0; i < width; i++, offset += pixelStride) {
+                indices[i] = data[offset] & 0xff;
+            }
+        } else {
+            final short[] data = acc.getShortDataArray(band);
+            for (int i = 0; i < width; i++, offset += pixelStride) {
+                indices[i] = data[offset] & 0xffff;
+            }
+        }
+    }
+
+    /** Reads a row of samples as double values */
+    private static void readValues(RasterAccessor acc, int band, int offset, int pixelStride,
+            double[] values, int width) {
+        switch (acc.getDataType()) {
+        case DataBuffer.TYPE_BYTE: {
+            final byte[] data = acc.getByteDataArray(band);
+            for (int i = 0; i < width; i++, offset += pixelStride) {
+                values[i] = data[offset] & 0xff;
+            }
+            break;
+        }
+        case DataBuffer.TYPE_USHORT: {
+            final short[] data = acc.getShortDataArray(band);
+            for (int i = 0; i < width; i++, offset += pixelStride) {
+                values[i] = data[offset] & 0xffff;
+            }
+            break;
+        }
+        case DataBuffer.TYPE_SHORT: {
+            final short[] data = acc.getShortDataArray(band);
+            for (int i = 0; i < width; i++, offset += pixelStride) {
+                values[i] = data[offset];
+            }
+            break;
+        }
+        case DataBuffer.TYPE_INT: {
+            final int[] data = acc.getIntDataArray(band);
+            for (int i = 0; i < width; i++, offset += pixelStride) {
+                values[i] = data[offset];
+            }
+            break;
+        }
+        case DataBuffer.TYPE_FLOAT: {
+            final float[] data = acc.getFloatDataArray(band);
+            for (int i = 0; i < width; i++, offset += pixelStride) {
+                values[i] = data[offset];
+            }
+            break;
+        }
+        default: {
+            final double[] data = acc.getDoubleDataArray(band);
+            for (int i = 0; i < width; i++, offset += pixelStride) {
+                values[i] = data[offset];
+            }
+        }
+        }
+    }
+
+    /** Writes a row of values, converted as done by {@link WritableRectIter#setSample(double)} */
+    private static void writeValues(RasterAccessor acc, int band, int offset, int pixelStride,
+            double[] values, int width) {
+        switch (acc.getDataType()) {
+        case DataBuffer.TYPE_BYTE: {
+            final byte[] data = acc.getByteDataArray(band);
+            for (int i = 0; i < width; i++, offset += pixelStride) {
+                data[offset] = (byte) values[i];
+            }
+            break;
+        }
+        case DataBuffer.TYPE_USHORT:
+        case DataBuffer.TYPE_SHORT: {
+            final short[] data = acc.getShortDataArray(band);
+            for (int i = 0; i < width; i++, offset += pixelStride) {
+                data[offset] = (short) values[i];
+            }
+            break;
+        }
+        case DataBuffer.TYPE_INT: {
+            final int[] data = acc.getIntDataArray(band);
+            for (int i = 0; i < width; i++, offset += pixelStride) {
+                data[offset] = (int) values[i];
+            }
+            break;
+        }
+        case DataBuffer.TYPE_FLOAT: {
+            final float[] data = acc.getFloatDataArray(band);
+            for (int i = 0; i < width; i++, offset += pixelStride) {
+                data[offset] = (float) values[i];
+            }
+            break;
+        }
+        default: {
+            final double[] data = acc.getDoubleDataArray(band);
+            for (int i = 0; i < width; i++, offset += pixelStride) {
+                data[offset] = values[i];
+            }
+        }
+        }
+    }
+
+    /**
+     * Returns the compiled form of the piecewise transformation, creating it at the first call together with the table used for byte, unsigned
+     * short and short sources.
+     */
+    private CompiledPiecewiseTransform1D getCompiledPiecewise() {
+        if (!piecewiseCompiled) {
+            synchronized (this) {
+                if (!piecewiseCompiled) {
+                    compiledPiecewise = compile(piecewise);
+                    if (compiledPiecewise != null) {
+                        tableDataType = getSourceImage(0).getSampleModel().getDataType();
+                        table = createTable(compiledPiecewise, tableDataType);
+                    }
+                    piecewiseCompiled = true;
+                }
+            }
+        }
+        return compiledPiecewise;
+    }
+
+    /**
+     * Compiles the piecewise transformation used by this image; subclasses may override this method for compiling their own transformations.
+     * 
+     * @param piecewise the piecewise transformation of this image
+     * @return the compiled transformation, or null if the transformation cannot be compiled
+     */
+    protected CompiledPiecewiseTransform1D compile(PiecewiseTransform1D<T> piecewise) {
+        return CompiledPiecewiseTransform1D.create(piecewise);
+    }
+
+    /**
+     * Creates a table containing the result of each possible source value, including the NoData check.
+     * 
+     * @return the table, or null if the data type is not byte, unsigned short or short or if some values cannot be transformed
+     */
+    private double[] createTable(CompiledPiecewiseTransform1D compiled, int dataType) {
+        final int size;
+        switch (dataType) {
+        case DataBuffer.TYPE_BYTE:
+            size = 256;
+            break;
+        case DataBuffer.TYPE_USHORT:
+        case DataBuffer.TYPE_SHORT:
+            size = 65536;
+            break;
+        default:
+            return null;
+        }
+        final double[] lut = new double[size];
+        for (int i = 0; i < size; i++) {
+            final double value = dataType == DataBuffer.TYPE_SHORT ? (short) i : i;
+            if (hasNoData && nodata.contains(value)) {
+                lut[i] = gapsValue;
+                continue;
+            }
+            final int index = compiled.indexOf(value);
+            if (index < 0) {
+                if (!hasGapsValue) {
+                    // The error is thrown only if the value is found
+                    return null;
+                }
+                lut[i] = gapsValue;
+            } else {
+                try {
+                    lut[i] = compiled.transform(index, value);
+                } catch (final Exception e) {
+                    // The error is thrown only if the value is found
+                    return null;
+                }
+            }
+        }
+        return lut;
+    }
+
     private PiecewiseTransform1DElement domainSearch(PiecewiseTransform1DElement last, double value)
             throws TransformationException {
         // //
@@ -31,8 +31,11 @@ import it.geosolutions.jaiext.testclasses.TestData;
 import it.geosolutions.rendered.viewer.RenderedImageBrowser;
 
 import java.awt.Rectangle;
+import java.awt.image.ComponentSampleModel;
 import java.awt.image.DataBuffer;
+import java.awt.image.Raster;
 import java.awt.image.RenderedImage;
+import java.awt.image.SampleModel;
 import java.io.File;
 import java.io.IOException;
 
@@ -41,6 +44,7 @@ import javax.media.jai.ParameterBlockJAI;
 import javax.media.jai.ROI;
 import javax.media.jai.ROIShape;
 import javax.media.jai.RenderedOp;
+import javax.media.jai.TiledImage;
 import javax.media.jai.operator.FormatDescriptor;
 
 import junit.framework.Assert;
@@ -666,4 +670,127 @@ public class TestPiecewise extends TestBase {
         }
         finalImage.dispose();
     }
+
+    /**
+     * Testing the compiled form of a piecewise transformation against the element search of the transformation itself.
+     * 
+     * @throws TransformationException
+     */
+    @Test
+    public void compiledTransform() throws TransformationException {
+        final DefaultPiecewiseTransform1DElement constant = DefaultPiecewiseTransform1DElement
+                .create("constant", RangeFactory.create(0.0, true, 10.0, false, false), 5.0);
+        final DefaultPiecewiseTransform1DElement linear = DefaultPiecewiseTransform1DElement
+                .create("linear", RangeFactory.create(10.0, true, 20.0, true, false),
+                        RangeFactory.create(100.0, true, 200.0, true, false));
+        final DefaultPiecewiseTransform1DElement passthrough = DefaultPiecewiseTransform1DElement
+                .create("passthrough", RangeFactory.create(30.0, true, 40.0, true, false));
+        final DefaultPiecewiseTransform1DElement nodata = DefaultPiecewiseTransform1DElement
+                .create("nodata", RangeFactory.create(Double.NaN, Double.NaN), -1.0);
+        final DefaultPiecewiseTransform1D<DefaultPiecewiseTransform1DElement> piecewise = new DefaultPiecewiseTransform1D<DefaultPiecewiseTransform1DElement>(
+                new DefaultPiecewiseTransform1DElement[] { passthrough, constant, linear, nodata });
+
+        final CompiledPiecewiseTransform1D compiled = CompiledPiecewiseTransform1D.create(piecewise);
+        Assert.assertNotNull(compiled);
+
+        final double[] values = new double[] { -1.0, 0.0, 5.5, 10.0 - 1E-9, 10.0, 15.0, 20.0,
+                25.0, 30.0, 33.3, 40.0, 40.5, Double.NaN, Double.POSITIVE_INFINITY };
+        for (double value : values) {
+            final int index = compiled.indexOf(value);
+            final DefaultPiecewiseTransform1DElement element = piecewise.findDomainElement(value);
+            if (element == null) {
+                Assert.assertEquals(-1, index);
+            } else {
+                Assert.assertSame(element, compiled.getElement(index));
+                Assert.assertEquals(element.transform(value), compiled.transform(index, value), 1E-9);
+            }
+        }
+        // the gap between the linear and the passthrough elements
+        Assert.assertEquals(-1, compiled.indexOf(25.0));
+        Assert.assertEquals(5.0, compiled.transform(compiled.indexOf(9.5), 9.5), 0.0);
+        Assert.assertEquals(-1.0, compiled.transform(compiled.indexOf(Double.NaN), Double.NaN), 0.0);
+    }
+
+    /**
+     * Testing the compiled computation of the non byte data types against the computation which searches the domain element of each sample.
+     * 
+     * @throws TransformationException
+     */
+    @Test
+    public void compiledComputation() throws TransformationException {
+        final DefaultPiecewiseTransform1DElement constant = DefaultPiecewiseTransform1DElement
+                .create("constant", RangeFactory.create(0.0, true, 10.0, false, false), 5.0);
+        final DefaultPiecewiseTransform1DElement linear = DefaultPiecewiseTransform1DElement
+                .create("linear", RangeFactory.create(10.0, true, 20.0, true, false),
+                        RangeFactory.create(100.0, true, 200.0, true, false));
+        final DefaultPiecewiseTransform1DElement passthrough = DefaultPiecewiseTransform1DElement
+                .create("passthrough", RangeFactory.create(30.0, true, 40.0, true, false));
+        final DefaultPiecewiseTransform1DElement nodata = DefaultPiecewiseTransform1DElement
+                .create("nodata", RangeFactory.create(Double.NaN, Double.NaN), -1.0);
+        final DefaultPiecewiseTransform1D<DefaultPiecewiseTransform1DElement> piecewise = new DefaultPiecewiseTransform1D<DefaultPiecewiseTransform1DElement>(
+                new DefaultPiecewiseTransform1DElement[] { passthrough, constant, linear, nodata },
+                -2.0);
+
+        final ROI roi = new ROIShape(new Rectangle(5, 5, 40, 20));
+        final Range noDataRange = RangeFactory.create(7.0, true, 7.0, true, false);
+        final int[] dataTypes = new int[] { DataBuffer.TYPE_USHORT, DataBuffer.TYPE_SHORT,
+                DataBuffer.TYPE_INT, DataBuffer.TYPE_FLOAT, DataBuffer.TYPE_DOUBLE };
+        for (int dataType : dataTypes) {
+            final RenderedImage image = createSyntheticImage(dataType);
+            checkCompiledComputation(image, piecewise, null, null);
+            checkCompiledComputation(image, piecewise, roi, null);
+            checkCompiledComputation(image, piecewise, null, noDataRange);
+        }
+    }
+
+    /**
+     * Compares the compiled computation with the one of an image whose transformation cannot be compiled.
+     */
+    private void checkCompiledComputation(RenderedImage image,
+            DefaultPiecewiseTransform1D<DefaultPiecewiseTransform1DElement> piecewise, ROI roi,
+            Range noDataRange) {
+        final GenericPiecewiseOpImage<DefaultPiecewiseTransform1DElement> compiled = new GenericPiecewiseOpImage<DefaultPiecewiseTransform1DElement>(
+                image, piecewise, null, new Integer(0), roi, noDataRange, null, true);
+        final GenericPiecewiseOpImage<DefaultPiecewiseTransform1DElement> general = new GenericPiecewiseOpImage<DefaultPiecewiseTransform1DElement>(
+                image, piecewise, null, new Integer(0), roi, noDataRange, null, true) {
+            @Override
+            protected CompiledPiecewiseTransform1D compile(
+                    PiecewiseTransform1D<DefaultPiecewiseTransform1DElement> transform) {
+                return null;
+            }
+        };
+        final Raster expected = general.getData();
+        final Raster actual = compiled.getData();
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                Assert.assertEquals(expected.getSampleDouble(x, y, 0),
+                        actual.getSampleDouble(x, y, 0), 0.0);
+            }
+        }
+        compiled.dispose();
+        general.dispose();
+    }
+
+    /**
+     * Builds a single band image whose values fall in all the domain elements and in the gaps between them.
+     */
+    private RenderedImage createSyntheticImage(int dataType) {
+        final SampleModel sm = new ComponentSampleModel(dataType, 64, 64, 1, 64, new int[] { 0 });
+        final TiledImage image = new TiledImage(sm, 32, 32);
+        final boolean floatingPoint = dataType == DataBuffer.TYPE_FLOAT
+                || dataType == DataBuffer.TYPE_DOUBLE;
+        for (int y = 0; y < 64; y++) {
+            for (int x = 0; x < 64; x++) {
+                double value = (x + y * 3) % 50;
+                if (dataType != DataBuffer.TYPE_USHORT) {
+                    value -= 5;
+                }
+                image.setSample(x, y, 0, floatingPoint ? value + 0.25 : value);
+            }
+        }
+        if (floatingPoint) {
+            image.setSample(1, 1, 0, Double.NaN);
+        }
+        return image;
+    }
 }
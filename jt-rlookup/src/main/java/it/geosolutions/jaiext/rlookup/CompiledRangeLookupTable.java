@@ -0,0 +1,348 @@
+/* JAI-Ext - OpenSource Java Advanced Image Extensions Library
+*    http://www.geo-solutions.it/
+*    Copyright 2014 GeoSolutions
+
+
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+
+* http://www.apache.org/licenses/LICENSE-2.0
+
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package it.geosolutions.jaiext.rlookup;
+
+import it.geosolutions.jaiext.range.Range;
+
+import java.awt.image.DataBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Compiled form of a {@link RangeLookupTable} for a specific data type, used by {@link RangeLookupOpImage} for avoiding the boxing of the samples
+ * and the generic search of {@link RangeLookupTable#getLookupItem(Number)} for each pixel.
+ * <p>
+ * For byte, unsigned short and short data a dense table containing the result of each possible source value is calculated. For integer, float
+ * and double data the minimum values of the ranges are stored inside a sorted primitive array which is searched without branches; this is
+ * possible only if all the ranges have the same data type, which can represent the source values without changing their order, and do not
+ * overlap; otherwise no compiled table is created.
+ */
+@SuppressWarnings({ "rawtypes", "unchecked" })
+final class CompiledRangeLookupTable {
+
+    /** Data type of the source and destination samples */
+    private final int dataType;
+
+    /** Boolean indicating if the default value is defined */
+    private final boolean hasDefault;
+
+    /** Dense table used for byte data */
+    private byte[] byteTable;
+
+    /** Dense table used for unsigned short and short data, indexed by the unsigned sample value */
+    private short[] shortTable;
+
+    /** Data type of the ranges, for integer, float and double data */
+    private int rangeType;
+
+    /** Ranges sorted by their minimum value, excluding the NaN ranges */
+    private Range[] ranges;
+
+    /** Minimum value of each range */
+    private double[] mins;
+
+    /** Ranges which can contain NaN values, used only for the NaN samples */
+    private Range[] nanRanges;
+
+    private int[] intValues;
+
+    private float[] floatValues;
+
+    private double[] doubleValues;
+
+    private int[] nanIntValues;
+
+    private float[] nanFloatValues;
+
+    private double[] nanDoubleValues;
+
+    private int intDefault;
+
+    private float floatDefault;
+
+    private double doubleDefault;
+
+    private CompiledRangeLookupTable(int dataType, Number defaultValue) {
+        this.dataType = dataType;
+        this.hasDefault = defaultValue != null;
+        if (hasDefault) {
+            intDefault = defaultValue.intValue();
+            floatDefault = defaultValue.floatValue();
+            doubleDefault = defaultValue.doubleValue();
+        }
+    }
+
+    /**
+     * Creates the compiled form of the input table.
+     * 
+     * @param table the table to compile
+     * @param dataType the data type of the samples
+     * @param defaultValue the value to use for the unmatched samples, or null if they must be copied to the destination
+     * @return the compiled table, or null if the table cannot be compiled for the selected data type
+     */
+    static CompiledRangeLookupTable create(RangeLookupTable table, int dataType,
+            Number defaultValue) {
+        CompiledRangeLookupTable compiled = new CompiledRangeLookupTable(dataType, defaultValue);
+        switch (dataType) {
+        case DataBuffer.TYPE_BYTE:
+            compiled.byteTable = new byte[256];
+            for (int i = 0; i < 256; i++) {
+                byte value = (byte) i;
+                LookupItem item = table.getLookupItem(value);
+                compiled.byteTable[i] = item != null ? item.getValue().byteValue()
+                        : (compiled.hasDefault ? defaultValue.byteValue() : value);
+            }
+            return compiled;
+        case DataBuffer.TYPE_USHORT:
+            compiled.shortTable = new short[65536];
+            for (int i = 0; i < 65536; i++) {
+                LookupItem item = table.getLookupItem(i);
+                compiled.shortTable[i] = item != null ? item.getValue().shortValue()
+                        : (compiled.hasDefault ? defaultValue.shortValue() : (short) i);
+            }
+            return compiled;
+        case DataBuffer.TYPE_SHORT:
+            compiled.shortTable = new short[65536];
+            for (int i = 0; i < 65536; i++) {
+                short value = (short) i;
+                LookupItem item = table.getLookupItem(value);
+                compiled.shortTable[i] = item != null ? item.getValue().shortValue()
+                        : (compiled.hasDefault ? defaultValue.shortValue() : value);
+            }
+            return compiled;
+        case DataBuffer.TYPE_INT:
+        case DataBuffer.TYPE_FLOAT:
+        case DataBuffer.TYPE_DOUBLE:
+            return compiled.setRanges(table.getItems()) ? compiled : null;
+        default:
+            return null;
+        }
+    }
+
+    /**
+     * Prepares the sorted arrays used for integer, float and double data.
+     * 
+     * @return <code>false</code> if the items cannot be compiled
+     */
+    private boolean setRanges(List<LookupItem> items) {
+        List<LookupItem> sorted = new ArrayList<LookupItem>();
+        List<LookupItem> nan = new ArrayList<LookupItem>();
+        rangeType = items.isEmpty() ? dataType : items.get(0).getRange().getDataType()
+                .getDataType();
+        // The conversion of the samples to the range type must preserve their order
+        boolean supported;
+        switch (rangeType) {
+        case DataBuffer.TYPE_INT:
+            supported = dataType == DataBuffer.TYPE_INT;
+            break;
+        case DataBuffer.TYPE_FLOAT:
+        case DataBuffer.TYPE_DOUBLE:
+            supported = true;
+            break;
+        default:
+            supported = false;
+        }
+        if (!supported) {
+            return false;
+        }
+        for (LookupItem item : items) {
+            Range range = item.getRange();
+            if (range.getDataType().getDataType() != rangeType) {
+                return false;
+            }
+            boolean nanRange = rangeType != DataBuffer.TYPE_INT
+                    && (range.isNaN() || range.isNanIncluded());
+            if (nanRange) {
+                nan.add(item);
+            }
+            double min = range.getMin().doubleValue();
+            double max = range.getMax().doubleValue();
+            if (Double.isNaN(min) || Double.isNaN(max)) {
+                if (!nanRange) {
+                    return false;
+                }
+            } else {
+                sorted.add(item);
+            }
+        }
+        Collections.sort(sorted, new Comparator<LookupItem>() {
+            public int compare(LookupItem item1, LookupItem item2) {
+                Range r1 = item1.getRange();
+                Range r2 = item2.getRange();
+                int result = Double.compare(r1.getMin().doubleValue(), r2.getMin().doubleValue());
+                if (result == 0 && r1.isMinIncluded() != r2.isMinIncluded()) {
+                    result = r1.isMinIncluded() ? -1 : 1;
+                }
+                return result;
+            }
+        });
+        // The search requires ranges which do not overlap
+        for (int i = 1; i < sorted.size(); i++) {
+            Range previous = sorted.get(i - 1).getRange();
+            Range current = sorted.get(i).getRange();
+            double max = previous.getMax().doubleValue();
+            double min = current.getMin().doubleValue();
+            if (max > min
+                    || (max == min && previous.isMaxIncluded() && current.isMinIncluded())) {
+                return false;
+            }
+        }
+
+        int numRanges = sorted.size();
+        ranges = new Range[numRanges];
+        mins = new double[numRanges];
+        for (int i = 0; i < numRanges; i++) {
+            ranges[i] = sorted.get(i).getRange();
+            mins[i] = ranges[i].getMin().doubleValue();
+        }
+        nanRanges = new Range[nan.size()];
+        for (int i = 0; i < nanRanges.length; i++) {
+            nanRanges[i] = nan.get(i).getRange();
+        }
+        switch (dataType) {
+        case DataBuffer.TYPE_INT:
+            intValues = new int[numRanges];
+            for (int i = 0; i < numRanges; i++) {
+                intValues[i] = sorted.get(i).getValue().intValue();
+            }
+            nanIntValues = new int[nanRanges.length];
+            for (int i = 0; i < nanRanges.length; i++) {
+                nanIntValues[i] = nan.get(i).getValue().intValue();
+            }
+            break;
+        case DataBuffer.TYPE_FLOAT:
+            floatValues = new float[numRanges];
+            for (int i = 0; i < numRanges; i++) {
+                floatValues[i] = sorted.get(i).getValue().floatValue();
+            }
+            nanFloatValues = new float[nanRanges.length];
+            for (int i = 0; i < nanRanges.length; i++) {
+                nanFloatValues[i] = nan.get(i).getValue().floatValue();
+            }
+            break;
+        default:
+            doubleValues = new double[numRanges];
+            for (int i = 0; i < numRanges; i++) {
+                doubleValues[i] = sorted.get(i).getValue().doubleValue();
+            }
+            nanDoubleValues = new double[nanRanges.length];
+            for (int i = 0; i < nanRanges.length; i++) {
+                nanDoubleValues[i] = nan.get(i).getValue().doubleValue();
+            }
+        }
+        return true;
+    }
+
+    /** Returns the dense table for byte data, indexed by the unsigned sample value */
+    byte[] getByteTable() {
+        return byteTable;
+    }
+
+    /** Returns the dense table for unsigned short and short data, indexed by the unsigned sample value */
+    short[] getShortTable() {
+        return shortTable;
+    }
+
+    /** Returns the destination value of an integer sample */
+    int lookup(int value) {
+        int index = indexOf(rangeType == DataBuffer.TYPE_FLOAT ? (float) value : value);
+        if (index >= 0) {
+            return intValues[index];
+        }
+        return hasDefault ? intDefault : value;
+    }
+
+    /** Returns the destination value of a float sample */
+    float lookup(float value) {
+        if (value != value) {
+            for (int i = 0; i < nanRanges.length; i++) {
+                if (contains(nanRanges[i], value)) {
+                    return nanFloatValues[i];
+                }
+            }
+        } else {
+            int index = indexOf(value);
+            if (index >= 0) {
+                return floatValues[index];
+            }
+        }
+        return hasDefault ? floatDefault : value;
+    }
+
+    /** Returns the destination value of a double sample */
+    double lookup(double value) {
+        if (value != value) {
+            for (int i = 0; i < nanRanges.length; i++) {
+                if (contains(nanRanges[i], value)) {
+                    return nanDoubleValues[i];
+                }
+            }
+        } else {
+            int index = indexOf(rangeType == DataBuffer.TYPE_FLOAT ? (float) value : value);
+            if (index >= 0) {
+                return doubleValues[index];
+            }
+        }
+        return hasDefault ? doubleDefault : value;
+    }
+
+    /**
+     * Returns the index of the range containing the input value, already converted to the range data type, or -1 if no range contains it.
+     */
+    private int indexOf(double key) {
+        int numRanges = mins.length;
+        if (numRanges == 0) {
+            return -1;
+        }
+        // Search of the last range whose minimum is not greater than the key
+        int base = 0;
+        for (int n = numRanges; n > 1;) {
+            int half = n >>> 1;
+            base = mins[base + half] <= key ? base + half : base;
+            n -= half;
+        }
+        if (contains(ranges[base], key)) {
+            return base;
+        }
+        // The key may be the included maximum of the previous range
+        if (base > 0 && contains(ranges[base - 1], key)) {
+            return base - 1;
+        }
+        return -1;
+    }
+
+    private boolean contains(Range range, double key) {
+        switch (rangeType) {
+        case DataBuffer.TYPE_INT:
+            return range.contains((int) key);
+        case DataBuffer.TYPE_FLOAT:
+            return range.contains((float) key);
+        default:
+            return range.contains(key);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "CompiledRangeLookupTable[dataType=" + dataType + ", ranges="
+                + (ranges != null ? Arrays.asList(ranges) : "dense") + "]";
+    }
+}
@@ -81,6 +81,12 @@ public class RangeLookupOpImage extends PointOpImage {
     /** {@link PlanarImage} which represents the binarized ROI */
     private PlanarImage roiImage;
 
+    /** Compiled form of the table, created at the first computation; null if the table cannot be compiled */
+    private CompiledRangeLookupTable compiledTable;
+
+    /** Boolean indicating if the table has already been compiled */
+    private volatile boolean tableCompiled;
+
     /**
      * Constructor
      * 
@@ -207,6 +213,21 @@ public class RangeLookupOpImage extends PointOpImage {
 
     }
 
+    /**
+     * Returns the compiled form of the table for the selected data type, creating it at the first call.
+     */
+    private CompiledRangeLookupTable getCompiledTable(int dataType) {
+        if (!tableCompiled) {
+            synchronized (this) {
+                if (!tableCompiled) {
+                    compiledTable = CompiledRangeLookupTable.create(table, dataType, defaultValue);
+                    tableCompiled = true;
+                }
+            }
+        }
+        return compiledTable;
+    }
+
     private void lookupAsByteData(RasterAccessor srcAcc, RasterAccessor destAcc,
             RandomIter roiIter, boolean roiContainsTile) {
         byte srcData[][] = srcAcc.getByteDataArrays();
@@ -224,7 +245,8 @@ public class RangeLookupOpImage extends PointOpImage {
         int srcPixelStride = srcAcc.getPixelStride();
         int srcScanlineStride = srcAcc.getScanlineStride();
 
-        Range lastRange = null;
+        // Dense table containing the destination value of each source value
+        byte[] lut = getCompiledTable(DataBuffer.TYPE_BYTE).getByteTable();
 
         byte typedDefaultValue = hasDefault ? defaultValue.byteValue() : Byte.MIN_VALUE;
         byte destinationValue = typedDefaultValue;
@@ -253,21 +275,7 @@ public class RangeLookupOpImage extends PointOpImage {
                             byte val = (byte) (srcData[k][srcPixelOffset + srcBandOffsets[k]] & 0xff);
 
                             // === destination value
-                            if (lastRange == null || !lastRange.contains(val)) {
-                                // nullify the current rane
-                                lastRange = null;
-
-                                // get a new one if the value falls within some
-                                LookupItem item = table.getLookupItem(val);
-                                if (item != null) {
-                                    lastRange = item.getRange();
-                                    destinationValue = item.getValue().byteValue();
-                                } else {
-                                    // no match: set destination to default value (if defined)
-                                    // or source value
-                                    destinationValue = hasDefault ? typedDefaultValue : val;
-                                }
-                            }
+                            destinationValue = lut[val & 0xff];
                             destData[k][dstPixelOffset + dstBandOffsets[k]] = destinationValue;
                         }
                     }
@@ -294,21 +302,7 @@ public class RangeLookupOpImage extends PointOpImage {
                         byte val = (byte) (srcBandData[srcPixelOffset] & 0xff);
 
                         // === destination value
-                        if (lastRange == null || !lastRange.contains(val)) {
-                            // nullify the current rane
-                            lastRange = null;
-
-                            // get a new one if the value falls within some
-                            LookupItem item = table.getLookupItem(val);
-                            if (item != null) {
-                                lastRange = item.getRange();
-                                destinationValue = item.getValue().byteValue();
-                            } else {
-                                // no match: set destination to default value (if defined)
-                                // or source value
-                                destinationValue = hasDefault ? typedDefaultValue : val;
-                            }
-                        }
+                        destinationValue = lut[val & 0xff];
                         destBandData[dstPixelOffset] = destinationValue;
                         srcPixelOffset += srcPixelStride;
                         dstPixelOffset += dstPixelStride;
@@ -336,7 +330,8 @@ public class RangeLookupOpImage extends PointOpImage {
         int srcPixelStride = srcAcc.getPixelStride();
         int srcScanlineStride = srcAcc.getScanlineStride();
 
-        Range lastRange = null;
+        // Dense table containing the destination value of each source value
+        short[] lut = getCompiledTable(DataBuffer.TYPE_SHORT).getShortTable();
 
         short typedDefaultValue = hasDefault ? defaultValue.shortValue() : Short.MIN_VALUE;
         short destinationValue = typedDefaultValue;
@@ -365,21 +360,7 @@ public class RangeLookupOpImage extends PointOpImage {
                             short val = (srcData[k][srcPixelOffset + srcBandOffsets[k]]);
 
                             // === destination value
-                            if (lastRange == null || !lastRange.contains(val)) {
-                                // nullify the current rane
-                                lastRange = null;
-
-                                // get a new one if the value falls within some
-                                LookupItem item = table.getLookupItem(val);
-                                if (item != null) {
-                                    lastRange = item.getRange();
-                                    destinationValue = item.getValue().shortValue();
-                                } else {
-                                    // no match: set destination to default value (if defined)
-                                    // or source value
-                                    destinationValue = hasDefault ? typedDefaultValue : val;
-                                }
-                            }
+                            destinationValue = lut[val & 0xffff];
                             destData[k][dstPixelOffset + dstBandOffsets[k]] = destinationValue;
                         }
                     }
@@ -406,21 +387,7 @@ public class RangeLookupOpImage extends PointOpImage {
                         short val = (srcBandData[srcPixelOffset]);
 
                         // === destination value
-                        if (lastRange == null || !lastRange.contains(val)) {
-                            // nullify the current rane
-                            lastRange = null;
-
-                            // get a new one if the value falls within some
-                            LookupItem item = table.getLookupItem(val);
-                            if (item != null) {
-                                lastRange = item.getRange();
-                                destinationValue = item.getValue().shortValue();
-                            } else {
-                                // no match: set destination to default value (if defined)
-                                // or source value
-                                destinationValue = hasDefault ? typedDefaultValue : val;
-                            }
-                        }
+                        destinationValue = lut[val & 0xffff];
                         destBandData[dstPixelOffset] = destinationValue;
                         srcPixelOffset += srcPixelStride;
                         dstPixelOffset += dstPixelStride;
@@ -448,7 +415,8 @@ public class RangeLookupOpImage extends PointOpImage {
         int srcPixelStride = srcAcc.getPixelStride();
         int srcScanlineStride = srcAcc.getScanlineStride();
 
-        Range lastRange = null;
+        // Dense table containing the destination value of each source value
+        short[] lut = getCompiledTable(DataBuffer.TYPE_USHORT).getShortTable();
 
         short typedDefaultValue = hasDefault ? defaultValue.shortValue() : 0;
         short destinationValue = typedDefaultValue;
@@ -477,22 +445,7 @@ public class RangeLookupOpImage extends PointOpImage {
                             int val = srcData[k][srcPixelOffset] & 0xffff;
 
                             // === destination value
-                            if (lastRange == null || !lastRange.contains(val)) {
-                                // nullify the current rane
-                                lastRange = null;
-
-                                // get a new one if the value falls within some
-                                LookupItem item = table.getLookupItem(val);
-                                if (item != null) {
-                                    lastRange = item.getRange();
-                                    destinationValue = item.getValue().shortValue();
-                                } else {
-                                    // no match: set destination to default value (if defined)
-                                    // or source value
-                                    destinationValue = (hasDefault ? typedDefaultValue
-                                            : (short) val);
-                                }
-                            }
+                            destinationValue = lut[val];
                             destData[k][dstPixelOffset + dstBandOffsets[k]] = destinationValue;
                         }
                     }
@@ -519,21 +472,7 @@ public class RangeLookupOpImage extends PointOpImage {
                         int val = srcBandData[srcPixelOffset] & 0xffff;
 
                         // === destination value
-                        if (lastRange == null || !lastRange.contains(val)) {
-                            // nullify the current rane
-                            lastRange = null;
-
-                            // get a new one if the value falls within some
-                            LookupItem item = table.getLookupItem(val);
-                            if (item != null) {
-                                lastRange = item.getRange();
-                                destinationValue = item.getValue().shortValue();
-                            } else {
-                                // no match: set destination to default value (if defined)
-                                // or source value
-                                destinationValue = hasDefault ? typedDefaultValue : (short) val;
-                            }
-                        }
+                        destinationValue = lut[val];
                         destBandData[dstPixelOffset] = destinationValue;
                         srcPixelOffset += srcPixelStride;
                         dstPixelOffset += dstPixelStride;
@@ -563,6 +502,9 @@ public class RangeLookupOpImage extends PointOpImage {
 
         Range lastRange = null;
 
+        // Compiled table, null if the generic search must be used
+        CompiledRangeLookupTable lookup = getCompiledTable(DataBuffer.TYPE_INT);
+
         int typedDefaultValue = hasDefault ? defaultValue.intValue() : Integer.MIN_VALUE;
         int destinationValue = typedDefaultValue;
 
@@ -590,7 +532,9 @@ public class RangeLookupOpImage extends PointOpImage {
                             int val = (srcData[k][srcPixelOffset + srcBandOffsets[k]]);
 
                             // === destination value
-                            if (lastRange == null || !lastRange.contains(val)) {
+                            if (lookup != null) {
+                                destinationValue = lookup.lookup(val);
+                            } else if (lastRange == null || !lastRange.contains(val)) {
                                 // nullify the current rane
                                 lastRange = null;
 
@@ -631,7 +575,9 @@ public class RangeLookupOpImage extends PointOpImage {
                         int val = (srcBandData[srcPixelOffset]);
 
                         // === destination value
-                        if (lastRange == null || !lastRange.contains(val)) {
+                        if (lookup != null) {
+                            destinationValue = lookup.lookup(val);
+                        } else if (lastRange == null || !lastRange.contains(val)) {
                             // nullify the current rane
                             lastRange = null;
 
@@ -675,6 +621,9 @@ public class RangeLookupOpImage extends PointOpImage {
 
         Range lastRange = null;
 
+        // Compiled table, null if the generic search must be used
+        CompiledRangeLookupTable lookup = getCompiledTable(DataBuffer.TYPE_FLOAT);
+
         float typedDefaultValue = hasDefault ? defaultValue.floatValue() : Float.NaN;
         float destinationValue = typedDefaultValue;
 
@@ -702,7 +651,9 @@ public class RangeLookupOpImage extends PointOpImage {
                             float val = (srcData[k][srcPixelOffset + srcBandOffsets[k]]);
 
                             // === destination value
-                            if (lastRange == null || !lastRange.contains(val)) {
+                            if (lookup != null) {
+                                destinationValue = lookup.lookup(val);
+                            } else if (lastRange == null || !lastRange.contains(val)) {
                                 // nullify the current rane
                                 lastRange = null;
 
@@ -743,7 +694,9 @@ public class RangeLookupOpImage extends PointOpImage {
                         float val = (srcBandData[srcPixelOffset]);
 
                         // === destination value
-                        if (lastRange == null || !lastRange.contains(val)) {
+                        if (lookup != null) {
+                            destinationValue = lookup.lookup(val);
+                        } else if (lastRange == null || !lastRange.contains(val)) {
                             // nullify the current rane
                             lastRange = null;
 
@@ -788,6 +741,9 @@ public class RangeLookupOpImage extends PointOpImage {
 
         Range lastRange = null;
 
+        // Compiled table, null if the generic search must be used
+        CompiledRangeLookupTable lookup = getCompiledTable(DataBuffer.TYPE_DOUBLE);
+
         double typedDefaultValue = hasDefault ? defaultValue.doubleValue() : Double.NaN;
         double destinationValue = typedDefaultValue;
 
@@ -815,7 +771,9 @@ public class RangeLookupOpImage extends PointOpImage {
                             double val = (srcData[k][srcPixelOffset + srcBandOffsets[k]]);
 
                             // === destination value
-                            if (lastRange == null || !lastRange.contains(val)) {
+                            if (lookup != null) {
+                                destinationValue = lookup.lookup(val);
+                            } else if (lastRange == null || !lastRange.contains(val)) {
                                 // nullify the current rane
                                 lastRange = null;
 
@@ -856,7 +814,9 @@ public class RangeLookupOpImage extends PointOpImage {
                         double val = (srcBandData[srcPixelOffset]);
 
                         // === destination value
-                        if (lastRange == null || !lastRange.contains(val)) {
+                        if (lookup != null) {
+                            destinationValue = lookup.lookup(val);
+                        } else if (lastRange == null || !lastRange.contains(val)) {
                             // nullify the current rane
                             lastRange = null;
 
@@ -23,6 +23,8 @@ import static org.junit.Assert.assertNull;
 import it.geosolutions.jaiext.range.RangeFactory;
 import it.geosolutions.jaiext.testclasses.TestBase;
 
+import java.awt.image.DataBuffer;
+
 import org.junit.Before;
 import org.junit.Test;
 
@@ -138,4 +140,79 @@ public class RangeLookupTableTest extends TestBase {
         assertNull(table.getLookupItem(0));
         assertEquals(1, table.getLookupItem(1).getValue().intValue());
     }
+
+    @Test
+    public void compiledLookup() throws Exception {
+
+        Integer[] breaks = { -10, -5, 0, 5, 10, 200 };
+        Integer[] values = { -99, -1, 0, 1, 2, 3, 99 };
+        RangeLookupTable<Integer, Integer> table = RangeLookupTest.createTable(breaks, values);
+        // Table with interval and point gaps
+        builder.add(RangeFactory.create(-20, true, -10, false), 1);
+        builder.add(RangeFactory.create(-10, true, 0, true), 2);
+        builder.add(RangeFactory.create(1, true, 5, false), 3);
+        builder.add(RangeFactory.create(5, false, 10, true), 4);
+        builder.add(RangeFactory.create(20, false, 300, false), 5);
+        RangeLookupTable<Integer, Integer> gapTable = builder.build();
+
+        for (RangeLookupTable<Integer, Integer> t : new RangeLookupTable[] { table, gapTable }) {
+            for (Integer defaultValue : new Integer[] { null, 7 }) {
+                CompiledRangeLookupTable compiled;
+
+                compiled = CompiledRangeLookupTable.create(t, DataBuffer.TYPE_BYTE, defaultValue);
+                for (int val = Byte.MIN_VALUE; val <= Byte.MAX_VALUE; val++) {
+                    LookupItem<?, ?> match = ((RangeLookupTable) t).getLookupItem((byte) val);
+                    byte expected = match != null ? match.getValue().byteValue()
+                            : (defaultValue != null ? defaultValue.byteValue() : (byte) val);
+                    assertEquals(expected, compiled.getByteTable()[val & 0xff]);
+                }
+
+                compiled = CompiledRangeLookupTable.create(t, DataBuffer.TYPE_USHORT, defaultValue);
+                for (int val = 0; val < 65536; val += 7) {
+                    LookupItem<?, ?> match = t.getLookupItem(val);
+                    short expected = match != null ? match.getValue().shortValue()
+                            : (defaultValue != null ? defaultValue.shortValue() : (short) val);
+                    assertEquals(expected, compiled.getShortTable()[val]);
+                }
+
+                compiled = CompiledRangeLookupTable.create(t, DataBuffer.TYPE_INT, defaultValue);
+                assertNotNull(compiled);
+                for (int val = -300; val <= 300; val++) {
+                    LookupItem<?, ?> match = t.getLookupItem(val);
+                    int expected = match != null ? match.getValue().intValue()
+                            : (defaultValue != null ? defaultValue.intValue() : val);
+                    assertEquals(expected, compiled.lookup(val));
+                }
+
+                // Integer ranges cannot be compiled for double data
+                compiled = CompiledRangeLookupTable.create(t, DataBuffer.TYPE_DOUBLE, defaultValue);
+                if (t == gapTable) {
+                    assertNull(compiled);
+                    continue;
+                }
+                assertNotNull(compiled);
+                for (double val = -300; val <= 300; val += 0.5) {
+                    LookupItem<?, ?> match = ((RangeLookupTable) t).getLookupItem(val);
+                    double expected = match != null ? match.getValue().doubleValue()
+                            : (defaultValue != null ? defaultValue.doubleValue() : val);
+                    assertEquals(expected, compiled.lookup(val), 0d);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void compiledLookupWithNaN() throws Exception {
+        RangeLookupTable.Builder<Float, Integer> floatBuilder = new RangeLookupTable.Builder<Float, Integer>();
+        floatBuilder.add(RangeFactory.create(0f, true, 10f, false), 1);
+        floatBuilder.add(RangeFactory.create(Float.NaN, true, Float.NaN, true), 2);
+        RangeLookupTable<Float, Integer> table = floatBuilder.build();
+
+        CompiledRangeLookupTable compiled = CompiledRangeLookupTable.create(table,
+                DataBuffer.TYPE_FLOAT, null);
+        assertNotNull(compiled);
+        assertEquals(1f, compiled.lookup(5f), 0f);
+        assertEquals(2f, compiled.lookup(Float.NaN), 0f);
+        assertEquals(10f, compiled.lookup(10f), 0f);
+    }
 }
@@ -17,17 +17,10 @@
 */
 package it.geosolutions.jaiext.stats;
 
-import java.awt.Rectangle;
-import java.awt.image.DataBuffer;
-import java.awt.image.Raster;
 import java.awt.image.RenderedImage;
 
 import javax.media.jai.ROI;
-import javax.media.jai.RasterAccessor;
-import javax.media.jai.RasterFormatTag;
-import javax.media.jai.iterator.RandomIter;
 
-import it.geosolutions.jaiext.iterators.RandomIterFactory;
 import it.geosolutions.jaiext.range.Range;
 import it.geosolutions.jaiext.stats.Statistics.StatsType;
 
@@ -44,6 +37,21 @@ import it.geosolutions.jaiext.stats.Statistics.StatsType;
  */
 public class ComplexStatsOpImage extends StatisticsOpImage {
 
+    /** Number of bins for each band */
+    private final int[] numB;
+
+    /** Minimum bound for each band */
+    private final double[] lowValue;
+
+    /** Maximum bound for each band */
+    private final double[] highValue;
+
+    /** Source image data type */
+    private final int dataType;
+
+    /** Indicates which statistics are calculated on each tile and then accumulated */
+    private final boolean[] accumulated;
+
     public ComplexStatsOpImage(RenderedImage source,
             int xPeriod, int yPeriod, ROI roi, Range noData, boolean useROIAccessor, int[] bands,
             StatsType[] statsTypes, double[] minBound, double[] maxBound, int[] numBins) {
@@ -70,95 +78,62 @@ public class ComplexStatsOpImage extends StatisticsOpImage {
         // Storage of the band indexes and length
         this.bands = bands;
         
-        int[] numB = new int[bandsNumber];
-        double[] lowValue = new double[bandsNumber];
-        double[] highValue = new double[bandsNumber];
-        
+        numB = new int[bandsNumber];
+        lowValue = new double[bandsNumber];
+        highValue = new double[bandsNumber];
+        dataType = source.getSampleModel().getDataType();
+
         for (int b = 0; b < bandsNumber; b++) {
             numB[b] = numBins.length == 1 ? numBins[0] : numBins[b];
             lowValue[b] = minBound.length == 1 ? minBound[0] : minBound[b];
             highValue[b] = maxBound.length == 1 ? maxBound[0] : maxBound[b];
         }
 
+        // The quantile statistics are not thread-safe, so they are calculated on each tile
+        // and then accumulated
+        accumulated = new boolean[statNum];
+        for (int j = 0; j < statNum; j++) {
+            accumulated[j] = statsTypes[j] == StatsType.QUANTILE_MEDIAN
+                    || statsTypes[j] == StatsType.PERCENTILES;
+        }
+
         // Creation of a global container of all the selected statistics for every band
         this.stats = new Statistics[selectedBands][statNum];
         // Filling of the container
         for (int i = 0; i < selectedBands; i++) {
             for (int j = 0; j < statNum; j++) {
-                stats[i][j] = StatsFactory.createComplexStatisticsObjectFromInt(
-                        statsTypes[j].getStatsId(), lowValue[i], highValue[i], numB[i]);
+                stats[i][j] = createStatistics(i, j);
             }
         }
     }
 
+    /** Creates the selected statistic object for the selected band */
+    private Statistics createStatistics(int band, int stat) {
+        return StatsFactory.createComplexStatisticsObjectFromInt(statsTypes[stat].getStatsId(),
+                lowValue[band], highValue[band], numB[band], dataType);
+    }
+
     /**
-     * Returns a tile for reading.
-     * 
-     * @param tileX The X index of the tile.
-     * @param tileY The Y index of the tile.
-     * @return The tile as a <code>Raster</code>.
+     * Creates a container with local objects for the statistics to accumulate, while the others are shared with the global container and updated
+     * directly.
      */
-    public Raster computeTile(int tileX, int tileY) {
-        // STATISTICAL ELABORATIONS
-        // selection of the format tags
-        RasterFormatTag[] formatTags = getFormatTags();
-        // Selection of the RasterAccessor parameters
-        Raster source = getSourceImage(0).getTile(tileX, tileY);
-        // Control if the Period is bigger than the tile dimension, in that case, the
-        // statistics are not updated
-        if (xPeriod > getTileWidth() || yPeriod > getTileHeight()) {
-            return source;
-        }
-
-        Rectangle srcRect = getSourceImage(0).getBounds().intersection(source.getBounds());
-        // creation of the RasterAccessor
-        RasterAccessor src = new RasterAccessor(source, srcRect, formatTags[0], getSourceImage(0)
-                .getColorModel());
-
-        // ROI calculations if roiAccessor is used
-        RasterAccessor roi = null;
-        RandomIter roiIter = null;
-        if (useROIAccessor) {
-            // Note that the getExtendedData() method is not called because the input images are padded.
-            // For each image there is a check if the rectangle is contained inside the source image;
-            // if this not happen, the data is taken from the padded image.
-            Raster roiRaster = null;
-            if(srcROIImage.getBounds().contains(srcRect)){
-                roiRaster = srcROIImage.getData(srcRect);
-            }else{
-                roiRaster = srcROIImgExt.getData(srcRect);
+    protected Statistics[][] createLocalStatistics() {
+        Statistics[][] statArray = new Statistics[selectedBands][statNum];
+        for (int i = 0; i < selectedBands; i++) {
+            for (int j = 0; j < statNum; j++) {
+                statArray[i][j] = accumulated[j] ? createStatistics(i, j) : stats[i][j];
             }
-
-            // creation of the rasterAccessor
-            roi = new RasterAccessor(roiRaster, srcRect, RasterAccessor.findCompatibleTags(
-                    new RenderedImage[] { srcROIImage }, srcROIImage)[0],
-                    srcROIImage.getColorModel());
-        } else if(hasROI) {
-            roiIter = RandomIterFactory.create(srcROIImage, srcROIImage.getBounds(), true, true);
         }
+        return statArray;
+    }
 
-        // Computation of the statistics
-        switch (src.getDataType()) {
-        case DataBuffer.TYPE_BYTE:
-            byteLoop(src, srcRect, roi, stats, roiIter);
-            break;
-        case DataBuffer.TYPE_USHORT:
-            ushortLoop(src, srcRect, roi, stats, roiIter);
-            break;
-        case DataBuffer.TYPE_SHORT:
-            shortLoop(src, srcRect, roi, stats, roiIter);
-            break;
-        case DataBuffer.TYPE_INT:
-            intLoop(src, srcRect, roi, stats, roiIter);
-            break;
-        case DataBuffer.TYPE_FLOAT:
-            floatLoop(src, srcRect, roi, stats, roiIter);
-            break;
-        case DataBuffer.TYPE_DOUBLE:
-            doubleLoop(src, srcRect, roi, stats, roiIter);
-            break;
+    protected void mergeLocalStatistics(Statistics[][] local) {
+        for (int i = 0; i < selectedBands; i++) {
+            for (int j = 0; j < statNum; j++) {
+                if (accumulated[j]) {
+                    stats[i][j].accumulateStats(local[i][j]);
+                }
+            }
         }
-
-        return source;
     }
 }
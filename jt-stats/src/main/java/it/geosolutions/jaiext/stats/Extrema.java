@@ -73,6 +73,17 @@ public class Extrema extends Statistics {
         samples += stats.getNumSamples();
     }
 
+    @Override
+    void accumulateSamples(SampleAccumulator acc) {
+        if (acc.getMax() > max) {
+            max = acc.getMax();
+        }
+        if (acc.getMin() < min) {
+            min = acc.getMin();
+        }
+        samples += acc.getCount();
+    }
+
     @Override
     public Object getResult() {
         double[] extrema = { min, max };
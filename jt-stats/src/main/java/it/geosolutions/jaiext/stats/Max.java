@@ -56,6 +56,14 @@ public class Max extends Statistics {
 
     }
 
+    @Override
+    synchronized void accumulateSamples(SampleAccumulator acc) {
+        if (acc.getMax() > max) {
+            max = acc.getMax();
+        }
+        samples += acc.getCount();
+    }
+
     @Override
     public Object getResult() {
         return max;
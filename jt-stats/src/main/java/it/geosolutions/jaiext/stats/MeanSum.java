@@ -62,6 +62,12 @@ public class MeanSum extends Statistics {
         sumValues += msum.getSumValues();
     }
 
+    @Override
+    synchronized void accumulateSamples(SampleAccumulator acc) {
+        samples += acc.getCount();
+        sumValues += acc.getSum();
+    }
+
     @Override
     public Object getResult() {
         if (simpleSum) {
@@ -54,6 +54,14 @@ public class Min extends Statistics {
         samples += stats.getNumSamples();
     }
 
+    @Override
+    synchronized void accumulateSamples(SampleAccumulator acc) {
+        if (acc.getMin() < min) {
+            min = acc.getMin();
+        }
+        samples += acc.getCount();
+    }
+
     @Override
     public Object getResult() {
         return min;
@@ -0,0 +1,225 @@
+/* JAI-Ext - OpenSource Java Advanced Image Extensions Library
+*    http://www.geo-solutions.it/
+*    Copyright 2014 GeoSolutions
+
+
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+
+* http://www.apache.org/licenses/LICENSE-2.0
+
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package it.geosolutions.jaiext.stats;
+
+import it.geosolutions.jaiext.range.Range;
+import it.geosolutions.jaiext.range.RangeFactory;
+
+import java.awt.image.DataBuffer;
+import java.util.Arrays;
+
+/**
+ * This subclass of {@link Statistics} is used for calculating the median or other quantiles of an image with a bounded memory. For integral data
+ * types whose accepted range contains at most {@link #MAX_EXACT_BINS} values, the number of occurrences of each value is stored and the result is
+ * exact; for the other data types a {@link QuantileSketch} is used, whose results have a relative error not greater than the selected one. Unlike
+ * {@link Median}, these statistics can be calculated on each tile and then accumulated. The quantiles are calculated with a linear interpolation
+ * between the two nearest ranks, so that the median of an even number of values is the mean of the two middle values. This object is not
+ * thread-safe: concurrent threads must use separate objects and accumulate them.
+ */
+public class Quantile extends Statistics {
+
+    /** Default relative error of the quantiles calculated on non integral data */
+    public static final double DEFAULT_RELATIVE_ERROR = 0.01;
+
+    /** Maximum number of values counted for calculating the exact quantiles of integral data */
+    public static final int MAX_EXACT_BINS = 1 << 16;
+
+    /** Quantile levels of the {@link StatsType#PERCENTILES} statistic, one for each percentile from 0 to 100 */
+    static final double[] PERCENTILE_LEVELS = new double[101];
+
+    static {
+        for (int i = 0; i < PERCENTILE_LEVELS.length; i++) {
+            PERCENTILE_LEVELS[i] = i / 100d;
+        }
+    }
+
+    /** Requested quantile levels */
+    private final double[] levels;
+
+    /** Range of the accepted values */
+    private final Range interval;
+
+    /** Occurrences of each value, used for integral data */
+    private final QuantileSketch.Buckets exactCounts;
+
+    /** Sketch used for non integral data */
+    private final QuantileSketch sketch;
+
+    /**
+     * Creates a new quantile statistic.
+     * 
+     * @param type {@link StatsType#QUANTILE_MEDIAN} or {@link StatsType#PERCENTILES}
+     * @param levels quantile levels between 0 and 1
+     * @param minBound minimum accepted value (inclusive)
+     * @param maxBound maximum accepted value (exclusive)
+     * @param dataType data type of the image
+     * @param relativeError relative error of the quantiles, used for non integral data
+     */
+    Quantile(StatsType type, double[] levels, double minBound, double maxBound, int dataType,
+            double relativeError) {
+        for (int i = 0; i < levels.length; i++) {
+            if (!(levels[i] >= 0 && levels[i] <= 1)) {
+                throw new IllegalArgumentException("Quantile levels must be between 0 and 1");
+            }
+        }
+        // If the array bounds are infinite, the minimum and maximum values are taken
+        if (minBound == Double.NEGATIVE_INFINITY) {
+            minBound = -Double.MAX_VALUE;
+        }
+        if (maxBound == Double.POSITIVE_INFINITY) {
+            maxBound = Double.MAX_VALUE;
+        }
+        this.type = type;
+        this.levels = levels.clone();
+        this.interval = RangeFactory.create(minBound, true, maxBound, false, false);
+        // Check if the exact calculation can be done
+        if (exactRange(dataType, minBound, maxBound) <= MAX_EXACT_BINS) {
+            this.exactCounts = new QuantileSketch.Buckets();
+            this.sketch = null;
+        } else {
+            this.exactCounts = null;
+            this.sketch = new QuantileSketch(relativeError, QuantileSketch.DEFAULT_MAX_BUCKETS);
+        }
+    }
+
+    /** Number of integer values accepted for the data type and the bounds, or Long.MAX_VALUE if the data type is not integral */
+    private static long exactRange(int dataType, double minBound, double maxBound) {
+        double low;
+        double high;
+        switch (dataType) {
+        case DataBuffer.TYPE_BYTE:
+            low = 0;
+            high = 255;
+            break;
+        case DataBuffer.TYPE_USHORT:
+            low = 0;
+            high = 65535;
+            break;
+        case DataBuffer.TYPE_SHORT:
+            low = Short.MIN_VALUE;
+            high = Short.MAX_VALUE;
+            break;
+        case DataBuffer.TYPE_INT:
+            low = Integer.MIN_VALUE;
+            high = Integer.MAX_VALUE;
+            break;
+        default:
+            return Long.MAX_VALUE;
+        }
+        low = Math.max(low, Math.ceil(minBound));
+        high = Math.min(high, Math.ceil(maxBound) - 1);
+        return high < low ? 0 : (long) (high - low) + 1;
+    }
+
+    /** Indicates if the quantiles are calculated exactly */
+    public boolean isExact() {
+        return exactCounts != null;
+    }
+
+    /** Returns the requested quantile levels */
+    public double[] getLevels() {
+        return levels.clone();
+    }
+
+    @Override
+    public void addSample(double sample) {
+        samples++;
+        if (interval.contains(sample)) {
+            if (exactCounts != null) {
+                exactCounts.add((int) sample, 1);
+            } else {
+                sketch.add(sample);
+            }
+        }
+    }
+
+    @Override
+    protected void accumulateStats(Statistics stats) {
+        checkSameStats(stats);
+        Quantile other = (Quantile) stats;
+        if (!Arrays.equals(levels, other.levels) || isExact() != other.isExact()) {
+            throw new IllegalArgumentException("These statistics are not the same");
+        }
+        if (exactCounts != null) {
+            exactCounts.merge(other.exactCounts);
+        } else {
+            sketch.merge(other.sketch);
+        }
+        samples += other.samples;
+    }
+
+    /**
+     * Returns the median as a {@link Double} for the {@link StatsType#QUANTILE_MEDIAN} statistic, otherwise a double array containing the value
+     * of each requested quantile. The values are NaN if no sample has been accepted.
+     */
+    @Override
+    public Object getResult() {
+        double[] result = new double[levels.length];
+        long count = exactCounts != null ? exactCounts.getTotal() : sketch.getCount();
+        for (int i = 0; i < levels.length; i++) {
+            result[i] = count == 0 ? Double.NaN : quantile(levels[i], count);
+        }
+        if (type == StatsType.QUANTILE_MEDIAN) {
+            return result[0];
+        }
+        return result;
+    }
+
+    @Override
+    public Long getNumSamples() {
+        return Long.valueOf(samples);
+    }
+
+    @Override
+    protected void clearStats() {
+        samples = 0;
+        if (exactCounts != null) {
+            exactCounts.clear();
+        } else {
+            sketch.clear();
+        }
+    }
+
+    /** Quantile calculated by interpolating between the two nearest ranks */
+    private double quantile(double level, long count) {
+        double rank = level * (count - 1);
+        long lowRank = (long) Math.floor(rank);
+        double low = valueAtRank(lowRank);
+        double fraction = rank - lowRank;
+        if (fraction == 0) {
+            return low;
+        }
+        return low + fraction * (valueAtRank(lowRank + 1) - low);
+    }
+
+    /** Value with the selected rank */
+    private double valueAtRank(long rank) {
+        if (exactCounts == null) {
+            return sketch.getValueAtRank(rank);
+        }
+        long remaining = rank;
+        int max = exactCounts.getMaxIndex();
+        for (int i = exactCounts.getMinIndex(); i <= max; i++) {
+            remaining -= exactCounts.get(i);
+            if (remaining < 0) {
+                return i;
+            }
+        }
+        return max;
+    }
+}
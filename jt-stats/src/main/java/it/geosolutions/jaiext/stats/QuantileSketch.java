@@ -0,0 +1,281 @@
+/* JAI-Ext - OpenSource Java Advanced Image Extensions Library
+*    http://www.geo-solutions.it/
+*    Copyright 2014 GeoSolutions
+
+
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+
+* http://www.apache.org/licenses/LICENSE-2.0
+
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package it.geosolutions.jaiext.stats;
+
+import java.util.Arrays;
+
+/**
+ * Mergeable sketch used for estimating the quantiles of a set of double values with a bounded relative error. Each value is mapped to a
+ * logarithmic bucket whose bounds differ by the factor <code>gamma = (1 + relativeError) / (1 - relativeError)</code>, so that every value inside
+ * a bucket is represented with a relative error not greater than <code>relativeError</code>; positive and negative values are stored separately
+ * while values near zero are only counted. The number of buckets for each sign is bounded: when exceeded, the buckets of the smallest magnitudes
+ * are collapsed together. Two sketches with the same parameters can be merged by summing their bucket counts.
+ */
+final class QuantileSketch {
+
+    /** Dense array of counts indexed by integer, growing on demand */
+    static final class Buckets {
+
+        /** Bucket counts */
+        private long[] counts = new long[0];
+
+        /** Index of the first element of the counts array */
+        private int offset;
+
+        /** Minimum index used */
+        private int minIndex = Integer.MAX_VALUE;
+
+        /** Maximum index used */
+        private int maxIndex = Integer.MIN_VALUE;
+
+        /** Total count */
+        private long total;
+
+        /** Adds the count to the bucket */
+        void add(int index, long count) {
+            ensureCapacity(index);
+            counts[index - offset] += count;
+            total += count;
+            if (index < minIndex) {
+                minIndex = index;
+            }
+            if (index > maxIndex) {
+                maxIndex = index;
+            }
+        }
+
+        /** Adds all the counts of the other buckets */
+        void merge(Buckets other) {
+            if (other.total == 0) {
+                return;
+            }
+            ensureCapacity(other.minIndex);
+            ensureCapacity(other.maxIndex);
+            for (int i = other.minIndex; i <= other.maxIndex; i++) {
+                counts[i - offset] += other.counts[i - other.offset];
+            }
+            total += other.total;
+            minIndex = Math.min(minIndex, other.minIndex);
+            maxIndex = Math.max(maxIndex, other.maxIndex);
+        }
+
+        /** Collapses the lowest buckets so that no more than maxBuckets buckets are used */
+        void collapseLowest(int maxBuckets) {
+            if (total == 0 || (long) maxIndex - minIndex < maxBuckets) {
+                return;
+            }
+            int newMin = maxIndex - maxBuckets + 1;
+            long collapsed = 0;
+            for (int i = minIndex; i < newMin; i++) {
+                collapsed += counts[i - offset];
+                counts[i - offset] = 0;
+            }
+            counts[newMin - offset] += collapsed;
+            minIndex = newMin;
+        }
+
+        /** Count of the bucket */
+        long get(int index) {
+            if (index < minIndex || index > maxIndex) {
+                return 0;
+            }
+            return counts[index - offset];
+        }
+
+        int getMinIndex() {
+            return minIndex;
+        }
+
+        int getMaxIndex() {
+            return maxIndex;
+        }
+
+        long getTotal() {
+            return total;
+        }
+
+        /** Removes all the counts, keeping the allocated memory */
+        void clear() {
+            Arrays.fill(counts, 0);
+            minIndex = Integer.MAX_VALUE;
+            maxIndex = Integer.MIN_VALUE;
+            total = 0;
+        }
+
+        /** Grows the counts array so that it contains the index */
+        private void ensureCapacity(int index) {
+            if (counts.length == 0) {
+                counts = new long[16];
+                offset = index - 8;
+                return;
+            }
+            if (index >= offset && index - offset < counts.length) {
+                return;
+            }
+            long newMin = Math.min(offset, index);
+            long newMax = Math.max((long) offset + counts.length - 1, index);
+            // The array is at least doubled for amortizing the copies
+            long newLength = Math.max(newMax - newMin + 1, 2L * counts.length);
+            if (index < offset) {
+                newMin = newMax - newLength + 1;
+            }
+            long[] newCounts = new long[(int) newLength];
+            System.arraycopy(counts, 0, newCounts, (int) (offset - newMin), counts.length);
+            counts = newCounts;
+            offset = (int) newMin;
+        }
+    }
+
+    /** Default maximum number of buckets for each sign */
+    static final int DEFAULT_MAX_BUCKETS = 2048;
+
+    /** Ratio between the bounds of a bucket */
+    private final double gamma;
+
+    /** Logarithm of gamma */
+    private final double logGamma;
+
+    /** Maximum number of buckets for each sign */
+    private final int maxBuckets;
+
+    /** Magnitude below which the values are counted as zero */
+    private final double minIndexable;
+
+    /** Buckets of the positive values */
+    private final Buckets positive = new Buckets();
+
+    /** Buckets of the magnitude of the negative values */
+    private final Buckets negative = new Buckets();
+
+    /** Number of values near zero */
+    private long zeroCount;
+
+    /** Minimum value added */
+    private double min = Double.POSITIVE_INFINITY;
+
+    /** Maximum value added */
+    private double max = Double.NEGATIVE_INFINITY;
+
+    QuantileSketch(double relativeError, int maxBuckets) {
+        if (!(relativeError > 0 && relativeError < 1)) {
+            throw new IllegalArgumentException("Relative error must be between 0 and 1");
+        }
+        if (maxBuckets < 1) {
+            throw new IllegalArgumentException("The number of buckets must be positive");
+        }
+        this.gamma = (1 + relativeError) / (1 - relativeError);
+        this.logGamma = Math.log(gamma);
+        this.maxBuckets = maxBuckets;
+        // Subnormal values are counted as zero
+        this.minIndexable = 0x1.0p-1022;
+    }
+
+    /** Adds a value to the sketch; NaN values are ignored */
+    void add(double value) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+        if (value > minIndexable) {
+            positive.add(index(value), 1);
+            positive.collapseLowest(maxBuckets);
+        } else if (value < -minIndexable) {
+            negative.add(index(-value), 1);
+            negative.collapseLowest(maxBuckets);
+        } else {
+            zeroCount++;
+        }
+        if (value < min) {
+            min = value;
+        }
+        if (value > max) {
+            max = value;
+        }
+    }
+
+    /** Merges the other sketch, which must have been created with the same parameters */
+    void merge(QuantileSketch other) {
+        if (other.gamma != gamma || other.maxBuckets != maxBuckets) {
+            throw new IllegalArgumentException("Sketches with different parameters cannot be merged");
+        }
+        positive.merge(other.positive);
+        positive.collapseLowest(maxBuckets);
+        negative.merge(other.negative);
+        negative.collapseLowest(maxBuckets);
+        zeroCount += other.zeroCount;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /** Number of values added */
+    long getCount() {
+        return positive.getTotal() + negative.getTotal() + zeroCount;
+    }
+
+    /** Returns the value with the selected rank (between 0 and count - 1), with the sketch relative error */
+    double getValueAtRank(long rank) {
+        // The extreme values are exact
+        if (rank <= 0) {
+            return min;
+        } else if (rank >= getCount() - 1) {
+            return max;
+        }
+        long remaining = rank;
+        // Negative values, from the biggest magnitude to the smallest one
+        for (int i = negative.getMaxIndex(); i >= negative.getMinIndex(); i--) {
+            remaining -= negative.get(i);
+            if (remaining < 0) {
+                return clamp(-value(i));
+            }
+        }
+        remaining -= zeroCount;
+        if (remaining < 0) {
+            return clamp(0);
+        }
+        for (int i = positive.getMinIndex(); i <= positive.getMaxIndex(); i++) {
+            remaining -= positive.get(i);
+            if (remaining < 0) {
+                return clamp(value(i));
+            }
+        }
+        return max;
+    }
+
+    /** Removes all the values */
+    void clear() {
+        positive.clear();
+        negative.clear();
+        zeroCount = 0;
+        min = Double.POSITIVE_INFINITY;
+        max = Double.NEGATIVE_INFINITY;
+    }
+
+    /** Index of the bucket containing the positive value */
+    private int index(double value) {
+        return (int) Math.ceil(Math.log(value) / logGamma);
+    }
+
+    /** Representative value of the bucket, with the minimum relative error from the bucket bounds */
+    private double value(int index) {
+        return 2 * Math.exp(index * logGamma) / (gamma + 1);
+    }
+
+    /** Keeps the value inside the range of the added values */
+    private double clamp(double value) {
+        return Math.max(min, Math.min(max, value));
+    }
+}
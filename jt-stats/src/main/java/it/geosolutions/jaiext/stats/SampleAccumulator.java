@@ -0,0 +1,165 @@
+/* JAI-Ext - OpenSource Java Advanced Image Extensions Library
+*    http://www.geo-solutions.it/
+*    Copyright 2014 GeoSolutions
+
+
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+
+* http://www.apache.org/licenses/LICENSE-2.0
+
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package it.geosolutions.jaiext.stats;
+
+/**
+ * This subclass of {@link Statistics} is used internally by the {@link SimpleStatsOpImage} for collecting, with a single update for each sample,
+ * all the values needed by the simple statistics: number of samples, sum, sum of the squared samples, minimum and maximum. The values of all the
+ * bands are stored inside a single primitive double array, in which each band uses {@link #SIZE} consecutive elements; at the end of the
+ * computation the simple statistics objects are updated through the {@link Statistics#accumulateSamples(SampleAccumulator)} method.
+ * <p>
+ * The same layout can be used by other operations through the static {@link #reset(double[], int)} and {@link #add(double[], int, double)}
+ * methods; the collected values are then added to the simple statistics with {@link Statistics#accumulateSamples(double[], int)}.
+ */
+public final class SampleAccumulator extends Statistics {
+
+    /** Position of the number of samples */
+    public static final int COUNT = 0;
+
+    /** Position of the sum of the samples */
+    public static final int SUM = 1;
+
+    /** Position of the sum of the squared samples */
+    public static final int SUM_SQUARES = 2;
+
+    /** Position of the minimum */
+    public static final int MIN = 3;
+
+    /** Position of the maximum */
+    public static final int MAX = 4;
+
+    /** Number of elements used by each band */
+    public static final int SIZE = 5;
+
+    /** Array shared by all the bands */
+    private final double[] values;
+
+    /** Position of the values of this band inside the array */
+    private final int offset;
+
+    private SampleAccumulator(double[] values, int offset) {
+        this.values = values;
+        this.offset = offset;
+    }
+
+    /** Creates an accumulator reading the values already stored inside the input array, starting from the selected position */
+    static SampleAccumulator wrap(double[] values, int offset) {
+        return new SampleAccumulator(values, offset);
+    }
+
+    /**
+     * Creates a container of accumulators, one for each band, sharing the same array. The container has the same layout of the statistics
+     * containers used by the {@link StatisticsOpImage} loops, with a single statistic for each band.
+     */
+    static Statistics[][] createContainer(int numBands) {
+        double[] values = new double[numBands * SIZE];
+        Statistics[][] container = new Statistics[numBands][1];
+        for (int i = 0; i < numBands; i++) {
+            container[i][0] = new SampleAccumulator(values, i * SIZE);
+            reset(values, i * SIZE);
+        }
+        return container;
+    }
+
+    /** Initializes the values stored inside the input array, starting from the selected position */
+    public static void reset(double[] values, int offset) {
+        values[offset + COUNT] = 0;
+        values[offset + SUM] = 0;
+        values[offset + SUM_SQUARES] = 0;
+        values[offset + MIN] = Double.POSITIVE_INFINITY;
+        values[offset + MAX] = Double.NEGATIVE_INFINITY;
+    }
+
+    /** Adds a sample to the values stored inside the input array, starting from the selected position */
+    public static void add(double[] values, int offset, double sample) {
+        values[offset + COUNT]++;
+        values[offset + SUM] += sample;
+        values[offset + SUM_SQUARES] += sample * sample;
+        if (sample < values[offset + MIN]) {
+            values[offset + MIN] = sample;
+        }
+        if (sample > values[offset + MAX]) {
+            values[offset + MAX] = sample;
+        }
+    }
+
+    @Override
+    public void addSample(double sample) {
+        add(values, offset, sample);
+    }
+
+    @Override
+    protected void accumulateStats(Statistics stats) {
+        if (!(stats instanceof SampleAccumulator)) {
+            throw new IllegalArgumentException("These statistics are not the same");
+        }
+        SampleAccumulator acc = (SampleAccumulator) stats;
+        values[offset + COUNT] += acc.getCount();
+        values[offset + SUM] += acc.getSum();
+        values[offset + SUM_SQUARES] += acc.getSumSquares();
+        if (acc.getMin() < values[offset + MIN]) {
+            values[offset + MIN] = acc.getMin();
+        }
+        if (acc.getMax() > values[offset + MAX]) {
+            values[offset + MAX] = acc.getMax();
+        }
+    }
+
+    /** Returns an array containing the number of samples, the sum, the sum of the squares, the minimum and the maximum */
+    @Override
+    public Object getResult() {
+        double[] result = new double[SIZE];
+        System.arraycopy(values, offset, result, 0, SIZE);
+        return result;
+    }
+
+    @Override
+    protected void clearStats() {
+        reset(values, offset);
+    }
+
+    @Override
+    public Long getNumSamples() {
+        return Long.valueOf(getCount());
+    }
+
+    /** Returns the number of samples */
+    long getCount() {
+        return (long) values[offset + COUNT];
+    }
+
+    /** Returns the sum of the samples */
+    double getSum() {
+        return values[offset + SUM];
+    }
+
+    /** Returns the sum of the squared samples */
+    double getSumSquares() {
+        return values[offset + SUM_SQUARES];
+    }
+
+    /** Returns the minimum sample */
+    double getMin() {
+        return values[offset + MIN];
+    }
+
+    /** Returns the maximum sample */
+    double getMax() {
+        return values[offset + MAX];
+    }
+}
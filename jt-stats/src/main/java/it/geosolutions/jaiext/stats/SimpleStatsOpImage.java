@@ -17,19 +17,10 @@
 */
 package it.geosolutions.jaiext.stats;
 
-import it.geosolutions.jaiext.iterators.RandomIterFactory;
 import it.geosolutions.jaiext.range.Range;
 import it.geosolutions.jaiext.stats.Statistics.StatsType;
-import java.awt.Rectangle;
-import java.awt.image.DataBuffer;
-import java.awt.image.Raster;
 import java.awt.image.RenderedImage;
-import java.util.Map;
-import javax.media.jai.ImageLayout;
 import javax.media.jai.ROI;
-import javax.media.jai.RasterAccessor;
-import javax.media.jai.RasterFormatTag;
-import javax.media.jai.iterator.RandomIter;
 
 /**
  * The SimpleStatsOpImage class performs various simple statistics operations on an image. The statistical operation are indicated by the
@@ -37,7 +28,8 @@ import javax.media.jai.iterator.RandomIter;
  * statistical parameters. These operations can be calculated together by adding entries in the definition array "statsTypes". A ROI object passed to
  * the constructor is taken into account by counting only the samples inside of it; an eventual No Data Range is considered by counting only values
  * that are not No Data. The statistical calculation is performed by calling the getProperty() method. The statistics are calculated for every image
- * tile and then the partial results are accumulated and passed to the getProperty() method. For avoiding unnecessary calculations the statistics can
+ * tile, by collecting the number of samples, their sum, the sum of their squares and the extrema of each band inside a primitive array, and then
+ * the partial results are accumulated and passed to the getProperty() method. For avoiding unnecessary calculations the statistics can
  * be calculated only the first time; but if the user needs to re-calculate the statistics, they can be cleared with the clearStatistic() method and
  * then returned by calling again the getProperty() method.
  */
@@ -81,96 +73,21 @@ public class SimpleStatsOpImage extends StatisticsOpImage {
     }
 
     /**
-     * Returns a tile for reading.
-     * 
-     * @param tileX The X index of the tile.
-     * @param tileY The Y index of the tile.
-     * @return The tile as a <code>Raster</code>.
+     * Creates a container of {@link SampleAccumulator}s, one for each band, which collect with a single update all the values needed by the
+     * selected statistics.
      */
-    public Raster computeTile(int tileX, int tileY) {
-        // STATISTICAL ELABORATIONS
-        // selection of the format tags
-        RasterFormatTag[] formatTags = getFormatTags();
-        // Selection of the RasterAccessor parameters
-        Raster source = getSourceImage(0).getTile(tileX, tileY);
-        // Control if the Period is bigger than the tile dimension, in that case, the
-        // statistics are not updated
-        if (xPeriod > getTileWidth() || yPeriod > getTileHeight()) {
-            return source;
-        }
-
-        Rectangle srcRect = getSourceImage(0).getBounds().intersection(source.getBounds());
-        // creation of the RasterAccessor
-        RasterAccessor src = new RasterAccessor(source, srcRect, formatTags[0], getSourceImage(0)
-                .getColorModel());
-
-        // ROI calculations if roiAccessor is used
-        RasterAccessor roi = null;
-        RandomIter roiIter = null;
-        if (useROIAccessor) {
-            // Note that the getExtendedData() method is not called because the input images are padded.
-            // For each image there is a check if the rectangle is contained inside the source image;
-            // if this not happen, the data is taken from the padded image.
-            Raster roiRaster = null;
-            if(srcROIImage.getBounds().contains(srcRect)){
-                roiRaster = srcROIImage.getData(srcRect);
-            }else{
-                roiRaster = srcROIImgExt.getData(srcRect);
-            }
-
-            // creation of the rasterAccessor
-            roi = new RasterAccessor(roiRaster, srcRect, RasterAccessor.findCompatibleTags(
-                    new RenderedImage[] { srcROIImage }, srcROIImage)[0],
-                    srcROIImage.getColorModel());
-        } else if(hasROI) {
-            roiIter = RandomIterFactory.create(srcROIImage, srcROIImage.getBounds(), true, true);
-        }
-
-        // Creation of local objects containing the same statistics as the initials
+    protected Statistics[][] createLocalStatistics() {
+        return SampleAccumulator.createContainer(selectedBands);
+    }
 
-        Statistics[][] statArray = new Statistics[selectedBands][statNum];
-        // Filling of the container
+    protected void mergeLocalStatistics(Statistics[][] local) {
+        // Cycle on the selected Bands
         for (int i = 0; i < selectedBands; i++) {
+            SampleAccumulator acc = (SampleAccumulator) local[i][0];
             for (int j = 0; j < statNum; j++) {
-                statArray[i][j] = StatsFactory.createSimpleStatisticsObjectFromInt(statsTypes[j]
-                        .getStatsId());
+                // Accumulation for the selected band and the selected statistic
+                stats[i][j].accumulateSamples(acc);
             }
         }
-
-        // Computation of the statistics
-        switch (src.getDataType()) {
-        case DataBuffer.TYPE_BYTE:
-            byteLoop(src, srcRect, roi, statArray, roiIter);
-            break;
-        case DataBuffer.TYPE_USHORT:
-            ushortLoop(src, srcRect, roi, statArray, roiIter);
-            break;
-        case DataBuffer.TYPE_SHORT:
-            shortLoop(src, srcRect, roi, statArray, roiIter);
-            break;
-        case DataBuffer.TYPE_INT:
-            intLoop(src, srcRect, roi, statArray, roiIter);
-            break;
-        case DataBuffer.TYPE_FLOAT:
-            floatLoop(src, srcRect, roi, statArray, roiIter);
-            break;
-        case DataBuffer.TYPE_DOUBLE:
-            doubleLoop(src, srcRect, roi, statArray, roiIter);
-            break;
-        }
-
-        // Cumulative addition (SYNCHRONIZED)
-
-        synchronized (this) {
-            // Cycle on the selected Bands
-            for (int i = 0; i < selectedBands; i++) {
-                for (int j = 0; j < statNum; j++) {
-                    // Accumulation for the selected band and the selected statistic
-                    stats[i][j].accumulateStats(statArray[i][j]);
-                }
-            }
-        }
-
-        return source;
     }
 }
@@ -39,7 +39,11 @@ public abstract class Statistics {
         DEV_STD(6),
         HISTOGRAM(7),
         MODE(8),
-        MEDIAN(9);
+        MEDIAN(9),
+        /** Median calculated with a bounded memory, exact for integral data types; see {@link Quantile} */
+        QUANTILE_MEDIAN(10),
+        /** Percentiles from 0 to 100 calculated with a bounded memory, returned as an array of 101 values; see {@link Quantile} */
+        PERCENTILES(11);
 
         private int id;
 
@@ -89,6 +93,36 @@ public abstract class Statistics {
      */
     protected abstract void accumulateStats(Statistics stats);
 
+    /**
+     * This method is used for accumulating the samples collected by a {@link SampleAccumulator}; it is supported only by the simple statistics.
+     *
+     * @param acc SampleAccumulator containing the samples to add to the current object
+     */
+    void accumulateSamples(SampleAccumulator acc) {
+        throw new UnsupportedOperationException("These statistics cannot be accumulated from samples");
+    }
+
+    /**
+     * Accumulates inside this object the statistics collected separately by another object of the same type, e.g. by another thread; not all the
+     * statistics can be accumulated.
+     * 
+     * @param stats Statistics object to add to the current object
+     */
+    public void merge(Statistics stats) {
+        accumulateStats(stats);
+    }
+
+    /**
+     * Accumulates inside this object the samples collected inside a primitive array with the layout of {@link SampleAccumulator}, starting from the
+     * selected position; it is supported only by the simple statistics.
+     * 
+     * @param values array containing the collected values
+     * @param offset position of the values inside the array
+     */
+    public void accumulateSamples(double[] values, int offset) {
+        accumulateSamples(SampleAccumulator.wrap(values, offset));
+    }
+
     /** This method returns the statistic result */
     public abstract Object getResult();
     
@@ -109,6 +109,8 @@ class StatisticsPropertyGenerator extends PropertyGeneratorImpl {
  * <li>Histogram</li>
  * <li>Mode</li>
  * <li>Median</li>
+ * <li>Median with bounded memory</li>
+ * <li>Percentiles with bounded memory</li>
  * </ul>
  * </p>
  * 
@@ -117,7 +119,10 @@ class StatisticsPropertyGenerator extends PropertyGeneratorImpl {
  * which is a subclass of the "Statistics" class. For avoiding concurrency issues various techniques are used: for simple statistics, which does not
  * request an array for storing the values, local statistics are calculated and then accumulated in a synchronized block; for complex statistics,
  * other techniques are used. The statistical results are returned by calling the getProperty() method. The statistics are calculated only the first
- * time for avoiding unnecessary calculations. With this setup an advantage is taken by using the internal JAI MultiThreading.
+ * time for avoiding unnecessary calculations. With this setup an advantage is taken by using the internal JAI MultiThreading. Alternatively, if the
+ * "parallelism" parameter is greater than 1, the tiles are divided between the selected number of threads, each one collecting the statistics
+ * of its tiles locally, and the partial results are accumulated only at the end of the computation; a value of 0 selects the number of available
+ * processors.
  * </p>
  * 
  * <p>
@@ -185,15 +190,22 @@ class StatisticsPropertyGenerator extends PropertyGeneratorImpl {
  * <td>arg6Desc</td>
  * <td>Array indicating which statistical operations must be performed on all the selected bands.</td>
  * </tr>
+ * <tr>
  * <td>arg7Desc</td>
  * <td>Array indicating the minimum bounds for each statistic types (if needed).</td>
  * </tr>
+ * <tr>
  * <td>arg8Desc</td>
  * <td>Array indicating the maximum bounds for each statistic types (if needed).</td>
- * </tr> 
+ * </tr>
+ * <tr>
  * <td>arg9Desc</td>
  * <td>Array indicating the number of bins for each statistic types (if needed).</td>
  * </tr>
+ * <tr>
+ * <td>arg10Desc</td>
+ * <td>Number of threads used for computing the statistics.</td>
+ * </tr>
  * </table>
  * </p>
  * 
@@ -246,6 +258,10 @@ class StatisticsPropertyGenerator extends PropertyGeneratorImpl {
  * <td>int[]</td>
  * <td>null</td>
  * <tr>
+ * <td>parallelism</td>
+ * <td>Integer</td>
+ * <td>1</td>
+ * <tr>
  * </table>
  * </p>
  * 
@@ -276,24 +292,25 @@ public class StatisticsDescriptor extends OperationDescriptorImpl {
             { "arg8Desc",
                     "Array indicating the maximum bounds for each statistic types (if needed)" },
             { "arg9Desc",
-                    "Array indicating the number of bins for each statistic types (if needed)" } };
+                    "Array indicating the number of bins for each statistic types (if needed)" },
+            { "arg10Desc", "Number of threads used for computing the statistics" } };
 
     /** The parameter class list for this operation. */
     private static final Class[] paramClasses = { java.lang.Integer.class, java.lang.Integer.class,
             javax.media.jai.ROI.class, it.geosolutions.jaiext.range.Range.class,
             java.lang.Boolean.class, int[].class,
             it.geosolutions.jaiext.stats.Statistics.StatsType[].class, double[].class,
-            double[].class, int[].class, };
+            double[].class, int[].class, java.lang.Integer.class };
 
     /** The parameter name list for this operation. */
     private static final String[] paramNames = { "xPeriod", "yPeriod", "ROI", "noData",
-            "useRoiAccessor", "bands", "stats", "lowValue", "highValue", "numBins" };
+            "useRoiAccessor", "bands", "stats", "lowValue", "highValue", "numBins", "parallelism" };
 
     /** The parameter default value list for this operation. */
     private static final Object[] paramDefaults = { 1, 1, null, null, false, new int[] { 0 }, null,
         new double[] {0.0},
         new double[] {256.0},
-        new int[] {256}};
+        new int[] {256}, 1};
 
     public StatisticsDescriptor() {
         super(resources, 1, paramClasses, paramNames, paramDefaults);
@@ -339,6 +356,41 @@ public class StatisticsDescriptor extends OperationDescriptorImpl {
     public static RenderedOp create(RenderedImage source0, int xPeriod, int yPeriod, ROI roi,
             Range noData, boolean useRoiAccessor, int[] bands, StatsType[] stats,
             double[] minBounds, double[] maxBounds, int[] numBins, RenderingHints hints) {
+        return create(source0, xPeriod, yPeriod, roi, noData, useRoiAccessor, bands, stats,
+                minBounds, maxBounds, numBins, 1, hints);
+    }
+
+    /**
+     * Performs a statistical operation on an image defined by its "stats type" parameter, computing the tiles with the selected number of threads.
+     * 
+     * <p>
+     * Creates a <code>ParameterBlockJAI</code> from all supplied arguments except <code>hints</code> and invokes
+     * {@link JAI#create(String,ParameterBlock,RenderingHints)}.
+     * 
+     * @see JAI
+     * @see ParameterBlockJAI
+     * @see RenderedOp
+     * 
+     * @param source0 <code>RenderedImage</code> source 0.
+     * @param xPeriod Horizontal subsampling.
+     * @param yPeriod Vertical subsampling.
+     * @param ROI Roi object on which the calculation are performed.
+     * @param NoData No Data range used for calculation.
+     * @param useRoiAccessor Boolean indicating if ROI RasterAccessor must be used.
+     * @param bands Array indicating which band to consider.
+     * @param stats Array indicating which statistics to consider.
+     * @param minBounds Array indicating the minimum bounds for each statistic types .
+     * @param maxBounds Array indicating the maximum bounds for each statistic types.
+     * @param numBins Array indicating the number of bins for each statistic types.
+     * @param parallelism Number of threads used for computing the statistics; 1 for using the JAI TileScheduler, 0 for using all the processors.
+     * @param hints The <code>RenderingHints</code> to use.
+     * @return The <code>RenderedOp</code> destination.
+     * @throws IllegalArgumentException if <code>source0</code> is <code>null</code>.
+     */
+    public static RenderedOp create(RenderedImage source0, int xPeriod, int yPeriod, ROI roi,
+            Range noData, boolean useRoiAccessor, int[] bands, StatsType[] stats,
+            double[] minBounds, double[] maxBounds, int[] numBins, int parallelism,
+            RenderingHints hints) {
         // Creation of a parameterBlockJAI containing all the operation parameters
         ParameterBlockJAI pb = new ParameterBlockJAI("Stats", RenderedRegistryMode.MODE_NAME);
         // Source image
@@ -358,6 +410,7 @@ public class StatisticsDescriptor extends OperationDescriptorImpl {
         } else if (minBounds != null || maxBounds != null || numBins != null) {
             throw new IllegalArgumentException("bounds and bins must be declared together");
         }
+        pb.setParameter("parallelism", parallelism);
         // RenderedImage creation
         return JAI.create("Stats", pb, hints);
     }
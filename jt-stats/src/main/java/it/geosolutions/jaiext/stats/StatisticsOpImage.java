@@ -17,19 +17,30 @@
 */
 package it.geosolutions.jaiext.stats;
 
-import it.geosolutions.jaiext.iterators.RandomIterFactory;
 import it.geosolutions.jaiext.range.Range;
 import it.geosolutions.jaiext.stats.Statistics.StatsType;
 
+import java.awt.Point;
 import java.awt.Rectangle;
+import java.awt.Shape;
 import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.MultiPixelPackedSampleModel;
 import java.awt.image.Raster;
 import java.awt.image.RenderedImage;
+import java.awt.image.SampleModel;
 import java.awt.image.renderable.ParameterBlock;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.media.jai.BorderExtender;
 import javax.media.jai.ImageLayout;
@@ -37,9 +48,10 @@ import javax.media.jai.JAI;
 import javax.media.jai.OpImage;
 import javax.media.jai.PlanarImage;
 import javax.media.jai.ROI;
+import javax.media.jai.ROIShape;
 import javax.media.jai.RasterAccessor;
+import javax.media.jai.RasterFormatTag;
 import javax.media.jai.RenderedOp;
-import javax.media.jai.iterator.RandomIter;
 
 import com.sun.media.jai.util.PropertyUtil;
 
@@ -48,7 +60,11 @@ import com.sun.media.jai.util.PropertyUtil;
  * {@link SimpleStatsOpImage} and {@link ComplexStatsOpImage}. The first one is used for calculating simple statistics which does not requests the use
  * of an array for saving all the values, instead of the second class which stores the statistics on an array and then performs the final computations
  * when the result is requested. The 2 subclasses must only update their constructor for adding a control on which kind of statistics are calculated
- * and defining the computeTile() method which is used for calculating the statistics for each tile.
+ * and defining how the statistics of one or more tiles are collected locally and then accumulated into the global container.
+ * <p>
+ * By default the tiles are computed through the JAI <code>TileScheduler</code>. If the parallelism is set to a value greater than 1, the tiles are
+ * instead divided between a fixed number of worker threads: each worker collects the statistics of its tiles inside its own local container and
+ * the local containers are accumulated only once, at the end of the computation.
  */
 public abstract class StatisticsOpImage extends OpImage {
 
@@ -68,6 +84,9 @@ public abstract class StatisticsOpImage extends OpImage {
     /** Boolean indicating if a ROI RasterAccessor should be used */
     protected final boolean useROIAccessor;
 
+    /** ROI object */
+    protected final ROI srcROI;
+
     /** ROI image */
     protected final PlanarImage srcROIImage;
 
@@ -116,6 +135,33 @@ public abstract class StatisticsOpImage extends OpImage {
     /** Extended ROI image*/
     protected RenderedOp srcROIImgExt;
 
+    /** Tile fully outside the ROI */
+    private static final int ROI_OUTSIDE = 0;
+
+    /** Tile fully inside the ROI */
+    private static final int ROI_INSIDE = 1;
+
+    /** Tile partially inside the ROI */
+    private static final int ROI_MIXED = 2;
+
+    /** Mask returned by {@link #getROIMask(Rectangle)} for the tiles not containing any ROI pixel */
+    private static final byte[] EMPTY_MASK = new byte[0];
+
+    /** Number of threads used for computing the statistics; if lower than 2 the JAI TileScheduler is used */
+    protected int parallelism = 1;
+
+    /** Counter used for naming the worker threads */
+    private static final AtomicInteger WORKER_COUNT = new AtomicInteger();
+
+    /** Factory creating the daemon worker threads used for the parallel computation */
+    private static final ThreadFactory WORKER_FACTORY = new ThreadFactory() {
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "jaiext-stats-" + WORKER_COUNT.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    };
+
     public StatisticsOpImage(RenderedImage source,
             int xPeriod, int yPeriod, ROI roi, Range noData, boolean useROIAccessor, int[] bands,
             StatsType[] statsTypes, double[] minBound, double[] maxBound, int[] numBins) {
@@ -166,7 +212,7 @@ public abstract class StatisticsOpImage extends OpImage {
         if (roi != null) {
             hasROI = true;
             // Roi object
-            ROI srcROI = roi;
+            srcROI = roi;
             // Creation of a PlanarImage containing the ROI data
             srcROIImage = srcROI.getAsImage();
             // Source Bounds
@@ -198,6 +244,7 @@ public abstract class StatisticsOpImage extends OpImage {
             hasROI = false;
             this.useROIAccessor = false;
             roiBounds = null;
+            srcROI = null;
             srcROIImage = null;
         }
 
@@ -291,20 +338,329 @@ public abstract class StatisticsOpImage extends OpImage {
         clearStatistic();
     }
 
+    /**
+     * Sets the number of threads used for computing the statistics. If the value is lower than 2, the tiles are computed through the JAI
+     * <code>TileScheduler</code>; if it is 0 or negative, the number of available processors is used. The new value is used starting from the next
+     * computation of the statistics.
+     * 
+     * @param parallelism number of threads used for computing the statistics
+     */
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime()
+                .availableProcessors();
+    }
+
+    /** Returns the number of threads used for computing the statistics */
+    public int getParallelism() {
+        return parallelism;
+    }
+
     /**
      * Computes and returns all tiles in the image. The tiles are returned in a sequence corresponding to the row-major order of their respective tile
      * indices. The returned array may of course be ignored, e.g., in the case of a subclass which caches the tiles and the intent is to force their
-     * computation. This method is overridden such that can be invoked only one time by using a flag for avoiding unnecessary computations.
+     * computation. This method is overridden such that can be invoked only one time by using a flag for avoiding unnecessary computations. When the
+     * parallelism is greater than 1, the statistics are computed by the worker threads and no tile is returned.
      */
     public Raster[] getTiles() {
         if (firstTime.getAndSet(false)) {
-            if (hasROI) {
-                return getTiles(getTileIndices(roiBounds));
+            Point[] tileIndices = getTileIndices(hasROI ? roiBounds : getBounds());
+            if (parallelism > 1) {
+                if (tileIndices != null) {
+                    computeParallel(tileIndices);
+                }
+                return null;
+            }
+            return getTiles(tileIndices);
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Computes the statistics of the selected tiles with a fixed number of worker threads. The tiles are taken by the workers in row-major order
+     * from a shared counter; each worker collects the statistics inside its own local container and the containers are accumulated at the end.
+     * The calling thread is used as one of the workers.
+     */
+    private void computeParallel(Point[] tileIndices) {
+        AtomicInteger nextTile = new AtomicInteger();
+        TileWorker worker = new TileWorker(tileIndices, nextTile);
+        int numWorkers = Math.min(parallelism, tileIndices.length);
+        ExecutorService executor = numWorkers > 1 ? Executors.newFixedThreadPool(
+                numWorkers - 1, WORKER_FACTORY) : null;
+        boolean completed = false;
+        try {
+            List<Future<Statistics[][]>> results = new ArrayList<Future<Statistics[][]>>();
+            for (int i = 1; i < numWorkers; i++) {
+                results.add(executor.submit(worker));
+            }
+            // Reduction of the local containers
+            Statistics[][] local = worker.call();
+            synchronized (this) {
+                mergeLocalStatistics(local);
+            }
+            for (Future<Statistics[][]> result : results) {
+                local = getResult(result);
+                synchronized (this) {
+                    mergeLocalStatistics(local);
+                }
+            }
+            completed = true;
+        } finally {
+            if (!completed) {
+                // The remaining tiles are skipped and the partial results are removed, so that
+                // the statistics can be computed again
+                nextTile.set(tileIndices.length);
+                clearStatistic();
+            }
+            if (executor != null) {
+                executor.shutdown();
+            }
+        }
+    }
+
+    /** Worker collecting the statistics of the tiles taken from a shared counter */
+    private class TileWorker implements Callable<Statistics[][]> {
+
+        /** Indices of all the tiles to compute */
+        private final Point[] tileIndices;
+
+        /** Position of the next tile to compute */
+        private final AtomicInteger nextTile;
+
+        TileWorker(Point[] tileIndices, AtomicInteger nextTile) {
+            this.tileIndices = tileIndices;
+            this.nextTile = nextTile;
+        }
+
+        public Statistics[][] call() {
+            Statistics[][] local = createLocalStatistics();
+            int index;
+            while ((index = nextTile.getAndIncrement()) < tileIndices.length) {
+                Point tile = tileIndices[index];
+                accumulateTile(tile.x, tile.y, local, false);
+            }
+            return local;
+        }
+    }
+
+    /** Waits for the result of a worker, throwing its exception if it has failed */
+    private static Statistics[][] getResult(Future<Statistics[][]> result) {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while computing the statistics", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new RuntimeException(cause);
+        }
+    }
+
+    /**
+     * Returns a tile for reading. The statistics of the tile are collected inside a local container which is then accumulated into the global one.
+     * 
+     * @param tileX The X index of the tile.
+     * @param tileY The Y index of the tile.
+     * @return The tile as a <code>Raster</code>.
+     */
+    public Raster computeTile(int tileX, int tileY) {
+        Statistics[][] local = createLocalStatistics();
+        Raster source = accumulateTile(tileX, tileY, local, true);
+        // Cumulative addition (SYNCHRONIZED)
+        synchronized (this) {
+            mergeLocalStatistics(local);
+        }
+        return source;
+    }
+
+    /**
+     * Creates a container used for collecting the statistics of one or more tiles. The container must have a row for each selected band, while
+     * the number of statistics for each band can differ from the selected statistic types.
+     */
+    protected abstract Statistics[][] createLocalStatistics();
+
+    /**
+     * Accumulates the statistics collected inside a local container into the global container. This method is called while holding the lock on
+     * this image.
+     */
+    protected abstract void mergeLocalStatistics(Statistics[][] local);
+
+    /**
+     * Updates the input statistics container with the samples of the selected tile. If a ROI is present, the tile is first classified through the
+     * ROI bounds or shape: the tiles fully outside the ROI are skipped, the tiles fully inside are computed without any ROI check and only for the
+     * other tiles the ROI is read, once for the whole tile.
+     * 
+     * @param tileX The X index of the tile.
+     * @param tileY The Y index of the tile.
+     * @param statArray container of the statistics to update
+     * @param returnTile if false, the source tile is not requested when it is not needed for the statistics and <code>null</code> is returned
+     * @return The source tile
+     */
+    protected Raster accumulateTile(int tileX, int tileY, Statistics[][] statArray,
+            boolean returnTile) {
+        // STATISTICAL ELABORATIONS
+        // Control if the Period is bigger than the tile dimension, in that case, the
+        // statistics are not updated
+        if (xPeriod > getTileWidth() || yPeriod > getTileHeight()) {
+            return returnTile ? getSourceImage(0).getTile(tileX, tileY) : null;
+        }
+
+        Rectangle srcRect = getTileRect(tileX, tileY);
+
+        // ROI classification of the tile
+        int roiState = hasROI ? classifyROI(srcRect) : ROI_INSIDE;
+        byte[] roiMask = null;
+        if (roiState == ROI_MIXED && !useROIAccessor) {
+            // The ROI is read as a mask aligned to the tile, which can also reveal that
+            // the tile is fully inside or outside the ROI
+            roiMask = getROIMask(srcRect);
+            if (roiMask == null) {
+                roiState = ROI_INSIDE;
+            } else if (roiMask == EMPTY_MASK) {
+                roiState = ROI_OUTSIDE;
+            }
+        }
+        if (roiState == ROI_OUTSIDE) {
+            return returnTile ? getSourceImage(0).getTile(tileX, tileY) : null;
+        }
+
+        // selection of the format tags
+        RasterFormatTag[] formatTags = getFormatTags();
+        // Selection of the RasterAccessor parameters
+        Raster source = getSourceImage(0).getTile(tileX, tileY);
+        // creation of the RasterAccessor
+        RasterAccessor src = new RasterAccessor(source, srcRect, formatTags[0], getSourceImage(0)
+                .getColorModel());
+
+        // ROI calculations if roiAccessor is used
+        RasterAccessor roi = null;
+        if (useROIAccessor && roiState == ROI_MIXED) {
+            // Note that the getExtendedData() method is not called because the input images are padded.
+            // For each image there is a check if the rectangle is contained inside the source image;
+            // if this not happen, the data is taken from the padded image.
+            Raster roiRaster = null;
+            if(srcROIImage.getBounds().contains(srcRect)){
+                roiRaster = srcROIImage.getData(srcRect);
+            }else{
+                roiRaster = srcROIImgExt.getData(srcRect);
+            }
+
+            // creation of the rasterAccessor
+            roi = new RasterAccessor(roiRaster, srcRect, RasterAccessor.findCompatibleTags(
+                    new RenderedImage[] { srcROIImage }, srcROIImage)[0],
+                    srcROIImage.getColorModel());
+        }
+
+        // Computation of the statistics
+        switch (src.getDataType()) {
+        case DataBuffer.TYPE_BYTE:
+            byteLoop(src, srcRect, roi, statArray, roiMask);
+            break;
+        case DataBuffer.TYPE_USHORT:
+            ushortLoop(src, srcRect, roi, statArray, roiMask);
+            break;
+        case DataBuffer.TYPE_SHORT:
+            shortLoop(src, srcRect, roi, statArray, roiMask);
+            break;
+        case DataBuffer.TYPE_INT:
+            intLoop(src, srcRect, roi, statArray, roiMask);
+            break;
+        case DataBuffer.TYPE_FLOAT:
+            floatLoop(src, srcRect, roi, statArray, roiMask);
+            break;
+        case DataBuffer.TYPE_DOUBLE:
+            doubleLoop(src, srcRect, roi, statArray, roiMask);
+            break;
+        }
+
+        return source;
+    }
+
+    /**
+     * Classifies the input rectangle as fully outside, fully inside or partially inside the ROI, by using the ROI bounds and, for the
+     * {@link ROIShape}s, the ROI shape.
+     */
+    private int classifyROI(Rectangle rect) {
+        if (!roiBounds.intersects(rect)) {
+            return ROI_OUTSIDE;
+        }
+        if (srcROI instanceof ROIShape) {
+            Shape shape = ((ROIShape) srcROI).getAsShape();
+            if (shape.contains(rect)) {
+                return ROI_INSIDE;
+            } else if (!shape.intersects(rect)) {
+                return ROI_OUTSIDE;
+            }
+        }
+        return ROI_MIXED;
+    }
+
+    /**
+     * Reads the ROI image inside the input rectangle and returns it as a mask with one element for each pixel of the rectangle, in row-major order,
+     * which is 1 for the pixels inside the ROI and 0 otherwise. The packed binary ROI images are unpacked directly from their data buffer.
+     * 
+     * @return the ROI mask, <code>null</code> if all the pixels are inside the ROI or {@link #EMPTY_MASK} if no pixel is inside the ROI
+     */
+    private byte[] getROIMask(Rectangle rect) {
+        Rectangle inside = rect.intersection(roiBounds);
+        if (inside.isEmpty()) {
+            return EMPTY_MASK;
+        }
+        byte[] mask = new byte[rect.width * rect.height];
+        int count = 0;
+
+        Raster roiRaster = srcROIImage.getData(inside);
+        SampleModel sm = roiRaster.getSampleModel();
+        DataBuffer db = roiRaster.getDataBuffer();
+        int offsetX = inside.x - rect.x;
+        int offsetY = inside.y - rect.y;
+        if (sm instanceof MultiPixelPackedSampleModel
+                && ((MultiPixelPackedSampleModel) sm).getPixelBitStride() == 1
+                && db instanceof DataBufferByte) {
+            // Packed bit ROI: the bits are read directly from the data buffer
+            MultiPixelPackedSampleModel mppsm = (MultiPixelPackedSampleModel) sm;
+            byte[] data = ((DataBufferByte) db).getData();
+            int scanlineStride = mppsm.getScanlineStride();
+            int x0 = inside.x - roiRaster.getSampleModelTranslateX();
+            int y0 = inside.y - roiRaster.getSampleModelTranslateY();
+            for (int y = 0; y < inside.height; y++) {
+                // bit position of the first pixel of the row
+                int bit = (db.getOffset() + (y0 + y) * scanlineStride) * 8
+                        + mppsm.getDataBitOffset() + x0;
+                int pos = (offsetY + y) * rect.width + offsetX;
+                for (int x = 0; x < inside.width; x++, bit++, pos++) {
+                    if ((data[bit >> 3] & (0x80 >> (bit & 7))) != 0) {
+                        mask[pos] = 1;
+                        count++;
+                    }
+                }
             }
-            return getTiles(getTileIndices(getBounds()));
         } else {
+            // Other ROI images are read one row at a time
+            int[] row = new int[inside.width];
+            for (int y = 0; y < inside.height; y++) {
+                roiRaster.getSamples(inside.x, inside.y + y, inside.width, 1, 0, row);
+                int pos = (offsetY + y) * rect.width + offsetX;
+                for (int x = 0; x < inside.width; x++, pos++) {
+                    if (row[x] != 0) {
+                        mask[pos] = 1;
+                        count++;
+                    }
+                }
+            }
+        }
+
+        if (count == 0) {
+            return EMPTY_MASK;
+        } else if (count == mask.length) {
             return null;
         }
+        return mask;
     }
 
     /**
@@ -328,17 +684,22 @@ public abstract class StatisticsOpImage extends OpImage {
     }
 
     protected void byteLoop(RasterAccessor src, Rectangle srcRect, RasterAccessor roi,
-            Statistics[][] statArray, RandomIter roiIter) {
+            Statistics[][] statArray, byte[] roiMask) {
+
+        // Number of statistics stored for each band
+        final int numStats = statArray[0].length;
 
-        // Source RasterAccessor initial positions
-        int srcX = src.getX();
-        int srcY = src.getY();
+        // The ROI is checked only on the tiles which are not fully contained inside it
+        final boolean checkROI = roi != null || roiMask != null;
+        final boolean tileCaseA = !hasNoData && !checkROI;
+        final boolean tileCaseB = !hasNoData && checkROI;
+        final boolean tileCaseC = hasNoData && !checkROI;
 
         final byte[] roiDataArray;
         final int roiScanLineInc;
         final int roiDataLength;
 
-        if (useROIAccessor) {
+        if (roi != null) {
             roiDataArray = roi.getByteDataArray(0);
             roiScanLineInc = roi.getScanlineStride() * yPeriod;
             roiDataLength = roiDataArray.length;
@@ -358,7 +719,7 @@ public abstract class StatisticsOpImage extends OpImage {
         int srcScanlineStride = src.getScanlineStride();
 
         // NO DATA AND ROI ARE NOT PRESENT
-        if (caseA) {
+        if (tileCaseA) {
             // Cycle on the y axis
             for (int y = 0; y < srcHeight; y += yPeriod) {
                 // y position on the source data array
@@ -371,7 +732,7 @@ public abstract class StatisticsOpImage extends OpImage {
                     // Cycle on the selected Bands
                     for (int i = 0; i < selectedBands; i++) {
                         int sample = srcData[bands[i]][posx + posy + srcBandOffsets[bands[i]]] & 0xFF;
-                        for (int j = 0; j < statNum; j++) {
+                        for (int j = 0; j < numStats; j++) {
                             // Update of all the statistics
                             statArray[i][j].addSample(sample);
                         }
@@ -379,9 +740,9 @@ public abstract class StatisticsOpImage extends OpImage {
                 }
             }
             // ONLY ROI IS PRESENT
-        } else if (caseB) {
+        } else if (tileCaseB) {
             // ROI RasterAccessor is used
-            if (useROIAccessor) {
+            if (roi != null) {
                 // Cycle on the y axis
                 for (int y = 0; y < srcHeight; y += yPeriod) {
                     // y position on the source data array
@@ -401,7 +762,7 @@ public abstract class StatisticsOpImage extends OpImage {
                             // Cycle on the selected Bands
                             for (int i = 0; i < selectedBands; i++) {
                                 int sample = srcData[bands[i]][posx + posy + srcBandOffsets[bands[i]]] & 0xFF;
-                                for (int j = 0; j < statNum; j++) {
+                                for (int j = 0; j < numStats; j++) {
                                     // Update of all the statistics
                                     statArray[i][j].addSample(sample);
                                 }
@@ -419,21 +780,16 @@ public abstract class StatisticsOpImage extends OpImage {
                     for (int x = 0; x < srcWidth; x += xPeriod) {
                         // x position on the source data array
                         int posx = x * srcPixelStride;
-                        // PixelPositions
-                        int x0 = srcX + x;
-                        int y0 = srcY + y;
+                        // ROI value
+                        int w = roiMask[x + y * srcWidth];
                         // Control if the sample is inside ROI
-                        if (roiBounds.contains(x0, y0)) {
-                            // ROI value
-                            int w = roiIter.getSample(x0, y0, 0) & 0xff;
-                            if (w != 0) {
-                                // Cycle on the selected Bands
-                                for (int i = 0; i < selectedBands; i++) {
-                                    int sample = srcData[bands[i]][posx + posy + srcBandOffsets[bands[i]]] & 0xFF;
-                                    for (int j = 0; j < statNum; j++) {
-                                        // Update of all the statistics
-                                        statArray[i][j].addSample(sample);
-                                    }
+                        if (w != 0) {
+                            // Cycle on the selected Bands
+                            for (int i = 0; i < selectedBands; i++) {
+                                int sample = srcData[bands[i]][posx + posy + srcBandOffsets[bands[i]]] & 0xFF;
+                                for (int j = 0; j < numStats; j++) {
+                                    // Update of all the statistics
+                                    statArray[i][j].addSample(sample);
                                 }
                             }
                         }
@@ -441,7 +797,7 @@ public abstract class StatisticsOpImage extends OpImage {
                 }
             }
             // ONLY NO DATA ARE PRESENT
-        } else if (caseC) {
+        } else if (tileCaseC) {
             // Cycle on the y axis
             for (int y = 0; y < srcHeight; y += yPeriod) {
                 // y position on the source data array
@@ -455,7 +811,7 @@ public abstract class StatisticsOpImage extends OpImage {
                         int sample = srcData[bands[i]][posx + posy + srcBandOffsets[bands[i]]] & 0xFF;
                         // Control if the sample is Not a NO Data
                         if (booleanLookupTable[sample]) {
-                            for (int j = 0; j < statNum; j++) {
+                            for (int j = 0; j < numStats; j++) {
                                 // Update of all the statistics
                                 statArray[i][j].addSample(sample);
                             }
@@ -466,7 +822,7 @@ public abstract class StatisticsOpImage extends OpImage {
             // BOTH NO DATA AND ROI ARE PRESENT
         } else {
             // ROI RasterAccessor is used
-            if (useROIAccessor) {
+            if (roi != null) {
                 // Cycle on the y axis
                 for (int y = 0; y < srcHeight; y += yPeriod) {
                     // y position on the source data array
@@ -488,7 +844,7 @@ public abstract class StatisticsOpImage extends OpImage {
                                 int sample = srcData[bands[i]][posx + posy + srcBandOffsets[bands[i]]] & 0xFF;
                                 // Control if the sample is Not a NO Data
                                 if (booleanLookupTable[sample]) {
-                                    for (int j = 0; j < statNum; j++) {
+                                    for (int j = 0; j < numStats; j++) {
                                         // Update of all the statistics
                                         statArray[i][j].addSample(sample);
                                     }
@@ -507,23 +863,18 @@ public abstract class StatisticsOpImage extends OpImage {
                     for (int x = 0; x < srcWidth; x += xPeriod) {
                         // x position on the source data array
                         int posx = x * srcPixelStride;
-                        // PixelPositions
-                        int x0 = srcX + x;
-                        int y0 = srcY + y;
+                        // ROI value
+                        int w = roiMask[x + y * srcWidth];
                         // Control if the sample is inside ROI
-                        if (roiBounds.contains(x0, y0)) {
-                            // ROI value
-                            int w = roiIter.getSample(x0, y0, 0) & 0xff;
-                            if (w != 0) {
-                                // Cycle on the selected Bands
-                                for (int i = 0; i < selectedBands; i++) {
-                                    int sample = srcData[bands[i]][posx + posy + srcBandOffsets[bands[i]]] & 0xFF;
-                                    // Control if the sample is Not a NO Data
-                                    if (booleanLookupTable[sample]) {
-                                        for (int j = 0; j < statNum; j++) {
-                                            // Update of all the statistics
-                                            statArray[i][j].addSample(sample);
-                                        }
+                        if (w != 0) {
+                            // Cycle on the selected Bands
+                            for (int i = 0; i < selectedBands; i++) {
+                                int sample = srcData[bands[i]][posx + posy + srcBandOffsets[bands[i]]] & 0xFF;
+                                // Control if the sample is Not a NO Data
+                                if (booleanLookupTable[sample]) {
+                                    for (int j = 0; j < numStats; j++) {
+                                        // Update of all the statistics
+                                        statArray[i][j].addSample(sample);
                                     }
                                 }
                             }
@@ -535,17 +886,22 @@ public abstract class StatisticsOpImage extends OpImage {
     }
 
     protected void ushortLoop(RasterAccessor src, Rectangle srcRect, RasterAccessor roi,
-            Statistics[][] statArray, RandomIter roiIter) {
+            Statistics[][] statArray, byte[] roiMask) {
 
-        // Source RasterAccessor initial positions
-        int srcX = src.getX();
-        int srcY = src.getY();
+        // Number of statistics stored for each band
+        final int numStats = statArray[0].length;
+
+        // The ROI is checked only on the tiles which are not fully contained inside it
+        final boolean checkROI = roi != null || roiMask != null;
+        final boolean tileCaseA = !hasNoData && !checkROI;
+        final boolean tileCaseB = !hasNoData && checkROI;
+        final boolean tileCaseC = hasNoData && !checkROI;
 
         final byte[] roiDataArray;
         final int roiScanLineInc;
         final int roiDataLength;
 
-        if (useROIAccessor) {
+        if (roi != null) {
             roiDataArray = roi.getByteDataArray(0);
             roiScanLineInc = roi.getScanlineStride() * yPeriod;
             roiDataLength = roiDataArray.length;
@@ -565,7 +921,7 @@ public abstract class StatisticsOpImage extends OpImage {
         int srcScanlineStride = src.getScanlineStride();
 
         // NO DATA AND ROI ARE NOT PRESENT
-        if (caseA) {
+        if (tileCaseA) {
             // Cycle on the y axis
             for (int y = 0; y < srcHeight; y += yPeriod) {
                 // y position on the source data array
@@ -578,7 +934,7 @@ public abstract class StatisticsOpImage extends OpImage {
                     // Cycle on the selected Bands
                     for (int i = 0; i < selectedBands; i++) {
                         int sample = srcData[bands[i]][posx + posy + srcBandOffsets[bands[i]]] & 0xFFFF;
-                        for (int j = 0; j < statNum; j++) {
+                        for (int j = 0; j < numStats; j++) {
                             // Update of all the statistics
                             statArray[i][j].addSample(sample);
                         }
@@ -586,9 +942,9 @@ public abstract class StatisticsOpImage extends OpImage {
                 }
             }
             // ONLY ROI IS PRESENT
-        } else if (caseB) {
+        } else if (tileCaseB) {
             // ROI RasterAccessor is used
-            if (useROIAccessor) {
+            if (roi != null) {
                 // Cycle on the y axis
                 for (int y = 0; y < srcHeight; y += yPeriod) {
                     // y position on the source data array
@@ -609,7 +965,7 @@ public abstract class StatisticsOpImage extends OpImage {
                             for (int i = 0; i < selectedBands; i++) {
                                 int sample = srcData[bands[i]][posx + posy
                                         + srcBandOffsets[bands[i]]] & 0xFFFF;
-                                for (int j = 0; j < statNum; j++) {
+                                for (int j = 0; j < numStats; j++) {
                                     // Update of all the statistics
                                     statArray[i][j].addSample(sample);
                                 }
@@ -627,22 +983,17 @@ public abstract class StatisticsOpImage extends OpImage {
                     for (int x = 0; x < srcWidth; x += xPeriod) {
                         // x position on the source data array
                         int posx = x * srcPixelStride;
-                        // PixelPositions
-                        int x0 = srcX + x;
-                        int y0 = srcY + y;
+                        // ROI value
+                        int w = roiMask[x + y * srcWidth];
                         // Control if the sample is inside ROI
-                        if (roiBounds.contains(x0, y0)) {
-                            // ROI value
-                            int w = roiIter.getSample(x0, y0, 0) & 0xff;
-                            if (w != 0) {
-                                // Cycle on the selected Bands
-                                for (int i = 0; i < selectedBands; i++) {
-                                    int sample = srcData[bands[i]][posx + posy
-                                            + srcBandOffsets[bands[i]]] & 0xFFFF;
-                                    for (int j = 0; j < statNum; j++) {
-                                        // Update of all the statistics
-                                        statArray[i][j].addSample(sample);
-                                    }
+                        if (w != 0) {
+                            // Cycle on the selected Bands
+                            for (int i = 0; i < selectedBands; i++) {
+                                int sample = srcData[bands[i]][posx + posy
+                                        + srcBandOffsets[bands[i]]] & 0xFFFF;
+                                for (int j = 0; j < numStats; j++) {
+                                    // Update of all the statistics
+                                    statArray[i][j].addSample(sample);
                                 }
                             }
                         }
@@ -650,7 +1001,7 @@ public abstract class StatisticsOpImage extends OpImage {
                 }
             }
             // ONLY NO DATA ARE PRESENT
-        } else if (caseC) {
+        } else if (tileCaseC) {
             // Cycle on the y axis
             for (int y = 0; y < srcHeight; y += yPeriod) {
                 // y position on the source data array
@@ -665,7 +1016,7 @@ public abstract class StatisticsOpImage extends OpImage {
                         // Control if the sample is Not a NO Data
                         boolean isData = !noData.contains((short) sample);
                         if (isData) {
-                            for (int j = 0; j < statNum; j++) {
+                            for (int j = 0; j < numStats; j++) {
                                 // Update of all the statistics
                                 statArray[i][j].addSample(sample);
                             }
@@ -676,7 +1027,7 @@ public abstract class StatisticsOpImage extends OpImage {
             // BOTH NO DATA AND ROI ARE PRESENT
         } else {
             // ROI RasterAccessor is used
-            if (useROIAccessor) {
+            if (roi != null) {
                 // Cycle on the y axis
                 for (int y = 0; y < srcHeight; y += yPeriod) {
                     // y position on the source data array
@@ -700,7 +1051,7 @@ public abstract class StatisticsOpImage extends OpImage {
                                 // Control if the sample is Not a NO Data
                                 boolean isData = !noData.contains((short) sample);
                                 if (isData) {
-                                    for (int j = 0; j < statNum; j++) {
+                                    for (int j = 0; j < numStats; j++) {
                                         // Update of all the statistics
                                         statArray[i][j].addSample(sample);
                                     }
@@ -719,25 +1070,20 @@ public abstract class StatisticsOpImage extends OpImage {
                     for (int x = 0; x < srcWidth; x += xPeriod) {
                         // x position on the source data array
                         int posx = x * srcPixelStride;
-                        // PixelPositions
-                        int x0 = srcX + x;
-                        int y0 = srcY + y;
+                        // ROI value
+                        int w = roiMask[x + y * srcWidth];
                         // Control if the sample is inside ROI
-                        if (roiBounds.contains(x0, y0)) {
-                            // ROI value
-                            int w = roiIter.getSample(x0, y0, 0) & 0xff;
-                            if (w != 0) {
-                                // Cycle on the selected Bands
-                                for (int i = 0; i < selectedBands; i++) {
-                                    int sample = srcData[bands[i]][posx + posy
-                                            + srcBandOffsets[bands[i]]] & 0xFFFF;
-                                    // Control if the sample is Not a NO Data
-                                    boolean isData = !noData.contains((short) sample);
-                                    if (isData) {
-                                        for (int j = 0; j < statNum; j++) {
-                                            // Update of all the statistics
-                                            statArray[i][j].addSample(sample);
-                                        }
+                        if (w != 0) {
+                            // Cycle on the selected Bands
+                            for (int i = 0; i < selectedBands; i++) {
+                                int sample = srcData[bands[i]][posx + posy
+                                        + srcBandOffsets[bands[i]]] & 0xFFFF;
+                                // Control if the sample is Not a NO Data
+                                boolean isData = !noData.contains((short) sample);
+                                if (isData) {
+                                    for (int j = 0; j < numStats; j++) {
+                                        // Update of all the statistics
+                                        statArray[i][j].addSample(sample);
                                     }
                                 }
                             }
@@ -749,17 +1095,22 @@ public abstract class StatisticsOpImage extends OpImage {
     }
 
     protected void shortLoop(RasterAccessor src, Rectangle srcRect, RasterAccessor roi,
-            Statistics[][] statArray, RandomIter roiIter) {
+            Statistics[][] statArray, byte[] roiMask) {
 
-        // Source RasterAccessor initial positions
-        int srcX = src.getX();
-        int srcY = src.getY();
+        // Number of statistics stored for each band
+        final int numStats = statArray[0].length;
+
+        // The ROI is checked only on the tiles which are not fully contained inside it
+        final boolean checkROI = roi != null || roiMask != null;
+        final boolean tileCaseA = !hasNoData && !checkROI;
+        final boolean tileCaseB = !hasNoData && checkROI;
+        final boolean tileCaseC = hasNoData && !checkROI;
 
         final byte[] roiDataArray;
         final int roiScanLineInc;
         final int roiDataLength;
 
-        if (useROIAccessor) {
+        if (roi != null) {
             roiDataArray = roi.getByteDataArray(0);
             roiScanLineInc = roi.getScanlineStride() * yPeriod;
             roiDataLength = roiDataArray.length;
@@ -779,7 +1130,7 @@ public abstract class StatisticsOpImage extends OpImage {
         int srcScanlineStride = src.getScanlineStride();
 
         // NO DATA AND ROI ARE NOT PRESENT
-        if (caseA) {
+        if (tileCaseA) {
             // Cycle on the y axis
             for (int y = 0; y < srcHeight; y += yPeriod) {
                 // y position on the source data array
@@ -792,7 +1143,7 @@ public abstract class StatisticsOpImage extends OpImage {
                     // Cycle on the selected Bands
                     for (int i = 0; i < selectedBands; i++) {
                         short sample = srcData[bands[i]][posx + posy + srcBandOffsets[bands[i]]];
-                        for (int j = 0; j < statNum; j++) {
+                        for (int j = 0; j < numStats; j++) {
                             // Update of all the statistics
                             statArray[i][j].addSample(sample);
                         }
@@ -800,9 +1151,9 @@ public abstract class StatisticsOpImage extends OpImage {
                 }
             }
             // ONLY ROI IS PRESENT
-        } else if (caseB) {
+        } else if (tileCaseB) {
             // ROI RasterAccessor is used
-            if (useROIAccessor) {
+            if (roi != null) {
                 // Cycle on the y axis
                 for (int y = 0; y < srcHeight; y += yPeriod) {
                     // y position on the source data array
@@ -823,7 +1174,7 @@ public abstract class StatisticsOpImage extends OpImage {
                             for (int i = 0; i < selectedBands; i++) {
                                 short sample = srcData[bands[i]][posx + posy
                                         + srcBandOffsets[bands[i]]];
-                                for (int j = 0; j < statNum; j++) {
+                                for (int j = 0; j < numStats; j++) {
                                     // Update of all the statistics
                                     statArray[i][j].addSample(sample);
                                 }
@@ -841,22 +1192,17 @@ public abstract class StatisticsOpImage extends OpImage {
                     for (int x = 0; x < srcWidth; x += xPeriod) {
                         // x position on the source data array
                         int posx = x * srcPixelStride;
-                        // PixelPositions
-                        int x0 = srcX + x;
-                        int y0 = srcY + y;
+                        // ROI value
+                        int w = roiMask[x + y * srcWidth];
                         // Control if the sample is inside ROI
-                        if (roiBounds.contains(x0, y0)) {
-                            // ROI value
-                            int w = roiIter.getSample(x0, y0, 0) & 0xff;
-                            if (w != 0) {
-                                // Cycle on the selected Bands
-                                for (int i = 0; i < selectedBands; i++) {
-                                    short sample = srcData[bands[i]][posx + posy
-                                            + srcBandOffsets[bands[i]]];
-                                    for (int j = 0; j < statNum; j++) {
-                                        // Update of all the statistics
-                                        statArray[i][j].addSample(sample);
-                                    }
+                        if (w != 0) {
+                            // Cycle on the selected Bands
+                            for (int i = 0; i < selectedBands; i++) {
+                                short sample = srcData[bands[i]][posx + posy
+                                        + srcBandOffsets[bands[i]]];
+                                for (int j = 0; j < numStats; j++) {
+                                    // Update of all the statistics
+                                    statArray[i][j].addSample(sample);
                                 }
                             }
                         }
@@ -864,7 +1210,7 @@ public abstract class StatisticsOpImage extends OpImage {
                 }
             }
             // ONLY NO DATA ARE PRESENT
-        } else if (caseC) {
+        } else if (tileCaseC) {
             // Cycle on the y axis
             for (int y = 0; y < srcHeight; y += yPeriod) {
                 // y position on the source data array
@@ -879,7 +1225,7 @@ public abstract class StatisticsOpImage extends OpImage {
                         // Control if the sample is Not a NO Data
                         boolean isData = !noData.contains(sample);
                         if (isData) {
-                            for (int j = 0; j < statNum; j++) {
+                            for (int j = 0; j < numStats; j++) {
                                 // Update of all the statistics
                                 statArray[i][j].addSample(sample);
                             }
@@ -890,7 +1236,7 @@ public abstract class StatisticsOpImage extends OpImage {
             // BOTH NO DATA AND ROI ARE PRESENT
         } else {
             // ROI RasterAccessor is used
-            if (useROIAccessor) {
+            if (roi != null) {
                 // Cycle on the y axis
                 for (int y = 0; y < srcHeight; y += yPeriod) {
                     // y position on the source data array
@@ -914,7 +1260,7 @@ public abstract class StatisticsOpImage extends OpImage {
                                 // Control if the sample is Not a NO Data
                                 boolean isData = !noData.contains(sample);
                                 if (isData) {
-                                    for (int j = 0; j < statNum; j++) {
+                                    for (int j = 0; j < numStats; j++) {
                                         // Update of all the statistics
                                         statArray[i][j].addSample(sample);
                                     }
@@ -933,25 +1279,20 @@ public abstract class StatisticsOpImage extends OpImage {
                     for (int x = 0; x < srcWidth; x += xPeriod) {
                         // x position on the source data array
                         int posx = x * srcPixelStride;
-                        // PixelPositions
-                        int x0 = srcX + x;
-                        int y0 = srcY + y;
+                        // ROI value
+                        int w = roiMask[x + y * srcWidth];
                         // Control if the sample is inside ROI
-                        if (roiBounds.contains(x0, y0)) {
-                            // ROI value
-                            int w = roiIter.getSample(x0, y0, 0) & 0xff;
-                            if (w != 0) {
-                                // Cycle on the selected Bands
-                                for (int i = 0; i < selectedBands; i++) {
-                                    short sample = srcData[bands[i]][posx + posy
-                                            + srcBandOffsets[bands[i]]];
-                                    // Control if the sample is Not a NO Data
-                                    boolean isData = !noData.contains(sample);
-                                    if (isData) {
-                                        for (int j = 0; j < statNum; j++) {
-                                            // Update of all the statistics
-                                            statArray[i][j].addSample(sample);
-                                        }
+                        if (w != 0) {
+                            // Cycle on the selected Bands
+                            for (int i = 0; i < selectedBands; i++) {
+                                short sample = srcData[bands[i]][posx + posy
+                                        + srcBandOffsets[bands[i]]];
+                                // Control if the sample is Not a NO Data
+                                boolean isData = !noData.contains(sample);
+                                if (isData) {
+                                    for (int j = 0; j < numStats; j++) {
+                                        // Update of all the statistics
+                                        statArray[i][j].addSample(sample);
                                     }
                                 }
                             }
@@ -963,17 +1304,22 @@ public abstract class StatisticsOpImage extends OpImage {
     }
 
     protected void intLoop(RasterAccessor src, Rectangle srcRect, RasterAccessor roi,
-            Statistics[][] statArray, RandomIter roiIter) {
+            Statistics[][] statArray, byte[] roiMask) {
 
-        // Source RasterAccessor initial positions
-        int srcX = src.getX();
-        int srcY = src.getY();
+        // Number of statistics stored for each band
+        final int numStats = statArray[0].length;
+
+        // The ROI is checked only on the tiles which are not fully contained inside it
+        final boolean checkROI = roi != null || roiMask != null;
+        final boolean tileCaseA = !hasNoData && !checkROI;
+        final boolean tileCaseB = !hasNoData && checkROI;
+        final boolean tileCaseC = hasNoData && !checkROI;
 
         final byte[] roiDataArray;
         final int roiScanLineInc;
         final int roiDataLength;
 
-        if (useROIAccessor) {
+        if (roi != null) {
             roiDataArray = roi.getByteDataArray(0);
             roiScanLineInc = roi.getScanlineStride() * yPeriod;
             roiDataLength = roiDataArray.length;
@@ -993,7 +1339,7 @@ public abstract class StatisticsOpImage extends OpImage {
         int srcScanlineStride = src.getScanlineStride();
 
         // NO DATA AND ROI ARE NOT PRESENT
-        if (caseA) {
+        if (tileCaseA) {
             // Cycle on the y axis
             for (int y = 0; y < srcHeight; y += yPeriod) {
                 // y position on the source data array
@@ -1006,7 +1352,7 @@ public abstract class StatisticsOpImage extends OpImage {
                     // Cycle on the selected Bands
                     for (int i = 0; i < selectedBands; i++) {
                         int sample = srcData[bands[i]][posx + posy + srcBandOffsets[bands[i]]];
-                        for (int j = 0; j < statNum; j++) {
+                        for (int j = 0; j < numStats; j++) {
                             // Update of all the statistics
                             statArray[i][j].addSample(sample);
                         }
@@ -1014,9 +1360,9 @@ public abstract class StatisticsOpImage extends OpImage {
                 }
             }
             // ONLY ROI IS PRESENT
-        } else if (caseB) {
+        } else if (tileCaseB) {
             // ROI RasterAccessor is used
-            if (useROIAccessor) {
+            if (roi != null) {
                 // Cycle on the y axis
                 for (int y = 0; y < srcHeight; y += yPeriod) {
                     // y position on the source data array
@@ -1037,7 +1383,7 @@ public abstract class StatisticsOpImage extends OpImage {
                             for (int i = 0; i < selectedBands; i++) {
                                 int sample = srcData[bands[i]][posx + posy
                                         + srcBandOffsets[bands[i]]];
-                                for (int j = 0; j < statNum; j++) {
+                                for (int j = 0; j < numStats; j++) {
                                     // Update of all the statistics
                                     statArray[i][j].addSample(sample);
                                 }
@@ -1055,22 +1401,17 @@ public abstract class StatisticsOpImage extends OpImage {
                     for (int x = 0; x < srcWidth; x += xPeriod) {
                         // x position on the source data array
                         int posx = x * srcPixelStride;
-                        // PixelPositions
-                        int x0 = srcX + x;
-                        int y0 = srcY + y;
+                        // ROI value
+                        int w = roiMask[x + y * srcWidth];
                         // Control if the sample is inside ROI
-                        if (roiBounds.contains(x0, y0)) {
-                            // ROI value
-                            int w = roiIter.getSample(x0, y0, 0) & 0xff;
-                            if (w != 0) {
-                                // Cycle on the selected Bands
-                                for (int i = 0; i < selectedBands; i++) {
-                                    int sample = srcData[bands[i]][posx + posy
-                                            + srcBandOffsets[bands[i]]];
-                                    for (int j = 0; j < statNum; j++) {
-                                        // Update of all the statistics
-                                        statArray[i][j].addSample(sample);
-                                    }
+                        if (w != 0) {
+                            // Cycle on the selected Bands
+                            for (int i = 0; i < selectedBands; i++) {
+                                int sample = srcData[bands[i]][posx + posy
+                                        + srcBandOffsets[bands[i]]];
+                                for (int j = 0; j < numStats; j++) {
+                                    // Update of all the statistics
+                                    statArray[i][j].addSample(sample);
                                 }
                             }
                         }
@@ -1078,7 +1419,7 @@ public abstract class StatisticsOpImage extends OpImage {
                 }
             }
             // ONLY NO DATA ARE PRESENT
-        } else if (caseC) {
+        } else if (tileCaseC) {
             // Cycle on the y axis
             for (int y = 0; y < srcHeight; y += yPeriod) {
                 // y position on the source data array
@@ -1093,7 +1434,7 @@ public abstract class StatisticsOpImage extends OpImage {
                         // Control if the sample is Not a NO Data
                         boolean isData = !noData.contains(sample);
                         if (isData) {
-                            for (int j = 0; j < statNum; j++) {
+                            for (int j = 0; j < numStats; j++) {
                                 // Update of all the statistics
                                 statArray[i][j].addSample(sample);
                             }
@@ -1104,7 +1445,7 @@ public abstract class StatisticsOpImage extends OpImage {
             // BOTH NO DATA AND ROI ARE PRESENT
         } else {
             // ROI RasterAccessor is used
-            if (useROIAccessor) {
+            if (roi != null) {
                 // Cycle on the y axis
                 for (int y = 0; y < srcHeight; y += yPeriod) {
                     // y position on the source data array
@@ -1128,7 +1469,7 @@ public abstract class StatisticsOpImage extends OpImage {
                                 // Control if the sample is Not a NO Data
                                 boolean isData = !noData.contains(sample);
                                 if (isData) {
-                                    for (int j = 0; j < statNum; j++) {
+                                    for (int j = 0; j < numStats; j++) {
                                         // Update of all the statistics
                                         statArray[i][j].addSample(sample);
                                     }
@@ -1147,25 +1488,20 @@ public abstract class StatisticsOpImage extends OpImage {
                     for (int x = 0; x < srcWidth; x += xPeriod) {
                         // x position on the source data array
                         int posx = x * srcPixelStride;
-                        // PixelPositions
-                        int x0 = srcX + x;
-                        int y0 = srcY + y;
+                        // ROI value
+                        int w = roiMask[x + y * srcWidth];
                         // Control if the sample is inside ROI
-                        if (roiBounds.contains(x0, y0)) {
-                            // ROI value
-                            int w = roiIter.getSample(x0, y0, 0) & 0xff;
-                            if (w != 0) {
-                                // Cycle on the selected Bands
-                                for (int i = 0; i < selectedBands; i++) {
-                                    int sample = srcData[bands[i]][posx + posy
-                                            + srcBandOffsets[bands[i]]];
-                                    // Control if the sample is Not a NO Data
-                                    boolean isData = !noData.contains(sample);
-                                    if (isData) {
-                                        for (int j = 0; j < statNum; j++) {
-                                            // Update of all the statistics
-                                            statArray[i][j].addSample(sample);
-                                        }
+                        if (w != 0) {
+                            // Cycle on the selected Bands
+                            for (int i = 0; i < selectedBands; i++) {
+                                int sample = srcData[bands[i]][posx + posy
+                                        + srcBandOffsets[bands[i]]];
+                                // Control if the sample is Not a NO Data
+                                boolean isData = !noData.contains(sample);
+                                if (isData) {
+                                    for (int j = 0; j < numStats; j++) {
+                                        // Update of all the statistics
+                                        statArray[i][j].addSample(sample);
                                     }
                                 }
                             }
@@ -1177,17 +1513,22 @@ public abstract class StatisticsOpImage extends OpImage {
     }
 
     protected void floatLoop(RasterAccessor src, Rectangle srcRect, RasterAccessor roi,
-            Statistics[][] statArray, RandomIter roiIter) {
+            Statistics[][] statArray, byte[] roiMask) {
 
-        // Source RasterAccessor initial positions
-        int srcX = src.getX();
-        int srcY = src.getY();
+        // Number of statistics stored for each band
+        final int numStats = statArray[0].length;
+
+        // The ROI is checked only on the tiles which are not fully contained inside it
+        final boolean checkROI = roi != null || roiMask != null;
+        final boolean tileCaseA = !hasNoData && !checkROI;
+        final boolean tileCaseB = !hasNoData && checkROI;
+        final boolean tileCaseC = hasNoData && !checkROI;
 
         final byte[] roiDataArray;
         final int roiScanLineInc;
         final int roiDataLength;
 
-        if (useROIAccessor) {
+        if (roi != null) {
             roiDataArray = roi.getByteDataArray(0);
             roiScanLineInc = roi.getScanlineStride() * yPeriod;
             roiDataLength = roiDataArray.length;
@@ -1207,7 +1548,7 @@ public abstract class StatisticsOpImage extends OpImage {
         int srcScanlineStride = src.getScanlineStride();
 
         // NO DATA AND ROI ARE NOT PRESENT
-        if (caseA) {
+        if (tileCaseA) {
             // Cycle on the y axis
             for (int y = 0; y < srcHeight; y += yPeriod) {
                 // y position on the source data array
@@ -1220,7 +1561,7 @@ public abstract class StatisticsOpImage extends OpImage {
                     // Cycle on the selected Bands
                     for (int i = 0; i < selectedBands; i++) {
                         float sample = srcData[bands[i]][posx + posy + srcBandOffsets[bands[i]]];
-                        for (int j = 0; j < statNum; j++) {
+                        for (int j = 0; j < numStats; j++) {
                             // Update of all the statistics
                             statArray[i][j].addSample(sample);
                         }
@@ -1228,9 +1569,9 @@ public abstract class StatisticsOpImage extends OpImage {
                 }
             }
             // ONLY ROI IS PRESENT
-        } else if (caseB) {
+        } else if (tileCaseB) {
             // ROI RasterAccessor is used
-            if (useROIAccessor) {
+            if (roi != null) {
                 // Cycle on the y axis
                 for (int y = 0; y < srcHeight; y += yPeriod) {
                     // y position on the source data array
@@ -1251,7 +1592,7 @@ public abstract class StatisticsOpImage extends OpImage {
                             for (int i = 0; i < selectedBands; i++) {
                                 float sample = srcData[bands[i]][posx + posy
                                         + srcBandOffsets[bands[i]]];
-                                for (int j = 0; j < statNum; j++) {
+                                for (int j = 0; j < numStats; j++) {
                                     // Update of all the statistics
                                     statArray[i][j].addSample(sample);
                                 }
@@ -1269,22 +1610,17 @@ public abstract class StatisticsOpImage extends OpImage {
                     for (int x = 0; x < srcWidth; x += xPeriod) {
                         // x position on the source data array
                         int posx = x * srcPixelStride;
-                        // PixelPositions
-                        int x0 = srcX + x;
-                        int y0 = srcY + y;
+                        // ROI value
+                        int w = roiMask[x + y * srcWidth];
                         // Control if the sample is inside ROI
-                        if (roiBounds.contains(x0, y0)) {
-                            // ROI value
-                            int w = roiIter.getSample(x0, y0, 0) & 0xff;
-                            if (w != 0) {
-                                // Cycle on the selected Bands
-                                for (int i = 0; i < selectedBands; i++) {
-                                    float sample = srcData[bands[i]][posx + posy
-                                            + srcBandOffsets[bands[i]]];
-                                    for (int j = 0; j < statNum; j++) {
-                                        // Update of all the statistics
-                                        statArray[i][j].addSample(sample);
-                                    }
+                        if (w != 0) {
+                            // Cycle on the selected Bands
+                            for (int i = 0; i < selectedBands; i++) {
+                                float sample = srcData[bands[i]][posx + posy
+                                        + srcBandOffsets[bands[i]]];
+                                for (int j = 0; j < numStats; j++) {
+                                    // Update of all the statistics
+                                    statArray[i][j].addSample(sample);
                                 }
                             }
                         }
@@ -1292,7 +1628,7 @@ public abstract class StatisticsOpImage extends OpImage {
                 }
             }
             // ONLY NO DATA ARE PRESENT
-        } else if (caseC) {
+        } else if (tileCaseC) {
             // Cycle on the y axis
             for (int y = 0; y < srcHeight; y += yPeriod) {
                 // y position on the source data array
@@ -1307,7 +1643,7 @@ public abstract class StatisticsOpImage extends OpImage {
                         // Control if the sample is Not a NO Data
                         boolean isData = !noData.contains(sample);
                         if (isData) {
-                            for (int j = 0; j < statNum; j++) {
+                            for (int j = 0; j < numStats; j++) {
                                 // Update of all the statistics
                                 statArray[i][j].addSample(sample);
                             }
@@ -1318,7 +1654,7 @@ public abstract class StatisticsOpImage extends OpImage {
             // BOTH NO DATA AND ROI ARE PRESENT
         } else {
             // ROI RasterAccessor is used
-            if (useROIAccessor) {
+            if (roi != null) {
                 // Cycle on the y axis
                 for (int y = 0; y < srcHeight; y += yPeriod) {
                     // y position on the source data array
@@ -1342,7 +1678,7 @@ public abstract class StatisticsOpImage extends OpImage {
                                 // Control if the sample is Not a NO Data
                                 boolean isData = !noData.contains(sample);
                                 if (isData) {
-                                    for (int j = 0; j < statNum; j++) {
+                                    for (int j = 0; j < numStats; j++) {
                                         // Update of all the statistics
                                         statArray[i][j].addSample(sample);
                                     }
@@ -1361,25 +1697,20 @@ public abstract class StatisticsOpImage extends OpImage {
                     for (int x = 0; x < srcWidth; x += xPeriod) {
                         // x position on the source data array
                         int posx = x * srcPixelStride;
-                        // PixelPositions
-                        int x0 = srcX + x;
-                        int y0 = srcY + y;
+                        // ROI value
+                        int w = roiMask[x + y * srcWidth];
                         // Control if the sample is inside ROI
-                        if (roiBounds.contains(x0, y0)) {
-                            // ROI value
-                            int w = roiIter.getSample(x0, y0, 0) & 0xff;
-                            if (w != 0) {
-                                // Cycle on the selected Bands
-                                for (int i = 0; i < selectedBands; i++) {
-                                    float sample = srcData[bands[i]][posx + posy
-                                            + srcBandOffsets[bands[i]]];
-                                    // Control if the sample is Not a NO Data
-                                    boolean isData = !noData.contains(sample);
-                                    if (isData) {
-                                        for (int j = 0; j < statNum; j++) {
-                                            // Update of all the statistics
-                                            statArray[i][j].addSample(sample);
-                                        }
+                        if (w != 0) {
+                            // Cycle on the selected Bands
+                            for (int i = 0; i < selectedBands; i++) {
+                                float sample = srcData[bands[i]][posx + posy
+                                        + srcBandOffsets[bands[i]]];
+                                // Control if the sample is Not a NO Data
+                                boolean isData = !noData.contains(sample);
+                                if (isData) {
+                                    for (int j = 0; j < numStats; j++) {
+                                        // Update of all the statistics
+                                        statArray[i][j].addSample(sample);
                                     }
                                 }
                             }
@@ -1391,17 +1722,22 @@ public abstract class StatisticsOpImage extends OpImage {
     }
 
     protected void doubleLoop(RasterAccessor src, Rectangle srcRect, RasterAccessor roi,
-            Statistics[][] statArray, RandomIter roiIter) {
+            Statistics[][] statArray, byte[] roiMask) {
+
+        // Number of statistics stored for each band
+        final int numStats = statArray[0].length;
 
-        // Source RasterAccessor initial positions
-        int srcX = src.getX();
-        int srcY = src.getY();
+        // The ROI is checked only on the tiles which are not fully contained inside it
+        final boolean checkROI = roi != null || roiMask != null;
+        final boolean tileCaseA = !hasNoData && !checkROI;
+        final boolean tileCaseB = !hasNoData && checkROI;
+        final boolean tileCaseC = hasNoData && !checkROI;
 
         final byte[] roiDataArray;
         final int roiScanLineInc;
         final int roiDataLength;
 
-        if (useROIAccessor) {
+        if (roi != null) {
             roiDataArray = roi.getByteDataArray(0);
             roiScanLineInc = roi.getScanlineStride() * yPeriod;
             roiDataLength = roiDataArray.length;
@@ -1421,7 +1757,7 @@ public abstract class StatisticsOpImage extends OpImage {
         int srcScanlineStride = src.getScanlineStride();
 
         // NO DATA AND ROI ARE NOT PRESENT
-        if (caseA) {
+        if (tileCaseA) {
             // Cycle on the y axis
             for (int y = 0; y < srcHeight; y += yPeriod) {
                 // y position on the source data array
@@ -1434,7 +1770,7 @@ public abstract class StatisticsOpImage extends OpImage {
                     // Cycle on the selected Bands
                     for (int i = 0; i < selectedBands; i++) {
                         double sample = srcData[bands[i]][posx + posy + srcBandOffsets[bands[i]]];
-                        for (int j = 0; j < statNum; j++) {
+                        for (int j = 0; j < numStats; j++) {
                             // Update of all the statistics
                             statArray[i][j].addSample(sample);
                         }
@@ -1442,9 +1778,9 @@ public abstract class StatisticsOpImage extends OpImage {
                 }
             }
             // ONLY ROI IS PRESENT
-        } else if (caseB) {
+        } else if (tileCaseB) {
             // ROI RasterAccessor is used
-            if (useROIAccessor) {
+            if (roi != null) {
                 // Cycle on the y axis
                 for (int y = 0; y < srcHeight; y += yPeriod) {
                     // y position on the source data array
@@ -1465,7 +1801,7 @@ public abstract class StatisticsOpImage extends OpImage {
                             for (int i = 0; i < selectedBands; i++) {
                                 double sample = srcData[bands[i]][posx + posy
                                         + srcBandOffsets[bands[i]]];
-                                for (int j = 0; j < statNum; j++) {
+                                for (int j = 0; j < numStats; j++) {
                                     // Update of all the statistics
                                     statArray[i][j].addSample(sample);
                                 }
@@ -1483,22 +1819,17 @@ public abstract class StatisticsOpImage extends OpImage {
                     for (int x = 0; x < srcWidth; x += xPeriod) {
                         // x position on the source data array
                         int posx = x * srcPixelStride;
-                        // PixelPositions
-                        int x0 = srcX + x;
-                        int y0 = srcY + y;
+                        // ROI value
+                        int w = roiMask[x + y * srcWidth];
                         // Control if the sample is inside ROI
-                        if (roiBounds.contains(x0, y0)) {
-                            // ROI value
-                            int w = roiIter.getSample(x0, y0, 0) & 0xff;
-                            if (w != 0) {
-                                // Cycle on the selected Bands
-                                for (int i = 0; i < selectedBands; i++) {
-                                    double sample = srcData[bands[i]][posx + posy
-                                            + srcBandOffsets[bands[i]]];
-                                    for (int j = 0; j < statNum; j++) {
-                                        // Update of all the statistics
-                                        statArray[i][j].addSample(sample);
-                                    }
+                        if (w != 0) {
+                            // Cycle on the selected Bands
+                            for (int i = 0; i < selectedBands; i++) {
+                                double sample = srcData[bands[i]][posx + posy
+                                        + srcBandOffsets[bands[i]]];
+                                for (int j = 0; j < numStats; j++) {
+                                    // Update of all the statistics
+                                    statArray[i][j].addSample(sample);
                                 }
                             }
                         }
@@ -1506,7 +1837,7 @@ public abstract class StatisticsOpImage extends OpImage {
                 }
             }
             // ONLY NO DATA ARE PRESENT
-        } else if (caseC) {
+        } else if (tileCaseC) {
             // Cycle on the y axis
             for (int y = 0; y < srcHeight; y += yPeriod) {
                 // y position on the source data array
@@ -1521,7 +1852,7 @@ public abstract class StatisticsOpImage extends OpImage {
                         // Control if the sample is Not a NO Data
                         boolean isData = !noData.contains(sample);
                         if (isData) {
-                            for (int j = 0; j < statNum; j++) {
+                            for (int j = 0; j < numStats; j++) {
                                 // Update of all the statistics
                                 statArray[i][j].addSample(sample);
                             }
@@ -1532,7 +1863,7 @@ public abstract class StatisticsOpImage extends OpImage {
             // BOTH NO DATA AND ROI ARE PRESENT
         } else {
             // ROI RasterAccessor is used
-            if (useROIAccessor) {
+            if (roi != null) {
                 // Cycle on the y axis
                 for (int y = 0; y < srcHeight; y += yPeriod) {
                     // y position on the source data array
@@ -1556,7 +1887,7 @@ public abstract class StatisticsOpImage extends OpImage {
                                 // Control if the sample is Not a NO Data
                                 boolean isData = !noData.contains(sample);
                                 if (isData) {
-                                    for (int j = 0; j < statNum; j++) {
+                                    for (int j = 0; j < numStats; j++) {
                                         // Update of all the statistics
                                         statArray[i][j].addSample(sample);
                                     }
@@ -1575,25 +1906,20 @@ public abstract class StatisticsOpImage extends OpImage {
                     for (int x = 0; x < srcWidth; x += xPeriod) {
                         // x position on the source data array
                         int posx = x * srcPixelStride;
-                        // PixelPositions
-                        int x0 = srcX + x;
-                        int y0 = srcY + y;
+                        // ROI value
+                        int w = roiMask[x + y * srcWidth];
                         // Control if the sample is inside ROI
-                        if (roiBounds.contains(x0, y0)) {
-                            // ROI value
-                            int w = roiIter.getSample(x0, y0, 0) & 0xff;
-                            if (w != 0) {
-                                // Cycle on the selected Bands
-                                for (int i = 0; i < selectedBands; i++) {
-                                    double sample = srcData[bands[i]][posx + posy
-                                            + srcBandOffsets[bands[i]]];
-                                    // Control if the sample is Not a NO Data
-                                    boolean isData = !noData.contains(sample);
-                                    if (isData) {
-                                        for (int j = 0; j < statNum; j++) {
-                                            // Update of all the statistics
-                                            statArray[i][j].addSample(sample);
-                                        }
+                        if (w != 0) {
+                            // Cycle on the selected Bands
+                            for (int i = 0; i < selectedBands; i++) {
+                                double sample = srcData[bands[i]][posx + posy
+                                        + srcBandOffsets[bands[i]]];
+                                // Control if the sample is Not a NO Data
+                                boolean isData = !noData.contains(sample);
+                                if (isData) {
+                                    for (int j = 0; j < numStats; j++) {
+                                        // Update of all the statistics
+                                        statArray[i][j].addSample(sample);
                                     }
                                 }
                             }
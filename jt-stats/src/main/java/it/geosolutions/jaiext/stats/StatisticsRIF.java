@@ -53,6 +53,8 @@ public class StatisticsRIF implements RenderedImageFactory {
         boolean useROIAccessor = (Boolean) pb.getObjectParameter(4);
         int[] bands = (int[]) pb.getObjectParameter(5);
         StatsType[] statsTypes = (StatsType[]) pb.getObjectParameter(6);
+        // Number of threads used for computing the statistics
+        int parallelism = pb.getNumParameters() > 10 ? pb.getIntParameter(10) : 1;
 
         // Control which subclass of the StatisticsOpImage must be called
         boolean isSimpleStat = true;
@@ -65,17 +67,20 @@ public class StatisticsRIF implements RenderedImageFactory {
         }
 
         // Creation of the OpImage
+        StatisticsOpImage image;
         if (isSimpleStat) {
-            return new SimpleStatsOpImage(source, xPeriod, yPeriod, roi, noData,
+            image = new SimpleStatsOpImage(source, xPeriod, yPeriod, roi, noData,
                     useROIAccessor, bands, statsTypes);
         } else {
             // Selection of the bounds parameters
             double[] minBounds = (double[]) pb.getObjectParameter(7);
             double[] maxBounds = (double[]) pb.getObjectParameter(8);
             int[] numBins = (int[]) pb.getObjectParameter(9);
-            return new ComplexStatsOpImage(source, xPeriod, yPeriod, roi, noData,
+            image = new ComplexStatsOpImage(source, xPeriod, yPeriod, roi, noData,
                     useROIAccessor, bands, statsTypes, minBounds, maxBounds, numBins);
         }
+        image.setParallelism(parallelism);
+        return image;
     }
 
 }
@@ -19,6 +19,8 @@ package it.geosolutions.jaiext.stats;
 
 import it.geosolutions.jaiext.stats.Statistics.StatsType;
 
+import java.awt.image.DataBuffer;
+
 /**
  * This factory class is used for creating all the possible {@link Statistics} subclasses. All the createXXXObject() methods give the possibility to
  * create the chosen statistic object without selecting any index, but only setting the requested parameters if necessary. The last 2 methods could be
@@ -80,6 +82,35 @@ public class StatsFactory {
         return new Median(minBound, maxBound);
     }
 
+    /**
+     * This method returns a statistic object for calculating the Median of an Image with a bounded memory. The result is exact for integral data
+     * types and has the {@link Quantile#DEFAULT_RELATIVE_ERROR} relative error for the other data types.
+     */
+    public static Statistics createQuantileMedianObject(double minBound, double maxBound,
+            int dataType) {
+        return new Quantile(StatsType.QUANTILE_MEDIAN, new double[] { 0.5 }, minBound, maxBound,
+                dataType, Quantile.DEFAULT_RELATIVE_ERROR);
+    }
+
+    /**
+     * This method returns a statistic object for calculating all the Percentiles of an Image, from 0 to 100, with a bounded memory. The result is
+     * exact for integral data types and has the {@link Quantile#DEFAULT_RELATIVE_ERROR} relative error for the other data types.
+     */
+    public static Statistics createPercentilesObject(double minBound, double maxBound, int dataType) {
+        return new Quantile(StatsType.PERCENTILES, Quantile.PERCENTILE_LEVELS, minBound, maxBound,
+                dataType, Quantile.DEFAULT_RELATIVE_ERROR);
+    }
+
+    /**
+     * This method returns a statistic object for calculating the selected quantiles (between 0 and 1) of an Image with a bounded memory. The
+     * result is exact for integral data types and has the selected relative error for the other data types.
+     */
+    public static Statistics createQuantilesObject(double[] quantiles, double minBound,
+            double maxBound, int dataType, double relativeError) {
+        return new Quantile(StatsType.PERCENTILES, quantiles, minBound, maxBound, dataType,
+                relativeError);
+    }
+
     /** This method returns the simple statistic object associated to the Id returned */
     public static Statistics createSimpleStatisticsObjectFromInt(int value) {
         // Selection of the related StatsType
@@ -108,6 +139,16 @@ public class StatsFactory {
     /** This method returns the complex statistic object associated to the Id returned */
     public static Statistics createComplexStatisticsObjectFromInt(int value, double minBound,
             double maxBound, int numBins) {
+        return createComplexStatisticsObjectFromInt(value, minBound, maxBound, numBins,
+                DataBuffer.TYPE_DOUBLE);
+    }
+
+    /**
+     * This method returns the complex statistic object associated to the Id returned; the image data type is used for selecting the exact
+     * calculation of the quantiles for integral data.
+     */
+    public static Statistics createComplexStatisticsObjectFromInt(int value, double minBound,
+            double maxBound, int numBins, int dataType) {
         // Selection of the related StatsType
         StatsType type = StatsType.values()[value];
         // Creation of the statistical object
@@ -118,6 +159,10 @@ public class StatsFactory {
             return createModeObject(numBins, minBound, maxBound);
         case MEDIAN:
             return createMedianObject(minBound, maxBound);
+        case QUANTILE_MEDIAN:
+            return createQuantileMedianObject(minBound, maxBound, dataType);
+        case PERCENTILES:
+            return createPercentilesObject(minBound, maxBound, dataType);
         default:
             throw new IllegalArgumentException("Wrong StatsType object selected");
         }
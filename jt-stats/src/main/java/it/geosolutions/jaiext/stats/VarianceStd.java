@@ -70,6 +70,13 @@ public class VarianceStd extends Statistics {
         sumSqrtValues += vstd.getSumSqrtValues();
     }
 
+    @Override
+    synchronized void accumulateSamples(SampleAccumulator acc) {
+        samples += acc.getCount();
+        sumValues += acc.getSum();
+        sumSqrtValues += acc.getSumSquares();
+    }
+
     @Override
     public Object getResult() {
         double varianceCalculated = (sumSqrtValues - (sumValues * sumValues) / samples)
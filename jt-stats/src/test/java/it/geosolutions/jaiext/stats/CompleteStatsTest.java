@@ -605,9 +605,59 @@ public class CompleteStatsTest extends TestBase {
         testStatistics(sourceIMG[5], band2, roiUsed, noDataRangeUsed, useROIAccessor);
     }
 
+    // This test checks that the ROI RasterAccessor handles the tiles fully contained inside the ROI, giving the same
+    // statistics of the ROI mask
+    @Test
+    public void testRoiAccessorInsideTiles() {
+        // The ROI contains the tiles (1,1), (1,2), (2,1), (2,2) and partially covers the tiles around them
+        ROI roiLarge = new ROIShape(new Rectangle(16, 16, 100, 100));
+        for (int i = 0; i < sourceIMG.length; i++) {
+            Statistics[][] accessor = (Statistics[][]) StatisticsDescriptor.create(sourceIMG[i],
+                    xPeriod, yPeriod, roiLarge, null, true, band2, simpleStats, null,
+                    null, null, 1, null).getProperty(Statistics.STATS_PROPERTY);
+            Statistics[][] mask = (Statistics[][]) StatisticsDescriptor.create(sourceIMG[i],
+                    xPeriod, yPeriod, roiLarge, null, false, band2, simpleStats, null,
+                    null, null, 1, null).getProperty(Statistics.STATS_PROPERTY);
+            for (int b = 0; b < band2.length; b++) {
+                for (int j = 0; j < simpleStats.length; j++) {
+                    assertEquals(mask[b][j].getNumSamples(), accessor[b][j].getNumSamples());
+                    if (simpleStats[j] == StatsType.EXTREMA) {
+                        double[] expected = (double[]) mask[b][j].getResult();
+                        double[] result = (double[]) accessor[b][j].getResult();
+                        assertEquals(expected[0], result[0], TOLERANCE);
+                        assertEquals(expected[1], result[1], TOLERANCE);
+                    } else {
+                        assertEquals((Double) mask[b][j].getResult(),
+                                (Double) accessor[b][j].getResult(), TOLERANCE);
+                    }
+                }
+            }
+        }
+    }
+
+    // This test checks if the statistics computed by multiple threads are correct, with and without ROI and No Data
+    @Test
+    public void testParallel() {
+        int parallelism = 4;
+        for (int i = 0; i < sourceIMG.length; i++) {
+            // No ROI nor No Data
+            testStatistics(sourceIMG[i], band2, false, false, false, parallelism);
+            // ROI (ROI RasterAccessor not used) and No Data
+            testStatistics(sourceIMG[i], band2, true, true, false, parallelism);
+            // ROI (ROI RasterAccessor used) and No Data
+            testStatistics(sourceIMG[i], band2, true, true, true, parallelism);
+        }
+    }
+
     // This method calculates the statistics with the SimpleStatsOpImage and then compares them with the already calculated values.
     public void testStatistics(RenderedImage source, int[] bands, boolean roiUsed,
             boolean noDataRangeUsed, boolean useRoiAccessor) {
+        testStatistics(source, bands, roiUsed, noDataRangeUsed, useRoiAccessor, 1);
+    }
+
+    // This method calculates the statistics with the selected number of threads and then compares them with the already calculated values.
+    public void testStatistics(RenderedImage source, int[] bands, boolean roiUsed,
+            boolean noDataRangeUsed, boolean useRoiAccessor, int parallelism) {
         // The precalculated roi is used, if selected by the related boolean.
         ROI roiData;
 
@@ -660,7 +710,8 @@ public class CompleteStatsTest extends TestBase {
 
         // Simple statistics
         RenderedImage dstSimple = StatisticsDescriptor.create(source, xPeriod, yPeriod, roiData,
-                noDataRange, useRoiAccessor, bands, simpleStats, null);
+                noDataRange, useRoiAccessor, bands, simpleStats, null, null, null, parallelism,
+                null);
         // Statistic calculation
         Statistics[][] resultSimple = (Statistics[][]) dstSimple
                 .getProperty(Statistics.STATS_PROPERTY);
@@ -668,7 +719,7 @@ public class CompleteStatsTest extends TestBase {
         // Complex statistics
         RenderedImage dstComplex = StatisticsDescriptor
                 .create(source, xPeriod, yPeriod, roiData, noDataRange, useRoiAccessor, bands,
-                        complexStats, minBound, maxBound, numBins, null);
+                        complexStats, minBound, maxBound, numBins, parallelism, null);
         // Statistic calculation
         Statistics[][] resultComplex = (Statistics[][]) dstComplex
                 .getProperty(Statistics.STATS_PROPERTY);
@@ -0,0 +1,143 @@
+/* JAI-Ext - OpenSource Java Advanced Image Extensions Library
+*    http://www.geo-solutions.it/
+*    Copyright 2014 GeoSolutions
+
+
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+
+* http://www.apache.org/licenses/LICENSE-2.0
+
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package it.geosolutions.jaiext.stats;
+
+import static org.junit.Assert.*;
+
+import java.awt.image.DataBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * This test-class verifies that the {@link Quantile} statistics compute the median and the percentiles correctly: the exact histogram used for the
+ * integral data types must return the same values of a sorted array, while the sketch used for the other data types must stay within the
+ * relative error requested. Also the accumulation of partial results and the clearing of the statistics are tested.
+ */
+public class QuantileTest {
+
+    /** Tolerance value used for comparison between double */
+    private final static double TOLERANCE = 1E-9d;
+
+    @Test
+    public void testExactPercentilesAccumulation() {
+        Random random = new Random(1);
+        Statistics total = StatsFactory.createPercentilesObject(Double.NEGATIVE_INFINITY,
+                Double.POSITIVE_INFINITY, DataBuffer.TYPE_USHORT);
+        Statistics median = StatsFactory.createQuantileMedianObject(Double.NEGATIVE_INFINITY,
+                Double.POSITIVE_INFINITY, DataBuffer.TYPE_USHORT);
+        assertTrue(((Quantile) total).isExact());
+
+        // Partial statistics, as computed by the single tiles
+        double[] samples = new double[20001];
+        int n = 0;
+        for (int t = 0; t < 4; t++) {
+            Statistics partial = StatsFactory.createPercentilesObject(Double.NEGATIVE_INFINITY,
+                    Double.POSITIVE_INFINITY, DataBuffer.TYPE_USHORT);
+            Statistics partialMedian = StatsFactory.createQuantileMedianObject(
+                    Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, DataBuffer.TYPE_USHORT);
+            int size = t == 0 ? 5001 : 5000;
+            for (int i = 0; i < size; i++) {
+                double value = random.nextInt(60000);
+                samples[n++] = value;
+                partial.addSample(value);
+                partialMedian.addSample(value);
+            }
+            total.accumulateStats(partial);
+            median.accumulateStats(partialMedian);
+        }
+        Arrays.sort(samples);
+
+        double[] percentiles = (double[]) total.getResult();
+        assertEquals(101, percentiles.length);
+        assertEquals(samples.length, total.getNumSamples().longValue());
+        for (int p = 0; p <= 100; p++) {
+            assertEquals(interpolate(samples, p / 100d), percentiles[p], TOLERANCE);
+        }
+        assertEquals(samples[samples.length / 2], (Double) median.getResult(), TOLERANCE);
+    }
+
+    @Test
+    public void testSketchRelativeError() {
+        Random random = new Random(2);
+        Statistics sketch = StatsFactory.createPercentilesObject(Double.NEGATIVE_INFINITY,
+                Double.POSITIVE_INFINITY, DataBuffer.TYPE_FLOAT);
+        assertFalse(((Quantile) sketch).isExact());
+
+        double[] samples = new double[50000];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = random.nextGaussian() * 1000;
+            sketch.addSample(samples[i]);
+        }
+        Arrays.sort(samples);
+
+        double[] percentiles = (double[]) sketch.getResult();
+        // Minimum and maximum are always exact
+        assertEquals(samples[0], percentiles[0], TOLERANCE);
+        assertEquals(samples[samples.length - 1], percentiles[100], TOLERANCE);
+        for (int p = 1; p < 100; p++) {
+            double expected = interpolate(samples, p / 100d);
+            assertEquals(expected, percentiles[p],
+                    Math.abs(expected) * Quantile.DEFAULT_RELATIVE_ERROR + TOLERANCE);
+        }
+    }
+
+    @Test
+    public void testEmptyAndClearedStats() {
+        Statistics median = StatsFactory.createQuantileMedianObject(Double.NEGATIVE_INFINITY,
+                Double.POSITIVE_INFINITY, DataBuffer.TYPE_BYTE);
+        assertTrue(Double.isNaN((Double) median.getResult()));
+        for (int i = 1; i <= 4; i++) {
+            median.addSample(i);
+        }
+        // Even number of samples: mean of the two central values
+        assertEquals(2.5, (Double) median.getResult(), TOLERANCE);
+
+        median.clearStats();
+        assertTrue(Double.isNaN((Double) median.getResult()));
+        median.addSample(7);
+        assertEquals(7, (Double) median.getResult(), TOLERANCE);
+
+        Statistics sketch = StatsFactory.createQuantileMedianObject(0, 10, DataBuffer.TYPE_DOUBLE);
+        assertTrue(Double.isNaN((Double) sketch.getResult()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAccumulateException() {
+        Statistics median = StatsFactory.createQuantileMedianObject(Double.NEGATIVE_INFINITY,
+                Double.POSITIVE_INFINITY, DataBuffer.TYPE_BYTE);
+        median.accumulateStats(StatsFactory.createMeanObject());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAccumulateDifferentLevels() {
+        Statistics median = StatsFactory.createQuantileMedianObject(Double.NEGATIVE_INFINITY,
+                Double.POSITIVE_INFINITY, DataBuffer.TYPE_BYTE);
+        median.accumulateStats(StatsFactory.createPercentilesObject(Double.NEGATIVE_INFINITY,
+                Double.POSITIVE_INFINITY, DataBuffer.TYPE_BYTE));
+    }
+
+    /** Returns the quantile of the sorted array, interpolating linearly between the nearest ranks */
+    private static double interpolate(double[] sorted, double level) {
+        double rank = level * (sorted.length - 1);
+        int low = (int) Math.floor(rank);
+        int high = Math.min(low + 1, sorted.length - 1);
+        return sorted[low] + (rank - low) * (sorted[high] - sorted[low]);
+    }
+}
@@ -0,0 +1,182 @@
+/* JAI-Ext - OpenSource Java Advanced Image Extensions Library
+*    http://www.geo-solutions.it/
+*    Copyright 2014 GeoSolutions
+
+
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+
+* http://www.apache.org/licenses/LICENSE-2.0
+
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package it.geosolutions.jaiext.warp;
+
+import it.geosolutions.jaiext.iterators.RandomIterFactory;
+
+import java.awt.Rectangle;
+import java.awt.image.DataBuffer;
+import java.awt.image.Raster;
+
+import javax.media.jai.PlanarImage;
+import javax.media.jai.RasterAccessor;
+import javax.media.jai.RasterFormatTag;
+import javax.media.jai.iterator.RandomIter;
+
+/**
+ * Random access to the source pixels used by the warp kernels. The source area mapped by a destination tile is read once through a
+ * {@link RasterAccessor} and its samples are then taken directly from the data arrays; the positions falling outside of this window (e.g. because
+ * the mapping of the tile bounds does not contain all the warped positions) are read with a {@link RandomIter} on the whole image, created only
+ * when needed. If no window is provided, all the samples are read with the iterator.
+ */
+final class SourceWindow {
+
+    /** Image to read */
+    private final PlanarImage image;
+
+    /** Window bounds; the maximum coordinates are excluded */
+    private final int minX;
+
+    private final int minY;
+
+    private final int maxX;
+
+    private final int maxY;
+
+    /** Data type of the window arrays */
+    private final int dataType;
+
+    private final int lineStride;
+
+    private final int pixelStride;
+
+    private final int[] bandOffsets;
+
+    private byte[][] byteData;
+
+    private short[][] shortData;
+
+    private int[][] intData;
+
+    private float[][] floatData;
+
+    private double[][] doubleData;
+
+    /** Iterator used for the positions outside the window */
+    private RandomIter iter;
+
+    /**
+     * Creates a new window on the input image.
+     * 
+     * @param image image to read
+     * @param window area to read directly, contained inside the image bounds, or null
+     * @param tag format tag used for reading the window
+     */
+    SourceWindow(PlanarImage image, Rectangle window, RasterFormatTag tag) {
+        this.image = image;
+        if (window == null || window.isEmpty()) {
+            minX = minY = maxX = maxY = 0;
+            dataType = DataBuffer.TYPE_UNDEFINED;
+            lineStride = pixelStride = 0;
+            bandOffsets = null;
+            return;
+        }
+        // Use the tile directly if the window does not span multiple tiles
+        Raster data;
+        int tileX = image.XToTileX(window.x);
+        int tileY = image.YToTileY(window.y);
+        if (tileX == image.XToTileX(window.x + window.width - 1)
+                && tileY == image.YToTileY(window.y + window.height - 1)) {
+            data = image.getTile(tileX, tileY);
+        } else {
+            data = image.getData(window);
+        }
+        RasterAccessor accessor = new RasterAccessor(data, window, tag, image.getColorModel());
+        minX = window.x;
+        minY = window.y;
+        maxX = window.x + window.width;
+        maxY = window.y + window.height;
+        dataType = accessor.getDataType();
+        lineStride = accessor.getScanlineStride();
+        pixelStride = accessor.getPixelStride();
+        bandOffsets = accessor.getBandOffsets();
+        switch (dataType) {
+        case DataBuffer.TYPE_BYTE:
+            byteData = accessor.getByteDataArrays();
+            break;
+        case DataBuffer.TYPE_USHORT:
+        case DataBuffer.TYPE_SHORT:
+            shortData = accessor.getShortDataArrays();
+            break;
+        case DataBuffer.TYPE_INT:
+            intData = accessor.getIntDataArrays();
+            break;
+        case DataBuffer.TYPE_FLOAT:
+            floatData = accessor.getFloatDataArrays();
+            break;
+        case DataBuffer.TYPE_DOUBLE:
+            doubleData = accessor.getDoubleDataArrays();
+            break;
+        }
+    }
+
+    /** Returns the sample at the selected position as an integer */
+    int getSample(int x, int y, int b) {
+        if (x < minX || x >= maxX || y < minY || y >= maxY) {
+            return getIterator().getSample(x, y, b);
+        }
+        final int pos = bandOffsets[b] + (y - minY) * lineStride + (x - minX) * pixelStride;
+        switch (dataType) {
+        case DataBuffer.TYPE_BYTE:
+            return byteData[b][pos] & 0xFF;
+        case DataBuffer.TYPE_USHORT:
+            return shortData[b][pos] & 0xFFFF;
+        case DataBuffer.TYPE_SHORT:
+            return shortData[b][pos];
+        case DataBuffer.TYPE_INT:
+            return intData[b][pos];
+        case DataBuffer.TYPE_FLOAT:
+            return (int) floatData[b][pos];
+        default:
+            return (int) doubleData[b][pos];
+        }
+    }
+
+    /** Returns the sample at the selected position as a float */
+    float getSampleFloat(int x, int y, int b) {
+        if (dataType != DataBuffer.TYPE_FLOAT || x < minX || x >= maxX || y < minY || y >= maxY) {
+            return getIterator().getSampleFloat(x, y, b);
+        }
+        return floatData[b][bandOffsets[b] + (y - minY) * lineStride + (x - minX) * pixelStride];
+    }
+
+    /** Returns the sample at the selected position as a double */
+    double getSampleDouble(int x, int y, int b) {
+        if (dataType != DataBuffer.TYPE_DOUBLE || x < minX || x >= maxX || y < minY
+                || y >= maxY) {
+            return getIterator().getSampleDouble(x, y, b);
+        }
+        return doubleData[b][bandOffsets[b] + (y - minY) * lineStride + (x - minX) * pixelStride];
+    }
+
+    /** Releases the resources used by this window */
+    void done() {
+        if (iter != null) {
+            iter.done();
+            iter = null;
+        }
+    }
+
+    private RandomIter getIterator() {
+        if (iter == null) {
+            iter = RandomIterFactory.create(image, image.getBounds(), WarpOpImage.TILE_CACHED,
+                    WarpOpImage.ARRAY_CALC);
+        }
+        return iter;
+    }
+}
@@ -183,12 +183,12 @@ final class WarpBicubicOpImage extends WarpOpImage {
     protected void computeRectByte(final PlanarImage src, final RasterAccessor dst,
             final RandomIter roiIter, boolean roiContainsTile) {
 
-        // Random Iterator initialization, taking into account the presence of the borderExtender
-        RandomIter iterSource;
+        // Source window initialization, taking into account the presence of the borderExtender
+        SourceWindow iterSource;
         final int minX, maxX, minY, maxY;
         if (extended) {
-            // Creation of an iterator on the image extended by the padding factors
-            iterSource = getRandomIterator(src, leftPad, rightPad, topPad, bottomPad, extender);
+            // Creation of a window on the image extended by the padding factors
+            iterSource = getSourceWindow(src, dst, leftPad, rightPad, topPad, bottomPad, extender);
             // Definition of the image bounds
             minX = src.getMinX();
             maxX = src.getMaxX();
@@ -196,8 +196,8 @@ final class WarpBicubicOpImage extends WarpOpImage {
             maxY = src.getMaxY();
 
         } else {
-            // Creation of an iterator on the image
-            iterSource = getRandomIterator(src, null);
+            // Creation of a window on the image
+            iterSource = getSourceWindow(src, dst, leftPad, rightPad, topPad, bottomPad, null);
             // Definition of the image bounds
             minX = src.getMinX() + leftPad; // Left padding
             maxX = src.getMaxX() - rightPad; // Right padding
@@ -998,12 +998,12 @@ final class WarpBicubicOpImage extends WarpOpImage {
 
     protected void computeRectUShort(final PlanarImage src, final RasterAccessor dst,
             final RandomIter roiIter, boolean roiContainsTile) {
-        // Random Iterator initialization, taking into account the presence of the borderExtender
-        RandomIter iterSource;
+        // Source window initialization, taking into account the presence of the borderExtender
+        SourceWindow iterSource;
         final int minX, maxX, minY, maxY;
         if (extended) {
-            // Creation of an iterator on the image extended by the padding factors
-            iterSource = getRandomIterator(src, leftPad, rightPad, topPad, bottomPad, extender);
+            // Creation of a window on the image extended by the padding factors
+            iterSource = getSourceWindow(src, dst, leftPad, rightPad, topPad, bottomPad, extender);
             // Definition of the image bounds
             minX = src.getMinX();
             maxX = src.getMaxX();
@@ -1011,8 +1011,8 @@ final class WarpBicubicOpImage extends WarpOpImage {
             maxY = src.getMaxY();
 
         } else {
-            // Creation of an iterator on the image
-            iterSource = getRandomIterator(src, null);
+            // Creation of a window on the image
+            iterSource = getSourceWindow(src, dst, leftPad, rightPad, topPad, bottomPad, null);
             // Definition of the image bounds
             minX = src.getMinX() + leftPad; // Left padding
             maxX = src.getMaxX() - rightPad; // Right padding
@@ -1426,12 +1426,12 @@ final class WarpBicubicOpImage extends WarpOpImage {
 
     protected void computeRectShort(final PlanarImage src, final RasterAccessor dst,
             final RandomIter roiIter, boolean roiContainsTile) {
-        // Random Iterator initialization, taking into account the presence of the borderExtender
-        RandomIter iterSource;
+        // Source window initialization, taking into account the presence of the borderExtender
+        SourceWindow iterSource;
         final int minX, maxX, minY, maxY;
         if (extended) {
-            // Creation of an iterator on the image extended by the padding factors
-            iterSource = getRandomIterator(src, leftPad, rightPad, topPad, bottomPad, extender);
+            // Creation of a window on the image extended by the padding factors
+            iterSource = getSourceWindow(src, dst, leftPad, rightPad, topPad, bottomPad, extender);
             // Definition of the image bounds
             minX = src.getMinX();
             maxX = src.getMaxX();
@@ -1439,8 +1439,8 @@ final class WarpBicubicOpImage extends WarpOpImage {
             maxY = src.getMaxY();
 
         } else {
-            // Creation of an iterator on the image
-            iterSource = getRandomIterator(src, null);
+            // Creation of a window on the image
+            iterSource = getSourceWindow(src, dst, leftPad, rightPad, topPad, bottomPad, null);
             // Definition of the image bounds
             minX = src.getMinX() + leftPad; // Left padding
             maxX = src.getMaxX() - rightPad; // Right padding
@@ -1854,12 +1854,12 @@ final class WarpBicubicOpImage extends WarpOpImage {
 
     protected void computeRectInt(final PlanarImage src, final RasterAccessor dst,
             final RandomIter roiIter, boolean roiContainsTile) {
-        // Random Iterator initialization, taking into account the presence of the borderExtender
-        RandomIter iterSource;
+        // Source window initialization, taking into account the presence of the borderExtender
+        SourceWindow iterSource;
         final int minX, maxX, minY, maxY;
         if (extended) {
-            // Creation of an iterator on the image extended by the padding factors
-            iterSource = getRandomIterator(src, leftPad, rightPad, topPad, bottomPad, extender);
+            // Creation of a window on the image extended by the padding factors
+            iterSource = getSourceWindow(src, dst, leftPad, rightPad, topPad, bottomPad, extender);
             // Definition of the image bounds
             minX = src.getMinX();
             maxX = src.getMaxX();
@@ -1867,8 +1867,8 @@ final class WarpBicubicOpImage extends WarpOpImage {
             maxY = src.getMaxY();
 
         } else {
-            // Creation of an iterator on the image
-            iterSource = getRandomIterator(src, null);
+            // Creation of a window on the image
+            iterSource = getSourceWindow(src, dst, leftPad, rightPad, topPad, bottomPad, null);
             // Definition of the image bounds
             minX = src.getMinX() + leftPad; // Left padding
             maxX = src.getMaxX() - rightPad; // Right padding
@@ -2282,12 +2282,12 @@ final class WarpBicubicOpImage extends WarpOpImage {
 
     protected void computeRectFloat(final PlanarImage src, final RasterAccessor dst,
             final RandomIter roiIter, boolean roiContainsTile) {
-        // Random Iterator initialization, taking into account the presence of the borderExtender
-        RandomIter iterSource;
+        // Source window initialization, taking into account the presence of the borderExtender
+        SourceWindow iterSource;
         final int minX, maxX, minY, maxY;
         if (extended) {
-            // Creation of an iterator on the image extended by the padding factors
-            iterSource = getRandomIterator(src, leftPad, rightPad, topPad, bottomPad, extender);
+            // Creation of a window on the image extended by the padding factors
+            iterSource = getSourceWindow(src, dst, leftPad, rightPad, topPad, bottomPad, extender);
             // Definition of the image bounds
             minX = src.getMinX();
             maxX = src.getMaxX();
@@ -2295,8 +2295,8 @@ final class WarpBicubicOpImage extends WarpOpImage {
             maxY = src.getMaxY();
 
         } else {
-            // Creation of an iterator on the image
-            iterSource = getRandomIterator(src, null);
+            // Creation of a window on the image
+            iterSource = getSourceWindow(src, dst, leftPad, rightPad, topPad, bottomPad, null);
             // Definition of the image bounds
             minX = src.getMinX() + leftPad; // Left padding
             maxX = src.getMaxX() - rightPad; // Right padding
@@ -2704,12 +2704,12 @@ final class WarpBicubicOpImage extends WarpOpImage {
 
     protected void computeRectDouble(final PlanarImage src, final RasterAccessor dst,
             final RandomIter roiIter, boolean roiContainsTile) {
-        // Random Iterator initialization, taking into account the presence of the borderExtender
-        RandomIter iterSource;
+        // Source window initialization, taking into account the presence of the borderExtender
+        SourceWindow iterSource;
         final int minX, maxX, minY, maxY;
         if (extended) {
-            // Creation of an iterator on the image extended by the padding factors
-            iterSource = getRandomIterator(src, leftPad, rightPad, topPad, bottomPad, extender);
+            // Creation of a window on the image extended by the padding factors
+            iterSource = getSourceWindow(src, dst, leftPad, rightPad, topPad, bottomPad, extender);
             // Definition of the image bounds
             minX = src.getMinX();
             maxX = src.getMaxX();
@@ -2717,8 +2717,8 @@ final class WarpBicubicOpImage extends WarpOpImage {
             maxY = src.getMaxY();
 
         } else {
-            // Creation of an iterator on the image
-            iterSource = getRandomIterator(src, null);
+            // Creation of a window on the image
+            iterSource = getSourceWindow(src, dst, leftPad, rightPad, topPad, bottomPad, null);
             // Definition of the image bounds
             minX = src.getMinX() + leftPad; // Left padding
             maxX = src.getMaxX() - rightPad; // Right padding
@@ -3094,7 +3094,7 @@ final class WarpBicubicOpImage extends WarpOpImage {
      * Bicubic calculation for integer data
      * 
      * @param b band
-     * @param iterSource source image iterator
+     * @param iterSource source image window
      * @param xint source pixel X position
      * @param yint source pixel Y position
      * @param offsetX X fractional offset
@@ -3102,7 +3102,7 @@ final class WarpBicubicOpImage extends WarpOpImage {
      * @param t optional color table
      * @return
      */
-    private long bicubicCalculationInt(int b, RandomIter iterSource, int xint, int yint,
+    private long bicubicCalculationInt(int b, SourceWindow iterSource, int xint, int yint,
             int offsetX, int offsetY, byte[] t) {
 
         // Temporary sum initialization
@@ -3144,14 +3144,14 @@ final class WarpBicubicOpImage extends WarpOpImage {
      * Bicubic calculation for Float data
      * 
      * @param b band
-     * @param iterSource source image iterator
+     * @param iterSource source image window
      * @param xint source pixel X position
      * @param yint source pixel Y position
      * @param offsetX X fractional offset
      * @param offsetY Y fractional offset
      * @return
      */
-    private double bicubicCalculationFloat(int b, RandomIter iterSource, int xint, int yint,
+    private double bicubicCalculationFloat(int b, SourceWindow iterSource, int xint, int yint,
             int offsetX, int offsetY) {
 
         // Temporary sum initialization
@@ -3177,14 +3177,14 @@ final class WarpBicubicOpImage extends WarpOpImage {
      * Bicubic calculation for Double data
      * 
      * @param b band
-     * @param iterSource source image iterator
+     * @param iterSource source image window
      * @param xint source pixel X position
      * @param yint source pixel Y position
      * @param offsetX X fractional offset
      * @param offsetY Y fractional offset
      * @return
      */
-    private double bicubicCalculationDouble(int b, RandomIter iterSource, int xint, int yint,
+    private double bicubicCalculationDouble(int b, SourceWindow iterSource, int xint, int yint,
             int offsetX, int offsetY) {
 
         // Temporary sum initialization
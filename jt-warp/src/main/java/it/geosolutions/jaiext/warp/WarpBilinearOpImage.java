@@ -112,8 +112,8 @@ final class WarpBilinearOpImage extends WarpOpImage {
 
     protected void computeRectByte(final PlanarImage src, final RasterAccessor dst,
             final RandomIter roiIter, boolean roiContainsTile) {
-        // Random iterator initialization. If an extender is used, then an extended image is taken.
-        RandomIter iterSource = getRandomIterator(src, extender);
+        // Source window initialization. If an extender is used, then an extended image is taken.
+        SourceWindow iterSource = getSourceWindow(src, dst, 0, 1, 0, 1, extender);
 
         final int minX = src.getMinX();
         final int maxX = src.getMaxX() - (extended ? 0 : 1); // Right padding
@@ -602,8 +602,8 @@ final class WarpBilinearOpImage extends WarpOpImage {
 
     protected void computeRectUShort(final PlanarImage src, final RasterAccessor dst,
             final RandomIter roiIter, boolean roiContainsTile) {
-        // Random iterator initialization. If an extender is used, then an extended image is taken.
-        RandomIter iterSource = getRandomIterator(src, extender);
+        // Source window initialization. If an extender is used, then an extended image is taken.
+        SourceWindow iterSource = getSourceWindow(src, dst, 0, 1, 0, 1, extender);
 
         final int minX = src.getMinX();
         final int maxX = src.getMaxX() - (extended ? 0 : 1); // Right padding
@@ -854,8 +854,8 @@ final class WarpBilinearOpImage extends WarpOpImage {
 
     protected void computeRectShort(final PlanarImage src, final RasterAccessor dst,
             final RandomIter roiIter, boolean roiContainsTile) {
-        // Random iterator initialization. If an extender is used, then an extended image is taken.
-        RandomIter iterSource = getRandomIterator(src, extender);
+        // Source window initialization. If an extender is used, then an extended image is taken.
+        SourceWindow iterSource = getSourceWindow(src, dst, 0, 1, 0, 1, extender);
 
         final int minX = src.getMinX();
         final int maxX = src.getMaxX() - (extended ? 0 : 1); // Right padding
@@ -1106,8 +1106,8 @@ final class WarpBilinearOpImage extends WarpOpImage {
 
     protected void computeRectInt(final PlanarImage src, final RasterAccessor dst,
             final RandomIter roiIter, boolean roiContainsTile) {
-        // Random iterator initialization. If an extender is used, then an extended image is taken.
-        RandomIter iterSource = getRandomIterator(src, extender);
+        // Source window initialization. If an extender is used, then an extended image is taken.
+        SourceWindow iterSource = getSourceWindow(src, dst, 0, 1, 0, 1, extender);
 
         final int minX = src.getMinX();
         final int maxX = src.getMaxX() - (extended ? 0 : 1); // Right padding
@@ -1358,8 +1358,8 @@ final class WarpBilinearOpImage extends WarpOpImage {
 
     protected void computeRectFloat(final PlanarImage src, final RasterAccessor dst,
             final RandomIter roiIter, boolean roiContainsTile) {
-        // Random iterator initialization. If an extender is used, then an extended image is taken.
-        RandomIter iterSource = getRandomIterator(src, extender);
+        // Source window initialization. If an extender is used, then an extended image is taken.
+        SourceWindow iterSource = getSourceWindow(src, dst, 0, 1, 0, 1, extender);
 
         final int minX = src.getMinX();
         final int maxX = src.getMaxX() - (extended ? 0 : 1); // Right padding
@@ -1609,8 +1609,8 @@ final class WarpBilinearOpImage extends WarpOpImage {
 
     protected void computeRectDouble(final PlanarImage src, final RasterAccessor dst,
             final RandomIter roiIter, boolean roiContainsTile) {
-        // Random iterator initialization. If an extender is used, then an extended image is taken.
-        RandomIter iterSource = getRandomIterator(src, extender);
+        // Source window initialization. If an extender is used, then an extended image is taken.
+        SourceWindow iterSource = getSourceWindow(src, dst, 0, 1, 0, 1, extender);
 
         final int minX = src.getMinX();
         final int maxX = src.getMaxX() - (extended ? 0 : 1); // Right padding
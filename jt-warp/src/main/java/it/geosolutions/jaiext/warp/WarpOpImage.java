@@ -25,6 +25,7 @@ import java.awt.Point;
 import java.awt.Rectangle;
 import java.awt.RenderingHints;
 import java.awt.image.DataBuffer;
+import java.awt.image.IndexColorModel;
 import java.awt.image.Raster;
 import java.awt.image.RenderedImage;
 import java.awt.image.SampleModel;
@@ -67,6 +68,12 @@ public abstract class WarpOpImage extends javax.media.jai.WarpOpImage {
     /** Constant indicating that the inner random iterators must cache the current tile position */
     protected static final boolean TILE_CACHED = true;
 
+    /**
+     * Maximum ratio between the source window read for a tile and the tile area; for larger windows (strong reductions) only a small part of the
+     * source pixels is used, so they are read one by one
+     */
+    protected static final int MAX_WINDOW_SCALE = 16;
+
     /** Current ROI object */
     protected final ROI roi;
 
@@ -112,6 +119,9 @@ public abstract class WarpOpImage extends javax.media.jai.WarpOpImage {
     /** Rectangle associated to the ROI bounds*/
     protected Rectangle roiBounds;
 
+    /** Source image extended by the border extender, shared by all the tiles */
+    private volatile ExtendedImage extendedImage;
+
     public WarpOpImage(final RenderedImage source, final ImageLayout layout,
             final Map<?, ?> configuration, final boolean cobbleSources,
             final BorderExtender extender, final Interpolation interp, final Warp warp,
@@ -467,12 +477,122 @@ public abstract class WarpOpImage extends javax.media.jai.WarpOpImage {
             int topPad, int bottomPad, BorderExtender extender) {
         RandomIter iterSource;
         if (extended) {
-            RenderedOp op = BorderDescriptor.create(src, leftPad, rightPad, topPad, bottomPad,
-                    extender, noDataRange, backgroundValues != null ? backgroundValues[0] : 0d, hints);
+            RenderedOp op = getExtendedImage(src, leftPad, rightPad, topPad, bottomPad, extender);
             iterSource = RandomIterFactory.create(op, op.getBounds(), TILE_CACHED, ARRAY_CALC);
         } else {
             iterSource = RandomIterFactory.create(src, src.getBounds(), TILE_CACHED, ARRAY_CALC);
         }
         return iterSource;
     }
+
+    /**
+     * Returns a {@link SourceWindow} on the input image for the selected destination tile, containing the source area mapped by the tile. The
+     * samples of the window are read directly from the data arrays instead of passing through a RandomIter. Also it handles padding if present.
+     * 
+     * @param src
+     * @param dst
+     * @return
+     */
+    SourceWindow getSourceWindow(final PlanarImage src, final RasterAccessor dst,
+            int leftPad, int rightPad, int topPad, int bottomPad, BorderExtender extender) {
+        PlanarImage image = extended ? getExtendedImage(src, leftPad, rightPad, topPad,
+                bottomPad, extender) : src;
+        Rectangle window = null;
+        // The palette of an IndexColorModel would be expanded inside the window
+        if (!(src.getColorModel() instanceof IndexColorModel)) {
+            Rectangle destRect = new Rectangle(dst.getX(), dst.getY(), dst.getWidth(),
+                    dst.getHeight());
+            Rectangle srcRect = mapDestRect(destRect, 0);
+            if (srcRect != null) {
+                srcRect.setBounds(srcRect.x - interp.getLeftPadding() - leftPad, srcRect.y
+                        - interp.getTopPadding() - topPad, srcRect.width + interp.getWidth()
+                        + leftPad + rightPad, srcRect.height + interp.getHeight() + topPad
+                        + bottomPad);
+                srcRect = srcRect.intersection(image.getBounds());
+                if (!srcRect.isEmpty()
+                        && (long) srcRect.width * srcRect.height <= MAX_WINDOW_SCALE
+                                * (long) destRect.width * destRect.height) {
+                    window = srcRect;
+                }
+            }
+        }
+        return new SourceWindow(image, window, getFormatTags()[0]);
+    }
+
+    /**
+     * Returns the input image extended by the padding factors. The extended image is created only once and reused by the following calls with
+     * the same parameters, so that the tiles of the extended image can be cached and the "Border" operation is not created for each tile. The
+     * extended image created with different parameters is disposed. The method uses the Double-checked locking in order to maintain
+     * thread-safety
+     * 
+     * @return the "Border" operation extending the input image
+     */
+    RenderedOp getExtendedImage(final PlanarImage src, int leftPad, int rightPad,
+            int topPad, int bottomPad, BorderExtender extender) {
+        ExtendedImage ext = extendedImage;
+        if (ext == null || !ext.matches(src, leftPad, rightPad, topPad, bottomPad, extender)) {
+            synchronized (this) {
+                ext = extendedImage;
+                if (ext == null
+                        || !ext.matches(src, leftPad, rightPad, topPad, bottomPad, extender)) {
+                    if (ext != null) {
+                        ext.image.dispose();
+                    }
+                    RenderedOp op = BorderDescriptor.create(src, leftPad, rightPad, topPad,
+                            bottomPad, extender, noDataRange,
+                            backgroundValues != null ? backgroundValues[0] : 0d, hints);
+                    extendedImage = ext = new ExtendedImage(src, leftPad, rightPad, topPad,
+                            bottomPad, extender, op);
+                }
+            }
+        }
+        return ext.image;
+    }
+
+    @Override
+    public synchronized void dispose() {
+        if (extendedImage != null) {
+            extendedImage.image.dispose();
+            extendedImage = null;
+        }
+        super.dispose();
+    }
+
+    /**
+     * Extended source image together with the parameters used for creating it.
+     */
+    private static final class ExtendedImage {
+
+        private final PlanarImage source;
+
+        private final int leftPad;
+
+        private final int rightPad;
+
+        private final int topPad;
+
+        private final int bottomPad;
+
+        private final BorderExtender extender;
+
+        private final RenderedOp image;
+
+        ExtendedImage(PlanarImage source, int leftPad, int rightPad, int topPad,
+                int bottomPad, BorderExtender extender, RenderedOp image) {
+            this.source = source;
+            this.leftPad = leftPad;
+            this.rightPad = rightPad;
+            this.topPad = topPad;
+            this.bottomPad = bottomPad;
+            this.extender = extender;
+            this.image = image;
+        }
+
+        boolean matches(PlanarImage source, int leftPad, int rightPad, int topPad,
+                int bottomPad, BorderExtender extender) {
+            return this.source == source && this.leftPad == leftPad
+                    && this.rightPad == rightPad && this.topPad == topPad
+                    && this.bottomPad == bottomPad && this.extender == extender;
+        }
+    }
 }
@@ -17,10 +17,16 @@
 */
 package it.geosolutions.jaiext.warp;
 
+import static org.junit.Assert.assertSame;
+
 import java.awt.geom.AffineTransform;
 import java.awt.image.DataBuffer;
 import java.awt.image.RenderedImage;
 
+import javax.media.jai.BorderExtender;
+import javax.media.jai.InterpolationBilinear;
+import javax.media.jai.PlanarImage;
+import javax.media.jai.RenderedOp;
 import javax.media.jai.WarpAffine;
 
 import org.junit.AfterClass;
@@ -100,6 +106,20 @@ public class BilinearWarpTest extends TestWarp{
         super.testImageNoDataROI(interpType);
     }
 
+    @Test
+    public void testExtendedImageReused() {
+        // The "Border" operation is created once and used by all the tiles
+        BorderExtender extender = BorderExtender.createInstance(BorderExtender.BORDER_COPY);
+        WarpBilinearOpImage warp = new WarpBilinearOpImage(images[0], extender, null, null,
+                warpObj, new InterpolationBilinear(DEFAULT_SUBSAMPLE_BITS), null, null,
+                new double[] { 0 });
+        PlanarImage source = warp.getSourceImage(0);
+        RenderedOp extended = warp.getExtendedImage(source, 0, 1, 0, 1, extender);
+        warp.getTiles();
+        assertSame(extended, warp.getExtendedImage(source, 0, 1, 0, 1, extender));
+        warp.dispose();
+    }
+
     /**
      * Static method for disposing the test environment.
      */
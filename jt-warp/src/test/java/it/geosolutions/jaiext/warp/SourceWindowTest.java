@@ -0,0 +1,80 @@
+/* JAI-Ext - OpenSource Java Advanced Image Extensions Library
+*    http://www.geo-solutions.it/
+*    Copyright 2014 GeoSolutions
+
+
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+
+* http://www.apache.org/licenses/LICENSE-2.0
+
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package it.geosolutions.jaiext.warp;
+
+import static org.junit.Assert.assertEquals;
+
+import java.awt.Rectangle;
+import java.awt.image.DataBuffer;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+
+import javax.media.jai.PlanarImage;
+import javax.media.jai.RasterAccessor;
+import javax.media.jai.RasterFormatTag;
+
+import org.junit.Test;
+
+import it.geosolutions.jaiext.testclasses.TestBase;
+
+/**
+ * Test class checking that the samples read through a {@link SourceWindow} are equal to the image samples, both inside and outside the window.
+ */
+public class SourceWindowTest extends TestBase {
+
+    @Test
+    public void testSamples() {
+        boolean imageToFill = IMAGE_FILLER;
+        IMAGE_FILLER = true;
+        try {
+            int[] dataTypes = { DataBuffer.TYPE_BYTE, DataBuffer.TYPE_USHORT,
+                    DataBuffer.TYPE_SHORT, DataBuffer.TYPE_INT, DataBuffer.TYPE_FLOAT,
+                    DataBuffer.TYPE_DOUBLE };
+            Number[] noDataValues = { (byte) 55, (short) 55, (short) 55, 55, 55f, 55d };
+            for (int i = 0; i < dataTypes.length; i++) {
+                RenderedImage source = createTestImage(dataTypes[i], DEFAULT_WIDTH,
+                        DEFAULT_HEIGHT, noDataValues[i], false);
+                PlanarImage image = PlanarImage.wrapRenderedImage(source);
+                RasterFormatTag tag = RasterAccessor.findCompatibleTags(
+                        new RenderedImage[] { image }, image)[0];
+                // No window, a window inside a single tile and a window spanning multiple tiles
+                Rectangle[] windows = { null, new Rectangle(1, 1, 10, 10),
+                        new Rectangle(20, 30, 100, 50) };
+                for (Rectangle window : windows) {
+                    checkSamples(image, new SourceWindow(image, window, tag));
+                }
+            }
+        } finally {
+            IMAGE_FILLER = imageToFill;
+        }
+    }
+
+    private void checkSamples(PlanarImage image, SourceWindow window) {
+        Raster data = image.getData();
+        for (int y = image.getMinY(); y < image.getMaxY(); y += 3) {
+            for (int x = image.getMinX(); x < image.getMaxX(); x += 3) {
+                for (int b = 0; b < data.getNumBands(); b++) {
+                    assertEquals(data.getSample(x, y, b), window.getSample(x, y, b));
+                    assertEquals(data.getSampleFloat(x, y, b), window.getSampleFloat(x, y, b), 0f);
+                    assertEquals(data.getSampleDouble(x, y, b), window.getSampleDouble(x, y, b), 0d);
+                }
+            }
+        }
+        window.done();
+    }
+}
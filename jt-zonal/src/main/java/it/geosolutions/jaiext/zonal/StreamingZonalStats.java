@@ -0,0 +1,282 @@
+/* JAI-Ext - OpenSource Java Advanced Image Extensions Library
+*    http://www.geo-solutions.it/
+*    Copyright 2014 GeoSolutions
+
+
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+
+* http://www.apache.org/licenses/LICENSE-2.0
+
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package it.geosolutions.jaiext.zonal;
+
+import it.geosolutions.jaiext.range.Range;
+import it.geosolutions.jaiext.stats.Statistics.StatsType;
+
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.RenderedImage;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.TreeMap;
+
+import javax.media.jai.PlanarImage;
+import javax.media.jai.ROI;
+import javax.media.jai.RenderedOp;
+
+/**
+ * This class calculates the zonal statistics of a set of zones too big for being kept in memory, e.g. millions of geometries. The zones are read
+ * from an {@link Iterator}, grouped by the source image tile containing the center of their bounds and processed in batches with the "Zonal"
+ * operation; the results of each batch are notified to a {@link ZonalStatsListener} and then discarded. The memory used is therefore bounded by the
+ * batch size and by the maximum number of zones waiting for being processed, instead of the total number of zones.
+ * <p>
+ * The zones of a batch are all anchored to the same tile, or to a few adjacent tiles in row-major order, so that each batch reads only a small
+ * area of the source image. When the zones are supplied in a spatial order, a batch is processed as soon as its tile has collected enough zones;
+ * otherwise the pending zones are processed in tile order each time their number reaches the selected maximum. The batches are not processed in
+ * the order of the input zones, therefore the listener receives the position of each zone inside the iterator.
+ */
+public class StreamingZonalStats {
+
+    /** Default maximum number of zones calculated together */
+    public static final int DEFAULT_BATCH_SIZE = 1024;
+
+    /** Default maximum number of zones waiting for being processed */
+    public static final int DEFAULT_MAX_PENDING_ZONES = 16 * DEFAULT_BATCH_SIZE;
+
+    /** Source image */
+    private final RenderedImage source;
+
+    /** Optional classifier image */
+    private final RenderedImage classifier;
+
+    /** Transformation between the source image and the classifier */
+    private final AffineTransform transform;
+
+    /** No Data Range */
+    private final Range noData;
+
+    /** Optional ROI */
+    private final ROI mask;
+
+    /** Boolean indicating if the ROI RasterAccessor must be used */
+    private final boolean useROIAccessor;
+
+    /** Band indexes */
+    private final int[] bands;
+
+    /** Statistics to calculate */
+    private final StatsType[] stats;
+
+    /** Minimum bounds for the complex statistics */
+    private final double[] minBound;
+
+    /** Maximum bounds for the complex statistics */
+    private final double[] maxBound;
+
+    /** Number of bins for the complex statistics */
+    private final int[] numBins;
+
+    /** Ranges used for calculating the statistics */
+    private final List<Range> rangeData;
+
+    /** Boolean indicating if the statistics must be stored for each range */
+    private final boolean localStats;
+
+    /** Boolean indicating if the zones must be rasterized once per tile */
+    private final boolean rasterizeZones;
+
+    /** Hints used for creating the operation of each batch */
+    private final RenderingHints hints;
+
+    /** Maximum number of zones calculated together */
+    private int batchSize = DEFAULT_BATCH_SIZE;
+
+    /** Maximum number of zones waiting for being processed */
+    private int maxPendingZones = DEFAULT_MAX_PENDING_ZONES;
+
+    /**
+     * Creates a new object calculating the zonal statistics with the selected parameters; see {@link ZonalStatsDescriptor} for their meaning.
+     */
+    public StreamingZonalStats(RenderedImage source, RenderedImage classifier,
+            AffineTransform transform, Range noData, ROI mask, boolean useROIAccessor,
+            int[] bands, StatsType[] stats, double[] minBound, double[] maxBound, int[] numBins,
+            List<Range> rangeData, boolean localStats, boolean rasterizeZones,
+            RenderingHints hints) {
+        if (source == null) {
+            throw new IllegalArgumentException("Source image must be not null");
+        }
+        this.source = source;
+        this.classifier = classifier;
+        this.transform = transform;
+        this.noData = noData;
+        this.mask = mask;
+        this.useROIAccessor = useROIAccessor;
+        this.bands = bands;
+        this.stats = stats;
+        this.minBound = minBound;
+        this.maxBound = maxBound;
+        this.numBins = numBins;
+        this.rangeData = rangeData;
+        this.localStats = localStats;
+        this.rasterizeZones = rasterizeZones;
+        this.hints = hints;
+    }
+
+    /** Sets the maximum number of zones calculated together */
+    public void setBatchSize(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        this.batchSize = batchSize;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Sets the maximum number of zones waiting for being processed; a greater value groups better the zones supplied without a spatial order.
+     */
+    public void setMaxPendingZones(int maxPendingZones) {
+        if (maxPendingZones <= 0) {
+            throw new IllegalArgumentException("Maximum number of pending zones must be positive");
+        }
+        this.maxPendingZones = maxPendingZones;
+    }
+
+    public int getMaxPendingZones() {
+        return maxPendingZones;
+    }
+
+    /**
+     * Calculates the statistics of all the zones provided by the iterator, notifying the results of each batch to the listener.
+     * 
+     * @param zones Iterator on the zones to calculate
+     * @param listener Listener receiving the results of each batch
+     * @return the number of processed zones
+     */
+    public long process(Iterator<ROI> zones, ZonalStatsListener listener) {
+        if (zones == null || listener == null) {
+            throw new IllegalArgumentException("Zone iterator and listener must be not null");
+        }
+        // Zones waiting for being processed, grouped by tile in row-major order
+        TreeMap<Long, ZoneBatch> pending = new TreeMap<Long, ZoneBatch>();
+        int pendingZones = 0;
+        long position = 0;
+        while (zones.hasNext()) {
+            ROI zone = zones.next();
+            if (zone == null) {
+                throw new IllegalArgumentException("Zone " + position + " is null");
+            }
+            Long key = getTileKey(zone.getBounds());
+            ZoneBatch batch = pending.get(key);
+            if (batch == null) {
+                batch = new ZoneBatch();
+                pending.put(key, batch);
+            }
+            batch.add(zone, position++);
+            pendingZones++;
+
+            if (batch.size() >= batchSize) {
+                // The tile has enough zones for a batch
+                pending.remove(key);
+                pendingZones -= batch.size();
+                computeBatch(batch, listener);
+            } else if (pendingZones >= maxPendingZones) {
+                flush(pending, listener);
+                pendingZones = 0;
+            }
+        }
+        flush(pending, listener);
+        return position;
+    }
+
+    /** Processes all the pending zones, joining the zones of adjacent tiles until the batch size is reached */
+    private void flush(TreeMap<Long, ZoneBatch> pending, ZonalStatsListener listener) {
+        ZoneBatch current = null;
+        for (ZoneBatch batch : pending.values()) {
+            if (current == null) {
+                current = batch;
+            } else if (current.size() + batch.size() <= batchSize) {
+                current.addAll(batch);
+            } else {
+                computeBatch(current, listener);
+                current = batch;
+            }
+        }
+        if (current != null) {
+            computeBatch(current, listener);
+        }
+        pending.clear();
+    }
+
+    /** Calculates the statistics of a batch and notifies them to the listener */
+    private void computeBatch(ZoneBatch batch, ZonalStatsListener listener) {
+        RenderedOp op = ZonalStatsDescriptor.create(source, classifier, transform, batch.zones,
+                noData, mask, useROIAccessor, bands, stats, minBound, maxBound, numBins,
+                rangeData, localStats, rasterizeZones, hints);
+        try {
+            @SuppressWarnings("unchecked")
+            List<ZoneGeometry> results = (List<ZoneGeometry>) op
+                    .getProperty(ZonalStatsDescriptor.ZS_PROPERTY);
+            listener.batchCompleted(results, batch.getIndexes());
+        } finally {
+            // Release of the tiles cached for the batch
+            op.dispose();
+        }
+    }
+
+    /** Returns the key of the source tile containing the center of the input bounds, ordered by row and then by column */
+    private Long getTileKey(Rectangle bounds) {
+        int tileX = PlanarImage.XToTileX(bounds.x + bounds.width / 2,
+                source.getTileGridXOffset(), source.getTileWidth());
+        int tileY = PlanarImage.YToTileY(bounds.y + bounds.height / 2,
+                source.getTileGridYOffset(), source.getTileHeight());
+        return Long.valueOf(((long) tileY << 32) + ((long) tileX - Integer.MIN_VALUE));
+    }
+
+    /**
+     * Zones calculated together, with their position inside the input iterator.
+     */
+    private static class ZoneBatch {
+
+        private final List<ROI> zones = new ArrayList<ROI>();
+
+        private long[] indexes = new long[16];
+
+        void add(ROI zone, long index) {
+            if (zones.size() == indexes.length) {
+                long[] newIndexes = new long[indexes.length * 2];
+                System.arraycopy(indexes, 0, newIndexes, 0, indexes.length);
+                indexes = newIndexes;
+            }
+            indexes[zones.size()] = index;
+            zones.add(zone);
+        }
+
+        void addAll(ZoneBatch batch) {
+            for (int i = 0; i < batch.size(); i++) {
+                add(batch.zones.get(i), batch.indexes[i]);
+            }
+        }
+
+        int size() {
+            return zones.size();
+        }
+
+        long[] getIndexes() {
+            long[] result = new long[zones.size()];
+            System.arraycopy(indexes, 0, result, 0, result.length);
+            return result;
+        }
+    }
+}
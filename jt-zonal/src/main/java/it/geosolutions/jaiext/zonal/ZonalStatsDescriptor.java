@@ -58,9 +58,12 @@ import javax.media.jai.registry.RenderedRegistryMode;
  * <p>
  * It is important to remember that if the Median, Mode or Histogram operations must be executed, even their Bounds and Bin numbers must be defined.
  * The source can have all the possible JAI accepted data types. The statistical calculations are performed on every tile with an adequate
- * synchronization and stored inside an instance of the {@link ZoneGeometry} class. For avoiding concurrency issues, the statistic calculation is done
- * in a synchronized block. The statistical results are returned by calling the getProperty() method. The calculation happens only the first time for
- * avoiding unnecessary loss of time.
+ * synchronization and stored inside an instance of the {@link ZoneGeometry} class. For avoiding concurrency issues, each thread collects the
+ * statistics inside its own accumulators, which are merged into the {@link ZoneGeometry} objects when the tiles are computed. The statistical results are returned by calling the getProperty() method. The calculation happens only the first time for
+ * avoiding unnecessary loss of time. If the "rasterizeZones" parameter is set, each tile selects only once the geometries intersecting it and
+ * converts them into scanline spans, so that the pixels are accumulated without searching the geometries containing each of them. When the
+ * geometries are too many for being kept in memory, the {@link StreamingZonalStats} class can be used for reading them from an iterator and
+ * calculating them in batches.
  * </p>
  * 
  * <p>
@@ -155,6 +158,10 @@ import javax.media.jai.registry.RenderedRegistryMode;
  * <td>arg12Desc</td>
  * <td>Boolean indicating if the results must be calculated for each range.</td>
  * </tr>
+ * <tr>
+ * <td>arg13Desc</td>
+ * <td>Boolean indicating if the geometries must be rasterized once per tile.</td>
+ * </tr>
  * </table>
  * </p>
  * 
@@ -218,6 +225,10 @@ import javax.media.jai.registry.RenderedRegistryMode;
  * <td>localStats</td>
  * <td>Boolean</td>
  * <td>false</td>
+ * <tr>
+ * <td>rasterizeZones</td>
+ * <td>Boolean</td>
+ * <td>false</td>
  * </table>
  * </p>
  * 
@@ -256,7 +267,8 @@ public class ZonalStatsDescriptor extends OperationDescriptorImpl {
             { "arg10Desc",
                     "Array indicating the number of bins for complex statistics on all the selected bands" },
             { "arg11Desc", "List of the possible ranges for dividing the statistics" },
-            { "arg12Desc", "Boolean indicating if the results must be calculated for each range" }
+            { "arg12Desc", "Boolean indicating if the results must be calculated for each range" },
+            { "arg13Desc", "Boolean indicating if the geometries must be rasterized once per tile" }
 
     };
 
@@ -265,16 +277,16 @@ public class ZonalStatsDescriptor extends OperationDescriptorImpl {
             java.util.List.class, it.geosolutions.jaiext.range.Range.class,
             javax.media.jai.ROI.class, Boolean.class, int[].class,
             it.geosolutions.jaiext.stats.Statistics.StatsType[].class, double[].class,
-            double[].class, int[].class, java.util.List.class, Boolean.class };
+            double[].class, int[].class, java.util.List.class, Boolean.class, Boolean.class };
 
     /** The parameter name list for this operation. */
     private static final String[] paramNames = { "classifier", "transform", "roilist", "noData",
             "mask", "useROIAccessor", "bands", "stats", "minbound", "maxbound", "numbin",
-            "rangeData", "localStats" };
+            "rangeData", "localStats", "rasterizeZones" };
 
     /** The parameter default value list for this operation. */
     private static final Object[] paramDefaults = { null, null, null, null, null, false,
-            new int[] { 0 }, null, null, null, null, null, false };
+            new int[] { 0 }, null, null, null, null, null, false, false };
 
     public ZonalStatsDescriptor() {
         super(resources, 1, paramClasses, paramNames, paramDefaults);
@@ -314,6 +326,46 @@ public class ZonalStatsDescriptor extends OperationDescriptorImpl {
             boolean useROIAccessor, int[] bands, StatsType[] stats, double[] minBound,
             double[] maxBound, int[] numBins, List<Range> rangeData, boolean localStats,
             RenderingHints hints) {
+        return create(source, classifier, transform, roilist, noData, mask, useROIAccessor, bands,
+                stats, minBound, maxBound, numBins, rangeData, localStats, false, hints);
+    }
+
+    /**
+     * Performs statistical operations on different image zones defined by the input geometry list, optionally rasterizing the geometries once
+     * per tile.
+     * 
+     * <p>
+     * Creates a <code>ParameterBlockJAI</code> from all supplied arguments except <code>hints</code> and invokes
+     * {@link JAI#create(String,ParameterBlock,RenderingHints)}.
+     * 
+     * @see JAI
+     * @see ParameterBlockJAI
+     * @see RenderedOp
+     * 
+     * @param source <code>RenderedImage</code> source image.
+     * @param classifier <code>RenderedImage</code> optional classifier image(Integral dataType).
+     * @param transform affine transformation used for mapping source image on the classifier.
+     * @param roilist list of all the geometries.
+     * @param NoData No Data range used for calculation.
+     * @param mask optional mask for reducing the computations on a selected ROI.
+     * @param useROIAccessor boolean indicating if a ROI RasterAccessor should be used during computations with the mask.
+     * @param bands Array indicating which band to consider.
+     * @param stats Array indicating which statistics to consider.
+     * @param minBound Array indicating minimum bounds for complex computations.
+     * @param maxBound Array indicating maximum bounds for complex computations.
+     * @param numBins Array indicating the number of bins for complex computations.
+     * @param rangeData List of the possible range to calculate the statistics.
+     * @param localStats Boolean indicating if the statistics must be stored for each range.
+     * @param rasterizeZones Boolean indicating if the geometries must be converted into scanline spans once per tile.
+     * @param hints The <code>RenderingHints</code> to use.
+     * @return The <code>RenderedOp</code> source image.
+     * @throws IllegalArgumentException if <code>source</code> is <code>null</code>.
+     */
+    public static RenderedOp create(RenderedImage source, RenderedImage classifier,
+            AffineTransform transform, List<ROI> roilist, Range noData, ROI mask,
+            boolean useROIAccessor, int[] bands, StatsType[] stats, double[] minBound,
+            double[] maxBound, int[] numBins, List<Range> rangeData, boolean localStats,
+            boolean rasterizeZones, RenderingHints hints) {
         // Creation of a parameterBlockJAI containing all the operation parameters
         ParameterBlockJAI pb = new ParameterBlockJAI("Zonal", RenderedRegistryMode.MODE_NAME);
         // Source image
@@ -332,6 +384,7 @@ public class ZonalStatsDescriptor extends OperationDescriptorImpl {
         pb.setParameter("numbin", numBins);
         pb.setParameter("rangeData", rangeData);
         pb.setParameter("localStats", localStats);
+        pb.setParameter("rasterizeZones", rasterizeZones);
 
         // RenderedImage creation
         return JAI.create("Zonal", pb, hints);
@@ -0,0 +1,36 @@
+/* JAI-Ext - OpenSource Java Advanced Image Extensions Library
+*    http://www.geo-solutions.it/
+*    Copyright 2014 GeoSolutions
+
+
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+
+* http://www.apache.org/licenses/LICENSE-2.0
+
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package it.geosolutions.jaiext.zonal;
+
+import java.util.List;
+
+/**
+ * Interface used by the {@link StreamingZonalStats} class for notifying the statistics of each batch of zones, as soon as they have been
+ * calculated.
+ */
+public interface ZonalStatsListener {
+
+    /**
+     * Called when the statistics of a batch of zones have been calculated. The ZoneGeometry objects are not used anymore after this call, so they
+     * can be stored or written out and then discarded.
+     * 
+     * @param zones List of the ZoneGeometry objects containing the statistics of each zone of the batch
+     * @param zoneIndexes Array containing, for each ZoneGeometry of the list, the position of the related zone inside the input iterator
+     */
+    public void batchCompleted(List<ZoneGeometry> zones, long[] zoneIndexes);
+}
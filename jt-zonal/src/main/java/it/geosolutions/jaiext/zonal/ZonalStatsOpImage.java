@@ -32,10 +32,13 @@ import java.awt.image.RenderedImage;
 import java.awt.image.SampleModel;
 import java.awt.image.renderable.ParameterBlock;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.media.jai.BorderExtender;
@@ -64,7 +67,9 @@ import com.vividsolutions.jts.index.strtree.STRtree;
  * intersects the selected image pixel (in the case of overlapping). The final results can be returned by calling the getProperty() method with the
  * ZonalStatsDescriptor.ZS_PROPERTY. This method returns a list containing all the ZoneGeometries objects associated with each input geometry object.
  * The statistic results can be returned for each band or for each Class(if the classifier is present). It is important to remember that the
- * classifier must be of integral data type.
+ * classifier must be of integral data type. Optionally the geometries can be rasterized once per tile into scanline spans (see
+ * {@link #setRasterizeZones(boolean)}), avoiding the spatial index query and the containment check of every pixel. The samples are collected by
+ * each thread inside primitive arrays, without locking, and merged into the ZoneGeometries once all the tiles have been computed.
  */
 public class ZonalStatsOpImage extends OpImage {
 
@@ -158,6 +163,24 @@ public class ZonalStatsOpImage extends OpImage {
 
     private RenderedOp srcROIImgExt;
 
+    /** Boolean indicating if the zones are rasterized once per tile into scanline spans */
+    private boolean rasterizeZones;
+
+    /** Number of the input ranges */
+    private final int numRanges;
+
+    /** Statistics accumulators of each thread, one for each zone */
+    private volatile ThreadLocal<ZoneAccumulator[]> threadAccumulators = new ThreadLocal<ZoneAccumulator[]>();
+
+    /** List of all the thread accumulators not yet merged */
+    private final List<ZoneAccumulator[]> accumulatorList = new ArrayList<ZoneAccumulator[]>();
+
+    /** Lock shared by the tile computations updating the accumulators, taken exclusively for merging or discarding them */
+    private final ReadWriteLock accumulatorLock = new ReentrantReadWriteLock();
+
+    /** Lock making the statistics requests wait for the computation and the merge started by another request */
+    private final Object statisticsLock = new Object();
+
     public ZonalStatsOpImage(RenderedImage source, ImageLayout layout, Map configuration,
             RenderedImage classifier, AffineTransform transform, List<ROI> rois, Range noData,
             ROI mask, boolean useROIAccessor, int[] bands, StatsType[] statsTypes,
@@ -323,6 +346,7 @@ public class ZonalStatsOpImage extends OpImage {
         }
 
         rangesNoClass = ranges && !classPresent;
+        numRanges = ranges ? rangeList.size() : 0;
 
         // Creation of a ZoneGeometry list, for storing the results
         // Check if the rois are present. Otherwise the entire image statistics
@@ -350,12 +374,12 @@ public class ZonalStatsOpImage extends OpImage {
             // Creation of a new ZoneGeometry
             ZoneGeometry geom;
             if (ranges && localStats) {
-                geom = new ZoneGeometry(roi, rangeList, bands, statsTypes, classPresent, minBounds,
-                        maxBounds, numBinss);
+                geom = new ZoneGeometry(0, roi, rangeList, bands, statsTypes, classPresent,
+                        minBounds, maxBounds, numBinss, dataType);
             } else {
 
-                geom = new ZoneGeometry(roi, simpleRange, bands, statsTypes, classPresent,
-                        minBounds, maxBounds, numBinss);
+                geom = new ZoneGeometry(0, roi, simpleRange, bands, statsTypes, classPresent,
+                        minBounds, maxBounds, numBinss, dataType);
             }
             // Addition to the geometries list
             spatialIndex.insert(env, geom);
@@ -381,12 +405,12 @@ public class ZonalStatsOpImage extends OpImage {
                 // Creation of a new ZoneGeometry
                 ZoneGeometry geom;
                 if (ranges && localStats) {
-                    geom = new ZoneGeometry(roi, rangeList, bands, statsTypes, classPresent,
-                            minBounds, maxBounds, numBinss);
+                    geom = new ZoneGeometry(zoneList.size(), roi, rangeList, bands, statsTypes,
+                            classPresent, minBounds, maxBounds, numBinss, dataType);
                 } else {
 
-                    geom = new ZoneGeometry(roi, simpleRange, bands, statsTypes, classPresent,
-                            minBounds, maxBounds, numBinss);
+                    geom = new ZoneGeometry(zoneList.size(), roi, simpleRange, bands, statsTypes,
+                            classPresent, minBounds, maxBounds, numBinss, dataType);
                 }
                 // Addition to the geometries list
                 spatialIndex.insert(env, geom);
@@ -483,6 +507,23 @@ public class ZonalStatsOpImage extends OpImage {
         return new Rectangle(source.getMinX(), source.getMinY(), source.getWidth(), source.getHeight());
     }
 
+    /**
+     * Sets if the zones must be rasterized once per tile. If <code>true</code>, every tile selects the zones intersecting it with a single spatial
+     * index query and converts each of them into horizontal pixel spans, whose pixels are accumulated without any further query or containment
+     * check; otherwise the zones containing each pixel are searched pixel by pixel. The new value is used starting from the next computation of
+     * the statistics.
+     * 
+     * @param rasterizeZones boolean indicating if the zones must be rasterized once per tile
+     */
+    public void setRasterizeZones(boolean rasterizeZones) {
+        this.rasterizeZones = rasterizeZones;
+    }
+
+    /** Returns true if the zones are rasterized once per tile */
+    public boolean isRasterizeZones() {
+        return rasterizeZones;
+    }
+
     public Raster computeTile(int tileX, int tileY) {
         // Selection of the tile associated with the tile x and y indexes
         Raster tile = getSourceImage(0).getTile(tileX, tileY);
@@ -524,39 +565,52 @@ public class ZonalStatsOpImage extends OpImage {
                                 srcROIImage)[0], srcROIImage.getColorModel());
             }
 
-            // Image dataType
-            int dataType = tile.getSampleModel().getDataType();
-            // From the data type is possible to choose the right calculation method
-            switch (dataType) {
-            case DataBuffer.TYPE_BYTE:
-                byteLoop(src, computableArea, tileX, tileY, roi);
-                break;
-            case DataBuffer.TYPE_USHORT:
-                ushortLoop(src, computableArea, tileX, tileY, roi);
-                break;
-            case DataBuffer.TYPE_SHORT:
-                shortLoop(src, computableArea, tileX, tileY, roi);
-                break;
-            case DataBuffer.TYPE_INT:
-                intLoop(src, computableArea, tileX, tileY, roi);
-                break;
-            case DataBuffer.TYPE_FLOAT:
-                floatLoop(src, computableArea, tileX, tileY, roi);
-                break;
-            case DataBuffer.TYPE_DOUBLE:
-                doubleLoop(src, computableArea, tileX, tileY, roi);
-                break;
-            default:
-                throw new IllegalArgumentException("Wrong data type");
+            // The accumulators cannot be merged or discarded while the tile is computed
+            accumulatorLock.readLock().lock();
+            try {
+                // Accumulators of the current thread
+                ZoneAccumulator[] accumulators = getAccumulators();
+
+                // Image dataType
+                int dataType = tile.getSampleModel().getDataType();
+                if (rasterizeZones) {
+                    spanLoop(src, computableArea, tileX, tileY, roi, dataType, accumulators);
+                    return tile;
+                }
+                // From the data type is possible to choose the right calculation method
+                switch (dataType) {
+                case DataBuffer.TYPE_BYTE:
+                    byteLoop(src, computableArea, tileX, tileY, roi, accumulators);
+                    break;
+                case DataBuffer.TYPE_USHORT:
+                    ushortLoop(src, computableArea, tileX, tileY, roi, accumulators);
+                    break;
+                case DataBuffer.TYPE_SHORT:
+                    shortLoop(src, computableArea, tileX, tileY, roi, accumulators);
+                    break;
+                case DataBuffer.TYPE_INT:
+                    intLoop(src, computableArea, tileX, tileY, roi, accumulators);
+                    break;
+                case DataBuffer.TYPE_FLOAT:
+                    floatLoop(src, computableArea, tileX, tileY, roi, accumulators);
+                    break;
+                case DataBuffer.TYPE_DOUBLE:
+                    doubleLoop(src, computableArea, tileX, tileY, roi, accumulators);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Wrong data type");
+                }
+            } finally {
+                accumulatorLock.readLock().unlock();
             }
         }
 
         return tile;
     }
 
-    // NOTE: the statistic calculation is done in a synchronized block for avoiding race conditions
+    // NOTE: the statistics are collected inside the accumulators of the current thread for avoiding race conditions
     private void byteLoop(RasterAccessor src, Rectangle computableArea, int tileX, int tileY,
-            RasterAccessor roi) {
+            RasterAccessor roi, ZoneAccumulator[] accumulators) {
 
         // Source RasterAccessor initial parameters
         final int srcX = src.getX();
@@ -653,13 +707,11 @@ public class ZonalStatsOpImage extends OpImage {
                     }
                     // Cycle on all the geometries found
                     for (ZoneGeometry zoneGeo : geomList) {
+                        ZoneAccumulator zoneAcc = getAccumulator(accumulators, zoneGeo);
 
                         ROI geometry = zoneGeo.getROI();
                         // if every geometry really contains the selected point
-                        boolean contains = false;
-                        synchronized (zoneGeo) { // HACK
-                            contains = geometry.contains(x0, y0);
-                        }
+                        boolean contains = contains(geometry, x0, y0);
 
                         if (contains) {
                             // Cycle on the selected Bands
@@ -671,21 +723,22 @@ public class ZonalStatsOpImage extends OpImage {
                                 // Update of all the statistics
                                 // If a range list is present then the sample is checked if it is inside the range
                                 if (rangesNoClass) {
-                                    for (Range range : rangeList) {
+                                    for (int r = 0; r < numRanges; r++) {
+                                        Range range = rangeList.get(r);
                                         if (range.contains(value)) {
                                             // For local statistics the pixel is checked for every range
                                             if (localStats) {
-                                                zoneGeo.add(sample, bands[i], classId, range);
+                                                zoneAcc.add(sample, i, classId, r);
                                             } else {
                                                 // For non local statistics the pixel when the pixel is contained inside a singular range
                                                 // it is added to the statistic container
-                                                zoneGeo.add(sample, bands[i], classId, rangeHelper);
+                                                zoneAcc.add(sample, i, classId, 0);
                                                 break;
                                             }
                                         }
                                     }
                                 } else {
-                                    zoneGeo.add(sample, bands[i], classId, rangeHelper);
+                                    zoneAcc.add(sample, i, classId, 0);
                                 }
                             }
                         }
@@ -772,13 +825,11 @@ public class ZonalStatsOpImage extends OpImage {
                         }
                         // Cycle on all the geometries found
                         for (ZoneGeometry zoneGeo : geomList) {
+                            ZoneAccumulator zoneAcc = getAccumulator(accumulators, zoneGeo);
 
                             ROI geometry = zoneGeo.getROI();
                             // if every geometry really contains the selected point
-                            boolean contains = false;
-                            synchronized (zoneGeo) { // HACK
-                                contains = geometry.contains(x0, y0);
-                            }
+                            boolean contains = contains(geometry, x0, y0);
 
                             if (contains) {
                                 // Cycle on the selected Bands
@@ -788,22 +839,22 @@ public class ZonalStatsOpImage extends OpImage {
                                     // Update of all the statistics
                                     // If a range list is present then the sample is checked if it is inside the range
                                     if (rangesNoClass) {
-                                        for (Range range : rangeList) {
+                                        for (int r = 0; r < numRanges; r++) {
+                                            Range range = rangeList.get(r);
                                             if (range.contains((byte)sample)) {
                                                 // For local statistics the pixel is checked for every range
                                                 if (localStats) {
-                                                    zoneGeo.add(sample, bands[i], classId, range);
+                                                    zoneAcc.add(sample, i, classId, r);
                                                 } else {
                                                     // For non local statistics the pixel when the pixel is contained inside a singular range
                                                     // it is added to the statistic container
-                                                    zoneGeo.add(sample, bands[i], classId,
-                                                            rangeHelper);
+                                                    zoneAcc.add(sample, i, classId, 0);
                                                     break;
                                                 }
                                             }
                                         }
                                     } else {
-                                        zoneGeo.add(sample, bands[i], classId, rangeHelper);
+                                        zoneAcc.add(sample, i, classId, 0);
                                     }
                                 }
                             }
@@ -841,10 +892,7 @@ public class ZonalStatsOpImage extends OpImage {
                         }
 
                         // ROI value
-                        boolean insideROI = false;
-                        synchronized (this) { // HACK
-                            insideROI = srcROI.contains(x0, y0);
-                        }
+                        boolean insideROI = contains(srcROI, x0, y0);
 
                         if (!insideROI) {
                             if (updateIterator) {
@@ -886,13 +934,11 @@ public class ZonalStatsOpImage extends OpImage {
                         }
                         // Cycle on all the geometries found
                         for (ZoneGeometry zoneGeo : geomList) {
+                            ZoneAccumulator zoneAcc = getAccumulator(accumulators, zoneGeo);
 
                             ROI geometry = zoneGeo.getROI();
                             // if every geometry really contains the selected point
-                            boolean contains = false;
-                            synchronized (zoneGeo) { // HACK
-                                contains = geometry.contains(x0, y0);
-                            }
+                            boolean contains = contains(geometry, x0, y0);
 
                             if (contains) {
                                 // Cycle on the selected Bands
@@ -902,22 +948,22 @@ public class ZonalStatsOpImage extends OpImage {
                                     // Update of all the statistics
                                     // If a range list is present then the sample is checked if it is inside the range
                                     if (rangesNoClass) {
-                                        for (Range range : rangeList) {
+                                        for (int r = 0; r < numRanges; r++) {
+                                            Range range = rangeList.get(r);
                                             if (range.contains((byte)sample)) {
                                                 // For local statistics the pixel is checked for every range
                                                 if (localStats) {
-                                                    zoneGeo.add(sample, bands[i], classId, range);
+                                                    zoneAcc.add(sample, i, classId, r);
                                                 } else {
                                                     // For non local statistics the pixel when the pixel is contained inside a singular range
                                                     // it is added to the statistic container
-                                                    zoneGeo.add(sample, bands[i], classId,
-                                                            rangeHelper);
+                                                    zoneAcc.add(sample, i, classId, 0);
                                                     break;
                                                 }
                                             }
                                         }
                                     } else {
-                                        zoneGeo.add(sample, bands[i], classId, rangeHelper);
+                                        zoneAcc.add(sample, i, classId, 0);
                                     }
                                 }
                             }
@@ -986,14 +1032,12 @@ public class ZonalStatsOpImage extends OpImage {
                     }
                     // Cycle on all the geometries found
                     for (ZoneGeometry zoneGeo : geomList) {
+                        ZoneAccumulator zoneAcc = getAccumulator(accumulators, zoneGeo);
 
                         ROI geometry = zoneGeo.getROI();
 
                         // if every geometry really contains the selected point
-                        boolean contains = false;
-                        synchronized (zoneGeo) { // HACK
-                            contains = geometry.contains(x0, y0);
-                        }
+                        boolean contains = contains(geometry, x0, y0);
                         if (contains) {
 
                             // Cycle on the selected Bands
@@ -1005,22 +1049,22 @@ public class ZonalStatsOpImage extends OpImage {
                                     // Update of all the statistics
                                     // If a range list is present then the sample is checked if it is inside the range
                                     if (rangesNoClass) {
-                                        for (Range range : rangeList) {
+                                        for (int r = 0; r < numRanges; r++) {
+                                            Range range = rangeList.get(r);
                                             if (range.contains((byte)sample)) {
                                                 // For local statistics the pixel is checked for every range
                                                 if (localStats) {
-                                                    zoneGeo.add(sample, bands[i], classId, range);
+                                                    zoneAcc.add(sample, i, classId, r);
                                                 } else {
                                                     // For non local statistics the pixel when the pixel is contained inside a singular range
                                                     // it is added to the statistic container
-                                                    zoneGeo.add(sample, bands[i], classId,
-                                                            rangeHelper);
+                                                    zoneAcc.add(sample, i, classId, 0);
                                                     break;
                                                 }
                                             }
                                         }
                                     } else {
-                                        zoneGeo.add(sample, bands[i], classId, rangeHelper);
+                                        zoneAcc.add(sample, i, classId, 0);
                                     }
                                 }
                             }
@@ -1109,14 +1153,12 @@ public class ZonalStatsOpImage extends OpImage {
                         }
                         // Cycle on all the geometries found
                         for (ZoneGeometry zoneGeo : geomList) {
+                            ZoneAccumulator zoneAcc = getAccumulator(accumulators, zoneGeo);
 
                             ROI geometry = zoneGeo.getROI();
 
                             // if every geometry really contains the selected point
-                            boolean contains = false;
-                            synchronized (zoneGeo) { // HACK
-                                contains = geometry.contains(x0, y0);
-                            }
+                            boolean contains = contains(geometry, x0, y0);
                             if (contains) {
 
                                 // Cycle on the selected Bands
@@ -1128,23 +1170,22 @@ public class ZonalStatsOpImage extends OpImage {
                                         // Update of all the statistics
                                         // If a range list is present then the sample is checked if it is inside the range
                                         if (rangesNoClass) {
-                                            for (Range range : rangeList) {
+                                            for (int r = 0; r < numRanges; r++) {
+                                                Range range = rangeList.get(r);
                                                 if (range.contains((byte)sample)) {
                                                     // For local statistics the pixel is checked for every range
                                                     if (localStats) {
-                                                        zoneGeo.add(sample, bands[i], classId,
-                                                                range);
+                                                        zoneAcc.add(sample, i, classId, r);
                                                     } else {
                                                         // For non local statistics the pixel when the pixel is contained inside a singular range
                                                         // it is added to the statistic container
-                                                        zoneGeo.add(sample, bands[i], classId,
-                                                                rangeHelper);
+                                                        zoneAcc.add(sample, i, classId, 0);
                                                         break;
                                                     }
                                                 }
                                             }
                                         } else {
-                                            zoneGeo.add(sample, bands[i], classId, rangeHelper);
+                                            zoneAcc.add(sample, i, classId, 0);
                                         }
                                     }
                                 }
@@ -1184,10 +1225,7 @@ public class ZonalStatsOpImage extends OpImage {
                         }
 
                         // ROI value
-                        boolean insideROI = false;
-                        synchronized (this) { // HACK
-                            insideROI = srcROI.contains(x0, y0);
-                        }
+                        boolean insideROI = contains(srcROI, x0, y0);
                         if (!insideROI) {
                             if (updateIterator) {
                                 rectIterator.nextPixel();
@@ -1228,14 +1266,12 @@ public class ZonalStatsOpImage extends OpImage {
                         }
                         // Cycle on all the geometries found
                         for (ZoneGeometry zoneGeo : geomList) {
+                            ZoneAccumulator zoneAcc = getAccumulator(accumulators, zoneGeo);
 
                             ROI geometry = zoneGeo.getROI();
 
                             // if every geometry really contains the selected point
-                            boolean contains = false;
-                            synchronized (zoneGeo) { // HACK
-                                contains = geometry.contains(x0, y0);
-                            }
+                            boolean contains = contains(geometry, x0, y0);
                             if (contains) {
 
                                 // Cycle on the selected Bands
@@ -1247,23 +1283,22 @@ public class ZonalStatsOpImage extends OpImage {
                                         // Update of all the statistics
                                         // If a range list is present then the sample is checked if it is inside the range
                                         if (rangesNoClass) {
-                                            for (Range range : rangeList) {
+                                            for (int r = 0; r < numRanges; r++) {
+                                                Range range = rangeList.get(r);
                                                 if (range.contains((byte)sample)) {
                                                     // For local statistics the pixel is checked for every range
                                                     if (localStats) {
-                                                        zoneGeo.add(sample, bands[i], classId,
-                                                                range);
+                                                        zoneAcc.add(sample, i, classId, r);
                                                     } else {
                                                         // For non local statistics the pixel when the pixel is contained inside a singular range
                                                         // it is added to the statistic container
-                                                        zoneGeo.add(sample, bands[i], classId,
-                                                                rangeHelper);
+                                                        zoneAcc.add(sample, i, classId, 0);
                                                         break;
                                                     }
                                                 }
                                             }
                                         } else {
-                                            zoneGeo.add(sample, bands[i], classId, rangeHelper);
+                                            zoneAcc.add(sample, i, classId, 0);
                                         }
                                     }
                                 }
@@ -1280,7 +1315,7 @@ public class ZonalStatsOpImage extends OpImage {
     }
 
     private void ushortLoop(RasterAccessor src, Rectangle computableArea, int tileX, int tileY,
-            RasterAccessor roi) {
+            RasterAccessor roi, ZoneAccumulator[] accumulators) {
 
         // Source RasterAccessor initial parameters
         final int srcX = src.getX();
@@ -1377,13 +1412,11 @@ public class ZonalStatsOpImage extends OpImage {
                     }
                     // Cycle on all the geometries found
                     for (ZoneGeometry zoneGeo : geomList) {
+                        ZoneAccumulator zoneAcc = getAccumulator(accumulators, zoneGeo);
 
                         ROI geometry = zoneGeo.getROI();
                         // if every geometry really contains the selected point
-                        boolean contains = false;
-                        synchronized (zoneGeo) { // HACK
-                            contains = geometry.contains(x0, y0);
-                        }
+                        boolean contains = contains(geometry, x0, y0);
                         if (contains) {
                             // Cycle on the selected Bands
                             for (int i = 0; i < bandNum; i++) {
@@ -1392,21 +1425,22 @@ public class ZonalStatsOpImage extends OpImage {
                                 // Update of all the statistics
                                 // If a range list is present then the sample is checked if it is inside the range
                                 if (rangesNoClass) {
-                                    for (Range range : rangeList) {
+                                    for (int r = 0; r < numRanges; r++) {
+                                        Range range = rangeList.get(r);
                                         if (range.contains((short) sample)) {
                                             // For local statistics the pixel is checked for every range
                                             if (localStats) {
-                                                zoneGeo.add(sample, bands[i], classId, range);
+                                                zoneAcc.add(sample, i, classId, r);
                                             } else {
                                                 // For non local statistics the pixel when the pixel is contained inside a singular range
                                                 // it is added to the statistic container
-                                                zoneGeo.add(sample, bands[i], classId, rangeHelper);
+                                                zoneAcc.add(sample, i, classId, 0);
                                                 break;
                                             }
                                         }
                                     }
                                 } else {
-                                    zoneGeo.add(sample, bands[i], classId, rangeHelper);
+                                    zoneAcc.add(sample, i, classId, 0);
                                 }
                             }
                         }
@@ -1493,13 +1527,11 @@ public class ZonalStatsOpImage extends OpImage {
                         }
                         // Cycle on all the geometries found
                         for (ZoneGeometry zoneGeo : geomList) {
+                            ZoneAccumulator zoneAcc = getAccumulator(accumulators, zoneGeo);
 
                             ROI geometry = zoneGeo.getROI();
                             // if every geometry really contains the selected point
-                            boolean contains = false;
-                            synchronized (zoneGeo) { // HACK
-                                contains = geometry.contains(x0, y0);
-                            }
+                            boolean contains = contains(geometry, x0, y0);
                             if (contains) {
                                 // Cycle on the selected Bands
                                 for (int i = 0; i < bandNum; i++) {
@@ -1508,22 +1540,22 @@ public class ZonalStatsOpImage extends OpImage {
                                     // Update of all the statistics
                                     // If a range list is present then the sample is checked if it is inside the range
                                     if (rangesNoClass) {
-                                        for (Range range : rangeList) {
+                                        for (int r = 0; r < numRanges; r++) {
+                                            Range range = rangeList.get(r);
                                             if (range.contains((short) sample)) {
                                                 // For local statistics the pixel is checked for every range
                                                 if (localStats) {
-                                                    zoneGeo.add(sample, bands[i], classId, range);
+                                                    zoneAcc.add(sample, i, classId, r);
                                                 } else {
                                                     // For non local statistics the pixel when the pixel is contained inside a singular range
                                                     // it is added to the statistic container
-                                                    zoneGeo.add(sample, bands[i], classId,
-                                                            rangeHelper);
+                                                    zoneAcc.add(sample, i, classId, 0);
                                                     break;
                                                 }
                                             }
                                         }
                                     } else {
-                                        zoneGeo.add(sample, bands[i], classId, rangeHelper);
+                                        zoneAcc.add(sample, i, classId, 0);
                                     }
                                 }
                             }
@@ -1561,10 +1593,7 @@ public class ZonalStatsOpImage extends OpImage {
                         }
 
                         // ROI value
-                        boolean insideROI = false;
-                        synchronized (this) { // HACK
-                            insideROI = srcROI.contains(x0, y0);
-                        }
+                        boolean insideROI = contains(srcROI, x0, y0);
                         if (!insideROI) {
                             if (updateIterator) {
                                 rectIterator.nextPixel();
@@ -1605,13 +1634,11 @@ public class ZonalStatsOpImage extends OpImage {
                         }
                         // Cycle on all the geometries found
                         for (ZoneGeometry zoneGeo : geomList) {
+                            ZoneAccumulator zoneAcc = getAccumulator(accumulators, zoneGeo);
 
                             ROI geometry = zoneGeo.getROI();
                             // if every geometry really contains the selected point
-                            boolean contains = false;
-                            synchronized (zoneGeo) { // HACK
-                                contains = geometry.contains(x0, y0);
-                            }
+                            boolean contains = contains(geometry, x0, y0);
                             if (contains) {
                                 // Cycle on the selected Bands
                                 for (int i = 0; i < bandNum; i++) {
@@ -1620,22 +1647,22 @@ public class ZonalStatsOpImage extends OpImage {
                                     // Update of all the statistics
                                     // If a range list is present then the sample is checked if it is inside the range
                                     if (rangesNoClass) {
-                                        for (Range range : rangeList) {
+                                        for (int r = 0; r < numRanges; r++) {
+                                            Range range = rangeList.get(r);
                                             if (range.contains((short) sample)) {
                                                 // For local statistics the pixel is checked for every range
                                                 if (localStats) {
-                                                    zoneGeo.add(sample, bands[i], classId, range);
+                                                    zoneAcc.add(sample, i, classId, r);
                                                 } else {
                                                     // For non local statistics the pixel when the pixel is contained inside a singular range
                                                     // it is added to the statistic container
-                                                    zoneGeo.add(sample, bands[i], classId,
-                                                            rangeHelper);
+                                                    zoneAcc.add(sample, i, classId, 0);
                                                     break;
                                                 }
                                             }
                                         }
                                     } else {
-                                        zoneGeo.add(sample, bands[i], classId, rangeHelper);
+                                        zoneAcc.add(sample, i, classId, 0);
                                     }
                                 }
                             }
@@ -1704,14 +1731,12 @@ public class ZonalStatsOpImage extends OpImage {
                     }
                     // Cycle on all the geometries found
                     for (ZoneGeometry zoneGeo : geomList) {
+                        ZoneAccumulator zoneAcc = getAccumulator(accumulators, zoneGeo);
 
                         ROI geometry = zoneGeo.getROI();
 
                         // if every geometry really contains the selected point
-                        boolean contains = false;
-                        synchronized (zoneGeo) { // HACK
-                            contains = geometry.contains(x0, y0);
-                        }
+                        boolean contains = contains(geometry, x0, y0);
                         if (contains) {
 
                             // Cycle on the selected Bands
@@ -1723,22 +1748,22 @@ public class ZonalStatsOpImage extends OpImage {
                                     // Update of all the statistics
                                     // If a range list is present then the sample is checked if it is inside the range
                                     if (rangesNoClass) {
-                                        for (Range range : rangeList) {
+                                        for (int r = 0; r < numRanges; r++) {
+                                            Range range = rangeList.get(r);
                                             if (range.contains((short) sample)) {
                                                 // For local statistics the pixel is checked for every range
                                                 if (localStats) {
-                                                    zoneGeo.add(sample, bands[i], classId, range);
+                                                    zoneAcc.add(sample, i, classId, r);
                                                 } else {
                                                     // For non local statistics the pixel when the pixel is contained inside a singular range
                                                     // it is added to the statistic container
-                                                    zoneGeo.add(sample, bands[i], classId,
-                                                            rangeHelper);
+                                                    zoneAcc.add(sample, i, classId, 0);
                                                     break;
                                                 }
                                             }
                                         }
                                     } else {
-                                        zoneGeo.add(sample, bands[i], classId, rangeHelper);
+                                        zoneAcc.add(sample, i, classId, 0);
                                     }
                                 }
                             }
@@ -1827,14 +1852,12 @@ public class ZonalStatsOpImage extends OpImage {
                         }
                         // Cycle on all the geometries found
                         for (ZoneGeometry zoneGeo : geomList) {
+                            ZoneAccumulator zoneAcc = getAccumulator(accumulators, zoneGeo);
 
                             ROI geometry = zoneGeo.getROI();
 
                             // if every geometry really contains the selected point
-                            boolean contains = false;
-                            synchronized (zoneGeo) { // HACK
-                                contains = geometry.contains(x0, y0);
-                            }
+                            boolean contains = contains(geometry, x0, y0);
                             if (contains) {
 
                                 // Cycle on the selected Bands
@@ -1846,23 +1869,22 @@ public class ZonalStatsOpImage extends OpImage {
                                         // Update of all the statistics
                                         // If a range list is present then the sample is checked if it is inside the range
                                         if (rangesNoClass) {
-                                            for (Range range : rangeList) {
+                                            for (int r = 0; r < numRanges; r++) {
+                                                Range range = rangeList.get(r);
                                                 if (range.contains((short) sample)) {
                                                     // For local statistics the pixel is checked for every range
                                                     if (localStats) {
-                                                        zoneGeo.add(sample, bands[i], classId,
-                                                                range);
+                                                        zoneAcc.add(sample, i, classId, r);
                                                     } else {
                                                         // For non local statistics the pixel when the pixel is contained inside a singular range
                                                         // it is added to the statistic container
-                                                        zoneGeo.add(sample, bands[i], classId,
-                                                                rangeHelper);
+                                                        zoneAcc.add(sample, i, classId, 0);
                                                         break;
                                                     }
                                                 }
                                             }
                                         } else {
-                                            zoneGeo.add(sample, bands[i], classId, rangeHelper);
+                                            zoneAcc.add(sample, i, classId, 0);
                                         }
                                     }
                                 }
@@ -1902,10 +1924,7 @@ public class ZonalStatsOpImage extends OpImage {
                         }
 
                         // ROI value
-                        boolean insideROI = false;
-                        synchronized (this) { // HACK
-                            insideROI = srcROI.contains(x0, y0);
-                        }
+                        boolean insideROI = contains(srcROI, x0, y0);
                         if (!insideROI) {
                             if (updateIterator) {
                                 rectIterator.nextPixel();
@@ -1946,14 +1965,12 @@ public class ZonalStatsOpImage extends OpImage {
                         }
                         // Cycle on all the geometries found
                         for (ZoneGeometry zoneGeo : geomList) {
+                            ZoneAccumulator zoneAcc = getAccumulator(accumulators, zoneGeo);
 
                             ROI geometry = zoneGeo.getROI();
 
                             // if every geometry really contains the selected point
-                            boolean contains = false;
-                            synchronized (zoneGeo) { // HACK
-                                contains = geometry.contains(x0, y0);
-                            }
+                            boolean contains = contains(geometry, x0, y0);
                             if (contains) {
 
                                 // Cycle on the selected Bands
@@ -1965,23 +1982,22 @@ public class ZonalStatsOpImage extends OpImage {
                                         // Update of all the statistics
                                         // If a range list is present then the sample is checked if it is inside the range
                                         if (rangesNoClass) {
-                                            for (Range range : rangeList) {
+                                            for (int r = 0; r < numRanges; r++) {
+                                                Range range = rangeList.get(r);
                                                 if (range.contains((short) sample)) {
                                                     // For local statistics the pixel is checked for every range
                                                     if (localStats) {
-                                                        zoneGeo.add(sample, bands[i], classId,
-                                                                range);
+                                                        zoneAcc.add(sample, i, classId, r);
                                                     } else {
                                                         // For non local statistics the pixel when the pixel is contained inside a singular range
                                                         // it is added to the statistic container
-                                                        zoneGeo.add(sample, bands[i], classId,
-                                                                rangeHelper);
+                                                        zoneAcc.add(sample, i, classId, 0);
                                                         break;
                                                     }
                                                 }
                                             }
                                         } else {
-                                            zoneGeo.add(sample, bands[i], classId, rangeHelper);
+                                            zoneAcc.add(sample, i, classId, 0);
                                         }
                                     }
                                 }
@@ -1998,7 +2014,7 @@ public class ZonalStatsOpImage extends OpImage {
     }
 
     private void shortLoop(RasterAccessor src, Rectangle computableArea, int tileX, int tileY,
-            RasterAccessor roi) {
+            RasterAccessor roi, ZoneAccumulator[] accumulators) {
 
         // Source RasterAccessor initial parameters
         final int srcX = src.getX();
@@ -2095,13 +2111,11 @@ public class ZonalStatsOpImage extends OpImage {
                     }
                     // Cycle on all the geometries found
                     for (ZoneGeometry zoneGeo : geomList) {
+                        ZoneAccumulator zoneAcc = getAccumulator(accumulators, zoneGeo);
 
                         ROI geometry = zoneGeo.getROI();
                         // if every geometry really contains the selected point
-                        boolean contains = false;
-                        synchronized (zoneGeo) { // HACK
-                            contains = geometry.contains(x0, y0);
-                        }
+                        boolean contains = contains(geometry, x0, y0);
                         if (contains) {
                             // Cycle on the selected Bands
                             for (int i = 0; i < bandNum; i++) {
@@ -2110,21 +2124,22 @@ public class ZonalStatsOpImage extends OpImage {
                                 // Update of all the statistics
                                 // If a range list is present then the sample is checked if it is inside the range
                                 if (rangesNoClass) {
-                                    for (Range range : rangeList) {
+                                    for (int r = 0; r < numRanges; r++) {
+                                        Range range = rangeList.get(r);
                                         if (range.contains(sample)) {
                                             // For local statistics the pixel is checked for every range
                                             if (localStats) {
-                                                zoneGeo.add(sample, bands[i], classId, range);
+                                                zoneAcc.add(sample, i, classId, r);
                                             } else {
                                                 // For non local statistics the pixel when the pixel is contained inside a singular range
                                                 // it is added to the statistic container
-                                                zoneGeo.add(sample, bands[i], classId, rangeHelper);
+                                                zoneAcc.add(sample, i, classId, 0);
                                                 break;
                                             }
                                         }
                                     }
                                 } else {
-                                    zoneGeo.add(sample, bands[i], classId, rangeHelper);
+                                    zoneAcc.add(sample, i, classId, 0);
                                 }
                             }
                         }
@@ -2211,13 +2226,11 @@ public class ZonalStatsOpImage extends OpImage {
                         }
                         // Cycle on all the geometries found
                         for (ZoneGeometry zoneGeo : geomList) {
+                            ZoneAccumulator zoneAcc = getAccumulator(accumulators, zoneGeo);
 
                             ROI geometry = zoneGeo.getROI();
                             // if every geometry really contains the selected point
-                            boolean contains = false;
-                            synchronized (zoneGeo) { // HACK
-                                contains = geometry.contains(x0, y0);
-                            }
+                            boolean contains = contains(geometry, x0, y0);
                             if (contains) {
                                 // Cycle on the selected Bands
                                 for (int i = 0; i < bandNum; i++) {
@@ -2226,22 +2239,22 @@ public class ZonalStatsOpImage extends OpImage {
                                     // Update of all the statistics
                                     // If a range list is present then the sample is checked if it is inside the range
                                     if (rangesNoClass) {
-                                        for (Range range : rangeList) {
+                                        for (int r = 0; r < numRanges; r++) {
+                                            Range range = rangeList.get(r);
                                             if (range.contains(sample)) {
                                                 // For local statistics the pixel is checked for every range
                                                 if (localStats) {
-                                                    zoneGeo.add(sample, bands[i], classId, range);
+                                                    zoneAcc.add(sample, i, classId, r);
                                                 } else {
                                                     // For non local statistics the pixel when the pixel is contained inside a singular range
                                                     // it is added to the statistic container
-                                                    zoneGeo.add(sample, bands[i], classId,
-                                                            rangeHelper);
+                                                    zoneAcc.add(sample, i, classId, 0);
                                                     break;
                                                 }
                                             }
                                         }
                                     } else {
-                                        zoneGeo.add(sample, bands[i], classId, rangeHelper);
+                                        zoneAcc.add(sample, i, classId, 0);
                                     }
                                 }
                             }
@@ -2279,10 +2292,7 @@ public class ZonalStatsOpImage extends OpImage {
                         }
 
                         // ROI value
-                        boolean insideROI = false;
-                        synchronized (this) { // HACK
-                            insideROI = srcROI.contains(x0, y0);
-                        }
+                        boolean insideROI = contains(srcROI, x0, y0);
                         if (!insideROI) {
                             if (updateIterator) {
                                 rectIterator.nextPixel();
@@ -2323,13 +2333,11 @@ public class ZonalStatsOpImage extends OpImage {
                         }
                         // Cycle on all the geometries found
                         for (ZoneGeometry zoneGeo : geomList) {
+                            ZoneAccumulator zoneAcc = getAccumulator(accumulators, zoneGeo);
 
                             ROI geometry = zoneGeo.getROI();
                             // if every geometry really contains the selected point
-                            boolean contains = false;
-                            synchronized (zoneGeo) { // HACK
-                                contains = geometry.contains(x0, y0);
-                            }
+                            boolean contains = contains(geometry, x0, y0);
                             if (contains) {
                                 // Cycle on the selected Bands
                                 for (int i = 0; i < bandNum; i++) {
@@ -2338,22 +2346,22 @@ public class ZonalStatsOpImage extends OpImage {
                                     // Update of all the statistics
                                     // If a range list is present then the sample is checked if it is inside the range
                                     if (rangesNoClass) {
-                                        for (Range range : rangeList) {
+                                        for (int r = 0; r < numRanges; r++) {
+                                            Range range = rangeList.get(r);
                                             if (range.contains(sample)) {
                                                 // For local statistics the pixel is checked for every range
                                                 if (localStats) {
-                                                    zoneGeo.add(sample, bands[i], classId, range);
+                                                    zoneAcc.add(sample, i, classId, r);
                                                 } else {
                                                     // For non local statistics the pixel when the pixel is contained inside a singular range
                                                     // it is added to the statistic container
-                                                    zoneGeo.add(sample, bands[i], classId,
-                                                            rangeHelper);
+                                                    zoneAcc.add(sample, i, classId, 0);
                                                     break;
                                                 }
                                             }
                                         }
                                     } else {
-                                        zoneGeo.add(sample, bands[i], classId, rangeHelper);
+                                        zoneAcc.add(sample, i, classId, 0);
                                     }
                                 }
                             }
@@ -2422,14 +2430,12 @@ public class ZonalStatsOpImage extends OpImage {
                     }
                     // Cycle on all the geometries found
                     for (ZoneGeometry zoneGeo : geomList) {
+                        ZoneAccumulator zoneAcc = getAccumulator(accumulators, zoneGeo);
 
                         ROI geometry = zoneGeo.getROI();
 
                         // if every geometry really contains the selected point
-                        boolean contains = false;
-                        synchronized (zoneGeo) { // HACK
-                            contains = geometry.contains(x0, y0);
-                        }
+                        boolean contains = contains(geometry, x0, y0);
                         if (contains) {
 
                             // Cycle on the selected Bands
@@ -2441,22 +2447,22 @@ public class ZonalStatsOpImage extends OpImage {
                                     // Update of all the statistics
                                     // If a range list is present then the sample is checked if it is inside the range
                                     if (rangesNoClass) {
-                                        for (Range range : rangeList) {
+                                        for (int r = 0; r < numRanges; r++) {
+                                            Range range = rangeList.get(r);
                                             if (range.contains(sample)) {
                                                 // For local statistics the pixel is checked for every range
                                                 if (localStats) {
-                                                    zoneGeo.add(sample, bands[i], classId, range);
+                                                    zoneAcc.add(sample, i, classId, r);
                                                 } else {
                                                     // For non local statistics the pixel when the pixel is contained inside a singular range
                                                     // it is added to the statistic container
-                                                    zoneGeo.add(sample, bands[i], classId,
-                                                            rangeHelper);
+                                                    zoneAcc.add(sample, i, classId, 0);
                                                     break;
                                                 }
                                             }
                                         }
                                     } else {
-                                        zoneGeo.add(sample, bands[i], classId, rangeHelper);
+                                        zoneAcc.add(sample, i, classId, 0);
                                     }
                                 }
                             }
@@ -2545,14 +2551,12 @@ public class ZonalStatsOpImage extends OpImage {
                         }
                         // Cycle on all the geometries found
                         for (ZoneGeometry zoneGeo : geomList) {
+                            ZoneAccumulator zoneAcc = getAccumulator(accumulators, zoneGeo);
 
                             ROI geometry = zoneGeo.getROI();
 
                             // if every geometry really contains the selected point
-                            boolean contains = false;
-                            synchronized (zoneGeo) { // HACK
-                                contains = geometry.contains(x0, y0);
-                            }
+                            boolean contains = contains(geometry, x0, y0);
                             if (contains) {
 
                                 // Cycle on the selected Bands
@@ -2564,23 +2568,22 @@ public class ZonalStatsOpImage extends OpImage {
                                         // Update of all the statistics
                                         // If a range list is present then the sample is checked if it is inside the range
                                         if (rangesNoClass) {
-                                            for (Range range : rangeList) {
+                                            for (int r = 0; r < numRanges; r++) {
+                                                Range range = rangeList.get(r);
                                                 if (range.contains(sample)) {
                                                     // For local statistics the pixel is checked for every range
                                                     if (localStats) {
-                                                        zoneGeo.add(sample, bands[i], classId,
-                                                                range);
+                                                        zoneAcc.add(sample, i, classId, r);
                                                     } else {
                                                         // For non local statistics the pixel when the pixel is contained inside a singular range
                                                         // it is added to the statistic container
-                                                        zoneGeo.add(sample, bands[i], classId,
-                                                                rangeHelper);
+                                                        zoneAcc.add(sample, i, classId, 0);
                                                         break;
                                                     }
                                                 }
                                             }
                                         } else {
-                                            zoneGeo.add(sample, bands[i], classId, rangeHelper);
+                                            zoneAcc.add(sample, i, classId, 0);
                                         }
                                     }
                                 }
@@ -2620,10 +2623,7 @@ public class ZonalStatsOpImage extends OpImage {
                         }
 
                         // ROI value
-                        boolean insideROI = false;
-                        synchronized (this) { // HACK
-                            insideROI = srcROI.contains(x0, y0);
-                        }
+                        boolean insideROI = contains(srcROI, x0, y0);
                         if (!insideROI) {
                             if (updateIterator) {
                                 rectIterator.nextPixel();
@@ -2664,14 +2664,12 @@ public class ZonalStatsOpImage extends OpImage {
                         }
                         // Cycle on all the geometries found
                         for (ZoneGeometry zoneGeo : geomList) {
+                            ZoneAccumulator zoneAcc = getAccumulator(accumulators, zoneGeo);
 
                             ROI geometry = zoneGeo.getROI();
 
                             // if every geometry really contains the selected point
-                            boolean contains = false;
-                            synchronized (zoneGeo) { // HACK
-                                contains = geometry.contains(x0, y0);
-                            }
+                            boolean contains = contains(geometry, x0, y0);
                             if (contains) {
 
                                 // Cycle on the selected Bands
@@ -2683,23 +2681,22 @@ public class ZonalStatsOpImage extends OpImage {
                                         // Update of all the statistics
                                         // If a range list is present then the sample is checked if it is inside the range
                                         if (rangesNoClass) {
-                                            for (Range range : rangeList) {
+                                            for (int r = 0; r < numRanges; r++) {
+                                                Range range = rangeList.get(r);
                                                 if (range.contains(sample)) {
                                                     // For local statistics the pixel is checked for every range
                                                     if (localStats) {
-                                                        zoneGeo.add(sample, bands[i], classId,
-                                                                range);
+                                                        zoneAcc.add(sample, i, classId, r);
                                                     } else {
                                                         // For non local statistics the pixel when the pixel is contained inside a singular range
                                                         // it is added to the statistic container
-                                                        zoneGeo.add(sample, bands[i], classId,
-                                                                rangeHelper);
+                                                        zoneAcc.add(sample, i, classId, 0);
                                                         break;
                                                     }
                                                 }
                                             }
                                         } else {
-                                            zoneGeo.add(sample, bands[i], classId, rangeHelper);
+                                            zoneAcc.add(sample, i, classId, 0);
                                         }
                                     }
                                 }
@@ -2716,7 +2713,7 @@ public class ZonalStatsOpImage extends OpImage {
     }
 
     private void intLoop(RasterAccessor src, Rectangle computableArea, int tileX, int tileY,
-            RasterAccessor roi) {
+            RasterAccessor roi, ZoneAccumulator[] accumulators) {
 
         // Source and ROI RasterAccessor initial parameters
         final int srcX = src.getX();
@@ -2813,13 +2810,11 @@ public class ZonalStatsOpImage extends OpImage {
                     }
                     // Cycle on all the geometries found
                     for (ZoneGeometry zoneGeo : geomList) {
+                        ZoneAccumulator zoneAcc = getAccumulator(accumulators, zoneGeo);
 
                         ROI geometry = zoneGeo.getROI();
                         // if every geometry really contains the selected point
-                        boolean contains = false;
-                        synchronized (zoneGeo) { // HACK
-                            contains = geometry.contains(x0, y0);
-                        }
+                        boolean contains = contains(geometry, x0, y0);
                         if (contains) {
                             // Cycle on the selected Bands
                             for (int i = 0; i < bandNum; i++) {
@@ -2828,21 +2823,22 @@ public class ZonalStatsOpImage extends OpImage {
                                 // Update of all the statistics
                                 // If a range list is present then the sample is checked if it is inside the range
                                 if (rangesNoClass) {
-                                    for (Range range : rangeList) {
+                                    for (int r = 0; r < numRanges; r++) {
+                                        Range range = rangeList.get(r);
                                         if (range.contains(sample)) {
                                             // For local statistics the pixel is checked for every range
                                             if (localStats) {
-                                                zoneGeo.add(sample, bands[i], classId, range);
+                                                zoneAcc.add(sample, i, classId, r);
                                             } else {
                                                 // For non local statistics the pixel when the pixel is contained inside a singular range
                                                 // it is added to the statistic container
-                                                zoneGeo.add(sample, bands[i], classId, rangeHelper);
+                                                zoneAcc.add(sample, i, classId, 0);
                                                 break;
                                             }
                                         }
                                     }
                                 } else {
-                                    zoneGeo.add(sample, bands[i], classId, rangeHelper);
+                                    zoneAcc.add(sample, i, classId, 0);
                                 }
                             }
                         }
@@ -2929,13 +2925,11 @@ public class ZonalStatsOpImage extends OpImage {
                         }
                         // Cycle on all the geometries found
                         for (ZoneGeometry zoneGeo : geomList) {
+                            ZoneAccumulator zoneAcc = getAccumulator(accumulators, zoneGeo);
 
                             ROI geometry = zoneGeo.getROI();
                             // if every geometry really contains the selected point
-                            boolean contains = false;
-                            synchronized (zoneGeo) { // HACK
-                                contains = geometry.contains(x0, y0);
-                            }
+                            boolean contains = contains(geometry, x0, y0);
                             if (contains) {
                                 // Cycle on the selected Bands
                                 for (int i = 0; i < bandNum; i++) {
@@ -2944,22 +2938,22 @@ public class ZonalStatsOpImage extends OpImage {
                                     // Update of all the statistics
                                     // If a range list is present then the sample is checked if it is inside the range
                                     if (rangesNoClass) {
-                                        for (Range range : rangeList) {
+                                        for (int r = 0; r < numRanges; r++) {
+                                            Range range = rangeList.get(r);
                                             if (range.contains(sample)) {
                                                 // For local statistics the pixel is checked for every range
                                                 if (localStats) {
-                                                    zoneGeo.add(sample, bands[i], classId, range);
+                                                    zoneAcc.add(sample, i, classId, r);
                                                 } else {
                                                     // For non local statistics the pixel when the pixel is contained inside a singular range
                                                     // it is added to the statistic container
-                                                    zoneGeo.add(sample, bands[i], classId,
-                                                            rangeHelper);
+                                                    zoneAcc.add(sample, i, classId, 0);
                                                     break;
                                                 }
                                             }
                                         }
                                     } else {
-                                        zoneGeo.add(sample, bands[i], classId, rangeHelper);
+                                        zoneAcc.add(sample, i, classId, 0);
                                     }
                                 }
                             }
@@ -2997,10 +2991,7 @@ public class ZonalStatsOpImage extends OpImage {
                         }
 
                         // ROI value
-                        boolean insideROI = false;
-                        synchronized (this) { // HACK
-                            insideROI = srcROI.contains(x0, y0);
-                        }
+                        boolean insideROI = contains(srcROI, x0, y0);
                         if (!insideROI) {
                             if (updateIterator) {
                                 rectIterator.nextPixel();
@@ -3041,13 +3032,11 @@ public class ZonalStatsOpImage extends OpImage {
                         }
                         // Cycle on all the geometries found
                         for (ZoneGeometry zoneGeo : geomList) {
+                            ZoneAccumulator zoneAcc = getAccumulator(accumulators, zoneGeo);
 
                             ROI geometry = zoneGeo.getROI();
                             // if every geometry really contains the selected point
-                            boolean contains = false;
-                            synchronized (zoneGeo) { // HACK
-                                contains = geometry.contains(x0, y0);
-                            }
+                            boolean contains = contains(geometry, x0, y0);
                             if (contains) {
                                 // Cycle on the selected Bands
                                 for (int i = 0; i < bandNum; i++) {
@@ -3056,22 +3045,22 @@ public class ZonalStatsOpImage extends OpImage {
                                     // Update of all the statistics
                                     // If a range list is present then the sample is checked if it is inside the range
                                     if (rangesNoClass) {
-                                        for (Range range : rangeList) {
+                                        for (int r = 0; r < numRanges; r++) {
+                                            Range range = rangeList.get(r);
                                             if (range.contains(sample)) {
                                                 // For local statistics the pixel is checked for every range
                                                 if (localStats) {
-                                                    zoneGeo.add(sample, bands[i], classId, range);
+                                                    zoneAcc.add(sample, i, classId, r);
                                                 } else {
                                                     // For non local statistics the pixel when the pixel is contained inside a singular range
                                                     // it is added to the statistic container
-                                                    zoneGeo.add(sample, bands[i], classId,
-                                                            rangeHelper);
+                                                    zoneAcc.add(sample, i, classId, 0);
                                                     break;
                                                 }
                                             }
                                         }
                                     } else {
-                                        zoneGeo.add(sample, bands[i], classId, rangeHelper);
+                                        zoneAcc.add(sample, i, classId, 0);
                                     }
                                 }
                             }
@@ -3140,14 +3129,12 @@ public class ZonalStatsOpImage extends OpImage {
                     }
                     // Cycle on all the geometries found
                     for (ZoneGeometry zoneGeo : geomList) {
+                        ZoneAccumulator zoneAcc = getAccumulator(accumulators, zoneGeo);
 
                         ROI geometry = zoneGeo.getROI();
 
                         // if every geometry really contains the selected point
-                        boolean contains = false;
-                        synchronized (zoneGeo) { // HACK
-                            contains = geometry.contains(x0, y0);
-                        }
+                        boolean contains = contains(geometry, x0, y0);
                         if (contains) {
 
                             // Cycle on the selected Bands
@@ -3159,22 +3146,22 @@ public class ZonalStatsOpImage extends OpImage {
                                     // Update of all the statistics
                                     // If a range list is present then the sample is checked if it is inside the range
                                     if (rangesNoClass) {
-                                        for (Range range : rangeList) {
+                                        for (int r = 0; r < numRanges; r++) {
+                                            Range range = rangeList.get(r);
                                             if (range.contains(sample)) {
                                                 // For local statistics the pixel is checked for every range
                                                 if (localStats) {
-                                                    zoneGeo.add(sample, bands[i], classId, range);
+                                                    zoneAcc.add(sample, i, classId, r);
                                                 } else {
                                                     // For non local statistics the pixel when the pixel is contained inside a singular range
                                                     // it is added to the statistic container
-                                                    zoneGeo.add(sample, bands[i], classId,
-                                                            rangeHelper);
+                                                    zoneAcc.add(sample, i, classId, 0);
                                                     break;
                                                 }
                                             }
                                         }
                                     } else {
-                                        zoneGeo.add(sample, bands[i], classId, rangeHelper);
+                                        zoneAcc.add(sample, i, classId, 0);
                                     }
                                 }
                             }
@@ -3263,14 +3250,12 @@ public class ZonalStatsOpImage extends OpImage {
                         }
                         // Cycle on all the geometries found
                         for (ZoneGeometry zoneGeo : geomList) {
+                            ZoneAccumulator zoneAcc = getAccumulator(accumulators, zoneGeo);
 
                             ROI geometry = zoneGeo.getROI();
 
                             // if every geometry really contains the selected point
-                            boolean contains = false;
-                            synchronized (zoneGeo) { // HACK
-                                contains = geometry.contains(x0, y0);
-                            }
+                            boolean contains = contains(geometry, x0, y0);
                             if (contains) {
 
                                 // Cycle on the selected Bands
@@ -3282,23 +3267,22 @@ public class ZonalStatsOpImage extends OpImage {
                                         // Update of all the statistics
                                         // If a range list is present then the sample is checked if it is inside the range
                                         if (rangesNoClass) {
-                                            for (Range range : rangeList) {
+                                            for (int r = 0; r < numRanges; r++) {
+                                                Range range = rangeList.get(r);
                                                 if (range.contains(sample)) {
                                                     // For local statistics the pixel is checked for every range
                                                     if (localStats) {
-                                                        zoneGeo.add(sample, bands[i], classId,
-                                                                range);
+                                                        zoneAcc.add(sample, i, classId, r);
                                                     } else {
                                                         // For non local statistics the pixel when the pixel is contained inside a singular range
                                                         // it is added to the statistic container
-                                                        zoneGeo.add(sample, bands[i], classId,
-                                                                rangeHelper);
+                                                        zoneAcc.add(sample, i, classId, 0);
                                                         break;
                                                     }
                                                 }
                                             }
                                         } else {
-                                            zoneGeo.add(sample, bands[i], classId, rangeHelper);
+                                            zoneAcc.add(sample, i, classId, 0);
                                         }
                                     }
                                 }
@@ -3338,10 +3322,7 @@ public class ZonalStatsOpImage extends OpImage {
                         }
 
                         // ROI value
-                        boolean insideROI = false;
-                        synchronized (this) { // HACK
-                            insideROI = srcROI.contains(x0, y0);
-                        }
+                        boolean insideROI = contains(srcROI, x0, y0);
                         if (!insideROI) {
                             if (updateIterator) {
                                 rectIterator.nextPixel();
@@ -3382,14 +3363,12 @@ public class ZonalStatsOpImage extends OpImage {
                         }
                         // Cycle on all the geometries found
                         for (ZoneGeometry zoneGeo : geomList) {
+                            ZoneAccumulator zoneAcc = getAccumulator(accumulators, zoneGeo);
 
                             ROI geometry = zoneGeo.getROI();
 
                             // if every geometry really contains the selected point
-                            boolean contains = false;
-                            synchronized (zoneGeo) { // HACK
-                                contains = geometry.contains(x0, y0);
-                            }
+                            boolean contains = contains(geometry, x0, y0);
                             if (contains) {
 
                                 // Cycle on the selected Bands
@@ -3401,23 +3380,22 @@ public class ZonalStatsOpImage extends OpImage {
                                         // Update of all the statistics
                                         // If a range list is present then the sample is checked if it is inside the range
                                         if (rangesNoClass) {
-                                            for (Range range : rangeList) {
+                                            for (int r = 0; r < numRanges; r++) {
+                                                Range range = rangeList.get(r);
                                                 if (range.contains(sample)) {
                                                     // For local statistics the pixel is checked for every range
                                                     if (localStats) {
-                                                        zoneGeo.add(sample, bands[i], classId,
-                                                                range);
+                                                        zoneAcc.add(sample, i, classId, r);
                                                     } else {
                                                         // For non local statistics the pixel when the pixel is contained inside a singular range
                                                         // it is added to the statistic container
-                                                        zoneGeo.add(sample, bands[i], classId,
-                                                                rangeHelper);
+                                                        zoneAcc.add(sample, i, classId, 0);
                                                         break;
                                                     }
                                                 }
                                             }
                                         } else {
-                                            zoneGeo.add(sample, bands[i], classId, rangeHelper);
+                                            zoneAcc.add(sample, i, classId, 0);
                                         }
                                     }
                                 }
@@ -3435,7 +3413,7 @@ public class ZonalStatsOpImage extends OpImage {
     }
 
     private void floatLoop(RasterAccessor src, Rectangle computableArea, int tileX, int tileY,
-            RasterAccessor roi) {
+            RasterAccessor roi, ZoneAccumulator[] accumulators) {
 
         // Source RasterAccessor initial parameters
         final int srcX = src.getX();
@@ -3532,13 +3510,11 @@ public class ZonalStatsOpImage extends OpImage {
                     }
                     // Cycle on all the geometries found
                     for (ZoneGeometry zoneGeo : geomList) {
+                        ZoneAccumulator zoneAcc = getAccumulator(accumulators, zoneGeo);
 
                         ROI geometry = zoneGeo.getROI();
                         // if every geometry really contains the selected point
-                        boolean contains = false;
-                        synchronized (zoneGeo) { // HACK
-                            contains = geometry.contains(x0, y0);
-                        }
+                        boolean contains = contains(geometry, x0, y0);
                         if (contains) {
                             // Cycle on the selected Bands
                             for (int i = 0; i < bandNum; i++) {
@@ -3547,21 +3523,22 @@ public class ZonalStatsOpImage extends OpImage {
                                 // Update of all the statistics
                                 // If a range list is present then the sample is checked if it is inside the range
                                 if (rangesNoClass) {
-                                    for (Range range : rangeList) {
+                                    for (int r = 0; r < numRanges; r++) {
+                                        Range range = rangeList.get(r);
                                         if (range.contains(sample)) {
                                             // For local statistics the pixel is checked for every range
                                             if (localStats) {
-                                                zoneGeo.add(sample, bands[i], classId, range);
+                                                zoneAcc.add(sample, i, classId, r);
                                             } else {
                                                 // For non local statistics the pixel when the pixel is contained inside a singular range
                                                 // it is added to the statistic container
-                                                zoneGeo.add(sample, bands[i], classId, rangeHelper);
+                                                zoneAcc.add(sample, i, classId, 0);
                                                 break;
                                             }
                                         }
                                     }
                                 } else {
-                                    zoneGeo.add(sample, bands[i], classId, rangeHelper);
+                                    zoneAcc.add(sample, i, classId, 0);
                                 }
                             }
                         }
@@ -3648,13 +3625,11 @@ public class ZonalStatsOpImage extends OpImage {
                         }
                         // Cycle on all the geometries found
                         for (ZoneGeometry zoneGeo : geomList) {
+                            ZoneAccumulator zoneAcc = getAccumulator(accumulators, zoneGeo);
 
                             ROI geometry = zoneGeo.getROI();
                             // if every geometry really contains the selected point
-                            boolean contains = false;
-                            synchronized (zoneGeo) { // HACK
-                                contains = geometry.contains(x0, y0);
-                            }
+                            boolean contains = contains(geometry, x0, y0);
                             if (contains) {
                                 // Cycle on the selected Bands
                                 for (int i = 0; i < bandNum; i++) {
@@ -3663,22 +3638,22 @@ public class ZonalStatsOpImage extends OpImage {
                                     // Update of all the statistics
                                     // If a range list is present then the sample is checked if it is inside the range
                                     if (rangesNoClass) {
-                                        for (Range range : rangeList) {
+                                        for (int r = 0; r < numRanges; r++) {
+                                            Range range = rangeList.get(r);
                                             if (range.contains(sample)) {
                                                 // For local statistics the pixel is checked for every range
                                                 if (localStats) {
-                                                    zoneGeo.add(sample, bands[i], classId, range);
+                                                    zoneAcc.add(sample, i, classId, r);
                                                 } else {
                                                     // For non local statistics the pixel when the pixel is contained inside a singular range
                                                     // it is added to the statistic container
-                                                    zoneGeo.add(sample, bands[i], classId,
-                                                            rangeHelper);
+                                                    zoneAcc.add(sample, i, classId, 0);
                                                     break;
                                                 }
                                             }
                                         }
                                     } else {
-                                        zoneGeo.add(sample, bands[i], classId, rangeHelper);
+                                        zoneAcc.add(sample, i, classId, 0);
                                     }
                                 }
                             }
@@ -3716,10 +3691,7 @@ public class ZonalStatsOpImage extends OpImage {
                         }
 
                         // ROI value
-                        boolean insideROI = false;
-                        synchronized (this) { // HACK
-                            insideROI = srcROI.contains(x0, y0);
-                        }
+                        boolean insideROI = contains(srcROI, x0, y0);
                         if (!insideROI) {
                             if (updateIterator) {
                                 rectIterator.nextPixel();
@@ -3760,13 +3732,11 @@ public class ZonalStatsOpImage extends OpImage {
                         }
                         // Cycle on all the geometries found
                         for (ZoneGeometry zoneGeo : geomList) {
+                            ZoneAccumulator zoneAcc = getAccumulator(accumulators, zoneGeo);
 
                             ROI geometry = zoneGeo.getROI();
                             // if every geometry really contains the selected point
-                            boolean contains = false;
-                            synchronized (zoneGeo) { // HACK
-                                contains = geometry.contains(x0, y0);
-                            }
+                            boolean contains = contains(geometry, x0, y0);
                             if (contains) {
                                 // Cycle on the selected Bands
                                 for (int i = 0; i < bandNum; i++) {
@@ -3775,22 +3745,22 @@ public class ZonalStatsOpImage extends OpImage {
                                     // Update of all the statistics
                                     // If a range list is present then the sample is checked if it is inside the range
                                     if (rangesNoClass) {
-                                        for (Range range : rangeList) {
+                                        for (int r = 0; r < numRanges; r++) {
+                                            Range range = rangeList.get(r);
                                             if (range.contains(sample)) {
                                                 // For local statistics the pixel is checked for every range
                                                 if (localStats) {
-                                                    zoneGeo.add(sample, bands[i], classId, range);
+                                                    zoneAcc.add(sample, i, classId, r);
                                                 } else {
                                                     // For non local statistics the pixel when the pixel is contained inside a singular range
                                                     // it is added to the statistic container
-                                                    zoneGeo.add(sample, bands[i], classId,
-                                                            rangeHelper);
+                                                    zoneAcc.add(sample, i, classId, 0);
                                                     break;
                                                 }
                                             }
                                         }
                                     } else {
-                                        zoneGeo.add(sample, bands[i], classId, rangeHelper);
+                                        zoneAcc.add(sample, i, classId, 0);
                                     }
                                 }
                             }
@@ -3859,14 +3829,12 @@ public class ZonalStatsOpImage extends OpImage {
                     }
                     // Cycle on all the geometries found
                     for (ZoneGeometry zoneGeo : geomList) {
+                        ZoneAccumulator zoneAcc = getAccumulator(accumulators, zoneGeo);
 
                         ROI geometry = zoneGeo.getROI();
 
                         // if every geometry really contains the selected point
-                        boolean contains = false;
-                        synchronized (zoneGeo) { // HACK
-                            contains = geometry.contains(x0, y0);
-                        }
+                        boolean contains = contains(geometry, x0, y0);
                         if (contains) {
 
                             // Cycle on the selected Bands
@@ -3878,22 +3846,22 @@ public class ZonalStatsOpImage extends OpImage {
                                     // Update of all the statistics
                                     // If a range list is present then the sample is checked if it is inside the range
                                     if (rangesNoClass) {
-                                        for (Range range : rangeList) {
+                                        for (int r = 0; r < numRanges; r++) {
+                                            Range range = rangeList.get(r);
                                             if (range.contains(sample)) {
                                                 // For local statistics the pixel is checked for every range
                                                 if (localStats) {
-                                                    zoneGeo.add(sample, bands[i], classId, range);
+                                                    zoneAcc.add(sample, i, classId, r);
                                                 } else {
                                                     // For non local statistics the pixel when the pixel is contained inside a singular range
                                                     // it is added to the statistic container
-                                                    zoneGeo.add(sample, bands[i], classId,
-                                                            rangeHelper);
+                                                    zoneAcc.add(sample, i, classId, 0);
                                                     break;
                                                 }
                                             }
                                         }
                                     } else {
-                                        zoneGeo.add(sample, bands[i], classId, rangeHelper);
+                                        zoneAcc.add(sample, i, classId, 0);
                                     }
                                 }
                             }
@@ -3982,14 +3950,12 @@ public class ZonalStatsOpImage extends OpImage {
                         }
                         // Cycle on all the geometries found
                         for (ZoneGeometry zoneGeo : geomList) {
+                            ZoneAccumulator zoneAcc = getAccumulator(accumulators, zoneGeo);
 
                             ROI geometry = zoneGeo.getROI();
 
                             // if every geometry really contains the selected point
-                            boolean contains = false;
-                            synchronized (zoneGeo) { // HACK
-                                contains = geometry.contains(x0, y0);
-                            }
+                            boolean contains = contains(geometry, x0, y0);
                             if (contains) {
 
                                 // Cycle on the selected Bands
@@ -4001,23 +3967,22 @@ public class ZonalStatsOpImage extends OpImage {
                                         // Update of all the statistics
                                         // If a range list is present then the sample is checked if it is inside the range
                                         if (rangesNoClass) {
-                                            for (Range range : rangeList) {
+                                            for (int r = 0; r < numRanges; r++) {
+                                                Range range = rangeList.get(r);
                                                 if (range.contains(sample)) {
                                                     // For local statistics the pixel is checked for every range
                                                     if (localStats) {
-                                                        zoneGeo.add(sample, bands[i], classId,
-                                                                range);
+                                                        zoneAcc.add(sample, i, classId, r);
                                                     } else {
                                                         // For non local statistics the pixel when the pixel is contained inside a singular range
                                                         // it is added to the statistic container
-                                                        zoneGeo.add(sample, bands[i], classId,
-                                                                rangeHelper);
+                                                        zoneAcc.add(sample, i, classId, 0);
                                                         break;
                                                     }
                                                 }
                                             }
                                         } else {
-                                            zoneGeo.add(sample, bands[i], classId, rangeHelper);
+                                            zoneAcc.add(sample, i, classId, 0);
                                         }
                                     }
                                 }
@@ -4057,10 +4022,7 @@ public class ZonalStatsOpImage extends OpImage {
                         }
 
                         // ROI value
-                        boolean insideROI = false;
-                        synchronized (this) { // HACK
-                            insideROI = srcROI.contains(x0, y0);
-                        }
+                        boolean insideROI = contains(srcROI, x0, y0);
                         if (!insideROI) {
                             if (updateIterator) {
                                 rectIterator.nextPixel();
@@ -4101,14 +4063,12 @@ public class ZonalStatsOpImage extends OpImage {
                         }
                         // Cycle on all the geometries found
                         for (ZoneGeometry zoneGeo : geomList) {
+                            ZoneAccumulator zoneAcc = getAccumulator(accumulators, zoneGeo);
 
                             ROI geometry = zoneGeo.getROI();
 
                             // if every geometry really contains the selected point
-                            boolean contains = false;
-                            synchronized (zoneGeo) { // HACK
-                                contains = geometry.contains(x0, y0);
-                            }
+                            boolean contains = contains(geometry, x0, y0);
                             if (contains) {
 
                                 // Cycle on the selected Bands
@@ -4120,23 +4080,22 @@ public class ZonalStatsOpImage extends OpImage {
                                         // Update of all the statistics
                                         // If a range list is present then the sample is checked if it is inside the range
                                         if (rangesNoClass) {
-                                            for (Range range : rangeList) {
+                                            for (int r = 0; r < numRanges; r++) {
+                                                Range range = rangeList.get(r);
                                                 if (range.contains(sample)) {
                                                     // For local statistics the pixel is checked for every range
                                                     if (localStats) {
-                                                        zoneGeo.add(sample, bands[i], classId,
-                                                                range);
+                                                        zoneAcc.add(sample, i, classId, r);
                                                     } else {
                                                         // For non local statistics the pixel when the pixel is contained inside a singular range
                                                         // it is added to the statistic container
-                                                        zoneGeo.add(sample, bands[i], classId,
-                                                                rangeHelper);
+                                                        zoneAcc.add(sample, i, classId, 0);
                                                         break;
                                                     }
                                                 }
                                             }
                                         } else {
-                                            zoneGeo.add(sample, bands[i], classId, rangeHelper);
+                                            zoneAcc.add(sample, i, classId, 0);
                                         }
                                     }
                                 }
@@ -4154,7 +4113,7 @@ public class ZonalStatsOpImage extends OpImage {
     }
 
     private void doubleLoop(RasterAccessor src, Rectangle computableArea, int tileX, int tileY,
-            RasterAccessor roi) {
+            RasterAccessor roi, ZoneAccumulator[] accumulators) {
 
         // Source RasterAccessor initial parameters
         final int srcX = src.getX();
@@ -4251,13 +4210,11 @@ public class ZonalStatsOpImage extends OpImage {
                     }
                     // Cycle on all the geometries found
                     for (ZoneGeometry zoneGeo : geomList) {
+                        ZoneAccumulator zoneAcc = getAccumulator(accumulators, zoneGeo);
 
                         ROI geometry = zoneGeo.getROI();
                         // if every geometry really contains the selected point
-                        boolean contains = false;
-                        synchronized (zoneGeo) { // HACK
-                            contains = geometry.contains(x0, y0);
-                        }
+                        boolean contains = contains(geometry, x0, y0);
                         if (contains) {
                             // Cycle on the selected Bands
                             for (int i = 0; i < bandNum; i++) {
@@ -4266,21 +4223,22 @@ public class ZonalStatsOpImage extends OpImage {
                                 // Update of all the statistics
                                 // If a range list is present then the sample is checked if it is inside the range
                                 if (rangesNoClass) {
-                                    for (Range range : rangeList) {
+                                    for (int r = 0; r < numRanges; r++) {
+                                        Range range = rangeList.get(r);
                                         if (range.contains(sample)) {
                                             // For local statistics the pixel is checked for every range
                                             if (localStats) {
-                                                zoneGeo.add(sample, bands[i], classId, range);
+                                                zoneAcc.add(sample, i, classId, r);
                                             } else {
                                                 // For non local statistics the pixel when the pixel is contained inside a singular range
                                                 // it is added to the statistic container
-                                                zoneGeo.add(sample, bands[i], classId, rangeHelper);
+                                                zoneAcc.add(sample, i, classId, 0);
                                                 break;
                                             }
                                         }
                                     }
                                 } else {
-                                    zoneGeo.add(sample, bands[i], classId, rangeHelper);
+                                    zoneAcc.add(sample, i, classId, 0);
                                 }
                             }
                         }
@@ -4367,13 +4325,11 @@ public class ZonalStatsOpImage extends OpImage {
                         }
                         // Cycle on all the geometries found
                         for (ZoneGeometry zoneGeo : geomList) {
+                            ZoneAccumulator zoneAcc = getAccumulator(accumulators, zoneGeo);
 
                             ROI geometry = zoneGeo.getROI();
                             // if every geometry really contains the selected point
-                            boolean contains = false;
-                            synchronized (zoneGeo) { // HACK
-                                contains = geometry.contains(x0, y0);
-                            }
+                            boolean contains = contains(geometry, x0, y0);
                             if (contains) {
                                 // Cycle on the selected Bands
                                 for (int i = 0; i < bandNum; i++) {
@@ -4382,22 +4338,22 @@ public class ZonalStatsOpImage extends OpImage {
                                     // Update of all the statistics
                                     // If a range list is present then the sample is checked if it is inside the range
                                     if (rangesNoClass) {
-                                        for (Range range : rangeList) {
+                                        for (int r = 0; r < numRanges; r++) {
+                                            Range range = rangeList.get(r);
                                             if (range.contains(sample)) {
                                                 // For local statistics the pixel is checked for every range
                                                 if (localStats) {
-                                                    zoneGeo.add(sample, bands[i], classId, range);
+                                                    zoneAcc.add(sample, i, classId, r);
                                                 } else {
                                                     // For non local statistics the pixel when the pixel is contained inside a singular range
                                                     // it is added to the statistic container
-                                                    zoneGeo.add(sample, bands[i], classId,
-                                                            rangeHelper);
+                                                    zoneAcc.add(sample, i, classId, 0);
                                                     break;
                                                 }
                                             }
                                         }
                                     } else {
-                                        zoneGeo.add(sample, bands[i], classId, rangeHelper);
+                                        zoneAcc.add(sample, i, classId, 0);
                                     }
                                 }
                             }
@@ -4435,10 +4391,7 @@ public class ZonalStatsOpImage extends OpImage {
                         }
 
                         // ROI value
-                        boolean insideROI = false;
-                        synchronized (this) { // HACK
-                            insideROI = srcROI.contains(x0, y0);
-                        }
+                        boolean insideROI = contains(srcROI, x0, y0);
                         if (!insideROI) {
                             if (updateIterator) {
                                 rectIterator.nextPixel();
@@ -4479,13 +4432,11 @@ public class ZonalStatsOpImage extends OpImage {
                         }
                         // Cycle on all the geometries found
                         for (ZoneGeometry zoneGeo : geomList) {
+                            ZoneAccumulator zoneAcc = getAccumulator(accumulators, zoneGeo);
 
                             ROI geometry = zoneGeo.getROI();
                             // if every geometry really contains the selected point
-                            boolean contains = false;
-                            synchronized (zoneGeo) { // HACK
-                                contains = geometry.contains(x0, y0);
-                            }
+                            boolean contains = contains(geometry, x0, y0);
                             if (contains) {
                                 // Cycle on the selected Bands
                                 for (int i = 0; i < bandNum; i++) {
@@ -4494,22 +4445,22 @@ public class ZonalStatsOpImage extends OpImage {
                                     // Update of all the statistics
                                     // If a range list is present then the sample is checked if it is inside the range
                                     if (rangesNoClass) {
-                                        for (Range range : rangeList) {
+                                        for (int r = 0; r < numRanges; r++) {
+                                            Range range = rangeList.get(r);
                                             if (range.contains(sample)) {
                                                 // For local statistics the pixel is checked for every range
                                                 if (localStats) {
-                                                    zoneGeo.add(sample, bands[i], classId, range);
+                                                    zoneAcc.add(sample, i, classId, r);
                                                 } else {
                                                     // For non local statistics the pixel when the pixel is contained inside a singular range
                                                     // it is added to the statistic container
-                                                    zoneGeo.add(sample, bands[i], classId,
-                                                            rangeHelper);
+                                                    zoneAcc.add(sample, i, classId, 0);
                                                     break;
                                                 }
                                             }
                                         }
                                     } else {
-                                        zoneGeo.add(sample, bands[i], classId, rangeHelper);
+                                        zoneAcc.add(sample, i, classId, 0);
                                     }
                                 }
                             }
@@ -4578,14 +4529,12 @@ public class ZonalStatsOpImage extends OpImage {
                     }
                     // Cycle on all the geometries found
                     for (ZoneGeometry zoneGeo : geomList) {
+                        ZoneAccumulator zoneAcc = getAccumulator(accumulators, zoneGeo);
 
                         ROI geometry = zoneGeo.getROI();
 
                         // if every geometry really contains the selected point
-                        boolean contains = false;
-                        synchronized (zoneGeo) { // HACK
-                            contains = geometry.contains(x0, y0);
-                        }
+                        boolean contains = contains(geometry, x0, y0);
                         if (contains) {
 
                             // Cycle on the selected Bands
@@ -4597,22 +4546,22 @@ public class ZonalStatsOpImage extends OpImage {
                                     // Update of all the statistics
                                     // If a range list is present then the sample is checked if it is inside the range
                                     if (rangesNoClass) {
-                                        for (Range range : rangeList) {
+                                        for (int r = 0; r < numRanges; r++) {
+                                            Range range = rangeList.get(r);
                                             if (range.contains(sample)) {
                                                 // For local statistics the pixel is checked for every range
                                                 if (localStats) {
-                                                    zoneGeo.add(sample, bands[i], classId, range);
+                                                    zoneAcc.add(sample, i, classId, r);
                                                 } else {
                                                     // For non local statistics the pixel when the pixel is contained inside a singular range
                                                     // it is added to the statistic container
-                                                    zoneGeo.add(sample, bands[i], classId,
-                                                            rangeHelper);
+                                                    zoneAcc.add(sample, i, classId, 0);
                                                     break;
                                                 }
                                             }
                                         }
                                     } else {
-                                        zoneGeo.add(sample, bands[i], classId, rangeHelper);
+                                        zoneAcc.add(sample, i, classId, 0);
                                     }
                                 }
                             }
@@ -4701,14 +4650,12 @@ public class ZonalStatsOpImage extends OpImage {
                         }
                         // Cycle on all the geometries found
                         for (ZoneGeometry zoneGeo : geomList) {
+                            ZoneAccumulator zoneAcc = getAccumulator(accumulators, zoneGeo);
 
                             ROI geometry = zoneGeo.getROI();
 
                             // if every geometry really contains the selected point
-                            boolean contains = false;
-                            synchronized (zoneGeo) { // HACK
-                                contains = geometry.contains(x0, y0);
-                            }
+                            boolean contains = contains(geometry, x0, y0);
                             if (contains) {
 
                                 // Cycle on the selected Bands
@@ -4720,23 +4667,22 @@ public class ZonalStatsOpImage extends OpImage {
                                         // Update of all the statistics
                                         // If a range list is present then the sample is checked if it is inside the range
                                         if (rangesNoClass) {
-                                            for (Range range : rangeList) {
+                                            for (int r = 0; r < numRanges; r++) {
+                                                Range range = rangeList.get(r);
                                                 if (range.contains(sample)) {
                                                     // For local statistics the pixel is checked for every range
                                                     if (localStats) {
-                                                        zoneGeo.add(sample, bands[i], classId,
-                                                                range);
+                                                        zoneAcc.add(sample, i, classId, r);
                                                     } else {
                                                         // For non local statistics the pixel when the pixel is contained inside a singular range
                                                         // it is added to the statistic container
-                                                        zoneGeo.add(sample, bands[i], classId,
-                                                                rangeHelper);
+                                                        zoneAcc.add(sample, i, classId, 0);
                                                         break;
                                                     }
                                                 }
                                             }
                                         } else {
-                                            zoneGeo.add(sample, bands[i], classId, rangeHelper);
+                                            zoneAcc.add(sample, i, classId, 0);
                                         }
                                     }
                                 }
@@ -4776,10 +4722,7 @@ public class ZonalStatsOpImage extends OpImage {
                         }
 
                         // ROI value
-                        boolean insideROI = false;
-                        synchronized (this) { // HACK
-                            insideROI = srcROI.contains(x0, y0);
-                        }
+                        boolean insideROI = contains(srcROI, x0, y0);
                         if (!insideROI) {
                             if (updateIterator) {
                                 rectIterator.nextPixel();
@@ -4820,14 +4763,12 @@ public class ZonalStatsOpImage extends OpImage {
                         }
                         // Cycle on all the geometries found
                         for (ZoneGeometry zoneGeo : geomList) {
+                            ZoneAccumulator zoneAcc = getAccumulator(accumulators, zoneGeo);
 
                             ROI geometry = zoneGeo.getROI();
 
                             // if every geometry really contains the selected point
-                            boolean contains = false;
-                            synchronized (zoneGeo) { // HACK
-                                contains = geometry.contains(x0, y0);
-                            }
+                            boolean contains = contains(geometry, x0, y0);
                             if (contains) {
 
                                 // Cycle on the selected Bands
@@ -4839,23 +4780,22 @@ public class ZonalStatsOpImage extends OpImage {
                                         // Update of all the statistics
                                         // If a range list is present then the sample is checked if it is inside the range
                                         if (rangesNoClass) {
-                                            for (Range range : rangeList) {
+                                            for (int r = 0; r < numRanges; r++) {
+                                                Range range = rangeList.get(r);
                                                 if (range.contains(sample)) {
                                                     // For local statistics the pixel is checked for every range
                                                     if (localStats) {
-                                                        zoneGeo.add(sample, bands[i], classId,
-                                                                range);
+                                                        zoneAcc.add(sample, i, classId, r);
                                                     } else {
                                                         // For non local statistics the pixel when the pixel is contained inside a singular range
                                                         // it is added to the statistic container
-                                                        zoneGeo.add(sample, bands[i], classId,
-                                                                rangeHelper);
+                                                        zoneAcc.add(sample, i, classId, 0);
                                                         break;
                                                     }
                                                 }
                                             }
                                         } else {
-                                            zoneGeo.add(sample, bands[i], classId, rangeHelper);
+                                            zoneAcc.add(sample, i, classId, 0);
                                         }
                                     }
                                 }
@@ -4872,6 +4812,333 @@ public class ZonalStatsOpImage extends OpImage {
 
     }
 
+    /**
+     * Computes the statistics of the tile one zone at a time: the zones intersecting the tile are selected with a single spatial index query and
+     * each of them is converted by the {@link ZoneRasterizer} into the spans of the pixels it contains. The samples of each span are read at once
+     * and added to the zone accumulator without any further query or containment check.
+     */
+    private void spanLoop(RasterAccessor src, Rectangle computableArea, int tileX, int tileY,
+            RasterAccessor roi, int dataType, ZoneAccumulator[] accumulators) {
+        // Source RasterAccessor initial parameters
+        final int srcX = src.getX();
+        final int srcY = src.getY();
+
+        final int srcWidth = src.getWidth();
+        final int srcHeight = src.getHeight();
+
+        final int[] srcBandOffsets = src.getBandOffsets();
+        final int srcPixelStride = src.getPixelStride();
+        final int srcScanlineStride = src.getScanlineStride();
+
+        // Selection of the zones intersecting the tile
+        Envelope searchEnv = new Envelope(srcX, srcX + srcWidth - 1, srcY, srcY + srcHeight - 1);
+        List<ZoneGeometry> geomList = spatialIndex.query(searchEnv);
+        if (geomList.isEmpty()) {
+            return;
+        }
+
+        final Object[] srcData;
+        switch (dataType) {
+        case DataBuffer.TYPE_BYTE:
+            srcData = src.getByteDataArrays();
+            break;
+        case DataBuffer.TYPE_USHORT:
+        case DataBuffer.TYPE_SHORT:
+            srcData = src.getShortDataArrays();
+            break;
+        case DataBuffer.TYPE_INT:
+            srcData = src.getIntDataArrays();
+            break;
+        case DataBuffer.TYPE_FLOAT:
+            srcData = src.getFloatDataArrays();
+            break;
+        case DataBuffer.TYPE_DOUBLE:
+            srcData = src.getDoubleDataArrays();
+            break;
+        default:
+            throw new IllegalArgumentException("Wrong data type");
+        }
+
+        // Mask of the pixels inside the ROI
+        final byte[] roiMask = hasROI ? getROIMask(computableArea, roi) : null;
+
+        // Classifier values of the tile, if the transformation is an identity
+        final int[] classIds;
+        if (updateIterator) {
+            Raster ras = classifier.getTile(tileX, tileY);
+            classIds = ras.getSamples(srcX, srcY, srcWidth, srcHeight, 0, (int[]) null);
+        } else {
+            classIds = null;
+        }
+
+        final double[] samples = new double[srcWidth];
+        final int[] spanClassIds = new int[srcWidth];
+
+        // Cycle on all the geometries found
+        for (ZoneGeometry zoneGeo : geomList) {
+            ZoneAccumulator zoneAcc = getAccumulator(accumulators, zoneGeo);
+            int[][] spans = ZoneRasterizer.getSpans(zoneGeo.getROI(), computableArea);
+            // Cycle on the y axis
+            for (int y = 0; y < srcHeight; y++) {
+                int[] rowSpans = spans[y];
+                if (rowSpans == null) {
+                    continue;
+                }
+                // y position on the source data array
+                int posy = y * srcScanlineStride;
+                // y position on the mask and classifier arrays
+                int posYmask = y * srcWidth;
+                // Cycle on the spans of the row
+                for (int s = 0; s < rowSpans.length; s += 2) {
+                    int start = rowSpans[s] - srcX;
+                    int length = rowSpans[s + 1] - rowSpans[s];
+                    // Selection of the classId of each pixel
+                    if (classPresent) {
+                        for (int x = 0; x < length; x++) {
+                            spanClassIds[x] = updateIterator ? classIds[posYmask + start + x]
+                                    : getClassId(srcX + start + x, srcY + y);
+                        }
+                    }
+                    // Cycle on the selected Bands
+                    for (int i = 0; i < bandNum; i++) {
+                        int band = bands[i];
+                        readSpan(srcData, dataType, band, posy + start * srcPixelStride
+                                + srcBandOffsets[band], srcPixelStride, length, samples);
+                        for (int x = 0; x < length; x++) {
+                            // ROI check
+                            if (roiMask != null && roiMask[posYmask + start + x] == 0) {
+                                continue;
+                            }
+                            double sample = samples[x];
+                            // NoData check
+                            if (!notHasNoData && isNoData(sample, dataType)) {
+                                continue;
+                            }
+                            addSample(zoneAcc, sample, i, classPresent ? spanClassIds[x] : 0,
+                                    dataType);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /** Copies the samples of a span of pixels of the selected band inside the input array */
+    private static void readSpan(Object[] srcData, int dataType, int band, int pos,
+            int pixelStride, int length, double[] samples) {
+        switch (dataType) {
+        case DataBuffer.TYPE_BYTE:
+            byte[] byteData = (byte[]) srcData[band];
+            for (int x = 0; x < length; x++, pos += pixelStride) {
+                samples[x] = byteData[pos] & 0xFF;
+            }
+            break;
+        case DataBuffer.TYPE_USHORT:
+            short[] ushortData = (short[]) srcData[band];
+            for (int x = 0; x < length; x++, pos += pixelStride) {
+                samples[x] = ushortData[pos] & 0xFFFF;
+            }
+            break;
+        case DataBuffer.TYPE_SHORT:
+            short[] shortData = (short[]) srcData[band];
+            for (int x = 0; x < length; x++, pos += pixelStride) {
+                samples[x] = shortData[pos];
+            }
+            break;
+        case DataBuffer.TYPE_INT:
+            int[] intData = (int[]) srcData[band];
+            for (int x = 0; x < length; x++, pos += pixelStride) {
+                samples[x] = intData[pos];
+            }
+            break;
+        case DataBuffer.TYPE_FLOAT:
+            float[] floatData = (float[]) srcData[band];
+            for (int x = 0; x < length; x++, pos += pixelStride) {
+                samples[x] = floatData[pos];
+            }
+            break;
+        default:
+            double[] doubleData = (double[]) srcData[band];
+            for (int x = 0; x < length; x++, pos += pixelStride) {
+                samples[x] = doubleData[pos];
+            }
+            break;
+        }
+    }
+
+    /**
+     * Returns a mask of the computable area where the pixels outside the ROI are 0.
+     */
+    private byte[] getROIMask(Rectangle computableArea, RasterAccessor roi) {
+        final int width = computableArea.width;
+        final int height = computableArea.height;
+        byte[] roiMask = new byte[width * height];
+        if (useROIAccessor) {
+            byte[] roiDataArray = roi.getByteDataArray(0);
+            int roiScanLineStride = roi.getScanlineStride();
+            int roiDataLength = roiDataArray.length;
+            for (int y = 0; y < height; y++) {
+                int posYroi = y * roiScanLineStride;
+                for (int x = 0; x < width; x++) {
+                    int windex = x + posYroi;
+                    roiMask[x + y * width] = windex < roiDataLength ? roiDataArray[windex] : 0;
+                }
+            }
+        } else {
+            int[][] spans = ZoneRasterizer.getSpans(srcROI, computableArea);
+            for (int y = 0; y < height; y++) {
+                int[] rowSpans = spans[y];
+                if (rowSpans != null) {
+                    for (int s = 0; s < rowSpans.length; s += 2) {
+                        int start = y * width + rowSpans[s] - computableArea.x;
+                        int end = y * width + rowSpans[s + 1] - computableArea.x;
+                        for (int i = start; i < end; i++) {
+                            roiMask[i] = 1;
+                        }
+                    }
+                }
+            }
+        }
+        return roiMask;
+    }
+
+    /** Returns the classifier value associated to the selected source pixel, if the transformation is not an identity */
+    private int getClassId(int x0, int y0) {
+        // Selection of the initial point
+        Point pointSrc = new Point(x0, y0);
+        // Initialization of the classId point
+        Point pointClass = new Point();
+        // Source point inverse transformation for finding the related zone point
+        try {
+            inverseTrans.inverseTransform(pointSrc, pointClass);
+            return randomIterator.getSample(pointClass.x, pointClass.y, 0);
+        } catch (NoninvertibleTransformException e) {
+            LOGGER.log(Level.SEVERE, e.getMessage(), e);
+            return 0;
+        }
+    }
+
+    /** Checks if the input sample, read from an image of the selected data type, is a NoData */
+    private boolean isNoData(double sample, int dataType) {
+        if (dataType == DataBuffer.TYPE_BYTE) {
+            return !booleanLookupTable[(int) sample];
+        }
+        return contains(noData, sample, dataType);
+    }
+
+    /** Checks if the input sample, read from an image of the selected data type, is inside the Range */
+    private static boolean contains(Range range, double sample, int dataType) {
+        switch (dataType) {
+        case DataBuffer.TYPE_BYTE:
+            return range.contains((byte) sample);
+        case DataBuffer.TYPE_USHORT:
+        case DataBuffer.TYPE_SHORT:
+            return range.contains((short) sample);
+        case DataBuffer.TYPE_INT:
+            return range.contains((int) sample);
+        case DataBuffer.TYPE_FLOAT:
+            return range.contains((float) sample);
+        default:
+            return range.contains(sample);
+        }
+    }
+
+    /** Adds the sample to the statistics of the zone, checking the ranges if present */
+    private void addSample(ZoneAccumulator zoneAcc, double sample, int band, int classId,
+            int dataType) {
+        // If a range list is present then the sample is checked if it is inside the range
+        if (rangesNoClass) {
+            for (int r = 0; r < numRanges; r++) {
+                if (contains(rangeList.get(r), sample, dataType)) {
+                    // For local statistics the pixel is checked for every range
+                    if (localStats) {
+                        zoneAcc.add(sample, band, classId, r);
+                    } else {
+                        // For non local statistics the pixel when the pixel is contained inside a singular range
+                        // it is added to the statistic container
+                        zoneAcc.add(sample, band, classId, 0);
+                        break;
+                    }
+                }
+            }
+        } else {
+            zoneAcc.add(sample, band, classId, 0);
+        }
+    }
+
+    /** Checks if the geometry contains the selected pixel; only the {@link ROIShape} objects can be queried by more threads */
+    private static boolean contains(ROI geometry, int x, int y) {
+        if (geometry instanceof ROIShape) {
+            return geometry.contains(x, y);
+        }
+        synchronized (geometry) {
+            return geometry.contains(x, y);
+        }
+    }
+
+    /**
+     * Returns the accumulators used by the current thread, one for each zone; they are created the first time the thread computes a tile and
+     * registered for being merged.
+     */
+    private ZoneAccumulator[] getAccumulators() {
+        ThreadLocal<ZoneAccumulator[]> threadAccumulators = this.threadAccumulators;
+        ZoneAccumulator[] accumulators = threadAccumulators.get();
+        if (accumulators == null) {
+            accumulators = new ZoneAccumulator[zoneList.size()];
+            threadAccumulators.set(accumulators);
+            synchronized (accumulatorList) {
+                accumulatorList.add(accumulators);
+            }
+        }
+        return accumulators;
+    }
+
+    /** Returns the accumulator of the current thread associated to the selected zone */
+    private ZoneAccumulator getAccumulator(ZoneAccumulator[] accumulators, ZoneGeometry zoneGeo) {
+        ZoneAccumulator zoneAcc = accumulators[zoneGeo.getIndex()];
+        if (zoneAcc == null) {
+            zoneAcc = new ZoneAccumulator(zoneGeo, bands);
+            accumulators[zoneGeo.getIndex()] = zoneAcc;
+        }
+        return zoneAcc;
+    }
+
+    /**
+     * Adds the statistics collected by all the threads to the zone statistics. The merge waits for the tiles being computed, then the accumulators
+     * are discarded, so the threads computing other tiles will create new ones.
+     */
+    private void mergeAccumulators() {
+        accumulatorLock.writeLock().lock();
+        try {
+            synchronized (accumulatorList) {
+                for (ZoneAccumulator[] accumulators : accumulatorList) {
+                    for (ZoneAccumulator zoneAcc : accumulators) {
+                        if (zoneAcc != null) {
+                            zoneAcc.merge();
+                        }
+                    }
+                }
+                releaseAccumulators();
+            }
+        } finally {
+            accumulatorLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Discards all the registered accumulators. The arrays are emptied, since the worker threads keep them reachable from their thread local
+     * maps until the stale entries are purged; only the entry of the current thread can be removed. Must be called holding the write lock on the
+     * accumulators and the lock on the accumulator list.
+     */
+    private void releaseAccumulators() {
+        threadAccumulators.remove();
+        threadAccumulators = new ThreadLocal<ZoneAccumulator[]>();
+        for (ZoneAccumulator[] accumulators : accumulatorList) {
+            Arrays.fill(accumulators, null);
+        }
+        accumulatorList.clear();
+    }
+
     /** {@link OpImage} method that returns the destination image bounds, because source and destination images are equals */
     @Override
     public Rectangle mapDestRect(Rectangle destRect, int index) {
@@ -4970,7 +5237,12 @@ public class ZonalStatsOpImage extends OpImage {
     public Object getProperty(String name) {
         // If the specified property is "JAI-EXT.stats", the calculations are performed.
         if (ZonalStatsDescriptor.ZS_PROPERTY.equalsIgnoreCase(name)) {
-            getTiles();
+            // A concurrent request waits until all the tiles have been computed and merged
+            synchronized (statisticsLock) {
+                getTiles();
+                // Merge of the statistics collected by each thread
+                mergeAccumulators();
+            }
 
             //List<ZoneGeometry> copy = new ArrayList<ZoneGeometry>(zoneList);
 
@@ -4985,6 +5257,14 @@ public class ZonalStatsOpImage extends OpImage {
         if(srcROIImgExt != null) {
             srcROIImgExt.dispose();
         }
+        accumulatorLock.writeLock().lock();
+        try {
+            synchronized (accumulatorList) {
+                releaseAccumulators();
+            }
+        } finally {
+            accumulatorLock.writeLock().unlock();
+        }
         super.dispose();
     }
 }
@@ -64,11 +64,16 @@ public class ZonalStatsRIF implements RenderedImageFactory {
         int[] numBins = (int[]) pb.getObjectParameter(10);
         List<Range> rangeList = (List<Range>) pb.getObjectParameter(11);
         boolean localStats = (Boolean) pb.getObjectParameter(12);
+        // Rasterization of the geometries once per tile
+        boolean rasterizeZones = pb.getNumParameters() > 13
+                && (Boolean) pb.getObjectParameter(13);
 
         // Image creation
-        return new ZonalStatsOpImage(source, layout, hints, classifier, transform, roilist, noData,
-                mask, useROIAccessor, bands, statsTypes, minBound, maxBound, numBins, rangeList,
-                localStats);
+        ZonalStatsOpImage image = new ZonalStatsOpImage(source, layout, hints, classifier,
+                transform, roilist, noData, mask, useROIAccessor, bands, statsTypes, minBound,
+                maxBound, numBins, rangeList, localStats);
+        image.setRasterizeZones(rasterizeZones);
+        return image;
     }
 
 }
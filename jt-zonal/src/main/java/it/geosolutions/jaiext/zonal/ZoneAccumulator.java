@@ -0,0 +1,265 @@
+/* JAI-Ext - OpenSource Java Advanced Image Extensions Library
+*    http://www.geo-solutions.it/
+*    Copyright 2014 GeoSolutions
+
+
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+
+* http://www.apache.org/licenses/LICENSE-2.0
+
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package it.geosolutions.jaiext.zonal;
+
+import it.geosolutions.jaiext.range.Range;
+import it.geosolutions.jaiext.stats.SampleAccumulator;
+import it.geosolutions.jaiext.stats.Statistics;
+import it.geosolutions.jaiext.stats.Statistics.StatsType;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This class collects the statistics of a {@link ZoneGeometry} computed by a single thread of the {@link ZonalStatsOpImage}, so that the tiles can
+ * be computed without any lock on the zone. The statistics are stored inside dense arrays indexed by band, class and range ordinals; the class
+ * ordinals are assigned when a new class is found. The values needed by the simple statistics are stored inside a primitive array with the layout
+ * of {@link SampleAccumulator}; the complex statistics which can be merged are collected inside local objects, while the others (Histogram, Mode
+ * and Median) are updated directly on the zone statistics, synchronizing on each statistic object. The collected values are added to the zone
+ * statistics by calling the {@link #merge()} method.
+ */
+final class ZoneAccumulator {
+
+    /** Initial number of classes */
+    private static final int INITIAL_CLASSES = 4;
+
+    /** Zone associated to the accumulator */
+    private final ZoneGeometry zone;
+
+    /** Array indicating the source image selected bands */
+    private final int[] bands;
+
+    /** Ranges of the zone */
+    private final List<Range> ranges;
+
+    /** Number of ranges */
+    private final int numRanges;
+
+    /** Number of elements stored for each class */
+    private final int slotsPerClass;
+
+    /** Array indicating which statistics are simple */
+    private final boolean[] simple;
+
+    /** Array indicating which complex statistics are collected locally */
+    private final boolean[] local;
+
+    /** Boolean indicating if complex statistics are collected locally */
+    private final boolean hasLocal;
+
+    /** Boolean indicating if complex statistics are updated on the zone statistics */
+    private final boolean hasShared;
+
+    /** Values of the simple statistics for each band, class and range */
+    private double[] values;
+
+    /** Local complex statistics for each band, class and range */
+    private Statistics[][] localStats;
+
+    /** Zone statistics for each band, class and range, used for the complex statistics which cannot be merged */
+    private Statistics[][] sharedStats;
+
+    /** Class associated to each ordinal */
+    private int[] classIds;
+
+    /** Number of classes found */
+    private int numClasses;
+
+    /** Hash table containing the class ordinals, with linear probing; empty positions are -1 */
+    private int[] hashTable;
+
+    /** Last class found */
+    private int lastClassId;
+
+    /** Ordinal of the last class found */
+    private int lastClass = -1;
+
+    ZoneAccumulator(ZoneGeometry zone, int[] bands) {
+        this.zone = zone;
+        this.bands = bands;
+        this.ranges = zone.getRanges();
+        this.numRanges = ranges.size();
+        this.slotsPerClass = bands.length * numRanges;
+
+        StatsType[] stats = zone.getStatsTypes();
+        simple = new boolean[stats.length];
+        local = new boolean[stats.length];
+        boolean hasLocal = false;
+        boolean hasShared = false;
+        for (int st = 0; st < stats.length; st++) {
+            simple[st] = stats[st].getStatsId() <= 6;
+            local[st] = stats[st] == StatsType.QUANTILE_MEDIAN
+                    || stats[st] == StatsType.PERCENTILES;
+            hasLocal |= local[st];
+            hasShared |= !simple[st] && !local[st];
+        }
+        this.hasLocal = hasLocal;
+        this.hasShared = hasShared;
+
+        classIds = new int[INITIAL_CLASSES];
+        hashTable = new int[INITIAL_CLASSES * 2];
+        Arrays.fill(hashTable, -1);
+        values = new double[INITIAL_CLASSES * slotsPerClass * SampleAccumulator.SIZE];
+        if (hasLocal) {
+            localStats = new Statistics[INITIAL_CLASSES * slotsPerClass][];
+        }
+        if (hasShared) {
+            sharedStats = new Statistics[INITIAL_CLASSES * slotsPerClass][];
+        }
+    }
+
+    /**
+     * Adds a sample to the statistics
+     * 
+     * @param sample sample value
+     * @param band ordinal of the band inside the selected bands array
+     * @param classId class of the sample (0 if the classifier is not present)
+     * @param range ordinal of the range inside the zone ranges
+     */
+    void add(double sample, int band, int classId, int range) {
+        int classOrdinal = lastClass;
+        if (classId != lastClassId || classOrdinal < 0) {
+            classOrdinal = getClassOrdinal(classId);
+            lastClassId = classId;
+            lastClass = classOrdinal;
+        }
+        int slot = classOrdinal * slotsPerClass + band * numRanges + range;
+        SampleAccumulator.add(values, slot * SampleAccumulator.SIZE, sample);
+        if (hasLocal) {
+            Statistics[] statistics = localStats[slot];
+            if (statistics == null) {
+                statistics = zone.createStatistics(bands[band]);
+                localStats[slot] = statistics;
+            }
+            for (int st = 0; st < statistics.length; st++) {
+                if (local[st]) {
+                    statistics[st].addSample(sample);
+                }
+            }
+        }
+        if (hasShared) {
+            Statistics[] statistics = sharedStats[slot];
+            if (statistics == null) {
+                statistics = zone.getStatistics(bands[band], classId, ranges.get(range));
+                sharedStats[slot] = statistics;
+            }
+            for (int st = 0; st < statistics.length; st++) {
+                if (!simple[st] && !local[st]) {
+                    Statistics stat = statistics[st];
+                    synchronized (stat) {
+                        stat.addSample(sample);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds the collected statistics to the zone statistics. The accumulator must not be used after this call.
+     */
+    void merge() {
+        synchronized (zone) {
+            for (int c = 0; c < numClasses; c++) {
+                for (int b = 0; b < bands.length; b++) {
+                    for (int r = 0; r < numRanges; r++) {
+                        int slot = c * slotsPerClass + b * numRanges + r;
+                        int offset = slot * SampleAccumulator.SIZE;
+                        if (values[offset + SampleAccumulator.COUNT] == 0) {
+                            continue;
+                        }
+                        Statistics[] statistics = zone.getStatistics(bands[b], classIds[c],
+                                ranges.get(r));
+                        for (int st = 0; st < statistics.length; st++) {
+                            if (simple[st]) {
+                                statistics[st].accumulateSamples(values, offset);
+                            } else if (local[st]) {
+                                statistics[st].merge(localStats[slot][st]);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /** Returns the ordinal of the selected class, adding it if not present */
+    private int getClassOrdinal(int classId) {
+        int mask = hashTable.length - 1;
+        int pos = hash(classId) & mask;
+        while (hashTable[pos] >= 0) {
+            int ordinal = hashTable[pos];
+            if (classIds[ordinal] == classId) {
+                return ordinal;
+            }
+            pos = (pos + 1) & mask;
+        }
+        // New class
+        if (numClasses == classIds.length) {
+            grow();
+            return getClassOrdinal(classId);
+        }
+        int ordinal = numClasses++;
+        classIds[ordinal] = classId;
+        hashTable[pos] = ordinal;
+        int first = ordinal * slotsPerClass;
+        for (int slot = first; slot < first + slotsPerClass; slot++) {
+            SampleAccumulator.reset(values, slot * SampleAccumulator.SIZE);
+        }
+        return ordinal;
+    }
+
+    /** Doubles the capacity of the class containers */
+    private void grow() {
+        int capacity = classIds.length * 2;
+        int[] newClassIds = new int[capacity];
+        System.arraycopy(classIds, 0, newClassIds, 0, numClasses);
+        classIds = newClassIds;
+
+        double[] newValues = new double[capacity * slotsPerClass * SampleAccumulator.SIZE];
+        System.arraycopy(values, 0, newValues, 0, values.length);
+        values = newValues;
+        if (hasLocal) {
+            Statistics[][] newLocal = new Statistics[capacity * slotsPerClass][];
+            System.arraycopy(localStats, 0, newLocal, 0, localStats.length);
+            localStats = newLocal;
+        }
+        if (hasShared) {
+            Statistics[][] newShared = new Statistics[capacity * slotsPerClass][];
+            System.arraycopy(sharedStats, 0, newShared, 0, sharedStats.length);
+            sharedStats = newShared;
+        }
+
+        // The hash table is rebuilt
+        hashTable = new int[capacity * 2];
+        Arrays.fill(hashTable, -1);
+        int mask = hashTable.length - 1;
+        for (int ordinal = 0; ordinal < numClasses; ordinal++) {
+            int pos = hash(classIds[ordinal]) & mask;
+            while (hashTable[pos] >= 0) {
+                pos = (pos + 1) & mask;
+            }
+            hashTable[pos] = ordinal;
+        }
+    }
+
+    /** Spreads the bits of the class value */
+    private static int hash(int classId) {
+        int h = classId * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -17,6 +17,7 @@
 */
 package it.geosolutions.jaiext.zonal;
 
+import java.awt.image.DataBuffer;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -64,10 +65,24 @@ public class ZoneGeometry {
 
     private List<Range> ranges;
 
+    /** Position of the zone inside the zone list of the operation */
+    private final int index;
+
+    /** Data type of the source image, used for selecting the exact calculation of the quantiles */
+    private final int dataType;
+
     ZoneGeometry(ROI roi, List<Range> ranges, int[] bands, StatsType[] stats, boolean classification, double[] minBounds,
             double[] maxBounds, int[] numbins) {
+        this(0, roi, ranges, bands, stats, classification, minBounds, maxBounds, numbins,
+                DataBuffer.TYPE_DOUBLE);
+    }
+
+    ZoneGeometry(int index, ROI roi, List<Range> ranges, int[] bands, StatsType[] stats, boolean classification,
+            double[] minBounds, double[] maxBounds, int[] numbins, int dataType) {
 
         // Setting of the parameters
+        this.index = index;
+        this.dataType = dataType;
         this.classification = classification;
         this.stats = stats;
         this.minBounds = minBounds;
@@ -87,19 +102,7 @@ public class ZoneGeometry {
                 Map<Range, Statistics[]> mapRange = new HashMap<Range, Statistics[]>();
                 
                 for(Range inputRange : ranges){
-                    
-                    
-                    Statistics[] statistics = new Statistics[stats.length];
-                    for (int st = 0; st < stats.length; st++) {
-                        int statId = stats[st].getStatsId();
-                        if (statId <= 6) {
-                            statistics[st] = StatsFactory.createSimpleStatisticsObjectFromInt(statId);
-                        } else {
-                            statistics[st] = StatsFactory.createComplexStatisticsObjectFromInt(statId,
-                                    minBounds[i], maxBounds[i], numbins[i]);
-                        }
-                    }                    
-                    mapRange.put(inputRange, statistics);
+                    mapRange.put(inputRange, createStatistics(i));
                 }                
                 mapClass.put(0, mapRange);
             }
@@ -108,42 +111,59 @@ public class ZoneGeometry {
     }
 
     public synchronized void  add(double sample, int band, int classId, Range dataRange) {
+        Statistics[] statistics = getStatistics(band, classId, dataRange);
+        // Update of the statistics
+        for (int st = 0; st < stats.length; st++) {
+            statistics[st].addSample(sample);
+        }
+    }
+
+    /**
+     * Returns the statistics associated to the selected band, class and range. If the classifier is present and a new Class is found, the
+     * statistics are created and inserted inside the related containers.
+     */
+    synchronized Statistics[] getStatistics(int band, int classId, Range dataRange) {
         // Selection of the map associated with the band indicated by the index
         Map<Integer, Map<Range, Statistics[]>> mapClass = statsContainer.get(band);
         // Selection of the Map associated with the zone indicated by the index
         // (always 0 if the classifier is not present)
         Map<Range, Statistics[]> mapRange = mapClass.get(classId);
-
-        // if the classifier is present and a new Class is founded, then a new statistics object is created
-        if (classification && mapRange == null) {
+        if (mapRange == null) {
             mapRange = new HashMap<Range, Statistics[]>();
-            Statistics[] statistics = new Statistics[stats.length];
-
-            for (int st = 0; st < stats.length; st++) {
-                int statId = stats[st].getStatsId();
-                if (statId <= 6) {
-                    statistics[st] = StatsFactory.createSimpleStatisticsObjectFromInt(statId);
-                } else {
-                    statistics[st] = StatsFactory.createComplexStatisticsObjectFromInt(statId,
-                            minBounds[band], maxBounds[band], numbins[band]);
-                }
-            }
-
-            // The updated statistics are inserted in the related containers
-            mapRange.put(dataRange, statistics);
             // Insertion of the MapRange if not present
             mapClass.put(classId, mapRange);
-            
-        }else{
-            // Selection of the 
-            Statistics[] statistics = mapRange.get(dataRange);
-            
-            // Update of the statistics
-            for (int st = 0; st < stats.length; st++) {
-                statistics[st].addSample(sample);
+        }
+        Statistics[] statistics = mapRange.get(dataRange);
+        if (statistics == null) {
+            statistics = createStatistics(band);
+            mapRange.put(dataRange, statistics);
+        }
+        return statistics;
+    }
+
+    /** Creates a new array containing all the selected statistics for the selected band */
+    Statistics[] createStatistics(int band) {
+        Statistics[] statistics = new Statistics[stats.length];
+        for (int st = 0; st < stats.length; st++) {
+            int statId = stats[st].getStatsId();
+            if (statId <= 6) {
+                statistics[st] = StatsFactory.createSimpleStatisticsObjectFromInt(statId);
+            } else {
+                statistics[st] = StatsFactory.createComplexStatisticsObjectFromInt(statId,
+                        minBounds[band], maxBounds[band], numbins[band], dataType);
             }
-            
         }
+        return statistics;
+    }
+
+    /** Returns the statistics types calculated for the zone */
+    StatsType[] getStatsTypes() {
+        return stats;
+    }
+
+    /** Returns the position of the zone inside the zone list of the operation */
+    int getIndex() {
+        return index;
     }
 
     /**
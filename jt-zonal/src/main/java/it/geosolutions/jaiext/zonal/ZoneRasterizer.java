@@ -0,0 +1,306 @@
+/* JAI-Ext - OpenSource Java Advanced Image Extensions Library
+*    http://www.geo-solutions.it/
+*    Copyright 2014 GeoSolutions
+
+
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+
+* http://www.apache.org/licenses/LICENSE-2.0
+
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package it.geosolutions.jaiext.zonal;
+
+import java.awt.Rectangle;
+import java.awt.Shape;
+import java.awt.geom.PathIterator;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.media.jai.ROI;
+import javax.media.jai.ROIShape;
+
+/**
+ * Utility class converting a zone {@link ROI} into the horizontal spans of the pixels it contains inside a selected rectangle. The spans of each
+ * row are stored as couples of start (inclusive) and end (exclusive) x coordinates. {@link ROIShape} objects are scan-converted directly from
+ * their outline, following the insideness rules of {@link Shape#contains(double, double)} at the integer pixel coordinates (curves are flattened
+ * before); for the other ROI types the rectangle list returned by {@link ROI#getAsRectangleList(int, int, int, int)} is used.
+ */
+final class ZoneRasterizer {
+
+    /** Maximum distance allowed between the flattened segments and the curves of a shape */
+    private static final double FLATNESS = 0.01;
+
+    private ZoneRasterizer() {
+    }
+
+    /**
+     * Returns, for each row of the selected rectangle, the spans of the pixels contained inside the ROI; the rows without pixels are
+     * <code>null</code>.
+     * 
+     * @param roi ROI to rasterize
+     * @param area rectangle to rasterize
+     */
+    static int[][] getSpans(ROI roi, Rectangle area) {
+        if (roi instanceof ROIShape) {
+            return getSpans(((ROIShape) roi).getAsShape(), area);
+        }
+        int[][] spans = new int[area.height][];
+        List rects;
+        // The ROI image may not be thread-safe
+        synchronized (roi) {
+            rects = roi.getAsRectangleList(area.x, area.y, area.width, area.height);
+        }
+        if (rects == null || rects.isEmpty()) {
+            return spans;
+        }
+        // The rectangles are burned into a mask in order to merge them
+        final int width = area.width;
+        byte[] mask = new byte[width * area.height];
+        for (Object obj : rects) {
+            Rectangle rect = area.intersection((Rectangle) obj);
+            for (int y = rect.y; y < rect.y + rect.height; y++) {
+                int pos = (y - area.y) * width - area.x;
+                for (int x = rect.x; x < rect.x + rect.width; x++) {
+                    mask[pos + x] = 1;
+                }
+            }
+        }
+        int[] row = new int[width + 1];
+        for (int y = 0; y < area.height; y++) {
+            int num = 0;
+            int pos = y * width;
+            for (int x = 0; x < width; x++) {
+                if (mask[pos + x] != 0) {
+                    if (num > 0 && row[num - 1] == area.x + x) {
+                        row[num - 1]++;
+                    } else {
+                        row[num++] = area.x + x;
+                        row[num++] = area.x + x + 1;
+                    }
+                }
+            }
+            spans[y] = copySpans(row, num);
+        }
+        return spans;
+    }
+
+    /**
+     * Scan-converts the selected shape. A pixel (x,y) is inside the shape if the winding number, computed at the point (x,y) by counting the edges
+     * crossing the row y on its right as in {@link Shape#contains(double, double)}, satisfies the winding rule of the shape. Each edge enters and
+     * leaves the active edge list only once, so the cost is proportional to the number of edges plus the number of crossings.
+     */
+    static int[][] getSpans(Shape shape, Rectangle area) {
+        final int minX = area.x;
+        final int maxX = area.x + area.width;
+        final int minY = area.y;
+        final int height = area.height;
+
+        int[][] spans = new int[height][];
+
+        // Collection of the edges of the shape, including the implicit closing ones
+        EdgeList edges = new EdgeList(minY, minY + height);
+        PathIterator it = shape.getPathIterator(null, FLATNESS);
+        final boolean nonZero = it.getWindingRule() == PathIterator.WIND_NON_ZERO;
+        double[] coords = new double[6];
+        double movX = 0;
+        double movY = 0;
+        double curX = 0;
+        double curY = 0;
+        while (!it.isDone()) {
+            switch (it.currentSegment(coords)) {
+            case PathIterator.SEG_MOVETO:
+                edges.add(curX, curY, movX, movY);
+                movX = curX = coords[0];
+                movY = curY = coords[1];
+                break;
+            case PathIterator.SEG_LINETO:
+                edges.add(curX, curY, coords[0], coords[1]);
+                curX = coords[0];
+                curY = coords[1];
+                break;
+            case PathIterator.SEG_CLOSE:
+                edges.add(curX, curY, movX, movY);
+                curX = movX;
+                curY = movY;
+                break;
+            default:
+                // Flattened iterators return only lines
+                throw new IllegalArgumentException("Unexpected path segment");
+            }
+            it.next();
+        }
+        edges.add(curX, curY, movX, movY);
+
+        final int numEdges = edges.size;
+        if (numEdges == 0) {
+            return spans;
+        }
+        final double[] data = edges.data;
+
+        // Each edge is linked to the first row it crosses
+        int[] firstEdge = new int[height];
+        Arrays.fill(firstEdge, -1);
+        int[] nextEdge = new int[numEdges];
+        for (int e = numEdges - 1; e >= 0; e--) {
+            int row = edges.firstRow[e] - minY;
+            nextEdge[e] = firstEdge[row];
+            firstEdge[row] = e;
+        }
+
+        // Active edges and their crossings on the current row
+        int[] active = new int[numEdges];
+        int numActive = 0;
+        int[] crossX = new int[numEdges];
+        int[] crossDir = new int[numEdges];
+        int[] row = new int[2 * numEdges + 2];
+
+        for (int y = 0; y < height; y++) {
+            final int py = minY + y;
+            // Removal of the edges ended before this row and insertion of the new ones
+            int n = 0;
+            for (int i = 0; i < numActive; i++) {
+                if (edges.lastRow[active[i]] > py) {
+                    active[n++] = active[i];
+                }
+            }
+            for (int e = firstEdge[y]; e >= 0; e = nextEdge[e]) {
+                active[n++] = e;
+            }
+            numActive = n;
+            if (numActive == 0) {
+                continue;
+            }
+            // Calculation of the crossings: an edge is counted for each pixel px lower than its crossing
+            int winding = 0;
+            for (int i = 0; i < numActive; i++) {
+                int e = active[i] * 4;
+                double x0 = data[e];
+                double y0 = data[e + 1];
+                double x1 = data[e + 2];
+                double y1 = data[e + 3];
+                double xintercept = x0 + (py - y0) * (x1 - x0) / (y1 - y0);
+                double limit = Math.min(Math.max(x0, x1), Math.max(Math.min(x0, x1), xintercept));
+                int k;
+                if (limit <= minX) {
+                    k = minX;
+                } else if (limit >= maxX) {
+                    k = maxX;
+                } else {
+                    k = (int) Math.ceil(limit);
+                }
+                int dir = y0 < y1 ? 1 : -1;
+                winding += dir;
+                // Insertion sort on the crossing position
+                int j = i;
+                while (j > 0 && crossX[j - 1] > k) {
+                    crossX[j] = crossX[j - 1];
+                    crossDir[j] = crossDir[j - 1];
+                    j--;
+                }
+                crossX[j] = k;
+                crossDir[j] = dir;
+            }
+            // Sweep from left to right, removing the crossings on the left of the current pixel
+            int num = 0;
+            int prev = minX;
+            for (int i = 0; i <= numActive; i++) {
+                int k = i < numActive ? crossX[i] : maxX;
+                if (k > prev) {
+                    if (nonZero ? winding != 0 : (winding & 1) != 0) {
+                        if (num > 0 && row[num - 1] == prev) {
+                            row[num - 1] = k;
+                        } else {
+                            row[num++] = prev;
+                            row[num++] = k;
+                        }
+                    }
+                    prev = k;
+                }
+                if (i < numActive) {
+                    winding -= crossDir[i];
+                }
+            }
+            spans[y] = copySpans(row, num);
+        }
+        return spans;
+    }
+
+    /** Copies the first spans of the input array, returning <code>null</code> if no span is present */
+    private static int[] copySpans(int[] row, int num) {
+        if (num == 0) {
+            return null;
+        }
+        int[] result = new int[num];
+        System.arraycopy(row, 0, result, 0, num);
+        return result;
+    }
+
+    /**
+     * Growable list of the not horizontal edges crossing at least one of the selected rows. A row y is crossed by an edge if y is between its
+     * minimum (inclusive) and maximum (exclusive) y coordinates.
+     */
+    private static final class EdgeList {
+
+        /** Edge coordinates stored as x0, y0, x1, y1 */
+        private double[] data = new double[64];
+
+        /** First row crossed by each edge */
+        private int[] firstRow = new int[16];
+
+        /** Row after the last one crossed by each edge */
+        private int[] lastRow = new int[16];
+
+        private int size;
+
+        private final int minY;
+
+        private final int maxY;
+
+        EdgeList(int minY, int maxY) {
+            this.minY = minY;
+            this.maxY = maxY;
+        }
+
+        void add(double x0, double y0, double x1, double y1) {
+            if (y0 == y1) {
+                return;
+            }
+            double top = Math.min(y0, y1);
+            double bottom = Math.max(y0, y1);
+            if (top >= maxY || bottom <= minY) {
+                return;
+            }
+            int first = Math.max(minY, (int) Math.ceil(top));
+            int last = Math.min(maxY, (int) Math.ceil(bottom));
+            if (first >= last) {
+                return;
+            }
+            if (size == firstRow.length) {
+                double[] newData = new double[data.length * 2];
+                System.arraycopy(data, 0, newData, 0, data.length);
+                data = newData;
+                int[] newFirst = new int[size * 2];
+                System.arraycopy(firstRow, 0, newFirst, 0, size);
+                firstRow = newFirst;
+                int[] newLast = new int[size * 2];
+                System.arraycopy(lastRow, 0, newLast, 0, size);
+                lastRow = newLast;
+            }
+            int pos = size * 4;
+            data[pos] = x0;
+            data[pos + 1] = y0;
+            data[pos + 2] = x1;
+            data[pos + 3] = y1;
+            firstRow[size] = first;
+            lastRow[size] = last;
+            size++;
+        }
+    }
+}
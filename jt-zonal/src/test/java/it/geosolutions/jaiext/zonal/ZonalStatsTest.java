@@ -18,16 +18,24 @@
 package it.geosolutions.jaiext.zonal;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import java.awt.Polygon;
 import java.awt.Rectangle;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.GeneralPath;
+import java.awt.image.ComponentSampleModel;
 import java.awt.image.DataBuffer;
 import java.awt.image.Raster;
 import java.awt.image.RenderedImage;
+import java.awt.image.SampleModel;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import javax.media.jai.ROI;
 import javax.media.jai.ROIShape;
+import javax.media.jai.TiledImage;
 import javax.media.jai.iterator.RandomIter;
 import it.geosolutions.jaiext.iterators.RandomIterFactory;
 import it.geosolutions.jaiext.range.Range;
@@ -548,8 +556,184 @@ public class ZonalStatsTest extends TestBase {
         assertEquals(4, stats.size());
     }
 
+    @Test
+    public void testFirstSampleOfNewClass() {
+        // The first sample of a class not yet found must be taken into account
+        Range range = RangeFactory.create(0d, true, 10d, true, false);
+        List<Range> ranges = new ArrayList<Range>();
+        ranges.add(range);
+        ZoneGeometry geom = new ZoneGeometry(new ROIShape(new Rectangle(0, 0, 10, 10)), ranges,
+                new int[] { 0 }, new StatsType[] { StatsType.MEAN, StatsType.SUM }, true,
+                new double[] { 0 }, new double[] { 10 }, new int[] { 10 });
+        geom.add(2, 0, 3, range);
+        geom.add(4, 0, 3, range);
+
+        Statistics[] stats = geom.getStatsPerBandPerClassPerRange(0, 3, range);
+        assertEquals(2, stats[0].getNumSamples().longValue());
+        assertEquals(3, (Double) stats[0].getResult(), TOLERANCE);
+        assertEquals(6, (Double) stats[1].getResult(), TOLERANCE);
+    }
+
+    @Test
+    public void testExactQuantilesForByte() {
+        // The quantiles of byte images must be calculated exactly
+        SampleModel sm = new ComponentSampleModel(DataBuffer.TYPE_BYTE, 5, 5, 1, 5,
+                new int[] { 0 });
+        TiledImage image = new TiledImage(sm, 5, 5);
+        for (int y = 0; y < 5; y++) {
+            for (int x = 0; x < 5; x++) {
+                image.setSample(x, y, 0, (x + 5 * y) * 10);
+            }
+        }
+        List<ROI> zones = new ArrayList<ROI>();
+        zones.add(new ROIShape(new Rectangle(0, 0, 5, 5)));
+
+        RenderedImage destination = ZonalStatsDescriptor.create(image, null, null, zones, null,
+                null, false, new int[] { 0 }, new StatsType[] { StatsType.QUANTILE_MEDIAN },
+                new double[] { 0 }, new double[] { 256 }, new int[] { 256 }, null, false, null);
+        List<ZoneGeometry> result = (List<ZoneGeometry>) destination
+                .getProperty(ZonalStatsDescriptor.ZS_PROPERTY);
+        Statistics[] stats = result.get(0).getStatsPerBandNoClassifierNoRange(0);
+        assertEquals(25, stats[0].getNumSamples().longValue());
+        assertEquals(120, (Double) stats[0].getResult(), 0);
+        image.dispose();
+    }
+
+    @Test
+    public void testConcurrentStatisticsRequests() throws InterruptedException {
+        // A request made while another one is computing the tiles must wait for all the statistics
+        List<ZoneGeometry> expected = getZonalStats(sourceIMG[0], roiList, false);
+        final RenderedImage destination = ZonalStatsDescriptor.create(sourceIMG[0], null, null,
+                roiList, null, null, false, bands,
+                new StatsType[] { StatsType.MEAN, StatsType.SUM }, null, null, null, null, false,
+                false, null);
+        final List[] results = new List[2];
+        Thread[] threads = new Thread[results.length];
+        for (int i = 0; i < threads.length; i++) {
+            final int index = i;
+            threads[i] = new Thread(new Runnable() {
+                public void run() {
+                    results[index] = (List) destination
+                            .getProperty(ZonalStatsDescriptor.ZS_PROPERTY);
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        for (List result : results) {
+            for (int z = 0; z < expected.size(); z++) {
+                Statistics[] statsE = expected.get(z).getStatsPerBandNoClassifierNoRange(0);
+                Statistics[] statsR = ((ZoneGeometry) result.get(z))
+                        .getStatsPerBandNoClassifierNoRange(0);
+                assertEquals(statsE[0].getNumSamples(), statsR[0].getNumSamples());
+                assertEquals((Double) statsE[1].getResult(), (Double) statsR[1].getResult(),
+                        TOLERANCE);
+            }
+        }
+    }
+
+    @Test
+    public void testRasterizedZones() {
+        // This test calculates zonal statistics rasterizing the geometries once per tile
+        for (int i = 0; i < sourceIMG.length; i++) {
+            testZonalStats(sourceIMG[i], CLASSIFIER, false, false, false, rangeList[i], true);
+            testZonalStats(sourceIMG[i], CLASSIFIER, true, false, false, rangeList[i], true);
+            testZonalStats(sourceIMG[i], CLASSIFIER, false, true, false, rangeList[i], true);
+            testZonalStats(sourceIMG[i], CLASSIFIER, true, true, true, rangeList[i], true);
+        }
+    }
+
+    @Test
+    public void testRasterizedGeometries() {
+        // This test checks that the rasterized polygonal and curved geometries contain the same pixels
+        // of the per-pixel containment check
+        List<ROI> shapes = new ArrayList<ROI>();
+        shapes.add(new ROIShape(new Polygon(new int[] { 3, 90, 40 }, new int[] { 7, 30, 120 }, 3)));
+        shapes.add(new ROIShape(new Ellipse2D.Double(20.5, 10.25, 150.5, 60.75)));
+        GeneralPath path = new GeneralPath(GeneralPath.WIND_NON_ZERO);
+        path.moveTo(10.5f, 10.5f);
+        path.lineTo(200.25f, 30.5f);
+        path.lineTo(60.75f, 180.5f);
+        path.lineTo(110.5f, 2.25f);
+        path.closePath();
+        shapes.add(new ROIShape(path));
+
+        for (int i = 0; i < sourceIMG.length; i++) {
+            List<ZoneGeometry> expected = getZonalStats(sourceIMG[i], shapes, false);
+            List<ZoneGeometry> rasterized = getZonalStats(sourceIMG[i], shapes, true);
+            for (int z = 0; z < shapes.size(); z++) {
+                Statistics[] statsE = expected.get(z).getStatsPerBandNoClassifierNoRange(0);
+                Statistics[] statsR = rasterized.get(z).getStatsPerBandNoClassifierNoRange(0);
+                // Same number of samples and same sum
+                assertEquals(statsE[0].getNumSamples(), statsR[0].getNumSamples());
+                assertEquals((Double) statsE[1].getResult(), (Double) statsR[1].getResult(),
+                        TOLERANCE);
+            }
+        }
+    }
+
+    @Test
+    public void testStreamingZonalStats() {
+        // This test checks that the zones calculated in batches have the same statistics of the zones
+        // calculated all together
+        final List<ROI> shapes = new ArrayList<ROI>();
+        for (int i = 0; i < 60; i++) {
+            // Zones not ordered spatially
+            int x = (i * 37) % (DEFAULT_WIDTH - 20);
+            int y = (i * 53) % (DEFAULT_HEIGHT - 20);
+            shapes.add(new ROIShape(new Rectangle(x, y, 5 + i % 15, 5 + i % 10)));
+        }
+        final StatsType[] statsTypes = new StatsType[] { StatsType.MEAN, StatsType.SUM };
+
+        for (int i = 0; i < sourceIMG.length; i++) {
+            final List<ZoneGeometry> expected = getZonalStats(sourceIMG[i], shapes, false);
+            StreamingZonalStats streaming = new StreamingZonalStats(sourceIMG[i], null, null,
+                    null, null, false, bands, statsTypes, null, null, null, null, false, true,
+                    null);
+            streaming.setBatchSize(7);
+            streaming.setMaxPendingZones(20);
+            final int[] calculated = new int[1];
+            long processed = streaming.process(shapes.iterator(), new ZonalStatsListener() {
+
+                public void batchCompleted(List<ZoneGeometry> zones, long[] zoneIndexes) {
+                    assertEquals(zones.size(), zoneIndexes.length);
+                    assertTrue(zones.size() <= 7);
+                    for (int z = 0; z < zones.size(); z++) {
+                        int index = (int) zoneIndexes[z];
+                        assertSame(shapes.get(index), zones.get(z).getROI());
+                        Statistics[] statsE = expected.get(index).getStatsPerBandNoClassifierNoRange(0);
+                        Statistics[] statsS = zones.get(z).getStatsPerBandNoClassifierNoRange(0);
+                        assertEquals(statsE[0].getNumSamples(), statsS[0].getNumSamples());
+                        assertEquals((Double) statsE[1].getResult(),
+                                (Double) statsS[1].getResult(), TOLERANCE);
+                        calculated[0]++;
+                    }
+                }
+            });
+            assertEquals(shapes.size(), processed);
+            assertEquals(shapes.size(), calculated[0]);
+        }
+    }
+
+    private List<ZoneGeometry> getZonalStats(RenderedImage source, List<ROI> shapes,
+            boolean rasterizeZones) {
+        RenderedImage destination = ZonalStatsDescriptor.create(source, null, null, shapes, null,
+                null, false, bands, new StatsType[] { StatsType.MEAN, StatsType.SUM }, null,
+                null, null, null, false, rasterizeZones, null);
+        return (List<ZoneGeometry>) destination.getProperty(ZonalStatsDescriptor.ZS_PROPERTY);
+    }
+
     public void testZonalStats(RenderedImage source, boolean classifierUsed,
             boolean noDataRangeUsed, boolean roiUsed, boolean useROIAccessor, List<Range> rangeList) {
+        testZonalStats(source, classifierUsed, noDataRangeUsed, roiUsed, useROIAccessor,
+                rangeList, false);
+    }
+
+    public void testZonalStats(RenderedImage source, boolean classifierUsed,
+            boolean noDataRangeUsed, boolean roiUsed, boolean useROIAccessor,
+            List<Range> rangeList, boolean rasterizeZones) {
 
         // The classifier is used, if selected by the related boolean.
         RenderedImage classifierIMG;
@@ -611,7 +795,7 @@ public class ZonalStatsTest extends TestBase {
         // Creation of the Image
         RenderedImage destination = ZonalStatsDescriptor.create(source, classifierIMG, null,
                 roiList, noDataRange, roi, useROIAccessor, bands, stats, minBound, maxBound,
-                numBins, rangeList, false, null);
+                numBins, rangeList, false, rasterizeZones, null);
         // Statistic calculation
         List<ZoneGeometry> result = (List<ZoneGeometry>) destination
                 .getProperty(ZonalStatsDescriptor.ZS_PROPERTY);